@@ -108,6 +108,12 @@ INSERT INTO `trainee` (`Id_Trainee`, `Login_Code`, `Id_Godfather`) VALUES
 (4, 'Trainee4', NULL),
 (5, 'Trainee5', NULL);
 
+--
+-- Anzahl der Nachwuchskräfte je Pate setzen
+--
+
+UPDATE `godfather` g SET g.`Current_Trainees` = (SELECT COUNT(*) FROM `trainee` t WHERE t.`Id_Godfather` = g.`Id_Godfather`);
+
 /*!40101 SET CHARACTER_SET_CLIENT=@OLD_CHARACTER_SET_CLIENT */;
 /*!40101 SET CHARACTER_SET_RESULTS=@OLD_CHARACTER_SET_RESULTS */;
 /*!40101 SET COLLATION_CONNECTION=@OLD_COLLATION_CONNECTION */;
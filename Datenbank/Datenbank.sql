@@ -61,6 +61,7 @@ CREATE TABLE IF NOT EXISTS `godfather` (
   `First_Name` varchar(50) NOT NULL,
   `Id_Location` int(10) UNSIGNED NOT NULL,
   `Max_Trainees` int(2) NOT NULL,
+  `Current_Trainees` int(2) NOT NULL DEFAULT '0',
   `Description` varchar(5000) DEFAULT NULL,
   `Id_Job` int(10) UNSIGNED NOT NULL,
   `Hiring_Date` date NOT NULL,
@@ -68,7 +69,11 @@ CREATE TABLE IF NOT EXISTS `godfather` (
   `Pick_Text` varchar(500) DEFAULT NULL,
   PRIMARY KEY (`Id_Godfather`),
   KEY `Id_Location` (`Id_Location`),
-  KEY `Id_Job` (`Id_Job`)
+  KEY `Id_Job` (`Id_Job`),
+  KEY `Occupancy` (`Current_Trainees`,`First_Name`,`Max_Trainees`),
+  KEY `Hiring_Date` (`Hiring_Date`),
+  KEY `Birthday` (`Birthday`,`Id_Godfather`),
+  KEY `Listing` (`Current_Trainees`,`First_Name`,`Id_Godfather`)
 ) ENGINE=InnoDB AUTO_INCREMENT=4 DEFAULT CHARSET=utf8;
 
 -- --------------------------------------------------------
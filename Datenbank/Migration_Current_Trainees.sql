@@ -0,0 +1,21 @@
+-- Migration einer bestehenden Datenbank `derpate`
+--
+-- Speichert die Anzahl der aktuellen Azubis jedes Paten in der neuen Spalte
+-- `Current_Trainees` (bisher bei jeder Abfrage mit COUNT(*) berechnet) und
+-- legt den Index `Occupancy` an.
+-- Kann mehrfach ausgeführt werden (MariaDB 10.0.2 oder neuer).
+
+USE `derpate`;
+
+--
+-- Spalte und Index für Tabelle `godfather`
+--
+ALTER TABLE `godfather`
+  ADD COLUMN IF NOT EXISTS `Current_Trainees` int(2) NOT NULL DEFAULT '0' AFTER `Max_Trainees`,
+  ADD KEY IF NOT EXISTS `Occupancy` (`Current_Trainees`,`First_Name`,`Max_Trainees`);
+
+--
+-- Aktuelle Azubis aus der Tabelle `trainee` übernehmen
+--
+UPDATE `godfather` g SET g.`Current_Trainees` =
+  (SELECT COUNT(*) FROM `trainee` t WHERE t.`Id_Godfather` = g.`Id_Godfather`);
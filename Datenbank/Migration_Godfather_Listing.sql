@@ -0,0 +1,18 @@
+-- Migration einer bestehenden Datenbank `derpate`
+--
+-- Legt die Indizes für die Sortierungen der Patenliste an, damit jede Seite
+-- (Keyset-Paging nach `Id_Godfather`) ohne Filesort aus dem Index gelesen wird:
+-- - `Listing`: Standard (aktuelle Azubis, Vorname, Id)
+-- - `Birthday`: Alter (Geburtstag absteigend, Id absteigend)
+-- Die Sortierung nach Ausbildungsjahr nutzt den Index `Hiring_Date`, an den
+-- InnoDB den Primärschlüssel anhängt.
+-- Kann mehrfach ausgeführt werden (MariaDB 10.0.2 oder neuer).
+
+USE `derpate`;
+
+--
+-- Indizes für Tabelle `godfather`
+--
+ALTER TABLE `godfather`
+  ADD KEY IF NOT EXISTS `Birthday` (`Birthday`,`Id_Godfather`),
+  ADD KEY IF NOT EXISTS `Listing` (`Current_Trainees`,`First_Name`,`Id_Godfather`);
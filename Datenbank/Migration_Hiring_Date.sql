@@ -0,0 +1,13 @@
+-- Migration einer bestehenden Datenbank `derpate`
+--
+-- Legt den Index `Hiring_Date` an, mit dem die Filter nach Ausbildungsjahr
+-- (Zeiträume des Einstellungsdatums) aus dem Index gelesen werden.
+-- Kann mehrfach ausgeführt werden (MariaDB 10.0.2 oder neuer).
+
+USE `derpate`;
+
+--
+-- Index für Tabelle `godfather`
+--
+ALTER TABLE `godfather`
+  ADD KEY IF NOT EXISTS `Hiring_Date` (`Hiring_Date`);
@@ -0,0 +1,99 @@
+package de.db.derPate.manager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+
+import de.db.derPate.Usermode;
+import de.db.derPate.model.LoginUser;
+import de.db.derPate.persistence.AdminDao;
+import de.db.derPate.persistence.GodfatherDao;
+import de.db.derPate.persistence.TraineeDao;
+import de.db.derPate.util.HibernateSessionFactoryUtil;
+
+/**
+ * Reports the average size of the login data in a serialized
+ * {@link javax.servlet.http.HttpSession} for all users in the database: before
+ * (the whole {@link LoginUser} with its associations) and after (the
+ * {@link SessionPrincipal}).<br>
+ * The entities don't implement {@link java.io.Serializable}, so containers
+ * using java serialization dropped them from persisted or replicated sessions.
+ * Their size is therefore measured as JSON (like session stores, that serialize
+ * attributes to JSON, would write them). The {@link SessionPrincipal} is
+ * measured both as JSON and with java serialization.<br>
+ * Run with (database configured like the application):
+ * <code>mvn -P benchmark test-compile exec:java -Dbenchmark.mainClass=de.db.derPate.manager.SessionSizeReport</code>
+ *
+ * @author MichelBlank
+ *
+ */
+@SuppressWarnings({ "javadoc", "nls", "null" })
+public class SessionSizeReport {
+	private static final Gson GSON = new Gson();
+
+	public static void main(String[] args) throws IOException {
+		Map<Usermode, List<? extends LoginUser>> users = new HashMap<>();
+		users.put(Usermode.ADMIN, AdminDao.getInstance().list());
+		users.put(Usermode.GODFATHER, GodfatherDao.getInstance().list());
+		users.put(Usermode.TRAINEE, TraineeDao.getInstance().list());
+
+		System.out.println(String.format("%-10s %6s %16s %16s %16s", "usermode", "users", "entity (json)",
+				"principal (json)", "principal (java)"));
+		List<LoginUser> all = new ArrayList<>();
+		for (Usermode usermode : Usermode.values()) {
+			List<? extends LoginUser> list = users.get(usermode);
+			all.addAll(list);
+			print(usermode.name(), report(list));
+		}
+		print("all", report(all));
+
+		HibernateSessionFactoryUtil.getSessionFactory().close();
+	}
+
+	/**
+	 * Returns the number of users and the average sizes in bytes: entity as JSON,
+	 * principal as JSON, principal with java serialization
+	 */
+	static double[] report(List<? extends LoginUser> users) throws IOException {
+		double[] result = new double[4];
+		LoginManager loginManager = LoginManager.getInstance();
+		for (LoginUser user : users) {
+			user.removeSecret(); // like LoginManager.login
+			SessionPrincipal principal = new SessionPrincipal(user.getId(), loginManager.getUsermode(user), 0);
+			result[1] += jsonSize(user);
+			result[2] += jsonSize(principal);
+			result[3] += javaSize(principal);
+		}
+		result[0] = users.size();
+		if (!users.isEmpty()) {
+			for (int i = 1; i < result.length; i++) {
+				result[i] /= users.size();
+			}
+		}
+		return result;
+	}
+
+	static int jsonSize(Object attribute) {
+		return GSON.toJson(attribute).getBytes(StandardCharsets.UTF_8).length;
+	}
+
+	static int javaSize(Object attribute) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(attribute);
+		}
+		return bytes.size();
+	}
+
+	private static void print(String name, double[] report) {
+		System.out.println(String.format("%-10s %6d %16.1f %16.1f %16.1f", name, Integer.valueOf((int) report[0]),
+				Double.valueOf(report[1]), Double.valueOf(report[2]), Double.valueOf(report[3])));
+	}
+}
@@ -0,0 +1,192 @@
+package de.db.derPate.servlet.traineeOnly;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+
+import de.db.derPate.model.Godfather;
+import de.db.derPate.model.Job;
+import de.db.derPate.model.Location;
+import de.db.derPate.model.TeachingType;
+import de.db.derPate.persistence.GodfatherFragmentStore;
+import de.db.derPate.util.DateUtil;
+import de.db.derPate.util.URIParameterEncryptionUtil;
+
+/**
+ * Compares the streamed json response of the {@link GodfatherServlet} with
+ * the json tree, that was built and converted into one string before. The
+ * utf-8 encoded response (utf8) is compared with the response assembled out of
+ * the stored json objects of the godfathers (fragments, see
+ * {@link GodfatherFragmentStore}). The
+ * allocation per response is reported by the gc profiler (gc.alloc.rate.norm in
+ * bytes per operation).<br>
+ * Allocation per response (bytes, JDK 17):
+ * <table>
+ * <tr><th>godfathers</th><th>tree</th><th>stream</th><th>utf8</th><th>fragments</th></tr>
+ * <tr><td>10</td><td>39,000</td><td>25,144</td><td>86,808</td><td>9,832</td></tr>
+ * <tr><td>1,000</td><td>3,973,416</td><td>2,520,184</td><td>7,785,048</td><td>103,240</td></tr>
+ * <tr><td>50,000</td><td>207,181,496</td><td>126,000,184</td><td>388,809,048</td><td>4,807,240</td></tr>
+ * </table>
+ * Needs the secret properties of the application (to encrypt the ids).<br>
+ * Run with: <code>mvn -P benchmark test-compile exec:java</code>
+ *
+ * @author MichelBlank
+ *
+ */
+@SuppressWarnings({ "javadoc", "nls", "null" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GodfatherJsonBenchmark {
+	@Param({ "10", "1000", "50000" })
+	public int godfathers;
+
+	private List<Godfather> list;
+	private GodfatherFragmentStore fragmentStore;
+	/**
+	 * Discards the output, like the response writer, after its buffer was sent
+	 */
+	private final Writer sink = new Writer() {
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			// discard
+		}
+
+		@Override
+		public void write(String str, int off, int len) {
+			// discard
+		}
+
+		@Override
+		public void flush() {
+			// nothing to flush
+		}
+
+		@Override
+		public void close() {
+			// nothing to close
+		}
+	};
+
+	/**
+	 * Discards the output, like the response stream, after its buffer was sent
+	 */
+	private final OutputStream byteSink = new OutputStream() {
+		@Override
+		public void write(int b) {
+			// discard
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			// discard
+		}
+	};
+
+	@Setup
+	public void setup() {
+		TeachingType teachingType = new TeachingType(1, "Ausbildung");
+		Job job = new Job(1, "Kaufmann/-frau für Büromanagement", teachingType);
+		Location location = new Location(1, "Frankfurt am Main");
+		Date hiringDate = new Date(1262304000000L);
+		Date birthday = new Date(631152000000L);
+
+		this.list = new ArrayList<>(this.godfathers);
+		for (int i = 1; i <= this.godfathers; i++) {
+			this.list.add(new Godfather(i, "pate" + i + "@example.org", "Nachname" + i, "Vorname" + i, location, 3,
+					"Beschreibung des Paten " + i, job, hiringDate, birthday, null));
+		}
+		this.fragmentStore = new GodfatherFragmentStore(GodfatherServlet::toJsonFragment);
+	}
+
+	@Benchmark
+	public void stream() throws IOException {
+		JsonWriter writer = new JsonWriter(this.sink);
+		writer.beginObject();
+		writer.name(GodfatherServlet.JSON_OUTPUT_GODFATHERS).beginArray();
+		for (Godfather godfather : this.list) {
+			GodfatherServlet.writeJson(writer, godfather, false);
+		}
+		writer.endArray();
+		writer.endObject();
+		writer.flush();
+	}
+
+	@Benchmark
+	public void utf8() throws IOException {
+		JsonWriter writer = new JsonWriter(new OutputStreamWriter(this.byteSink, StandardCharsets.UTF_8));
+		writer.beginObject();
+		writer.name(GodfatherServlet.JSON_OUTPUT_GODFATHERS).beginArray();
+		for (Godfather godfather : this.list) {
+			GodfatherServlet.writeJson(writer, godfather, false);
+		}
+		writer.endArray();
+		writer.endObject();
+		writer.flush();
+	}
+
+	@Benchmark
+	public void fragments() throws IOException {
+		JsonWriter writer = new JsonWriter(new OutputStreamWriter(this.byteSink, StandardCharsets.UTF_8));
+		writer.beginObject();
+		writer.name(GodfatherServlet.JSON_OUTPUT_GODFATHERS).beginArray();
+		writer.flush();
+		this.fragmentStore.write(this.byteSink, this.list);
+		writer.endArray();
+		writer.endObject();
+		writer.flush();
+	}
+
+	@Benchmark
+	public void tree() throws IOException {
+		JsonArray array = new JsonArray();
+		for (Godfather godfather : this.list) {
+			array.add(toJson(godfather));
+		}
+		JsonObject result = new JsonObject();
+		result.add(GodfatherServlet.JSON_OUTPUT_GODFATHERS, array);
+		this.sink.write(result.toString());
+	}
+
+	/**
+	 * The json tree of a godfather, as it was created before
+	 */
+	private static JsonObject toJson(Godfather godfather) {
+		JsonObject object = new JsonObject();
+		object.addProperty(GodfatherServlet.JSON_OUTPUT_ID, URIParameterEncryptionUtil.encrypt(godfather.getId()));
+		object.addProperty(GodfatherServlet.JSON_OUTPUT_FIRST_NAME, godfather.getFirstName());
+		object.addProperty(GodfatherServlet.JSON_OUTPUT_LOCATION_NAME, godfather.getLocation().getName());
+		Job job = godfather.getJob();
+		object.addProperty(GodfatherServlet.JSON_OUTPUT_TEACHING_TYPE_NAME, job.getTeachingType().getName());
+		object.addProperty(GodfatherServlet.JSON_OUTPUT_JOB_NAME, job.getName());
+		object.addProperty(GodfatherServlet.JSON_OUTPUT_EDUCATIONAL_YEAR, godfather.getEducationalYear());
+		object.addProperty(GodfatherServlet.JSON_OUTPUT_AGE, DateUtil.getYearDiff(godfather.getBirthday()));
+		object.addProperty(GodfatherServlet.JSON_OUTPUT_DESCRIPTION, godfather.getDescription());
+		return object;
+	}
+}
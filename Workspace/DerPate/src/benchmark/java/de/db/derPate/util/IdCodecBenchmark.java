@@ -0,0 +1,71 @@
+package de.db.derPate.util;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the {@link IdCodec} with the AES256 encryption, that was used by
+ * {@link URIParameterEncryptionUtil#encrypt(int)} before.<br>
+ * Run with: <code>mvn -P benchmark test-compile exec:java</code>
+ *
+ * @author MichelBlank
+ *
+ */
+@SuppressWarnings({ "javadoc", "nls", "null" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class IdCodecBenchmark {
+	private static final int ID = 4711;
+
+	private IdCodec codec;
+	private AES256EncryptionUtil aes256;
+	private String encoded;
+	private String encrypted;
+
+	@Setup
+	public void setup() {
+		byte[] key = new byte[32];
+		for (int i = 0; i < key.length; i++) {
+			key[i] = (byte) i;
+		}
+		this.codec = new IdCodec(Collections.singletonList(key));
+		this.aes256 = new AES256EncryptionUtil("benchmarkPassword", "0123456789abcdef");
+		this.encoded = this.codec.encode(ID);
+		this.encrypted = this.aes256.encrypt(Integer.toString(ID));
+	}
+
+	@Benchmark
+	public String encodeIdCodec() {
+		return this.codec.encode(ID);
+	}
+
+	@Benchmark
+	public Integer decodeIdCodec() {
+		return this.codec.decode(this.encoded);
+	}
+
+	@Benchmark
+	public String encryptAes256() {
+		return this.aes256.encrypt(Integer.toString(ID));
+	}
+
+	@Benchmark
+	public Integer decryptAes256() {
+		return NumberUtil.parseInteger(this.aes256.decrypt(this.encrypted));
+	}
+}
@@ -0,0 +1,82 @@
+package de.db.derPate.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.db.derPate.util.HashVerificationPool.Verification;
+
+/**
+ * Measures the login throughput (password checks per second with concurrent
+ * logins) depending on the number of PBKDF2 iterations, compared with the
+ * single SHA-256 hash, that was used before.<br>
+ * Run with: <code>mvn -P benchmark test-compile exec:java</code>
+ *
+ * @author MichelBlank
+ *
+ */
+@SuppressWarnings({ "javadoc", "nls", "null" })
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Threads(Threads.MAX)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+public class PasswordHashBenchmark {
+	private static final String PASSWORD = "benchmarkPassword";
+	private static final String SEPARATOR = ".";
+	private static final int SALT_LENGTH = 64;
+
+	@Param({ "10000", "100000", "310000", "600000" })
+	public int iterations;
+
+	private byte[] pepper;
+	private PBKDF2Util pbkdf2;
+	private String pbkdf2Hash;
+	private String sha256Hash;
+	private HashVerificationPool pool;
+
+	@Setup
+	public void setup() {
+		this.pbkdf2 = new PBKDF2Util(this.iterations);
+		this.pepper = this.pbkdf2.getRandomBytes(SALT_LENGTH);
+		this.pbkdf2Hash = this.pbkdf2.hash(PASSWORD, SALT_LENGTH, this.pepper, SEPARATOR);
+		this.sha256Hash = SHA256Util.getInstance().hash(PASSWORD, SALT_LENGTH, this.pepper, SEPARATOR);
+		int threads = Runtime.getRuntime().availableProcessors();
+		this.pool = new HashVerificationPool(this.pbkdf2, this.pepper, SEPARATOR, SALT_LENGTH, threads, 1000,
+				60000);
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.pool.shutdown();
+	}
+
+	@Benchmark
+	public boolean pbkdf2() {
+		return this.pbkdf2.isEqual(PASSWORD, this.pbkdf2Hash, this.pepper, SEPARATOR);
+	}
+
+	@Benchmark
+	public Verification pbkdf2Pool() {
+		return this.pool.verify(PASSWORD, this.pbkdf2Hash);
+	}
+
+	@Benchmark
+	public boolean sha256() {
+		return SHA256Util.getInstance().isEqual(PASSWORD, this.sha256Hash, this.pepper, SEPARATOR);
+	}
+}
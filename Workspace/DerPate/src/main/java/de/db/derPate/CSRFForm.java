@@ -10,7 +10,8 @@ import de.db.derPate.servlet.traineeOnly.GodfatherSelectServlet;
 /**
  * Enum used to identify a frontend-form, that uses csrf tokens. It set's how
  * many tokens are valid at the same time (for example when a user opens a page
- * multiple times)
+ * multiple times) and if the tokens are stored in the session or signed (see
+ * {@link #isSigned()})
  *
  * @author MichelBlank
  *
@@ -18,44 +19,56 @@ import de.db.derPate.servlet.traineeOnly.GodfatherSelectServlet;
 public enum CSRFForm {
 	/**
 	 * Login for all user types<br>
-	 * The token will be valid until the session ends
+	 * The token will be valid until the session ends (signed)
 	 *
 	 * @see LoginServlet
 	 */
-	LOGIN()
+	LOGIN(true)
 	/**
 	 * Logout<br>
-	 * A token is valid till the session ends (session based)
+	 * A token is valid till the session ends (session based, signed)
 	 *
 	 * @see LogoutServlet
 	 */
-	,LOGOUT()
+	,LOGOUT(true)
 	
 	/**
 	 * Form for Trainee to select a godfather<br>
-	 * This token will be valid until the session ends
+	 * This token will be valid until the session ends (signed)
 	 * 
 	 * @see GodfatherSelectServlet
 	 */
-	,TRAINEE_SELECT_GODFATHER()
+	,TRAINEE_SELECT_GODFATHER(true)
 	
 	/**
 	 * Form for godfather to updated the data of him/herself.<br>
-	 * This token will be valid until the session ends
+	 * This token will be valid until the session ends (signed)
 	 * 
 	 * @see GodfatherUpdateServlet
 	 */
-	,GODFATHER_UPDATE_SELF();
+	,GODFATHER_UPDATE_SELF(true);
 
 	private int maxCSRFTokens;
 	private boolean requestBased;
+	private boolean signed;
 
 	/**
-	 * Default: a session based CSRF token
+	 * Default: a session based CSRF token, that is stored in the session
 	 */
 	private CSRFForm() {
+		this(false);
+	}
+
+	/**
+	 * A session based CSRF token
+	 *
+	 * @param signed <code>true</code>, if the tokens should be signed instead of
+	 *               stored in the session
+	 */
+	private CSRFForm(boolean signed) {
 		this.maxCSRFTokens = 1;
 		this.requestBased = false;
+		this.signed = signed;
 	}
 
 	/**
@@ -65,11 +78,24 @@ public enum CSRFForm {
 	 *                      this form per session
 	 */
 	private CSRFForm(int maxCSRFTokens) {
+		this(maxCSRFTokens, false);
+	}
+
+	/**
+	 * If the maximum number of tokens is given, the token is request based.
+	 *
+	 * @param maxCSRFTokens the maximum number of tokens, that can be generated for
+	 *                      this form per session (only used, if not signed)
+	 * @param signed        <code>true</code>, if the tokens should be signed
+	 *                      instead of stored in the session
+	 */
+	private CSRFForm(int maxCSRFTokens, boolean signed) {
 		if (maxCSRFTokens < 1) {
 			maxCSRFTokens = Constants.Security.CSRF_DEFAULT_MAX_TOKENS;
 		}
 		this.maxCSRFTokens = maxCSRFTokens;
 		this.requestBased = true;
+		this.signed = signed;
 	}
 
 	/**
@@ -91,6 +117,20 @@ public enum CSRFForm {
 		return this.requestBased;
 	}
 
+	/**
+	 * Returns, if the CSRF tokens are signed (see
+	 * {@link de.db.derPate.util.CSRFTokenSigner}) instead of stored in the
+	 * session. Signed tokens are checked without reading or writing the session.
+	 * Request based signed tokens are single-use as well, but the number of
+	 * valid tokens per session is not limited (they expire instead).
+	 *
+	 * @return <code>true</code>, if tokens are signed; <code>false</code>, if
+	 *         they are stored in the session
+	 */
+	public boolean isSigned() {
+		return this.signed;
+	}
+
 	@SuppressWarnings("null")
 	@Override
 	@NonNull
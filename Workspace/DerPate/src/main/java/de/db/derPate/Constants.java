@@ -4,12 +4,14 @@ import java.nio.charset.Charset;
 import java.util.logging.Level;
 
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
 
 import de.db.derPate.manager.LoggingManager;
 import de.db.derPate.util.CSRFPreventionUtil;
 import de.db.derPate.util.HashUtil;
+import de.db.derPate.util.PBKDF2Util;
 import de.db.derPate.util.PropertyUtil;
-import de.db.derPate.util.SHA256Util;
+import de.db.derPate.util.URIParameterEncryptionUtil;
 
 /**
  * This class contains static attributes to use in fronted as well as in
@@ -68,6 +70,46 @@ public final class Constants {
 		public static final int CSRF_DEFAULT_MAX_TOKENS = SECURITY_PROPERTIES.getIntProperty("csrf.default_max_tokens", //$NON-NLS-1$
 				10);
 
+		/**
+		 * The key used to sign csrf tokens (base64 encoded, at least 32 bytes). Has to
+		 * be the same on all servers, that share sessions.<br>
+		 * If not set, a key is derived from {@link #ENCRYPTION_AES256_PASSWORD}.
+		 *
+		 * @see de.db.derPate.util.CSRFTokenSigner
+		 */
+		@Nullable
+		public static final String CSRF_SIGNING_KEY = SECRET_PROPERTIES.getProperty("csrf.signing_key", null); //$NON-NLS-1$
+
+		/**
+		 * Time in seconds, that a signed session based csrf token is valid (as long as
+		 * the session is valid)<br>
+		 * Default value, if property not found: 86400
+		 *
+		 * @see de.db.derPate.CSRFForm#isSigned()
+		 */
+		public static final int CSRF_SIGNED_MAX_AGE_SECONDS = SECURITY_PROPERTIES
+				.getIntProperty("csrf.signed.max_age", 86400); //$NON-NLS-1$
+
+		/**
+		 * Time in seconds, that a signed request based (single-use) csrf token is
+		 * valid<br>
+		 * Default value, if property not found: 3600
+		 *
+		 * @see de.db.derPate.CSRFForm#isSigned()
+		 */
+		public static final int CSRF_SIGNED_REQUEST_MAX_AGE_SECONDS = SECURITY_PROPERTIES
+				.getIntProperty("csrf.signed.request_max_age", 3600); //$NON-NLS-1$
+
+		/**
+		 * Maximum number of used single-use csrf tokens, that are remembered until
+		 * they expire<br>
+		 * Default value, if property not found: 100000
+		 *
+		 * @see de.db.derPate.util.ReplayWindow
+		 */
+		public static final int CSRF_REPLAY_WINDOW_SIZE = SECURITY_PROPERTIES
+				.getIntProperty("csrf.replay_window_size", 100000); //$NON-NLS-1$
+
 		/**
 		 * The password used for the default AES256 encryption.
 		 */
@@ -81,6 +123,71 @@ public final class Constants {
 		@NonNull
 		public static final String ENCRYPTION_AES256_SALT = SECRET_PROPERTIES.getProperty("encryption.aes256.salt"); //$NON-NLS-1$
 
+		/**
+		 * Maximum number of sessions, whose encryptors (with derived keys) are cached
+		 * for the session bound encryption of {@link URIParameterEncryptionUtil}.<br>
+		 * Default value, if property not found: 5000
+		 *
+		 * @see de.db.derPate.util.SessionEncryptorCache
+		 */
+		public static final int ENCRYPTION_SESSION_CACHE_SIZE = SECURITY_PROPERTIES
+				.getIntProperty("encryption.session_cache_size", 5000); //$NON-NLS-1$
+
+		/**
+		 * Maximum number of values, whose decryption with the default AES256
+		 * encryption of {@link URIParameterEncryptionUtil} is cached.<br>
+		 * Default value, if property not found: 1000
+		 *
+		 * @see de.db.derPate.util.CachingDecryptionUtil
+		 */
+		public static final int ENCRYPTION_DECRYPT_CACHE_SIZE = SECURITY_PROPERTIES
+				.getIntProperty("encryption.decrypt_cache.size", 1000); //$NON-NLS-1$
+
+		/**
+		 * Maximum number of values, that could not get decrypted with the default
+		 * AES256 encryption of {@link URIParameterEncryptionUtil} and are cached as
+		 * invalid.<br>
+		 * Default value, if property not found: 1000
+		 *
+		 * @see de.db.derPate.util.CachingDecryptionUtil
+		 */
+		public static final int ENCRYPTION_DECRYPT_CACHE_INVALID_SIZE = SECURITY_PROPERTIES
+				.getIntProperty("encryption.decrypt_cache.invalid_size", 1000); //$NON-NLS-1$
+
+		/**
+		 * Time in seconds, that the decryption of a value is cached.<br>
+		 * Default value, if property not found: 600
+		 *
+		 * @see de.db.derPate.util.CachingDecryptionUtil
+		 */
+		public static final int ENCRYPTION_DECRYPT_CACHE_MAX_AGE_SECONDS = SECURITY_PROPERTIES
+				.getIntProperty("encryption.decrypt_cache.max_age", 600); //$NON-NLS-1$
+
+		/**
+		 * The keys used to encode ids (comma-separated <code>tag:key</code> pairs,
+		 * e.g. <code>A:&lt;key&gt;,B:&lt;key&gt;</code>, with base64 encoded AES keys).
+		 * The tag is a character of the URL-safe base64 alphabet and is stored in
+		 * every encoded id. The last key is used for encoding, so a key can be
+		 * rotated by appending a new one with a new tag.<br>
+		 * If not set, a key is derived from {@link #ENCRYPTION_AES256_PASSWORD} and
+		 * {@link #ENCRYPTION_AES256_SALT}.
+		 *
+		 * @see de.db.derPate.util.IdCodec
+		 */
+		@Nullable
+		public static final String ENCRYPTION_ID_KEYS = SECRET_PROPERTIES.getProperty("encryption.id.keys", null); //$NON-NLS-1$
+
+		/**
+		 * The key used to encrypt the login cookie (base64 encoded, 32 bytes), if
+		 * {@link Login#STATELESS} is enabled. Has to be the same on all servers.<br>
+		 * Required, if {@link Login#STATELESS} is enabled (the application doesn't
+		 * start without it).
+		 *
+		 * @see de.db.derPate.util.SessionCookieCodec
+		 */
+		@Nullable
+		public static final String SESSION_COOKIE_KEY = SECRET_PROPERTIES.getProperty("session.cookie_key", null); //$NON-NLS-1$
+
 	}
 
 	/**
@@ -101,16 +208,154 @@ public final class Constants {
 		 * The password
 		 */
 		public static final String PASSWORD = SECRET_PROPERTIES.getProperty("database.password", ""); //$NON-NLS-1$ //$NON-NLS-2$
+
+		/**
+		 * Number of connections the pool keeps open, even if they are idle<br>
+		 * Default value, if property not found: 5
+		 */
+		public static final int POOL_MIN_SIZE = getPoolProperty("database.pool.min_size", 5); //$NON-NLS-1$
+		/**
+		 * Maximum number of connections the pool opens<br>
+		 * Default value, if property not found: 30
+		 */
+		public static final int POOL_MAX_SIZE = getPoolProperty("database.pool.max_size", 30); //$NON-NLS-1$
+		/**
+		 * Time in milliseconds, that a thread waits for a free connection, before
+		 * failing<br>
+		 * Default value, if property not found: 5000
+		 */
+		public static final int POOL_ACQUISITION_TIMEOUT_MILLIS = getPoolProperty("database.pool.acquisition_timeout", //$NON-NLS-1$
+				5000);
+		/**
+		 * Interval in seconds, in which idle connections get validated<br>
+		 * Default value, if property not found: 120
+		 */
+		public static final int POOL_VALIDATION_INTERVAL_SECONDS = getPoolProperty(
+				"database.pool.validation_interval", 120); //$NON-NLS-1$
+		/**
+		 * Time in seconds, after which a connection, that has not been returned to
+		 * the pool, is reported as a leak<br>
+		 * Default value, if property not found: 30
+		 */
+		public static final int POOL_LEAK_TIMEOUT_SECONDS = getPoolProperty("database.pool.leak_timeout", 30); //$NON-NLS-1$
+		/**
+		 * Time in seconds, after which idle connections (exceeding
+		 * {@link #POOL_MIN_SIZE}) get closed<br>
+		 * Default value, if property not found: 300
+		 */
+		public static final int POOL_REAP_TIMEOUT_SECONDS = getPoolProperty("database.pool.reap_timeout", 300); //$NON-NLS-1$
+		/**
+		 * Time in seconds, after which a connection gets closed and replaced<br>
+		 * Default value, if property not found: 1800
+		 */
+		public static final int POOL_MAX_LIFETIME_SECONDS = getPoolProperty("database.pool.max_lifetime", 1800); //$NON-NLS-1$
+
+		/**
+		 * Reads a pool setting. Values set in the secret properties (e.g. for a
+		 * specific server) override the ones of the application properties.
+		 *
+		 * @param key          Key
+		 * @param defaultValue default value
+		 * @return value
+		 */
+		private static int getPoolProperty(@NonNull String key, int defaultValue) {
+			return SECRET_PROPERTIES.getIntProperty(key, APPLICATION_PROPERTIES.getIntProperty(key, defaultValue));
+		}
 	}
 
 	/**
 	 * This class contains all static attributes related with the login.
 	 */
 	public static final class Login {
+		/**
+		 * Number of PBKDF2 iterations used for new password hashes. Can be increased
+		 * at any time, old hashes are replaced on the next login.<br>
+		 * Default value, if property not found: 310000
+		 *
+		 * @see PBKDF2Util
+		 */
+		public static final int HASH_ITERATIONS = SECURITY_PROPERTIES.getIntProperty("encryption.hash_iterations", //$NON-NLS-1$
+				310000);
+
 		/**
 		 * hash algorithm
 		 */
-		public static final HashUtil hashUtil = SHA256Util.getInstance();
+		public static final HashUtil hashUtil = PBKDF2Util.getInstance();
+
+		/**
+		 * Number of threads used to check passwords (0 uses one thread per
+		 * processor)<br>
+		 * Default value, if property not found: 0
+		 *
+		 * @see de.db.derPate.util.HashVerificationPool
+		 */
+		public static final int HASH_THREADS = SECURITY_PROPERTIES.getIntProperty("login.hash_threads", 0); //$NON-NLS-1$
+
+		/**
+		 * Maximum number of login attempts, that wait for a thread to check the
+		 * password. If exceeded, further login attempts are rejected.<br>
+		 * Default value, if property not found: 100
+		 *
+		 * @see de.db.derPate.util.HashVerificationPool
+		 */
+		public static final int HASH_QUEUE_SIZE = SECURITY_PROPERTIES.getIntProperty("login.hash_queue_size", 100); //$NON-NLS-1$
+
+		/**
+		 * Maximum time in milliseconds, that a login attempt waits for the password
+		 * check<br>
+		 * Default value, if property not found: 5000
+		 *
+		 * @see de.db.derPate.util.HashVerificationPool
+		 */
+		public static final int HASH_TIMEOUT_MILLIS = SECURITY_PROPERTIES.getIntProperty("login.hash_timeout", 5000); //$NON-NLS-1$
+
+		/**
+		 * Maximum number of login attempts per ip address in a burst<br>
+		 * Default value, if property not found: 30
+		 *
+		 * @see de.db.derPate.servlet.filter.RateLimitServletFilter
+		 */
+		public static final int RATE_LIMIT_ADDRESS_BURST = SECURITY_PROPERTIES
+				.getIntProperty("login.rate_limit.address.burst", 30); //$NON-NLS-1$
+
+		/**
+		 * Maximum number of login attempts per ip address and minute in the long term
+		 * (e.g. a kiosk, that is used by many trainees)<br>
+		 * Default value, if property not found: 30
+		 *
+		 * @see de.db.derPate.servlet.filter.RateLimitServletFilter
+		 */
+		public static final int RATE_LIMIT_ADDRESS_PER_MINUTE = SECURITY_PROPERTIES
+				.getIntProperty("login.rate_limit.address.per_minute", 30); //$NON-NLS-1$
+
+		/**
+		 * Maximum number of login attempts per email address or token in a burst<br>
+		 * Default value, if property not found: 5
+		 *
+		 * @see de.db.derPate.servlet.filter.RateLimitServletFilter
+		 */
+		public static final int RATE_LIMIT_USER_BURST = SECURITY_PROPERTIES.getIntProperty("login.rate_limit.user.burst", //$NON-NLS-1$
+				5);
+
+		/**
+		 * Maximum number of login attempts per email address or token and minute in
+		 * the long term<br>
+		 * Default value, if property not found: 5
+		 *
+		 * @see de.db.derPate.servlet.filter.RateLimitServletFilter
+		 */
+		public static final int RATE_LIMIT_USER_PER_MINUTE = SECURITY_PROPERTIES
+				.getIntProperty("login.rate_limit.user.per_minute", 5); //$NON-NLS-1$
+
+		/**
+		 * Maximum number of ip addresses and of email addresses/tokens, whose login
+		 * attempts are tracked<br>
+		 * Default value, if property not found: 10000
+		 *
+		 * @see de.db.derPate.util.RateLimiter
+		 */
+		public static final int RATE_LIMIT_MAX_KEYS = SECURITY_PROPERTIES.getIntProperty("login.rate_limit.max_keys", //$NON-NLS-1$
+				10000);
 
 		/**
 		 * Separator used to split hash and salt
@@ -135,6 +380,137 @@ public final class Constants {
 		 * Default value, if property not found: 600
 		 */
 		public static final int MAX_INACTIVE_SECONDS = SECURITY_PROPERTIES.getIntProperty("login.timeout", 600); //$NON-NLS-1$
+
+		/**
+		 * If enabled, the login is stored in an encrypted cookie instead of the
+		 * {@link javax.servlet.http.HttpSession}, so any server can handle any request
+		 * (without sticky sessions or session replication). Requires
+		 * {@link Security#SESSION_COOKIE_KEY}.<br>
+		 * A logout can't be enforced by the server: a copy of the cookie stays valid
+		 * until it expires (see {@link #MAX_INACTIVE_SECONDS} and
+		 * {@link #STATELESS_MAX_AGE_SECONDS}), even after the password was
+		 * changed.<br>
+		 * Default value, if property not found: false
+		 *
+		 * @see de.db.derPate.manager.LoginManager
+		 */
+		public static final boolean STATELESS = SECURITY_PROPERTIES.getBooleanProperty("login.stateless", false); //$NON-NLS-1$
+
+		/**
+		 * Time in seconds, after which the login cookie is renewed on activity (so it
+		 * expires {@link #MAX_INACTIVE_SECONDS} after the last activity)<br>
+		 * Default value, if property not found: 60
+		 */
+		public static final int STATELESS_RENEW_SECONDS = SECURITY_PROPERTIES
+				.getIntProperty("login.stateless.renew_after", 60); //$NON-NLS-1$
+
+		/**
+		 * Maximum time in seconds, that a login cookie can be renewed, before the user
+		 * has to login again<br>
+		 * Default value, if property not found: 43200
+		 */
+		public static final int STATELESS_MAX_AGE_SECONDS = SECURITY_PROPERTIES
+				.getIntProperty("login.stateless.max_age", 43200); //$NON-NLS-1$
+	}
+
+	/**
+	 * This class contains all static attributes related with caching
+	 */
+	public static final class Cache {
+		/**
+		 * Maximum time in seconds, that a snapshot of reference data (e.g. locations)
+		 * is used, before it gets reloaded out of the database<br>
+		 * Default value, if property not found: 300
+		 *
+		 * @see de.db.derPate.persistence.ReferenceDataCache
+		 */
+		public static final int REFERENCE_DATA_MAX_AGE_SECONDS = APPLICATION_PROPERTIES
+				.getIntProperty("cache.reference_data.max_age", 300); //$NON-NLS-1$
+
+		/**
+		 * Time in seconds, that an id, which is not part of the reference data, is
+		 * remembered as absent, so repeated lookups of it don't access the database
+		 * <br>
+		 * Default value, if property not found: 10
+		 *
+		 * @see de.db.derPate.persistence.ReferenceDataCache
+		 */
+		public static final int REFERENCE_DATA_ABSENT_MAX_AGE_SECONDS = APPLICATION_PROPERTIES
+				.getIntProperty("cache.reference_data.absent_max_age", 10); //$NON-NLS-1$
+
+		/**
+		 * Maximum number of absent ids, that are remembered per reference table<br>
+		 * Default value, if property not found: 1000
+		 *
+		 * @see de.db.derPate.persistence.ReferenceDataCache
+		 */
+		public static final int REFERENCE_DATA_ABSENT_MAX_ENTRIES = APPLICATION_PROPERTIES
+				.getIntProperty("cache.reference_data.absent_max_entries", 1000); //$NON-NLS-1$
+
+		/**
+		 * Maximum number of pages of available godfathers, that are cached (0
+		 * disables the cache)<br>
+		 * Default value, if property not found: 500
+		 *
+		 * @see de.db.derPate.persistence.GodfatherResultCache
+		 */
+		public static final int GODFATHER_RESULTS_MAX_ENTRIES = APPLICATION_PROPERTIES
+				.getIntProperty("cache.godfather_results.max_entries", 500); //$NON-NLS-1$
+
+		/**
+		 * Maximum time in seconds, that a page of available godfathers is cached.
+		 * Changes on this instance remove the pages immediately, so this only limits,
+		 * how long changes of other instances are not visible.<br>
+		 * Default value, if property not found: 30
+		 *
+		 * @see de.db.derPate.persistence.GodfatherResultCache
+		 */
+		public static final int GODFATHER_RESULTS_MAX_AGE_SECONDS = APPLICATION_PROPERTIES
+				.getIntProperty("cache.godfather_results.max_age", 30); //$NON-NLS-1$
+
+		/**
+		 * Maximum time in seconds, that clients cache static assets (e.g. bootstrap),
+		 * which are requested with the current {@link #ASSET_VERSION}<br>
+		 * Default value, if property not found: 31536000 (one year)
+		 *
+		 * @see de.db.derPate.servlet.filter.StaticAssetFilter
+		 */
+		public static final int ASSET_MAX_AGE_SECONDS = APPLICATION_PROPERTIES.getIntProperty("cache.assets.max_age", //$NON-NLS-1$
+				31536000);
+
+		/**
+		 * Version of the static assets, that is appended to their urls, so clients
+		 * load them again after a new build. Set by the build (time of the build), if
+		 * not set, the start time of the application is used.
+		 *
+		 * @see de.db.derPate.servlet.filter.StaticAssetFilter
+		 */
+		@NonNull
+		public static final String ASSET_VERSION;
+
+		static {
+			String version = APPLICATION_PROPERTIES.getProperty("cache.assets.version", null); //$NON-NLS-1$
+			// not filtered by the build (e.g. started out of the IDE)
+			if (version == null || version.isEmpty() || version.startsWith("${")) { //$NON-NLS-1$
+				version = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+			}
+			ASSET_VERSION = version;
+		}
+	}
+
+	/**
+	 * This class contains all static attributes related with the compression of
+	 * responses
+	 */
+	public static final class Compression {
+		/**
+		 * Minimum size in bytes of a response, that is compressed (smaller responses
+		 * don't get much smaller, but cost the compression)<br>
+		 * Default value, if property not found: 1024
+		 *
+		 * @see de.db.derPate.servlet.filter.CompressionFilter
+		 */
+		public static final int MIN_SIZE = APPLICATION_PROPERTIES.getIntProperty("compression.min_size", 1024); //$NON-NLS-1$
 	}
 
 	/**
@@ -146,5 +522,47 @@ public final class Constants {
 		 * time
 		 */
 		public static final int MAX_TRAINEES = APPLICATION_PROPERTIES.getIntProperty("godfather.max_trainees", 10); //$NON-NLS-1$
+
+		/**
+		 * Interval in seconds, in which the stored number of current trainees of all
+		 * godfathers is checked and repaired. <code>0</code> disables the check.<br>
+		 * Default value, if property not found: 3600
+		 *
+		 * @see de.db.derPate.persistence.GodfatherDao#reconcileCurrentTrainees()
+		 */
+		public static final int RECONCILIATION_INTERVAL_SECONDS = APPLICATION_PROPERTIES
+				.getIntProperty("godfather.reconciliation_interval", 3600); //$NON-NLS-1$
+
+		/**
+		 * If <code>true</code>, available godfathers are filtered by the in-memory
+		 * {@link de.db.derPate.persistence.GodfatherAvailabilityIndex} instead of the
+		 * database.<br>
+		 * Default value, if property not found: true
+		 */
+		public static final boolean IN_MEMORY_INDEX = Boolean
+				.parseBoolean(APPLICATION_PROPERTIES.getProperty("godfather.in_memory_index", "true")); //$NON-NLS-1$ //$NON-NLS-2$
+
+		/**
+		 * Time in seconds, after which the in-memory godfather index is rebuilt out of
+		 * the database (to pick up changes, that were not made by this
+		 * application).<br>
+		 * Default value, if property not found: 300
+		 */
+		public static final int INDEX_MAX_AGE_SECONDS = APPLICATION_PROPERTIES
+				.getIntProperty("godfather.index_max_age", 300); //$NON-NLS-1$
+
+		/**
+		 * Number of godfathers listed per page, if the client doesn't request a page
+		 * size.<br>
+		 * Default value, if property not found: 24
+		 */
+		public static final int PAGE_SIZE = APPLICATION_PROPERTIES.getIntProperty("godfather.page_size", 24); //$NON-NLS-1$
+
+		/**
+		 * Maximum number of godfathers listed per page, a client can request.<br>
+		 * Default value, if property not found: 100
+		 */
+		public static final int MAX_PAGE_SIZE = APPLICATION_PROPERTIES.getIntProperty("godfather.max_page_size", //$NON-NLS-1$
+				100);
 	}
 }
@@ -9,7 +9,10 @@ import de.db.derPate.model.Trainee;
 
 /**
  * This enum contains the three user-types to easily determine which user is
- * logged in.
+ * logged in.<br>
+ * Caution: The order is used to serialize a
+ * {@link de.db.derPate.manager.SessionPrincipal}, so new usermodes have to be
+ * appended.
  *
  * @author MichelBlank
  *
@@ -2,12 +2,10 @@ package de.db.derPate.handler;
 
 import java.io.IOException;
 
-import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
-
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 
+import de.db.derPate.servlet.RequestContext;
 import de.db.derPate.servlet.filter.ServletFilter;
 
 /**
@@ -37,14 +35,15 @@ public class FilterServletHandler {
 	/**
 	 * Checks, if all filters apply and returns the filter, that was failing.
 	 *
-	 * @param req the {@link HttpServletRequest} that should be checked
+	 * @param context the {@link RequestContext} of the request that should be
+	 *                checked
 	 * @return the {@link ServletFilter} that makes the request failing or
 	 *         <code>null</code>, if all filters apply
 	 */
 	@Nullable
-	public ServletFilter isValid(@NonNull HttpServletRequest req) {
+	public ServletFilter isValid(@NonNull RequestContext context) {
 		for (ServletFilter filter : this.filters) {
-			if (!filter.filter(req)) {
+			if (!filter.filter(context)) {
 				return filter;
 			}
 		}
@@ -53,22 +52,25 @@ public class FilterServletHandler {
 
 	/**
 	 * Uses the filters to check, if a request was valid and responds with an error
-	 * (set by {@link ServletFilter#getErrorStatusCode()}), if one of the filters
-	 * forbids request.
+	 * (see {@link ServletFilter#sendError(HttpServletRequest, HttpServletResponse)}),
+	 * if one of the filters forbids request. Otherwise calls
+	 * {@link ServletFilter#onAccepted(RequestContext)} of all filters.
 	 *
-	 * @param req  {@link HttpServletRequest}
-	 * @param resp {@link HttpServletResponse}
+	 * @param context {@link RequestContext} of the request
 	 * @return <code>true</code>, if all filters applied; <code>false</code>, if at
 	 *         least one filter forbids the request
 	 * @throws IOException if an input or output exception occurs, while sending
 	 *                     error
 	 */
-	public boolean handleFilter(@NonNull HttpServletRequest req, @NonNull HttpServletResponse resp) throws IOException {
-		ServletFilter filter = this.isValid(req);
+	public boolean handleFilter(@NonNull RequestContext context) throws IOException {
+		ServletFilter filter = this.isValid(context);
 		if (filter != null) {
-			resp.sendError(filter.getErrorStatusCode());
+			filter.sendError(context.getRequest(), context.getResponse());
 			return false;
 		}
+		for (ServletFilter acceptingFilter : this.filters) {
+			acceptingFilter.onAccepted(context);
+		}
 		return true;
 	}
 }
@@ -0,0 +1,28 @@
+package de.db.derPate.listener;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+import de.db.derPate.util.HashVerificationPool;
+
+/**
+ * This listener stops the threads of the {@link HashVerificationPool}, when the
+ * application is stopped.
+ *
+ * @author MichelBlank
+ *
+ */
+@WebListener
+public class HashVerificationPoolListener implements ServletContextListener {
+
+	@Override
+	public void contextInitialized(ServletContextEvent sce) {
+		// pool is created on first login
+	}
+
+	@Override
+	public void contextDestroyed(ServletContextEvent sce) {
+		HashVerificationPool.shutdownInstance();
+	}
+}
@@ -0,0 +1,29 @@
+package de.db.derPate.listener;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+import de.db.derPate.manager.LoginManager;
+
+/**
+ * This listener checks the login configuration (see
+ * {@link LoginManager#checkConfiguration()}), when the application is started.
+ * The application doesn't start, if it is invalid.
+ *
+ * @author MichelBlank
+ *
+ */
+@WebListener
+public class LoginConfigurationListener implements ServletContextListener {
+
+	@Override
+	public void contextInitialized(ServletContextEvent sce) {
+		LoginManager.checkConfiguration();
+	}
+
+	@Override
+	public void contextDestroyed(ServletContextEvent sce) {
+		// nothing to clean up
+	}
+}
@@ -0,0 +1,68 @@
+package de.db.derPate.listener;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+import de.db.derPate.Constants;
+import de.db.derPate.manager.LoggingManager;
+import de.db.derPate.persistence.GodfatherAvailabilityIndex;
+import de.db.derPate.persistence.GodfatherResultCache;
+import de.db.derPate.persistence.GodfatherDao;
+
+/**
+ * This listener starts a background job, that periodically repairs the number
+ * of current trainees stored for every godfather (see
+ * {@link GodfatherDao#reconcileCurrentTrainees()}).<br>
+ * The interval can be set with
+ * {@link Constants.Godfather#RECONCILIATION_INTERVAL_SECONDS}.
+ *
+ * @author MichelBlank
+ *
+ */
+@WebListener
+public class OccupancyReconciliationListener implements ServletContextListener {
+	private ScheduledExecutorService executor;
+
+	@Override
+	public void contextInitialized(ServletContextEvent sce) {
+		int interval = Constants.Godfather.RECONCILIATION_INTERVAL_SECONDS;
+		if (interval <= 0) {
+			return; // disabled
+		}
+
+		this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "occupancy-reconciliation"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.executor.scheduleWithFixedDelay(OccupancyReconciliationListener::reconcile, interval, interval,
+				TimeUnit.SECONDS);
+	}
+
+	@Override
+	public void contextDestroyed(ServletContextEvent sce) {
+		if (this.executor != null) {
+			this.executor.shutdownNow();
+		}
+	}
+
+	private static void reconcile() {
+		try {
+			int repaired = GodfatherDao.getInstance().reconcileCurrentTrainees();
+			if (repaired > 0) {
+				LoggingManager.log(Level.WARNING, "Repaired number of current trainees of " + repaired + " godfathers"); //$NON-NLS-1$ //$NON-NLS-2$
+				GodfatherAvailabilityIndex.getInstance().invalidate();
+				GodfatherResultCache.getInstance().invalidateAll();
+			}
+		} catch (RuntimeException e) {
+			// keep the job running
+			LoggingManager.log(Level.WARNING, "Error reconciling current trainees: " + e.getMessage()); //$NON-NLS-1$
+		}
+	}
+}
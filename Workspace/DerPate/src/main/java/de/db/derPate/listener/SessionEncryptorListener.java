@@ -0,0 +1,31 @@
+package de.db.derPate.listener;
+
+import javax.servlet.annotation.WebListener;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionEvent;
+import javax.servlet.http.HttpSessionListener;
+
+import de.db.derPate.util.SessionEncryptorCache;
+import de.db.derPate.util.URIParameterEncryptionUtil;
+
+/**
+ * This listener removes the cached encryptors of a {@link HttpSession}, when it
+ * is destroyed (see {@link SessionEncryptorCache}).
+ *
+ * @author MichelBlank
+ *
+ */
+@WebListener
+public class SessionEncryptorListener implements HttpSessionListener {
+
+	@Override
+	public void sessionCreated(HttpSessionEvent se) {
+		// encryptors are created on first use
+	}
+
+	@SuppressWarnings("null")
+	@Override
+	public void sessionDestroyed(HttpSessionEvent se) {
+		URIParameterEncryptionUtil.removeSessionEncryptors(se.getSession());
+	}
+}
@@ -0,0 +1,177 @@
+package de.db.derPate.manager;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.db.derPate.Usermode;
+
+/**
+ * This class contains the data of the login cookie, that is used instead of the
+ * {@link javax.servlet.http.HttpSession}, if
+ * {@link de.db.derPate.Constants.Login#STATELESS} is enabled: the
+ * {@link SessionPrincipal}, a random id used to bind csrf tokens to the login
+ * (like the session id), the time of the login and the time, the cookie was
+ * issued. The cookie is encrypted by a
+ * {@link de.db.derPate.util.SessionCookieCodec}.<br>
+ * Objects of this class are immutable.
+ *
+ * @author MichelBlank
+ * @see LoginManager
+ */
+final class LoginCookie {
+	/**
+	 * Version of the format, changed when the format changes
+	 */
+	private static final byte FORMAT = 1;
+	private static final int BINDING_LENGTH = 12;
+	private static final int LENGTH = 1 + 4 + 1 + 4 + BINDING_LENGTH + 8 + 8;
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	@NonNull
+	private final SessionPrincipal principal;
+	private final byte[] binding;
+	private final long loginTime;
+	private final long issued;
+
+	/**
+	 * Constructor
+	 *
+	 * @param principal {@link SessionPrincipal}
+	 * @param binding   random id (12 bytes)
+	 * @param loginTime time of the login in seconds
+	 * @param issued    time in seconds, the cookie was issued
+	 */
+	private LoginCookie(@NonNull SessionPrincipal principal, byte[] binding, long loginTime, long issued) {
+		this.principal = principal;
+		this.binding = binding;
+		this.loginTime = loginTime;
+		this.issued = issued;
+	}
+
+	/**
+	 * Creates the cookie of a new login
+	 *
+	 * @param principal {@link SessionPrincipal}
+	 * @param now       current time in seconds
+	 * @return {@link LoginCookie}
+	 */
+	@NonNull
+	static LoginCookie login(@NonNull SessionPrincipal principal, long now) {
+		byte[] binding = new byte[BINDING_LENGTH];
+		RANDOM.nextBytes(binding);
+		return new LoginCookie(principal, binding, now, now);
+	}
+
+	/**
+	 * Creates a new cookie of the same login (e.g. to extend it)
+	 *
+	 * @param newPrincipal {@link SessionPrincipal} (e.g. with a new version)
+	 * @param now          current time in seconds
+	 * @return {@link LoginCookie}
+	 */
+	@NonNull
+	LoginCookie renew(@NonNull SessionPrincipal newPrincipal, long now) {
+		return new LoginCookie(newPrincipal, this.binding, this.loginTime, now);
+	}
+
+	/**
+	 * Returns the {@link SessionPrincipal}
+	 *
+	 * @return {@link SessionPrincipal}
+	 */
+	@NonNull
+	SessionPrincipal getPrincipal() {
+		return this.principal;
+	}
+
+	/**
+	 * Returns the random id of the login, used to bind csrf tokens
+	 *
+	 * @return id (URL-safe)
+	 */
+	@SuppressWarnings("null")
+	@NonNull
+	String getBindingId() {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(this.binding);
+	}
+
+	/**
+	 * Checks, if the cookie is still valid
+	 *
+	 * @param now                current time in seconds
+	 * @param maxInactiveSeconds time in seconds, after which a cookie, that wasn't
+	 *                           renewed, expires
+	 * @param maxAgeSeconds      time in seconds, after which a login expires
+	 * @return <code>true</code>, if valid
+	 */
+	boolean isValid(long now, long maxInactiveSeconds, long maxAgeSeconds) {
+		return now < this.issued + maxInactiveSeconds && now < this.loginTime + maxAgeSeconds
+				&& now >= this.loginTime - 60; // allow some clock skew between servers
+	}
+
+	/**
+	 * Checks, if the cookie should be renewed
+	 *
+	 * @param now               current time in seconds
+	 * @param renewAfterSeconds time in seconds, after which a cookie is renewed
+	 * @return <code>true</code>, if it should be renewed
+	 */
+	boolean needsRenewal(long now, long renewAfterSeconds) {
+		return now >= this.issued + renewAfterSeconds;
+	}
+
+	/**
+	 * Serializes the cookie
+	 *
+	 * @return bytes
+	 */
+	byte[] toBytes() {
+		ByteBuffer buffer = ByteBuffer.allocate(LENGTH);
+		buffer.put(FORMAT);
+		buffer.putInt(this.principal.getId());
+		buffer.put((byte) this.principal.getUsermode().ordinal());
+		buffer.putInt(this.principal.getVersion());
+		buffer.put(this.binding);
+		buffer.putLong(this.loginTime);
+		buffer.putLong(this.issued);
+		return buffer.array();
+	}
+
+	/**
+	 * Deserializes a cookie
+	 *
+	 * @param bytes bytes created by {@link #toBytes()}
+	 * @return {@link LoginCookie} or <code>null</code>, if the bytes are no valid
+	 *         cookie
+	 */
+	@Nullable
+	static LoginCookie fromBytes(@Nullable byte[] bytes) {
+		if (bytes == null || bytes.length != LENGTH) {
+			return null;
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		if (buffer.get() != FORMAT) {
+			return null;
+		}
+		int id = buffer.getInt();
+		int ordinal = buffer.get();
+		int version = buffer.getInt();
+		byte[] binding = new byte[BINDING_LENGTH];
+		buffer.get(binding);
+		long loginTime = buffer.getLong();
+		long issued = buffer.getLong();
+
+		Usermode[] usermodes = Usermode.values();
+		if (ordinal < 0 || ordinal >= usermodes.length) {
+			return null;
+		}
+		@SuppressWarnings("null")
+		@NonNull
+		Usermode usermode = usermodes[ordinal];
+		return new LoginCookie(new SessionPrincipal(id, usermode, version), binding, loginTime, issued);
+	}
+}
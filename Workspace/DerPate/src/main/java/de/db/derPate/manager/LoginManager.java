@@ -1,9 +1,12 @@
 package de.db.derPate.manager;
 
-import java.util.Arrays;
+import java.security.SecureRandom;
+import java.util.Base64;
 import java.util.logging.Level;
 
+import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
 import org.eclipse.jdt.annotation.NonNull;
@@ -15,26 +18,82 @@ import de.db.derPate.model.Admin;
 import de.db.derPate.model.Godfather;
 import de.db.derPate.model.LoginUser;
 import de.db.derPate.model.Trainee;
+import de.db.derPate.persistence.AdminDao;
+import de.db.derPate.persistence.GodfatherDao;
+import de.db.derPate.persistence.TraineeDao;
+import de.db.derPate.persistence.UnitOfWork;
+import de.db.derPate.util.SessionCookieCodec;
 
 /**
  * This class is used to read and write login data (see {@link LoginUser}) to
  * the client's {@link HttpSession}.<br>
+ * Only a {@link SessionPrincipal} is stored in the session; the
+ * {@link LoginUser} is loaded by its dao, when it is needed (which usually hits
+ * the second-level cache).<br>
+ * If {@link Constants.Login#STATELESS} is enabled, the {@link SessionPrincipal}
+ * is stored in an encrypted cookie ({@value #COOKIE_LOGIN}, see
+ * {@link LoginCookie}) instead, which is renewed on activity. Then no session
+ * is needed to login, so any server can handle any request. A stateless login
+ * can't be revoked by the server: logging out removes the cookie, but a copy of
+ * it stays valid, until it expires (after
+ * {@link Constants.Login#MAX_INACTIVE_SECONDS} without renewal, at the latest
+ * {@link Constants.Login#STATELESS_MAX_AGE_SECONDS} after the login). Only
+ * deleting the user ends all of its logins immediately, as the
+ * {@link LoginUser} is loaded on demand.<br>
+ * The methods taking a {@link HttpServletRequest} work in both modes, the
+ * methods taking a {@link HttpSession} only without
+ * {@link Constants.Login#STATELESS}.<br>
  * Pattern: Singleton
  *
  * @author MichelBlank
  * @see LoginUser
+ * @see SessionPrincipal
  */
 public class LoginManager {
+	/**
+	 * Name of the cookie containing the login, if {@link Constants.Login#STATELESS}
+	 * is enabled
+	 */
+	public static final String COOKIE_LOGIN = "derPate_login"; //$NON-NLS-1$
+	/**
+	 * Name of the cookie containing a random id, that csrf tokens are bound to
+	 * before login, if {@link Constants.Login#STATELESS} is enabled
+	 */
+	public static final String COOKIE_CSRF = "derPate_csrf"; //$NON-NLS-1$
+	/**
+	 * Request attribute caching the {@link LoginCookie} of the request (or
+	 * {@link #NO_LOGIN})
+	 */
+	private static final String ATTRIBUTE_LOGIN = LoginManager.class.getName() + ".login"; //$NON-NLS-1$
+	/**
+	 * Request attribute containing the csrf binding id, that was created in this
+	 * request
+	 */
+	private static final String ATTRIBUTE_CSRF_ID = LoginManager.class.getName() + ".csrfId"; //$NON-NLS-1$
+	/**
+	 * Marker for requests without a valid {@link LoginCookie}
+	 */
+	private static final Object NO_LOGIN = new Object();
+	/**
+	 * Length of random csrf binding ids in bytes
+	 */
+	private static final int CSRF_ID_LENGTH = 12;
+	private static final SecureRandom RANDOM = new SecureRandom();
+
 	/**
 	 * Stores static instance
 	 */
 	@NonNull
 	private static LoginManager instance;
 	/**
-	 * Key used to store the user in the session
+	 * Key used to store the {@link SessionPrincipal} in the session
 	 */
 	@NonNull
 	private final String userKey;
+	/**
+	 * @see Constants.Login#STATELESS
+	 */
+	private final boolean stateless;
 
 	/**
 	 * Static constructor
@@ -48,6 +107,7 @@ public class LoginManager {
 	 */
 	private LoginManager() {
 		this.userKey = "user"; //$NON-NLS-1$
+		this.stateless = Constants.Login.STATELESS;
 	}
 
 	/**
@@ -61,29 +121,119 @@ public class LoginManager {
 	}
 
 	/**
-	 * Returns {@link LoginUser} that is connected with this session. May return
-	 * <b>null</b>, if user was not logged in.
+	 * Returns {@link SessionPrincipal} that is connected with this session. May
+	 * return <b>null</b>, if user was not logged in.
 	 *
-	 * @param session Session of which the {@link LoginUser} should be read from
-	 * @return {@link LoginUser} or <code>null</code>, if given {@link HttpSession}
-	 *         was null or user was not properly logged in
+	 * @param session Session of which the {@link SessionPrincipal} should be read
+	 *                from
+	 * @return {@link SessionPrincipal} or <code>null</code>, if given
+	 *         {@link HttpSession} was null or user was not properly logged in
 	 */
-	@SuppressWarnings({ "null", "unchecked" })
 	@Nullable
-	public <T extends LoginUser> T getUserBySession(final @Nullable HttpSession session) {
-		T user = null;
+	public SessionPrincipal getPrincipal(final @Nullable HttpSession session) {
+		SessionPrincipal principal = null;
 		if (session != null) {
 			try {
-				user = (T) session.getAttribute(this.userKey);
-			} catch (IllegalStateException | ClassCastException e) {
+				Object attribute = session.getAttribute(this.userKey);
+				if (attribute instanceof SessionPrincipal) {
+					principal = (SessionPrincipal) attribute;
+				}
+			} catch (IllegalStateException e) {
 				LoggingManager.log(Level.INFO, "Could not get user due to an session error: " + e.getMessage()); //$NON-NLS-1$
 			}
 		}
-		return user;
+		return principal;
+	}
+
+	/**
+	 * Returns {@link LoginUser} that is connected with this session. May return
+	 * <b>null</b>, if user was not logged in.<br>
+	 * The {@link LoginUser} is loaded on every call (without its secret, see
+	 * {@link LoginUser#removeSecret()}), so it is up to date, but changes to it
+	 * are not stored in the session.
+	 *
+	 * @param session Session of which the {@link LoginUser} should be read from
+	 * @return {@link LoginUser} or <code>null</code>, if given {@link HttpSession}
+	 *         was null, user was not properly logged in or doesn't exist anymore
+	 */
+	@Nullable
+	public <T extends LoginUser> T getUserBySession(final @Nullable HttpSession session) {
+		return this.getUser(this.getPrincipal(session));
+	}
+
+	/**
+	 * Returns the {@link SessionPrincipal} of the logged in user (out of the login
+	 * cookie or the session, see {@link Constants.Login#STATELESS}). Doesn't
+	 * create a session.
+	 *
+	 * @param request the {@link HttpServletRequest}
+	 * @return {@link SessionPrincipal} or <code>null</code>, if user is not logged
+	 *         in
+	 */
+	@Nullable
+	public SessionPrincipal getPrincipal(@NonNull HttpServletRequest request) {
+		if (!this.stateless) {
+			return this.getPrincipal(request.getSession(false));
+		}
+		LoginCookie cookie = getLoginCookie(request);
+		return cookie != null ? cookie.getPrincipal() : null;
+	}
+
+	/**
+	 * Returns the logged in {@link LoginUser} (see
+	 * {@link #getUserBySession(HttpSession)}, which is loaded on every call)
+	 *
+	 * @param request the {@link HttpServletRequest}
+	 * @return {@link LoginUser} or <code>null</code>, if user is not logged in or
+	 *         doesn't exist anymore
+	 */
+	@Nullable
+	public <T extends LoginUser> T getUser(@NonNull HttpServletRequest request) {
+		return this.getUser(this.getPrincipal(request));
+	}
+
+	/**
+	 * Loads the {@link LoginUser} of a {@link SessionPrincipal} (without its
+	 * secret). The {@link LoginUser} is detached from the {@link UnitOfWork}, so
+	 * it can't be written to the database by later changes of the unit of work.
+	 *
+	 * @param principal the {@link SessionPrincipal}
+	 * @return {@link LoginUser} or <code>null</code>, if principal was
+	 *         <code>null</code> or user doesn't exist anymore
+	 */
+	@SuppressWarnings({ "unchecked" })
+	@Nullable
+	public <T extends LoginUser> T getUser(@Nullable SessionPrincipal principal) {
+		if (principal == null) {
+			return null;
+		}
+
+		LoginUser user = null;
+		switch (principal.getUsermode()) {
+		case ADMIN:
+			user = AdminDao.getInstance().byId(principal.getId());
+			break;
+		case GODFATHER:
+			user = GodfatherDao.getInstance().byId(principal.getId());
+			break;
+		case TRAINEE:
+			user = TraineeDao.getInstance().byId(principal.getId());
+			break;
+		default:
+			break;
+		}
+
+		if (user == null) {
+			LoggingManager.log(Level.INFO, "Logged in user doesn't exist anymore: " + principal); //$NON-NLS-1$
+			return null;
+		}
+		removeSecret(user);
+		return (T) user;
 	}
 
 	/**
-	 * Connects {@link HttpSession} with {@link LoginUser}<br>
+	 * Connects {@link HttpSession} with {@link LoginUser} (by storing a
+	 * {@link SessionPrincipal})<br>
 	 * Caution: This will call the {@link LoginUser#removeSecret()}-method.
 	 *
 	 * @param request {@link HttpServletRequest}
@@ -94,12 +244,13 @@ public class LoginManager {
 	public boolean login(@Nullable HttpServletRequest request, @NonNull LoginUser user) {
 		boolean success = false;
 
-		if (request != null) {
+		Usermode usermode = this.getUsermode(user);
+		if (request != null && usermode != null) {
 			try {
 				HttpSession session = newSession(request); // creates new session to prevent session hijacking
 				if (session != null) {
-					user.removeSecret(); // remove password from user to prevent unwanted use
-					session.setAttribute(this.userKey, user);
+					removeSecret(user); // remove password from user to prevent unwanted use
+					session.setAttribute(this.userKey, new SessionPrincipal(user.getId(), usermode, 0));
 					session.setMaxInactiveInterval(Constants.Login.MAX_INACTIVE_SECONDS);
 
 					success = true;
@@ -119,37 +270,7 @@ public class LoginManager {
 	 *         is not or given {@link HttpSession} was null
 	 */
 	public boolean isLoggedIn(@Nullable HttpSession session) {
-		boolean success = false;
-		if (session != null) {
-			try {
-				Object potentialUser = session.getAttribute(this.userKey);
-				success = (potentialUser != null && potentialUser instanceof LoginUser); // user is logged in, when
-																							// session contains an user
-																							// object
-			} catch (IllegalStateException e) {
-				LoggingManager.log(Level.INFO, "Could not read login status out of session: " + e.getMessage()); //$NON-NLS-1$
-			}
-		}
-		return success;
-	}
-
-	/**
-	 * Checks if the user, that is logged in with the given HttpSession, is a user
-	 * of the given Usermode.
-	 *
-	 * @param session  the {@link HttpSession}
-	 * @param usermode the allowed {@link Usermode}s
-	 * @return <code>true</code>, if the found {@link LoginUser} is a user of the
-	 *         given {@link Usermode}; <code>false</code>, if not or no
-	 *         {@link Usermode} was set.
-	 */
-	public boolean isUserOfSessionInUsermode(@Nullable HttpSession session, @Nullable Usermode... usermode) {
-		boolean success = false;
-		LoginUser user = this.getUserBySession(session);
-		if (user != null && usermode != null) {
-			success = Arrays.asList(usermode).contains(this.getUsermode(user));
-		}
-		return success;
+		return this.getPrincipal(session) != null; // user is logged in, when session contains a principal
 	}
 
 	/**
@@ -195,24 +316,322 @@ public class LoginManager {
 	}
 
 	/**
-	 * Updates the user connected with the session.<br>
+	 * Marks the user connected with the session as updated, after it was written
+	 * to the database. As the {@link LoginUser} is loaded on demand, only the
+	 * version of the {@link SessionPrincipal} is increased, so that containers,
+	 * which persist or replicate sessions, write the session again.<br>
 	 * The id and type of user have to be the same!<br>
 	 * Caution: This will call the {@link LoginUser#removeSecret()}-method.
-	 * 
+	 *
 	 * @param session the {@link HttpSession}
-	 * @param user    the {@link LoginUser} to replace
+	 * @param user    the updated {@link LoginUser}
 	 */
 	public void update(@Nullable HttpSession session, @NonNull final LoginUser user) {
-		LoginUser currentUser = this.getUserBySession(session);
-		if (session != null && currentUser != null) {
-			if (this.getUsermode(user) == this.getUsermode(currentUser) && currentUser.getId() == user.getId()) {
-				session.removeAttribute(this.userKey);
-				user.removeSecret();
-				session.setAttribute(this.userKey, user);
+		SessionPrincipal principal = this.getPrincipal(session);
+		if (session != null && principal != null) {
+			if (this.getUsermode(user) == principal.getUsermode() && principal.getId() == user.getId()) {
+				removeSecret(user);
+				try {
+					session.setAttribute(this.userKey, principal.nextVersion());
+				} catch (IllegalStateException e) {
+					LoggingManager.log(Level.INFO, "Could not update user due to an session error: " + e.getMessage()); //$NON-NLS-1$
+				}
 			}
 		}
 	}
 
+	/**
+	 * Connects the client with {@link LoginUser}: stores a {@link LoginCookie}, if
+	 * {@link Constants.Login#STATELESS} is enabled, otherwise see
+	 * {@link #login(HttpServletRequest, LoginUser)}.<br>
+	 * Caution: This will call the {@link LoginUser#removeSecret()}-method.
+	 *
+	 * @param request  {@link HttpServletRequest}
+	 * @param response {@link HttpServletResponse}
+	 * @param user     {@link LoginUser}
+	 * @return <code>true</code>, if successful; <code>false</code> if an error
+	 *         occurred
+	 */
+	public boolean login(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+			@NonNull LoginUser user) {
+		if (!this.stateless) {
+			return this.login(request, user);
+		}
+
+		Usermode usermode = this.getUsermode(user);
+		if (usermode == null) {
+			return false;
+		}
+		invalidateSession(request); // csrf tokens of the anonymous session shouldn't be used anymore
+		removeSecret(user); // remove password from user to prevent unwanted use
+		writeLoginCookie(request, response,
+				LoginCookie.login(new SessionPrincipal(user.getId(), usermode, 0), now()));
+		return true;
+	}
+
+	/**
+	 * Returns current login status (see {@link Constants.Login#STATELESS}). Doesn't
+	 * create a session.
+	 *
+	 * @param request {@link HttpServletRequest}
+	 * @return <code>true</code>, if user is logged in; <code>false</code>, if not
+	 */
+	public boolean isLoggedIn(@NonNull HttpServletRequest request) {
+		return this.getPrincipal(request) != null;
+	}
+
+	/**
+	 * Logs the client out: removes the login cookie (see
+	 * {@link Constants.Login#STATELESS}) and destroys the session, if one exists.
+	 *
+	 * @param request  {@link HttpServletRequest}
+	 * @param response {@link HttpServletResponse}
+	 * @return <code>true</code>, if successful; <code>false</code>, if an error
+	 *         occurred or user was not logged in
+	 */
+	public boolean logout(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response) {
+		if (!this.stateless) {
+			return this.logout(request.getSession(false));
+		}
+
+		boolean success = this.isLoggedIn(request);
+		request.setAttribute(ATTRIBUTE_LOGIN, NO_LOGIN);
+		writeCookie(request, response, COOKIE_LOGIN, "", 0); //$NON-NLS-1$
+		invalidateSession(request);
+		return success;
+	}
+
+	/**
+	 * Marks the logged in user as updated (see
+	 * {@link #update(HttpSession, LoginUser)}). If
+	 * {@link Constants.Login#STATELESS} is enabled, the login cookie is renewed.
+	 * <br>
+	 * Caution: This will call the {@link LoginUser#removeSecret()}-method.
+	 *
+	 * @param request  the {@link HttpServletRequest}
+	 * @param response the {@link HttpServletResponse}
+	 * @param user     the updated {@link LoginUser}
+	 */
+	public void update(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+			@NonNull final LoginUser user) {
+		if (!this.stateless) {
+			this.update(request.getSession(false), user);
+			return;
+		}
+
+		LoginCookie cookie = getLoginCookie(request);
+		if (cookie != null) {
+			SessionPrincipal principal = cookie.getPrincipal();
+			if (this.getUsermode(user) == principal.getUsermode() && principal.getId() == user.getId()) {
+				removeSecret(user);
+				writeLoginCookie(request, response, cookie.renew(principal.nextVersion(), now()));
+			}
+		}
+	}
+
+	/**
+	 * Renews the login cookie, if {@link Constants.Login#STATELESS} is enabled and
+	 * it was issued more than {@link Constants.Login#STATELESS_RENEW_SECONDS} ago,
+	 * so it only expires after {@link Constants.Login#MAX_INACTIVE_SECONDS} of
+	 * inactivity. Should be called on every request of a logged in user (before
+	 * the response is committed). Sessions are extended by the container.
+	 *
+	 * @param request  the {@link HttpServletRequest}
+	 * @param response the {@link HttpServletResponse}
+	 */
+	public void renew(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response) {
+		if (this.stateless) {
+			LoginCookie cookie = getLoginCookie(request);
+			long now = now();
+			if (cookie != null && cookie.needsRenewal(now, Constants.Login.STATELESS_RENEW_SECONDS)) {
+				writeLoginCookie(request, response, cookie.renew(cookie.getPrincipal(), now));
+			}
+		}
+	}
+
+	/**
+	 * Returns the id, that csrf tokens are bound to: the session id or, if
+	 * {@link Constants.Login#STATELESS} is enabled, a random id of the login or
+	 * of the {@value #COOKIE_CSRF} cookie. Doesn't create a session.
+	 *
+	 * @param request the {@link HttpServletRequest}
+	 * @return id or <code>null</code>, if client has none
+	 */
+	@Nullable
+	public String getCsrfBindingId(@NonNull HttpServletRequest request) {
+		if (!this.stateless) {
+			HttpSession session = request.getSession(false);
+			return session != null ? session.getId() : null;
+		}
+
+		LoginCookie cookie = getLoginCookie(request);
+		if (cookie != null) {
+			return cookie.getBindingId();
+		}
+		Object created = request.getAttribute(ATTRIBUTE_CSRF_ID);
+		if (created instanceof String) {
+			return (String) created;
+		}
+		String id = getCookie(request, COOKIE_CSRF);
+		return id != null && id.length() == CSRF_ID_LENGTH / 3 * 4 ? id : null;
+	}
+
+	/**
+	 * Returns the id, that csrf tokens are bound to (see
+	 * {@link #getCsrfBindingId(HttpServletRequest)}) and creates it, if client has
+	 * none: a new session or, if {@link Constants.Login#STATELESS} is enabled, a
+	 * {@value #COOKIE_CSRF} cookie.
+	 *
+	 * @param request  the {@link HttpServletRequest}
+	 * @param response the {@link HttpServletResponse}
+	 * @return id
+	 */
+	@SuppressWarnings("null")
+	@NonNull
+	public String getCsrfBindingId(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response) {
+		String id = this.getCsrfBindingId(request);
+		if (id == null) {
+			if (!this.stateless) {
+				id = request.getSession(true).getId();
+			} else {
+				byte[] random = new byte[CSRF_ID_LENGTH];
+				RANDOM.nextBytes(random);
+				id = Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+				request.setAttribute(ATTRIBUTE_CSRF_ID, id);
+				writeCookie(request, response, COOKIE_CSRF, id, -1);
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * Returns, if {@link Constants.Login#STATELESS} is enabled
+	 *
+	 * @return <code>true</code>, if login is stored in a cookie
+	 */
+	public boolean isStateless() {
+		return this.stateless;
+	}
+
+	/**
+	 * Returns the valid {@link LoginCookie} of the request (cached in the request)
+	 *
+	 * @param request the {@link HttpServletRequest}
+	 * @return {@link LoginCookie} or <code>null</code>, if there is no valid one
+	 */
+	@Nullable
+	private static LoginCookie getLoginCookie(@NonNull HttpServletRequest request) {
+		Object cached = request.getAttribute(ATTRIBUTE_LOGIN);
+		if (cached == null) {
+			LoginCookie cookie = LoginCookie.fromBytes(Stateless.CODEC.decode(getCookie(request, COOKIE_LOGIN)));
+			if (cookie != null && !cookie.isValid(now(), Constants.Login.MAX_INACTIVE_SECONDS,
+					Constants.Login.STATELESS_MAX_AGE_SECONDS)) {
+				cookie = null;
+			}
+			cached = cookie != null ? cookie : NO_LOGIN;
+			request.setAttribute(ATTRIBUTE_LOGIN, cached);
+		}
+		return cached instanceof LoginCookie ? (LoginCookie) cached : null;
+	}
+
+	/**
+	 * Encrypts the {@link LoginCookie} and sends it to the client
+	 *
+	 * @param request  the {@link HttpServletRequest}
+	 * @param response the {@link HttpServletResponse}
+	 * @param cookie   the {@link LoginCookie}
+	 */
+	private static void writeLoginCookie(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+			@NonNull LoginCookie cookie) {
+		request.setAttribute(ATTRIBUTE_LOGIN, cookie);
+		writeCookie(request, response, COOKIE_LOGIN, Stateless.CODEC.encode(cookie.toBytes()), -1);
+	}
+
+	/**
+	 * Returns the value of a cookie
+	 *
+	 * @param request the {@link HttpServletRequest}
+	 * @param name    name of the cookie
+	 * @return value or <code>null</code>, if cookie was not sent
+	 */
+	@Nullable
+	private static String getCookie(@NonNull HttpServletRequest request, @NonNull String name) {
+		Cookie[] cookies = request.getCookies();
+		if (cookies != null) {
+			for (Cookie cookie : cookies) {
+				if (name.equals(cookie.getName())) {
+					return cookie.getValue();
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Sends a cookie, that can't be read by scripts and is not sent by cross-site
+	 * requests (the header is written directly, as {@link Cookie} doesn't support
+	 * the SameSite attribute)
+	 *
+	 * @param request  the {@link HttpServletRequest}
+	 * @param response the {@link HttpServletResponse}
+	 * @param name     name of the cookie
+	 * @param value    value of the cookie (URL-safe)
+	 * @param maxAge   maximum age in seconds (0 removes the cookie, a negative
+	 *                 value keeps it until the browser is closed)
+	 */
+	private static void writeCookie(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+			@NonNull String name, @NonNull String value, int maxAge) {
+		String path = request.getContextPath();
+		StringBuilder header = new StringBuilder(name).append('=').append(value);
+		header.append("; Path=").append(path == null || path.isEmpty() ? "/" : path); //$NON-NLS-1$ //$NON-NLS-2$
+		if (maxAge >= 0) {
+			header.append("; Max-Age=").append(maxAge); //$NON-NLS-1$
+		}
+		if (request.isSecure()) {
+			header.append("; Secure"); //$NON-NLS-1$
+		}
+		header.append("; HttpOnly; SameSite=Lax"); //$NON-NLS-1$
+		response.addHeader("Set-Cookie", header.toString()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Destroys the session of the request, if one exists
+	 *
+	 * @param request the {@link HttpServletRequest}
+	 */
+	private static void invalidateSession(@NonNull HttpServletRequest request) {
+		HttpSession session = request.getSession(false);
+		if (session != null) {
+			try {
+				session.invalidate();
+			} catch (IllegalStateException e) {
+				// already invalidated
+			}
+		}
+	}
+
+	/**
+	 * Removes the secret of the {@link LoginUser} (see
+	 * {@link LoginUser#removeSecret()}). The user is detached from the
+	 * {@link UnitOfWork} before, as the removed secret would be written to the
+	 * database by the next flush otherwise.
+	 *
+	 * @param user the {@link LoginUser}
+	 */
+	private static void removeSecret(@NonNull LoginUser user) {
+		UnitOfWork.detach(user);
+		user.removeSecret();
+	}
+
+	/**
+	 * Returns the current time in seconds
+	 *
+	 * @return seconds
+	 */
+	private static long now() {
+		return System.currentTimeMillis() / 1000;
+	}
+
 	/**
 	 * Destroys old session and creates a new one to prevent session hijacking.<br>
 	 * Should be called before every login and after every logout.<br>
@@ -233,4 +652,54 @@ public class LoginManager {
 		}
 		return newSession;
 	}
+
+	/**
+	 * Checks, that {@link Constants.Login#STATELESS} can be used: the key of the
+	 * login cookie ({@link Constants.Security#SESSION_COOKIE_KEY}) has to be
+	 * configured. Called on startup, so a missing key is noticed before the first
+	 * login.
+	 *
+	 * @throws IllegalStateException if {@link Constants.Login#STATELESS} is
+	 *                               enabled and no valid key is configured
+	 */
+	public static void checkConfiguration() throws IllegalStateException {
+		if (Constants.Login.STATELESS) {
+			Stateless.createCodec();
+		}
+	}
+
+	/**
+	 * Holds the codec of the login cookie, which is created, when
+	 * {@link Constants.Login#STATELESS} is used the first time
+	 */
+	private static final class Stateless {
+		/**
+		 * Codec using the key of {@link Constants.Security#SESSION_COOKIE_KEY}
+		 */
+		@NonNull
+		static final SessionCookieCodec CODEC = createCodec();
+
+		/**
+		 * Creates the codec using the key of
+		 * {@link Constants.Security#SESSION_COOKIE_KEY}. There is no fallback, as a
+		 * key derived from another secret would differ between servers configured
+		 * differently and would be exposed together with that secret.
+		 *
+		 * @return {@link SessionCookieCodec}
+		 * @throws IllegalStateException if the key is missing or invalid
+		 */
+		@NonNull
+		static SessionCookieCodec createCodec() throws IllegalStateException {
+			String key = Constants.Security.SESSION_COOKIE_KEY;
+			if (key == null || key.trim().isEmpty()) {
+				throw new IllegalStateException(
+						"login.stateless requires session.cookie_key (base64 encoded, 32 bytes)"); //$NON-NLS-1$
+			}
+			try {
+				return new SessionCookieCodec(Base64.getDecoder().decode(key.trim()));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalStateException("Invalid session.cookie_key: " + e.getMessage(), e); //$NON-NLS-1$
+			}
+		}
+	}
 }
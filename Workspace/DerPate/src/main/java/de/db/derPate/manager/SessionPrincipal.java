@@ -0,0 +1,120 @@
+package de.db.derPate.manager;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.db.derPate.Usermode;
+import de.db.derPate.model.LoginUser;
+
+/**
+ * This class is stored in the {@link javax.servlet.http.HttpSession} instead of
+ * the {@link LoginUser} itself. It only contains the id and {@link Usermode} of
+ * the user, so the session stays small and can be serialized (e.g. to persist
+ * or replicate it) cheaply. The {@link LoginUser} is loaded, when it is needed
+ * (see {@link LoginManager#getUserBySession(javax.servlet.http.HttpSession)}).
+ * <br>
+ * Objects of this class are immutable.
+ *
+ * @author MichelBlank
+ * @see LoginManager
+ */
+public final class SessionPrincipal implements Externalizable {
+	/**
+	 * Default serial version UID
+	 */
+	private static final long serialVersionUID = 1L;
+	private int id;
+	@Nullable
+	private Usermode usermode;
+	private int version;
+
+	/**
+	 * Default constructor used for deserialization
+	 */
+	public SessionPrincipal() {
+		// fields are read by readExternal
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param id       id of the {@link LoginUser}
+	 * @param usermode {@link Usermode} of the {@link LoginUser}
+	 * @param version  number of updates of the {@link LoginUser} since login
+	 */
+	public SessionPrincipal(int id, @NonNull Usermode usermode, int version) {
+		this.id = id;
+		this.usermode = usermode;
+		this.version = version;
+	}
+
+	/**
+	 * Returns the id of the {@link LoginUser}
+	 *
+	 * @return id
+	 */
+	public int getId() {
+		return this.id;
+	}
+
+	/**
+	 * Returns the {@link Usermode} of the {@link LoginUser}
+	 *
+	 * @return {@link Usermode}
+	 */
+	@SuppressWarnings("null")
+	@NonNull
+	public Usermode getUsermode() {
+		return this.usermode;
+	}
+
+	/**
+	 * Returns the number of updates of the {@link LoginUser} since login (see
+	 * {@link LoginManager#update(javax.servlet.http.HttpSession, LoginUser)})
+	 *
+	 * @return version
+	 */
+	public int getVersion() {
+		return this.version;
+	}
+
+	/**
+	 * Returns a copy of this principal with the next version
+	 *
+	 * @return {@link SessionPrincipal}
+	 */
+	@NonNull
+	public SessionPrincipal nextVersion() {
+		return new SessionPrincipal(this.id, getUsermode(), this.version + 1);
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeInt(this.id);
+		out.writeByte(getUsermode().ordinal());
+		out.writeInt(this.version);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException {
+		this.id = in.readInt();
+		int ordinal = in.readByte();
+		Usermode[] usermodes = Usermode.values();
+		if (ordinal < 0 || ordinal >= usermodes.length) {
+			throw new InvalidObjectException("Unknown usermode: " + ordinal); //$NON-NLS-1$
+		}
+		this.usermode = usermodes[ordinal];
+		this.version = in.readInt();
+	}
+
+	@Override
+	public String toString() {
+		return this.usermode + "#" + this.id + " (version " + this.version + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
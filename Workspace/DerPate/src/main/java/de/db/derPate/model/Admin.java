@@ -1,12 +1,16 @@
 package de.db.derPate.model;
 
 import javax.persistence.AttributeOverride;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Table;
 import javax.servlet.http.HttpSession;
 
 import org.eclipse.jdt.annotation.NonNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalIdCache;
 
 import de.db.derPate.manager.LoginManager;
 
@@ -20,6 +24,9 @@ import de.db.derPate.manager.LoginManager;
  */
 @Entity
 @Table(name = "admin")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 @AttributeOverride(name = "id", column = @Column(name = "Id_Admin"))
 @AttributeOverride(name = "email", column = @Column(name = "Email"))
 @AttributeOverride(name = "password", column = @Column(name = "Password"))
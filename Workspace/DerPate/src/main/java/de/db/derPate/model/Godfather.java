@@ -3,21 +3,28 @@ package de.db.derPate.model;
 import java.sql.Date;
 
 import javax.persistence.AttributeOverride;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.Table;
 import javax.persistence.Transient;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
-import org.hibernate.annotations.Formula;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import com.google.gson.annotations.Expose;
 
 import de.db.derPate.manager.LoginManager;
+import de.db.derPate.util.DateUtil;
 
 /**
  * This dataclass is used for the godfather login and profile edit and for
@@ -27,10 +34,21 @@ import de.db.derPate.manager.LoginManager;
  */
 @Entity
 @Table(name = "Godfather")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 @AttributeOverride(name = "id", column = @Column(name = "Id_Godfather"))
 @AttributeOverride(name = "email", column = @Column(name = "Email"))
 @AttributeOverride(name = "password", column = @Column(name = "Password"))
+@NamedEntityGraph(name = Godfather.GRAPH_DETAILS, attributeNodes = { @NamedAttributeNode("location"),
+		@NamedAttributeNode(value = "job", subgraph = "job") }, subgraphs = @NamedSubgraph(name = "job", attributeNodes = @NamedAttributeNode("teachingType")))
 public class Godfather extends EmailPasswordLoginUser {
+	/**
+	 * Name of the entity graph containing the {@link Location}, the {@link Job}
+	 * and its {@link TeachingType}
+	 */
+	public static final String GRAPH_DETAILS = "Godfather.details"; //$NON-NLS-1$
+
 	@Nullable
 	@Column(name = "Last_Name", nullable = false)
 	@Expose
@@ -47,7 +65,12 @@ public class Godfather extends EmailPasswordLoginUser {
 	@Column(name = "Max_Trainees", nullable = false)
 	@Expose(deserialize = false, serialize = false)
 	private int maxTrainees;
-	@Formula(value = "(SELECT COUNT(*) FROM Trainee t WHERE t.Id_Godfather = Id_Godfather)")
+	/**
+	 * Number of trainees, that selected this godfather. The column is maintained
+	 * by the {@link de.db.derPate.persistence.TraineeDao} and never written by
+	 * updating a godfather.
+	 */
+	@Column(name = "Current_Trainees", nullable = false, insertable = false, updatable = false)
 	@Expose(deserialize = false, serialize = false)
 	private int currentTrainees;
 	@Transient
@@ -66,10 +89,6 @@ public class Godfather extends EmailPasswordLoginUser {
 	@Column(name = "Hiring_Date", nullable = false)
 	@Expose(deserialize = false, serialize = false)
 	private Date hiringDate;
-	@Formula(value = "YEAR_DIFF(Hiring_Date) + 1") // TODO might cause problems, when year changes
-													// on Hiring_Date
-	@Expose
-	private int educationalYear;
 	@Nullable
 	@Column(name = "Birthday", nullable = true)
 	@Expose(deserialize = false, serialize = false)
@@ -123,6 +142,7 @@ public class Godfather extends EmailPasswordLoginUser {
 		this.setLastName(lastName);
 		this.setFirstName(firstName);
 		this.setLocation(location);
+		this.setMaxTrainees(maxTrainees);
 		this.setDescription(description);
 		this.setJob(job);
 		this.setHiringDate(hiringDate);
@@ -132,6 +152,27 @@ public class Godfather extends EmailPasswordLoginUser {
 		this.hasFreeTraineeSlots = this.getMaxTrainees() > this.getCurrentNumberTrainees();
 	}
 
+	/**
+	 * Copy constructor used to share a {@link Godfather} between requests (e.g.
+	 * in the list of {@link Godfather}s). The password is not copied.
+	 *
+	 * @param godfather {@link Godfather} to copy
+	 */
+	public Godfather(@NonNull Godfather godfather) {
+		super(godfather.getId(), godfather.getEmail());
+		this.lastName = godfather.lastName;
+		this.firstName = godfather.firstName;
+		this.location = godfather.location;
+		this.maxTrainees = godfather.maxTrainees;
+		this.currentTrainees = godfather.currentTrainees;
+		this.hasFreeTraineeSlots = godfather.hasFreeTraineeSlots;
+		this.description = godfather.description;
+		this.job = godfather.job;
+		this.hiringDate = godfather.hiringDate;
+		this.birthday = godfather.birthday;
+		this.pickText = godfather.pickText;
+	}
+
 	/**
 	 * @see de.db.derPate.model.EmailPasswordLoginUser#getEmail()
 	 */
@@ -297,12 +338,14 @@ public class Godfather extends EmailPasswordLoginUser {
 	}
 
 	/**
-	 * Returns in which educational year the godfather is
+	 * Returns in which educational year the godfather is (calculated by the
+	 * {@link #getHiringDate() hiring date})
 	 *
 	 * @return the educationalYear
 	 */
 	public int getEducationalYear() {
-		return this.educationalYear;
+		Integer years = DateUtil.getYearDiff(this.hiringDate);
+		return years != null ? years.intValue() + 1 : 0;
 	}
 
 	/**
@@ -0,0 +1,171 @@
+package de.db.derPate.model;
+
+import java.sql.Date;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.db.derPate.util.DateUtil;
+
+/**
+ * This dataclass contains the informations of a {@link Godfather}, that are
+ * shown in the list of available godfathers. It is loaded by a projection query
+ * and is no entity, so it is not managed by hibernate.
+ *
+ * @author MichelBlank
+ *
+ */
+public final class GodfatherListEntry {
+	private final int id;
+	@NonNull
+	private final String firstName;
+	private final int currentTrainees;
+	@Nullable
+	private final String location;
+	@Nullable
+	private final String job;
+	@Nullable
+	private final String teachingType;
+	@NonNull
+	private final Date hiringDate;
+	@Nullable
+	private final Date birthday;
+	@Nullable
+	private final String description;
+
+	/**
+	 * Constructor used by the projection query
+	 *
+	 * @param id              id of the {@link Godfather}
+	 * @param firstName       first name
+	 * @param currentTrainees number of current trainees
+	 * @param location        name of the {@link Location}
+	 * @param job             name of the {@link Job}
+	 * @param teachingType    name of the {@link TeachingType}
+	 * @param hiringDate      hiring date
+	 * @param birthday        birthday
+	 * @param description     description
+	 */
+	public GodfatherListEntry(@NonNull Integer id, @NonNull String firstName, @NonNull Integer currentTrainees,
+			@Nullable String location, @Nullable String job, @Nullable String teachingType,
+			java.util.@NonNull Date hiringDate, java.util.@Nullable Date birthday, @Nullable String description) {
+		this.id = id.intValue();
+		this.firstName = firstName;
+		this.currentTrainees = currentTrainees.intValue();
+		this.location = location;
+		this.job = job;
+		this.teachingType = teachingType;
+		this.hiringDate = toSqlDate(hiringDate);
+		this.birthday = birthday != null ? toSqlDate(birthday) : null;
+		this.description = description;
+	}
+
+	/**
+	 * Returns id
+	 *
+	 * @return id of the {@link Godfather}
+	 */
+	public int getId() {
+		return this.id;
+	}
+
+	/**
+	 * Returns first name
+	 *
+	 * @return first name
+	 */
+	@NonNull
+	public String getFirstName() {
+		return this.firstName;
+	}
+
+	/**
+	 * Returns the number of current trainees
+	 *
+	 * @return number of current trainees
+	 */
+	public int getCurrentTrainees() {
+		return this.currentTrainees;
+	}
+
+	/**
+	 * Returns the name of the location
+	 *
+	 * @return name of the {@link Location}
+	 */
+	@Nullable
+	public String getLocation() {
+		return this.location;
+	}
+
+	/**
+	 * Returns the name of the job
+	 *
+	 * @return name of the {@link Job}
+	 */
+	@Nullable
+	public String getJob() {
+		return this.job;
+	}
+
+	/**
+	 * Returns the name of the teaching type
+	 *
+	 * @return name of the {@link TeachingType}
+	 */
+	@Nullable
+	public String getTeachingType() {
+		return this.teachingType;
+	}
+
+	/**
+	 * Returns hiring date
+	 *
+	 * @return hiring date
+	 */
+	@NonNull
+	public Date getHiringDate() {
+		return this.hiringDate;
+	}
+
+	/**
+	 * Returns in which educational year the godfather is (see
+	 * {@link Godfather#getEducationalYear()})
+	 *
+	 * @return the educational year
+	 */
+	public int getEducationalYear() {
+		Integer years = DateUtil.getYearDiff(this.hiringDate);
+		return years != null ? years.intValue() + 1 : 0;
+	}
+
+	/**
+	 * Returns birthday
+	 *
+	 * @return birthday or <code>null</code>, if unknown
+	 */
+	@Nullable
+	public Date getBirthday() {
+		return this.birthday;
+	}
+
+	/**
+	 * Returns description
+	 *
+	 * @return description
+	 */
+	@Nullable
+	public String getDescription() {
+		return this.description;
+	}
+
+	@NonNull
+	private static Date toSqlDate(java.util.@NonNull Date date) {
+		return date instanceof Date ? (Date) date : new Date(date.getTime());
+	}
+
+	@Override
+	public String toString() {
+		return "GodfatherListEntry [id=" + this.id + ", firstName=" + this.firstName + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
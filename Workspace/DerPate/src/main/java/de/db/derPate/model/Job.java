@@ -1,6 +1,7 @@
 package de.db.derPate.model;
 
 import javax.persistence.AttributeOverride;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.JoinColumn;
@@ -9,6 +10,8 @@ import javax.persistence.Table;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import com.google.gson.annotations.Expose;
 
@@ -21,6 +24,8 @@ import com.google.gson.annotations.Expose;
  */
 @Entity
 @Table(name = "Job")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @AttributeOverride(name = "id", column = @Column(name = "Id_Job"))
 public class Job extends Id implements HasName {
 	@NonNull
@@ -1,11 +1,14 @@
 package de.db.derPate.model;
 
 import javax.persistence.AttributeOverride;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Table;
 
 import org.eclipse.jdt.annotation.NonNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import com.google.gson.annotations.Expose;
 
@@ -17,6 +20,8 @@ import com.google.gson.annotations.Expose;
  */
 @Entity
 @Table(name = "Location")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @AttributeOverride(name = "id", column = @Column(name = "Id_Location"))
 public class Location extends Id implements HasName {
 	@NonNull
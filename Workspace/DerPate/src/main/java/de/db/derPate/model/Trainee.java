@@ -1,15 +1,22 @@
 package de.db.derPate.model;
 
 import javax.persistence.AttributeOverride;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.Table;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import com.google.gson.annotations.Expose;
 
@@ -23,8 +30,21 @@ import de.db.derPate.manager.LoginManager;
  */
 @Entity
 @Table(name = "Trainee")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 @AttributeOverride(name = "id", column = @Column(name = "Id_Trainee"))
+@NamedEntityGraph(name = Trainee.GRAPH_DETAILS, attributeNodes = @NamedAttributeNode(value = "godfather", subgraph = "godfather"), subgraphs = {
+		@NamedSubgraph(name = "godfather", attributeNodes = { @NamedAttributeNode("location"),
+				@NamedAttributeNode(value = "job", subgraph = "job") }),
+		@NamedSubgraph(name = "job", attributeNodes = @NamedAttributeNode("teachingType")) })
 public class Trainee extends LoginUser {
+	/**
+	 * Name of the entity graph containing the selected {@link Godfather} with
+	 * its {@link Location}, {@link Job} and {@link TeachingType}
+	 */
+	public static final String GRAPH_DETAILS = "Trainee.details"; //$NON-NLS-1$
+
 	@Nullable
 	@Column(name = "Login_Code", nullable = false)
 	@NaturalId(mutable = true)
@@ -1,18 +1,27 @@
 package de.db.derPate.persistence;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 
 import javax.persistence.PersistenceException;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
+import javax.transaction.Synchronization;
 
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.hibernate.LockOptions;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
 import org.hibernate.query.Query;
 import org.hibernate.resource.transaction.spi.TransactionStatus;
 
@@ -23,7 +32,9 @@ import de.db.derPate.util.HibernateSessionFactoryUtil;
 /**
  * This abstract class is used a a base class for all Data Access Objects. It
  * stores the default {@link SessionFactory} (@see
- * {@link HibernateSessionFactoryUtil#getSessionFactory()}
+ * {@link HibernateSessionFactoryUtil#getSessionFactory()}<br>
+ * Sessions are opened with {@link #openSession()}, so all daos share the
+ * session of the current {@link UnitOfWork}.
  *
  * @author MichelBlank
  *
@@ -40,6 +51,18 @@ abstract class Dao {
 	 */
 	@NonNull
 	protected final Class<? extends DatabaseEntity> cls;
+	/**
+	 * Query hint used to load the associations of an entity graph in the same
+	 * statement (associations not in the graph keep their mapped fetch type)
+	 */
+	protected static final String LOAD_GRAPH_HINT = "javax.persistence.loadgraph"; //$NON-NLS-1$
+	/**
+	 * Query space of native updates, whose changed entities are evicted with
+	 * {@link #evictAfterCompletion(Session, Class, Object)}. Without a query
+	 * space, hibernate would clear the whole second level cache after every
+	 * native update.
+	 */
+	protected static final String NATIVE_UPDATE_SPACE = "native_update"; //$NON-NLS-1$
 
 	static {
 		sessionFactory = HibernateSessionFactoryUtil.getSessionFactory();
@@ -66,7 +89,7 @@ abstract class Dao {
 	@NonNull
 	public <T extends DatabaseEntity> List<T> list() {
 
-		Session session = sessionFactory.openSession();
+		Session session = openSession();
 		CriteriaBuilder builder = session.getCriteriaBuilder();
 
 		// Build query
@@ -76,9 +99,10 @@ abstract class Dao {
 
 		// Execute query and get ResultList
 		Query<T> q = session.createQuery(query);
+		this.applyFetchGraph(session, q);
 		List<T> result = q.getResultList();
 
-		session.close(); // first close session, before returning result
+		closeSession(session); // first close session, before returning result
 
 		if (result == null) {
 			result = new ArrayList<>();
@@ -86,6 +110,91 @@ abstract class Dao {
 		return result;
 	}
 
+	/**
+	 * Returns the name of the entity graph, that defines the associations loaded
+	 * together with a {@link #cls}-object. Every query of this dao loads these
+	 * associations with joins, so the number of statements doesn't depend on the
+	 * number of results.
+	 *
+	 * @return name of a {@link javax.persistence.NamedEntityGraph} or
+	 *         <code>null</code>, if the mapped fetch types should be used
+	 */
+	@Nullable
+	protected String getFetchGraph() {
+		return null;
+	}
+
+	/**
+	 * Applies the {@link #getFetchGraph() entity graph} to the given query
+	 *
+	 * @param session {@link Session} the query was created with
+	 * @param query   {@link Query}
+	 */
+	protected void applyFetchGraph(@NonNull Session session, @NonNull Query<?> query) {
+		String graph = this.getFetchGraph();
+		if (graph != null) {
+			query.setHint(LOAD_GRAPH_HINT, session.getEntityGraph(graph));
+		}
+	}
+
+	/**
+	 * Returns the hints to load a {@link #cls}-object with the
+	 * {@link #getFetchGraph() entity graph}
+	 *
+	 * @param session {@link Session}
+	 * @return {@link Map} of hints (empty, if there is no entity graph)
+	 */
+	@NonNull
+	protected Map<String, Object> fetchGraphHints(@NonNull Session session) {
+		String graph = this.getFetchGraph();
+		if (graph == null) {
+			return Collections.emptyMap();
+		}
+		return Collections.singletonMap(LOAD_GRAPH_HINT, session.getEntityGraph(graph));
+	}
+
+	/**
+	 * Finds a {@link #cls}-object by its (simple) natural id.<br>
+	 * If the natural id cache knows the id, the object is loaded by id, so it is
+	 * taken from the second level cache without a statement. Otherwise it is
+	 * loaded with the associations of the {@link #getFetchGraph() entity graph}
+	 * and {@link LockOptions#READ} in a single statement, which fills both caches
+	 * for the next call.
+	 *
+	 * @param session   {@link Session}
+	 * @param attribute name of the natural id attribute
+	 * @param value     value of the natural id
+	 * @param <T>       type
+	 * @return object or <code>null</code>, if object was not found
+	 */
+	@SuppressWarnings("unchecked")
+	@Nullable
+	protected <@Nullable T extends DatabaseEntity> T byNaturalId(@NonNull Session session, @NonNull String attribute,
+			@NonNull Object value) {
+		SessionImplementor implementor = session.unwrap(SessionImplementor.class);
+		EntityPersister persister = implementor.getFactory().getMetamodel().entityPersister(this.cls);
+		Serializable id = implementor.getPersistenceContext().getNaturalIdHelper()
+				.findCachedNaturalIdResolution(persister, new Object[] { value });
+		if (id != null && id != PersistenceContext.NaturalIdHelper.INVALID_NATURAL_ID_REFERENCE) {
+			T result = (T) session.find(this.cls, id, this.fetchGraphHints(session));
+			// the natural id is mutable, so the cached id may be outdated
+			if (result != null && value.equals(persister.getPropertyValue(result, attribute))) {
+				return result;
+			}
+		}
+
+		CriteriaBuilder builder = session.getCriteriaBuilder();
+		CriteriaQuery<T> query = (CriteriaQuery<T>) builder.createQuery(this.cls);
+		Root<T> root = (Root<T>) query.from(this.cls);
+		query.select(root).where(builder.equal(root.get(attribute), value));
+
+		Query<T> q = session.createQuery(query);
+		q.setLockOptions(LockOptions.READ);
+		this.applyFetchGraph(session, q);
+		List<T> entities = q.getResultList();
+		return entities.isEmpty() ? null : entities.get(0);
+	}
+
 	/**
 	 * Updates a {@link DatabaseEntity}
 	 *
@@ -95,18 +204,137 @@ abstract class Dao {
 	 */
 	public <T extends DatabaseEntity> boolean update(@NonNull T entity) {
 		boolean success = false;
+		Session session = openWriteSession();
+		Transaction transaction = null;
 		try {
-			Session session = sessionFactory.openSession();
-			Transaction transaction = session.beginTransaction();
+			transaction = beginTransaction(session);
 			session.update(entity);
-			transaction.commit();
-			session.close();
-			success = transaction.getStatus() == TransactionStatus.COMMITTED;
+			success = commit(session, transaction, entity);
 		} catch (PersistenceException e) {
 			LoggingManager.log(Level.INFO, "Error updating DatabaseEntity. Rolling back: " + e.getMessage()); //$NON-NLS-1$
+			rollback(session, transaction);
 		} catch (IllegalStateException e) {
 			LoggingManager.log(Level.WARNING, "Error updating DatabaseEntity: " + e.getMessage()); //$NON-NLS-1$
+			rollback(session, transaction);
+		} finally {
+			closeSession(session);
 		}
 		return success;
 	}
+
+	/**
+	 * Opens a {@link Session} used to read from the database. Inside a
+	 * {@link UnitOfWork}, its session is returned instead.
+	 *
+	 * @return {@link Session}, that has to be closed with
+	 *         {@link #closeSession(Session)}
+	 */
+	@NonNull
+	protected static Session openSession() {
+		UnitOfWork unitOfWork = UnitOfWork.current();
+		return unitOfWork != null ? unitOfWork.getSession() : sessionFactory.openSession();
+	}
+
+	/**
+	 * Opens a {@link Session} used to write to the database. Inside a
+	 * {@link UnitOfWork}, that is not read only, its session is returned
+	 * instead.
+	 *
+	 * @return {@link Session}, that has to be closed with
+	 *         {@link #closeSession(Session)}
+	 */
+	@NonNull
+	protected static Session openWriteSession() {
+		UnitOfWork unitOfWork = UnitOfWork.current();
+		return unitOfWork != null && !unitOfWork.isReadOnly() ? unitOfWork.getSession()
+				: sessionFactory.openSession();
+	}
+
+	/**
+	 * Closes a {@link Session}, if it doesn't belong to a {@link UnitOfWork}
+	 *
+	 * @param session {@link Session}
+	 */
+	protected static void closeSession(@NonNull Session session) {
+		if (!UnitOfWork.owns(session)) {
+			session.close();
+		}
+	}
+
+	/**
+	 * Evicts an entity from the second level cache, when the transaction of the
+	 * session is completed (committed or rolled back). Has to be called for
+	 * entities, that were changed by native updates.
+	 *
+	 * @param session {@link Session} with an active transaction
+	 * @param cls     {@link Class} of the entity
+	 * @param id      id of the entity
+	 */
+	protected static void evictAfterCompletion(@NonNull Session session,
+			@NonNull Class<? extends DatabaseEntity> cls, @NonNull Object id) {
+		session.getTransaction().registerSynchronization(new Synchronization() {
+			@Override
+			public void beforeCompletion() {
+				// evicted after the changes are visible for other transactions
+			}
+
+			@Override
+			public void afterCompletion(int status) {
+				sessionFactory.getCache().evict(cls, id);
+			}
+		});
+	}
+
+	/**
+	 * Begins a {@link Transaction}. Inside a {@link UnitOfWork}, its transaction
+	 * is returned instead.
+	 *
+	 * @param session {@link Session}
+	 * @return active {@link Transaction}
+	 */
+	@NonNull
+	protected static Transaction beginTransaction(@NonNull Session session) {
+		return UnitOfWork.owns(session) ? session.getTransaction() : session.beginTransaction();
+	}
+
+	/**
+	 * Commits a {@link Transaction}. Inside a {@link UnitOfWork}, the changes of
+	 * the given entities are only flushed (see
+	 * {@link UnitOfWork#flush(Session, Object...)}), as the transaction is
+	 * committed by {@link UnitOfWork#complete()}.
+	 *
+	 * @param session     {@link Session}
+	 * @param transaction {@link Transaction}
+	 * @param changed     entities, that were changed (native updates are
+	 *                    executed immediately and don't need to be passed)
+	 * @return <code>true</code>, if the changes were committed (or flushed)
+	 * @throws IllegalStateException if other entities of the {@link UnitOfWork}
+	 *                               were modified
+	 */
+	protected static boolean commit(@NonNull Session session, @NonNull Transaction transaction,
+			@NonNull Object... changed) throws IllegalStateException {
+		if (UnitOfWork.owns(session)) {
+			UnitOfWork.flush(session, changed);
+			return true;
+		}
+		transaction.commit();
+		return transaction.getStatus() == TransactionStatus.COMMITTED;
+	}
+
+	/**
+	 * Rolls back a {@link Transaction}. Inside a {@link UnitOfWork}, the whole
+	 * unit of work will be rolled back.
+	 *
+	 * @param session     {@link Session}
+	 * @param transaction {@link Transaction} or <code>null</code>, if it wasn't
+	 *                    started
+	 */
+	protected static void rollback(@NonNull Session session, @Nullable Transaction transaction) {
+		UnitOfWork unitOfWork = UnitOfWork.current();
+		if (unitOfWork != null && UnitOfWork.owns(session)) {
+			unitOfWork.setRollbackOnly();
+		} else if (transaction != null && transaction.isActive()) {
+			transaction.rollback();
+		}
+	}
 }
@@ -2,15 +2,16 @@ package de.db.derPate.persistence;
 
 import java.util.logging.Level;
 
+import javax.persistence.PersistenceException;
+
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 import org.hibernate.HibernateException;
 import org.hibernate.LockOptions;
-import org.hibernate.NaturalIdLoadAccess;
 import org.hibernate.Session;
+import org.hibernate.Transaction;
 
 import de.db.derPate.manager.LoggingManager;
-import de.db.derPate.model.DatabaseEntity;
 import de.db.derPate.model.EmailPasswordLoginUser;
 import de.db.derPate.model.EmailPasswordLoginUser_;
 
@@ -21,7 +22,7 @@ import de.db.derPate.model.EmailPasswordLoginUser_;
  * @author MichelBlank
  *
  */
-abstract class EmailPasswordLoginUserDao extends IdDao {
+public abstract class EmailPasswordLoginUserDao extends IdDao {
 
 	/**
 	 * Constructor
@@ -34,30 +35,60 @@ abstract class EmailPasswordLoginUserDao extends IdDao {
 	}
 
 	/**
-	 * Finds {@link EmailPasswordLoginUser} by email
+	 * Finds {@link EmailPasswordLoginUser} by email. The email is the natural id,
+	 * so the user is taken from the second level cache, if it was loaded before
+	 * (e.g. on every login attempt). Otherwise it is loaded with the associations
+	 * of the {@link #getFetchGraph() entity graph} in a single statement.
 	 *
 	 * @param email {@link String} of the email address
 	 * @param       <T> type
 	 * @return Object that is or extends from {@link EmailPasswordLoginUser} or
 	 *         <code>null</code>, if user was not found
 	 */
-	@SuppressWarnings("unchecked")
 	@Nullable
 	public <@Nullable T extends EmailPasswordLoginUser> T byEmail(@NonNull String email) {
 		T result = null;
 		try {
-			Session session = sessionFactory.openSession();
-
-			NaturalIdLoadAccess<? extends DatabaseEntity> loader = session.byNaturalId(this.cls).with(LockOptions.READ);
-			loader = loader.using(EmailPasswordLoginUser_.EMAIL, email);
-			DatabaseEntity entity = loader.load();
-			result = (T) entity;
-
-			session.close();
+			Session session = openSession();
+			result = this.byNaturalId(session, EmailPasswordLoginUser_.EMAIL, email);
+			closeSession(session);
 		} catch (HibernateException e) {
 			LoggingManager.log(Level.WARNING, "An error occurred while finding user by email:\n" + e.getMessage()); //$NON-NLS-1$
 		}
 
 		return result;
 	}
+
+	/**
+	 * Replaces the password hash of a {@link EmailPasswordLoginUser} (e.g. by a
+	 * stronger one on login). The hash is only replaced, if it wasn't changed in
+	 * the meantime.
+	 *
+	 * @param id          id of the user
+	 * @param oldPassword current password hash
+	 * @param newPassword new password hash
+	 * @return <code>true</code>, if the hash was replaced
+	 */
+	public boolean updatePassword(int id, @NonNull String oldPassword, @NonNull String newPassword) {
+		boolean success = false;
+		Session session = openWriteSession();
+		Transaction transaction = null;
+		try {
+			transaction = beginTransaction(session);
+			EmailPasswordLoginUser user = (EmailPasswordLoginUser) session.get(this.cls, Integer.valueOf(id),
+					LockOptions.UPGRADE);
+			if (user != null && oldPassword.equals(user.getPassword())) {
+				user.setPassword(newPassword);
+				success = commit(session, transaction, user);
+			} else {
+				commit(session, transaction); // nothing changed, releases the lock
+			}
+		} catch (PersistenceException | IllegalStateException e) {
+			LoggingManager.log(Level.WARNING, "Error updating password. Rolling back: " + e.getMessage()); //$NON-NLS-1$
+			rollback(session, transaction);
+		} finally {
+			closeSession(session);
+		}
+		return success;
+	}
 }
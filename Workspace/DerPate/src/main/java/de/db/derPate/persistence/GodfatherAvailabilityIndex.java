@@ -0,0 +1,1132 @@
+package de.db.derPate.persistence;
+
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.db.derPate.Constants;
+import de.db.derPate.manager.LoggingManager;
+import de.db.derPate.model.Godfather;
+import de.db.derPate.model.Id;
+import de.db.derPate.model.Job;
+
+/**
+ * In-memory index answering {@link GodfatherDao#filterAvailable(GodfatherFilter)}
+ * without accessing the database.<br>
+ * Every {@link Godfather} gets a slot. For every location, job, teaching type
+ * and educational year a {@link BitSet} of the matching slots is kept, as well
+ * as one {@link BitSet} of all slots with free trainee slots. A filter is
+ * answered by combining these sets (OR within one criterion, AND between the
+ * criteria). Age and educational year ranges are resolved by binary search on
+ * sorted arrays of the birthdays and hiring dates. The result is returned in
+ * the same order as by the database (see {@link GodfatherSort}): the default
+ * order is kept up to date on every change, the orders by age and educational
+ * year walk through the sorted birthdays and hiring dates. Pages are continued
+ * after a {@link GodfatherCursor}, so only the requested page is collected.<br>
+ * Selections ({@link #changeCurrentTrainees(int, int)}) and profile edits
+ * ({@link #update(Godfather)}) are applied incrementally, after the current
+ * {@link UnitOfWork} was committed. The whole index is rebuilt after
+ * {@link Constants.Godfather#INDEX_MAX_AGE_SECONDS}, after {@link #invalidate()}
+ * or when the reference data changed. Changes made while the index is loaded
+ * are replayed onto the loaded index: profile edits are applied again and the
+ * current trainees of the changed {@link Godfather}s are read again.<br>
+ * <b>The returned {@link Godfather}s are shared between all requests and must
+ * not be modified.</b>
+ *
+ * @author MichelBlank
+ *
+ */
+public class GodfatherAvailabilityIndex {
+	private static GodfatherAvailabilityIndex instance;
+
+	@NonNull
+	private final Supplier<@NonNull List<Godfather>> loader;
+	@NonNull
+	private final Function<@NonNull Collection<Integer>, @NonNull Map<Integer, Integer>> currentTraineesLoader;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	/**
+	 * Held while the index is loaded, so only one thread loads it
+	 */
+	private final ReentrantLock building = new ReentrantLock();
+	/**
+	 * Random start of the versions (see {@link #getVersion()}), so they differ
+	 * between starts and instances of the application
+	 */
+	private final long epoch = new SecureRandom().nextLong();
+	/**
+	 * Source of the versions of the single {@link Godfather}s (see
+	 * {@link #getVersion(int)})
+	 */
+	private final AtomicLong stamps = new AtomicLong();
+
+	// everything below is guarded by the lock
+	@Nullable
+	private State state;
+	/**
+	 * Changes made while the index is loaded or <code>null</code>, if it isn't
+	 * loaded at the moment
+	 */
+	@Nullable
+	private Journal journal;
+	private boolean invalid;
+	/**
+	 * Number of incremental changes, used to detect changes while rebuilding
+	 */
+	private long modifications;
+	/**
+	 * Number of times, the index was built
+	 */
+	private long builds;
+
+	/**
+	 * Constructor
+	 *
+	 * @param loader                {@link Supplier} loading all {@link Godfather}s
+	 *                              out of the database
+	 * @param currentTraineesLoader {@link Function} loading the current trainees
+	 *                              of the {@link Godfather}s with the given ids
+	 *                              out of the database
+	 */
+	GodfatherAvailabilityIndex(@NonNull Supplier<@NonNull List<Godfather>> loader,
+			@NonNull Function<@NonNull Collection<Integer>, @NonNull Map<Integer, Integer>> currentTraineesLoader) {
+		this.loader = loader;
+		this.currentTraineesLoader = currentTraineesLoader;
+	}
+
+	/**
+	 * Constructor, that reads the current trainees out of all {@link Godfather}s
+	 * of the loader
+	 *
+	 * @param loader {@link Supplier} loading all {@link Godfather}s
+	 */
+	GodfatherAvailabilityIndex(@NonNull Supplier<@NonNull List<Godfather>> loader) {
+		this(loader, ids -> {
+			Map<Integer, Integer> result = new HashMap<>();
+			for (Godfather godfather : loader.get()) {
+				if (ids.contains(Integer.valueOf(godfather.getId()))) {
+					result.put(Integer.valueOf(godfather.getId()),
+							Integer.valueOf(godfather.getCurrentNumberTrainees()));
+				}
+			}
+			return result;
+		});
+	}
+
+	/**
+	 * Returns current instance
+	 *
+	 * @return instance
+	 */
+	public static GodfatherAvailabilityIndex getInstance() {
+		if (instance == null) {
+			instance = new GodfatherAvailabilityIndex(GodfatherDao.getInstance()::list,
+					GodfatherDao.getInstance()::currentTrainees);
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns all {@link Godfather}s with free trainee slots, that match the given
+	 * {@link GodfatherFilter}, ordered by their number of current trainees and
+	 * first name
+	 *
+	 * @param filter {@link GodfatherFilter}
+	 * @return unmodifiable {@link List} of {@link Godfather}s
+	 */
+	@NonNull
+	public List<@NonNull Godfather> filter(@NonNull GodfatherFilter filter) {
+		return this.filter(filter, GodfatherSort.DEFAULT, null, Integer.MAX_VALUE).getGodfathers();
+	}
+
+	/**
+	 * Returns one page of {@link Godfather}s with free trainee slots, that match
+	 * the given {@link GodfatherFilter}
+	 *
+	 * @param filter {@link GodfatherFilter}
+	 * @param sort   {@link GodfatherSort}
+	 * @param cursor {@link GodfatherCursor} of the previous page or
+	 *               <code>null</code> for the first page
+	 * @param limit  maximum number of {@link Godfather}s
+	 * @return {@link GodfatherPage}
+	 */
+	@NonNull
+	public GodfatherPage<Godfather> filter(@NonNull GodfatherFilter filter, @NonNull GodfatherSort sort,
+			@Nullable GodfatherCursor cursor, int limit) {
+		this.refreshIfOutdated();
+
+		LocalDate today = LocalDate.now();
+		this.lock.readLock().lock();
+		try {
+			State current = this.state;
+			if (current != null && today.equals(current.day)) {
+				return current.page(filter, sort, cursor, limit, today);
+			}
+		} finally {
+			this.lock.readLock().unlock();
+		}
+
+		// the educational years changed over night -> recalculate them
+		this.lock.writeLock().lock();
+		try {
+			State current = this.state();
+			current.updateEducationalYears(today);
+			return current.page(filter, sort, cursor, limit, today);
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the indexed {@link Godfather}. Doesn't build the index.
+	 *
+	 * @param godfatherId id of the {@link Godfather}
+	 * @return {@link Godfather} (must not be modified) or <code>null</code>, if it
+	 *         isn't indexed (or the index hasn't been built yet)
+	 */
+	@Nullable
+	public Godfather get(int godfatherId) {
+		this.lock.readLock().lock();
+		try {
+			State current = this.state;
+			Integer slot = current != null ? current.ids.get(Integer.valueOf(godfatherId)) : null;
+			return slot != null ? current.godfathers[slot.intValue()] : null;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds the {@link Godfather} or replaces the indexed data of it (e.g. after a
+	 * profile edit), after the current {@link UnitOfWork} was committed. The
+	 * number of current trainees of an indexed {@link Godfather} is kept (see
+	 * {@link #changeCurrentTrainees(int, int)}). The index stores a copy without
+	 * the secret, so the given object stays unchanged and may be modified
+	 * afterwards.
+	 *
+	 * @param changed {@link Godfather} as stored in the database
+	 */
+	public void update(@NonNull Godfather changed) {
+		Godfather godfather = new Godfather(changed);
+		UnitOfWork.runAfterCommit(() -> {
+			this.lock.writeLock().lock();
+			try {
+				State current = this.state;
+				if (current != null) {
+					current.put(godfather);
+				}
+				Journal changes = this.journal;
+				if (changes != null) {
+					changes.updates.add(godfather);
+				}
+				this.modifications++;
+			} finally {
+				this.lock.writeLock().unlock();
+			}
+		});
+	}
+
+	/**
+	 * Changes the number of current trainees of a {@link Godfather} (e.g. after a
+	 * trainee selected him/her), after the current {@link UnitOfWork} was
+	 * committed
+	 *
+	 * @param godfatherId id of the {@link Godfather}
+	 * @param delta       number of trainees, that were added (or removed, if
+	 *                    negative)
+	 */
+	public void changeCurrentTrainees(int godfatherId, int delta) {
+		UnitOfWork.runAfterCommit(() -> {
+			this.lock.writeLock().lock();
+			try {
+				State current = this.state;
+				if (current != null && !current.changeCurrentTrainees(godfatherId, delta)) {
+					this.invalid = true; // unknown godfather
+				}
+				Journal changes = this.journal;
+				if (changes != null) {
+					changes.changed.add(Integer.valueOf(godfatherId));
+					changes.deltas.merge(Integer.valueOf(godfatherId), Integer.valueOf(delta), Integer::sum);
+				}
+				this.modifications++;
+			} finally {
+				this.lock.writeLock().unlock();
+			}
+		});
+	}
+
+	/**
+	 * Forces a rebuild of the index on the next request (e.g. after the database
+	 * has been changed directly)
+	 */
+	public void invalidate() {
+		this.lock.writeLock().lock();
+		try {
+			this.invalid = true;
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the version of the index, which changes with every change of the
+	 * indexed data (incremental or by a rebuild). The index is rebuilt before, if
+	 * it is outdated, so the version matches the data returned afterwards.<br>
+	 * The version starts at a random value, so the same version never stands for
+	 * different data after a restart or on another instance of the application
+	 * (each instance has its own versions).
+	 *
+	 * @return version (not negative)
+	 */
+	public long getVersion() {
+		this.refreshIfOutdated();
+		this.lock.readLock().lock();
+		try {
+			return (this.epoch + this.builds + this.modifications) & Long.MAX_VALUE;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the version of a single {@link Godfather}, which changes, whenever
+	 * the {@link Godfather} is replaced (see {@link #update(Godfather)}) or the
+	 * index is rebuilt, but not with the number of current trainees. Like
+	 * {@link #getVersion()}, it starts at a random value.
+	 *
+	 * @param godfatherId id of the {@link Godfather}
+	 * @return version (not negative) or <code>-1</code>, if the
+	 *         {@link Godfather} isn't indexed
+	 */
+	public long getVersion(int godfatherId) {
+		this.refreshIfOutdated();
+		this.lock.readLock().lock();
+		try {
+			State current = this.state;
+			Integer slot = current != null ? current.ids.get(Integer.valueOf(godfatherId)) : null;
+			return slot != null ? (this.epoch + current.stamps[slot.intValue()]) & Long.MAX_VALUE : -1;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of indexed {@link Godfather}s
+	 *
+	 * @return number of {@link Godfather}s or <code>0</code>, if the index hasn't
+	 *         been built yet
+	 */
+	public int size() {
+		this.lock.readLock().lock();
+		try {
+			State current = this.state;
+			return current != null ? current.ids.size() : 0;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Rebuilds the index, if it is outdated. Only one thread rebuilds it, the
+	 * others continue to use the outdated index (or wait for the first one).
+	 */
+	private void refreshIfOutdated() {
+		boolean initial;
+		this.lock.readLock().lock();
+		try {
+			State current = this.state;
+			if (current != null && !this.invalid && current.isValid()) {
+				return;
+			}
+			initial = current == null;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+
+		if (initial) {
+			this.building.lock();
+			try {
+				if (this.state == null) { // not built by another thread in the meantime
+					this.rebuild();
+				}
+			} finally {
+				this.building.unlock();
+			}
+		} else if (this.building.tryLock()) {
+			try {
+				this.rebuild();
+			} catch (RuntimeException e) {
+				// keep the outdated index, the next request tries again
+				LoggingManager.log(Level.WARNING, "Could not rebuild godfather index: " + e.getMessage()); //$NON-NLS-1$
+			} finally {
+				this.building.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Loads the index (without holding the lock) and replaces the current one.
+	 * The changes made while loading are recorded and replayed onto the loaded
+	 * index, as they may be missing in the loaded data: profile edits are applied
+	 * again and the current trainees of the changed {@link Godfather}s are read
+	 * again (a selection may or may not be included in the loaded data). Only
+	 * changes made while the current trainees are read again are applied as they
+	 * are.
+	 */
+	private void rebuild() {
+		Journal loading = this.startJournal(new Journal());
+		try {
+			State rebuilt = this.load();
+			Journal reloading = this.startJournal(new Journal());
+			Map<Integer, Integer> currentTrainees = loading.changed.isEmpty() ? Collections.emptyMap()
+					: this.currentTraineesLoader.apply(loading.changed);
+
+			this.lock.writeLock().lock();
+			try {
+				loading.updates.forEach(rebuilt::put);
+				currentTrainees.forEach((id, value) -> rebuilt.setCurrentTrainees(id.intValue(), value.intValue()));
+				reloading.updates.forEach(rebuilt::put);
+				reloading.deltas.forEach((id, delta) -> rebuilt.changeCurrentTrainees(id.intValue(), delta.intValue()));
+				this.journal = null;
+				this.state = rebuilt;
+				this.builds++;
+				this.invalid = false;
+			} finally {
+				this.lock.writeLock().unlock();
+			}
+		} finally {
+			this.startJournal(null);
+		}
+	}
+
+	/**
+	 * Replaces the {@link Journal} recording the changes
+	 *
+	 * @param next new {@link Journal} or <code>null</code> to stop recording
+	 * @return previous {@link Journal} (empty, if there was none)
+	 */
+	@NonNull
+	private Journal startJournal(@Nullable Journal next) {
+		this.lock.writeLock().lock();
+		try {
+			Journal previous = this.journal;
+			this.journal = next;
+			return previous != null ? previous : new Journal();
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the current state and builds it, if it does not exist yet. The write
+	 * lock has to be held.
+	 *
+	 * @return current state
+	 */
+	@NonNull
+	private State state() {
+		State current = this.state;
+		if (current == null) {
+			current = this.load();
+			this.state = current;
+			this.builds++;
+			this.invalid = false;
+		}
+		return current;
+	}
+
+	@NonNull
+	private State load() {
+		long referenceDataVersion = ReferenceDataCache.getVersion(); // read before loading, so no change gets lost
+		List<Godfather> godfathers = this.loader.get();
+		for (Godfather godfather : godfathers) {
+			UnitOfWork.detach(godfather); // shared by all requests
+			godfather.removeSecret();
+		}
+		State loaded = new State(referenceDataVersion, LocalDate.now(), this.stamps);
+		loaded.putAll(godfathers);
+		return loaded;
+	}
+
+	/**
+	 * Returns the {@link Id#getId() id} of the given object
+	 *
+	 * @param id object
+	 * @return id or <code>-1</code>, if object is <code>null</code>
+	 */
+	private static int idOf(@Nullable Id id) {
+		return id != null ? id.getId() : -1;
+	}
+
+	/**
+	 * Returns the day the given number of years ago
+	 *
+	 * @param today today
+	 * @param years number of years
+	 * @return days since epoch
+	 */
+	private static long daysYearsAgo(@NonNull LocalDate today, int years) {
+		return today.minusYears(years).toEpochDay();
+	}
+
+	/**
+	 * Indexed data of all {@link Godfather}s
+	 */
+	private static final class State {
+		private final long referenceDataVersion;
+		private final long builtAt;
+		/**
+		 * Day, the educational years were calculated
+		 */
+		@NonNull
+		LocalDate day;
+
+		@NonNull
+		final Map<Integer, Integer> ids = new HashMap<>();
+		@NonNull
+		Godfather[] godfathers = new Godfather[16];
+		@NonNull
+		int[] currentTrainees = new int[16];
+		@NonNull
+		int[] maxTrainees = new int[16];
+		@NonNull
+		int[] locations = new int[16];
+		@NonNull
+		int[] jobs = new int[16];
+		@NonNull
+		int[] teachingTypes = new int[16];
+		@NonNull
+		int[] educationalYears = new int[16];
+		/**
+		 * Days since epoch ({@link GodfatherCursor#NO_DATE}, if unknown)
+		 */
+		@NonNull
+		long[] hiringDays = new long[16];
+		/**
+		 * Days since epoch ({@link GodfatherCursor#NO_DATE}, if unknown)
+		 */
+		@NonNull
+		long[] birthdays = new long[16];
+		/**
+		 * Version of every slot, changed whenever a {@link Godfather} is stored
+		 */
+		@NonNull
+		long[] stamps = new long[16];
+		int slots;
+
+		@NonNull
+		final BitSet free = new BitSet();
+		@NonNull
+		final Map<Integer, BitSet> byLocation = new HashMap<>();
+		@NonNull
+		final Map<Integer, BitSet> byJob = new HashMap<>();
+		@NonNull
+		final Map<Integer, BitSet> byTeachingType = new HashMap<>();
+		@NonNull
+		final Map<Integer, BitSet> byEducationalYear = new HashMap<>();
+		@NonNull
+		final SortedKeys byHiringDay = new SortedKeys();
+		@NonNull
+		final SortedKeys byBirthday = new SortedKeys();
+
+		/**
+		 * Slots sorted by current trainees, first name and id
+		 */
+		@NonNull
+		int[] order = new int[16];
+		/**
+		 * Position of every slot in {@link #order}
+		 */
+		@NonNull
+		int[] orderPosition = new int[16];
+
+		@NonNull
+		private final AtomicLong stampSource;
+
+		State(long referenceDataVersion, @NonNull LocalDate day, @NonNull AtomicLong stampSource) {
+			this.referenceDataVersion = referenceDataVersion;
+			this.stampSource = stampSource;
+			this.builtAt = System.nanoTime();
+			this.day = day;
+		}
+
+		boolean isValid() {
+			return this.referenceDataVersion == ReferenceDataCache.getVersion() && System.nanoTime()
+					- this.builtAt < TimeUnit.SECONDS.toNanos(Constants.Godfather.INDEX_MAX_AGE_SECONDS);
+		}
+
+		@SuppressWarnings("null")
+		@NonNull
+		GodfatherPage<Godfather> page(@NonNull GodfatherFilter filter, @NonNull GodfatherSort sort,
+				@Nullable GodfatherCursor cursor, int limit, @NonNull LocalDate today) {
+			BitSet result = this.match(filter, today);
+			if (cursor != null && cursor.sort != sort) {
+				cursor = null; // cursor of another order -> start from the beginning
+			}
+
+			// one more than requested, to know if there is a next page
+			int wanted = limit < Integer.MAX_VALUE ? limit + 1 : limit;
+			int[] slots;
+			switch (sort) {
+			case AGE:
+				slots = this.byBirthday.descending(result, cursor, wanted);
+				break;
+			case EDUCATIONAL_YEAR:
+				slots = this.byHiringDay.descending(result, cursor, wanted);
+				break;
+			default:
+				slots = this.ordered(result, cursor, wanted);
+				break;
+			}
+
+			int count = Math.min(slots.length, limit);
+			if (count == 0) {
+				return new GodfatherPage<>(Collections.emptyList(), null);
+			}
+			List<@NonNull Godfather> list = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				list.add(this.godfathers[slots[i]]);
+			}
+			GodfatherCursor next = null;
+			if (slots.length > limit) {
+				next = this.cursorAfter(sort, slots[count - 1]);
+			}
+			return new GodfatherPage<>(Collections.unmodifiableList(list), next);
+		}
+
+		/**
+		 * Returns all slots with free trainee slots, that match the filter
+		 */
+		@NonNull
+		private BitSet match(@NonNull GodfatherFilter filter, @NonNull LocalDate today) {
+			BitSet result = (BitSet) this.free.clone();
+			and(result, this.byLocation, filter.locations);
+			and(result, this.byJob, filter.jobs);
+			and(result, this.byTeachingType, filter.teachingTypes);
+			and(result, this.byEducationalYear, filter.educationalYears);
+
+			if (filter.hasAgeRange()) {
+				// age n: born more than n + 1 and at most n years ago
+				long from = filter.maxAge != null ? daysYearsAgo(today, filter.maxAge.intValue() + 1) + 1
+						: GodfatherCursor.NO_DATE + 1;
+				long to = filter.minAge != null ? daysYearsAgo(today, filter.minAge.intValue()) : Long.MAX_VALUE;
+				result.and(this.byBirthday.between(from, to));
+			}
+			if (filter.hasEducationalYearRange()) {
+				// educational year n: hired more than n and at most n - 1 years ago
+				long from = filter.maxEducationalYear != null
+						? daysYearsAgo(today, filter.maxEducationalYear.intValue()) + 1
+						: GodfatherCursor.NO_DATE + 1;
+				long to = filter.minEducationalYear != null
+						? daysYearsAgo(today, filter.minEducationalYear.intValue() - 1)
+						: Long.MAX_VALUE;
+				result.and(this.byHiringDay.between(from, to));
+			}
+			return result;
+		}
+
+		/**
+		 * Returns the matching slots in the default order, starting after the cursor
+		 */
+		@NonNull
+		private int[] ordered(@NonNull BitSet result, @Nullable GodfatherCursor cursor, int wanted) {
+			int size = this.ids.size();
+			int start = cursor != null ? this.positionAfter(cursor) : 0;
+			int count = result.cardinality();
+			int[] slots = new int[Math.min(count, wanted)];
+			int found = 0;
+			if (count * 16 < size) {
+				// few matches -> sort them by their position instead of walking through
+				// all slots
+				int[] positions = new int[count];
+				int i = 0;
+				for (int slot = result.nextSetBit(0); slot >= 0; slot = result.nextSetBit(slot + 1)) {
+					positions[i++] = this.orderPosition[slot];
+				}
+				Arrays.sort(positions);
+				for (i = 0; i < count && found < slots.length; i++) {
+					if (positions[i] >= start) {
+						slots[found++] = this.order[positions[i]];
+					}
+				}
+			} else {
+				for (int position = start; position < size && found < slots.length; position++) {
+					int slot = this.order[position];
+					if (result.get(slot)) {
+						slots[found++] = slot;
+					}
+				}
+			}
+			return found < slots.length ? Arrays.copyOf(slots, found) : slots;
+		}
+
+		/**
+		 * Returns the first position in the default order behind the cursor
+		 */
+		private int positionAfter(@NonNull GodfatherCursor cursor) {
+			int low = 0;
+			int high = this.ids.size();
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				int slot = this.order[middle];
+				int result = Long.compare(this.currentTrainees[slot], cursor.key);
+				if (result == 0) {
+					result = String.CASE_INSENSITIVE_ORDER.compare(this.firstName(slot), cursor.name);
+				}
+				if (result == 0) {
+					result = Integer.compare(this.godfathers[slot].getId(), cursor.id);
+				}
+				if (result <= 0) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+
+		@NonNull
+		private GodfatherCursor cursorAfter(@NonNull GodfatherSort sort, int slot) {
+			long key;
+			switch (sort) {
+			case AGE:
+				key = this.birthdays[slot];
+				break;
+			case EDUCATIONAL_YEAR:
+				key = this.hiringDays[slot];
+				break;
+			default:
+				key = this.currentTrainees[slot];
+				break;
+			}
+			return new GodfatherCursor(sort, key, this.firstName(slot), this.godfathers[slot].getId());
+		}
+
+		@NonNull
+		private String firstName(int slot) {
+			String name = this.godfathers[slot].getFirstName();
+			return name != null ? name : ""; //$NON-NLS-1$
+		}
+
+		/**
+		 * Restricts the result to the union of the bitmaps of the given keys. Does
+		 * nothing, if no key is given.
+		 */
+		private static void and(@NonNull BitSet result, @NonNull Map<Integer, BitSet> bitmaps, @NonNull int[] keys) {
+			if (keys.length == 0) {
+				return;
+			}
+			BitSet union = new BitSet();
+			for (int key : keys) {
+				BitSet bitmap = bitmaps.get(Integer.valueOf(key));
+				if (bitmap != null) {
+					union.or(bitmap);
+				}
+			}
+			result.and(union);
+		}
+
+		/**
+		 * Adds all {@link Godfather}s to the empty state. The order and the sorted
+		 * keys are sorted once, instead of inserting every {@link Godfather}
+		 * separately.
+		 */
+		void putAll(@NonNull List<Godfather> list) {
+			this.ensureCapacity(list.size());
+			for (Godfather godfather : list) {
+				Integer slot = Integer.valueOf(this.slots);
+				if (this.ids.putIfAbsent(Integer.valueOf(godfather.getId()), slot) == null) {
+					this.slots++;
+					this.store(slot.intValue(), godfather);
+					this.addToBitmaps(slot.intValue());
+				}
+			}
+
+			Integer[] sorted = new Integer[this.slots];
+			for (int slot = 0; slot < this.slots; slot++) {
+				sorted[slot] = Integer.valueOf(slot);
+			}
+			Arrays.sort(sorted, (slot1, slot2) -> this.compare(slot1.intValue(), slot2.intValue()));
+			for (int position = 0; position < this.slots; position++) {
+				this.order[position] = sorted[position].intValue();
+				this.orderPosition[this.order[position]] = position;
+			}
+
+			for (int slot = 0; slot < this.slots; slot++) {
+				int id = this.godfathers[slot].getId();
+				this.byHiringDay.append(this.hiringDays[slot], id, slot);
+				this.byBirthday.append(this.birthdays[slot], id, slot);
+			}
+			this.byHiringDay.sort();
+			this.byBirthday.sort();
+		}
+
+		/**
+		 * Adds or replaces the {@link Godfather}. The current trainees of a replaced
+		 * {@link Godfather} are kept, as they are changed separately.
+		 */
+		void put(@NonNull Godfather godfather) {
+			Integer existing = this.ids.get(Integer.valueOf(godfather.getId()));
+			int slot;
+			if (existing != null) {
+				slot = existing.intValue();
+				int current = this.currentTrainees[slot];
+				this.remove(slot);
+				this.store(slot, godfather);
+				this.currentTrainees[slot] = current;
+			} else {
+				slot = this.slots++;
+				this.ensureCapacity(this.slots);
+				this.ids.put(Integer.valueOf(godfather.getId()), Integer.valueOf(slot));
+				this.store(slot, godfather);
+			}
+			this.add(slot);
+		}
+
+		/**
+		 * Stores the data of the {@link Godfather} in the given slot
+		 */
+		private void store(int slot, @NonNull Godfather godfather) {
+			Job job = godfather.getJob();
+			this.godfathers[slot] = godfather;
+			this.stamps[slot] = this.stampSource.incrementAndGet();
+			this.currentTrainees[slot] = godfather.getCurrentNumberTrainees();
+			this.maxTrainees[slot] = godfather.getMaxTrainees();
+			this.locations[slot] = idOf(godfather.getLocation());
+			this.jobs[slot] = idOf(job);
+			this.teachingTypes[slot] = idOf(job != null ? job.getTeachingType() : null);
+			this.hiringDays[slot] = GodfatherCursor.toDays(godfather.getHiringDate());
+			this.birthdays[slot] = GodfatherCursor.toDays(godfather.getBirthday());
+			this.educationalYears[slot] = this.educationalYear(slot, this.day);
+		}
+
+		/**
+		 * Changes the current trainees of a {@link Godfather}
+		 *
+		 * @return <code>false</code>, if the {@link Godfather} is unknown
+		 */
+		boolean changeCurrentTrainees(int godfatherId, int delta) {
+			Integer slot = this.ids.get(Integer.valueOf(godfatherId));
+			if (slot == null) {
+				return false;
+			}
+			int s = slot.intValue();
+			this.removeFromOrder(s);
+			this.currentTrainees[s] = Math.max(0, this.currentTrainees[s] + delta);
+			this.free.set(s, this.currentTrainees[s] < this.maxTrainees[s]);
+			this.addToOrder(s);
+			return true;
+		}
+
+		/**
+		 * Sets the current trainees of a {@link Godfather} (e.g. as read again out of
+		 * the database)
+		 */
+		void setCurrentTrainees(int godfatherId, int value) {
+			Integer slot = this.ids.get(Integer.valueOf(godfatherId));
+			if (slot != null) {
+				this.changeCurrentTrainees(godfatherId, value - this.currentTrainees[slot.intValue()]);
+			}
+		}
+
+		/**
+		 * Recalculates the educational years for the given day
+		 */
+		void updateEducationalYears(@NonNull LocalDate today) {
+			this.day = today;
+			this.byEducationalYear.clear();
+			for (int slot : this.ids.values()) {
+				this.educationalYears[slot] = this.educationalYear(slot, today);
+				bitmap(this.byEducationalYear, this.educationalYears[slot]).set(slot);
+			}
+		}
+
+		private int educationalYear(int slot, @NonNull LocalDate today) {
+			return this.hiringDays[slot] != GodfatherCursor.NO_DATE
+					? (int) ChronoUnit.YEARS.between(LocalDate.ofEpochDay(this.hiringDays[slot]), today) + 1
+					: 0;
+		}
+
+		private void add(int slot) {
+			this.addToBitmaps(slot);
+			int id = this.godfathers[slot].getId();
+			this.byHiringDay.add(this.hiringDays[slot], id, slot);
+			this.byBirthday.add(this.birthdays[slot], id, slot);
+			this.addToOrder(slot);
+		}
+
+		private void addToBitmaps(int slot) {
+			this.free.set(slot, this.currentTrainees[slot] < this.maxTrainees[slot]);
+			bitmap(this.byLocation, this.locations[slot]).set(slot);
+			bitmap(this.byJob, this.jobs[slot]).set(slot);
+			bitmap(this.byTeachingType, this.teachingTypes[slot]).set(slot);
+			bitmap(this.byEducationalYear, this.educationalYears[slot]).set(slot);
+		}
+
+		private void remove(int slot) {
+			this.free.clear(slot);
+			bitmap(this.byLocation, this.locations[slot]).clear(slot);
+			bitmap(this.byJob, this.jobs[slot]).clear(slot);
+			bitmap(this.byTeachingType, this.teachingTypes[slot]).clear(slot);
+			bitmap(this.byEducationalYear, this.educationalYears[slot]).clear(slot);
+			int id = this.godfathers[slot].getId();
+			this.byHiringDay.remove(this.hiringDays[slot], id);
+			this.byBirthday.remove(this.birthdays[slot], id);
+			this.removeFromOrder(slot);
+		}
+
+		/**
+		 * Inserts the slot into the order (binary search). The slot must not be part
+		 * of it.
+		 */
+		private void addToOrder(int slot) {
+			int size = this.ids.size() - 1; // slot is already registered
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (this.compare(this.order[middle], slot) < 0) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			System.arraycopy(this.order, low, this.order, low + 1, size - low);
+			this.order[low] = slot;
+			for (int position = low; position <= size; position++) {
+				this.orderPosition[this.order[position]] = position;
+			}
+		}
+
+		private void removeFromOrder(int slot) {
+			int size = this.ids.size();
+			int position = this.orderPosition[slot];
+			System.arraycopy(this.order, position + 1, this.order, position, size - position - 1);
+			for (int i = position; i < size - 1; i++) {
+				this.orderPosition[this.order[i]] = i;
+			}
+		}
+
+		private int compare(int slot1, int slot2) {
+			int result = Integer.compare(this.currentTrainees[slot1], this.currentTrainees[slot2]);
+			if (result == 0) {
+				result = String.CASE_INSENSITIVE_ORDER.compare(this.firstName(slot1), this.firstName(slot2));
+			}
+			if (result == 0) {
+				result = Integer.compare(this.godfathers[slot1].getId(), this.godfathers[slot2].getId());
+			}
+			return result;
+		}
+
+		@SuppressWarnings("null")
+		private void ensureCapacity(int capacity) {
+			if (capacity <= this.godfathers.length) {
+				return;
+			}
+			int length = Math.max(capacity, this.godfathers.length * 2);
+			this.godfathers = Arrays.copyOf(this.godfathers, length);
+			this.currentTrainees = Arrays.copyOf(this.currentTrainees, length);
+			this.maxTrainees = Arrays.copyOf(this.maxTrainees, length);
+			this.locations = Arrays.copyOf(this.locations, length);
+			this.jobs = Arrays.copyOf(this.jobs, length);
+			this.teachingTypes = Arrays.copyOf(this.teachingTypes, length);
+			this.educationalYears = Arrays.copyOf(this.educationalYears, length);
+			this.hiringDays = Arrays.copyOf(this.hiringDays, length);
+			this.birthdays = Arrays.copyOf(this.birthdays, length);
+			this.stamps = Arrays.copyOf(this.stamps, length);
+			this.order = Arrays.copyOf(this.order, length);
+			this.orderPosition = Arrays.copyOf(this.orderPosition, length);
+		}
+
+		@NonNull
+		private static BitSet bitmap(@NonNull Map<Integer, BitSet> bitmaps, int key) {
+			return bitmaps.computeIfAbsent(Integer.valueOf(key), k -> new BitSet());
+		}
+	}
+
+	/**
+	 * Changes made while the index is loaded
+	 */
+	private static final class Journal {
+		/**
+		 * Profile edits in the order they were made
+		 */
+		@NonNull
+		final List<@NonNull Godfather> updates = new ArrayList<>();
+		/**
+		 * Ids of the {@link Godfather}s, whose current trainees were changed
+		 */
+		@NonNull
+		final Set<Integer> changed = new HashSet<>();
+		/**
+		 * Sum of the changes of the current trainees per id
+		 */
+		@NonNull
+		final Map<Integer, Integer> deltas = new HashMap<>();
+	}
+
+	/**
+	 * Slots sorted by a key (e.g. days since epoch of the birthday) and the id of
+	 * the {@link Godfather}
+	 */
+	private static final class SortedKeys {
+		@NonNull
+		private long[] keys = new long[16];
+		@NonNull
+		private int[] ids = new int[16];
+		@NonNull
+		private int[] slots = new int[16];
+		private int size;
+
+		void add(long key, int id, int slot) {
+			this.ensureCapacity();
+			int position = this.firstGreater(key, id);
+			System.arraycopy(this.keys, position, this.keys, position + 1, this.size - position);
+			System.arraycopy(this.ids, position, this.ids, position + 1, this.size - position);
+			System.arraycopy(this.slots, position, this.slots, position + 1, this.size - position);
+			this.keys[position] = key;
+			this.ids[position] = id;
+			this.slots[position] = slot;
+			this.size++;
+		}
+
+		/**
+		 * Appends the key without keeping the keys sorted. {@link #sort()} has to be
+		 * called afterwards.
+		 */
+		void append(long key, int id, int slot) {
+			this.ensureCapacity();
+			this.keys[this.size] = key;
+			this.ids[this.size] = id;
+			this.slots[this.size] = slot;
+			this.size++;
+		}
+
+		/**
+		 * Sorts the appended keys
+		 */
+		void sort() {
+			Integer[] positions = new Integer[this.size];
+			for (int position = 0; position < this.size; position++) {
+				positions[position] = Integer.valueOf(position);
+			}
+			Arrays.sort(positions, (position1, position2) -> {
+				int result = Long.compare(this.keys[position1.intValue()], this.keys[position2.intValue()]);
+				return result != 0 ? result
+						: Integer.compare(this.ids[position1.intValue()], this.ids[position2.intValue()]);
+			});
+			long[] sortedKeys = new long[this.keys.length];
+			int[] sortedIds = new int[this.ids.length];
+			int[] sortedSlots = new int[this.slots.length];
+			for (int position = 0; position < this.size; position++) {
+				sortedKeys[position] = this.keys[positions[position].intValue()];
+				sortedIds[position] = this.ids[positions[position].intValue()];
+				sortedSlots[position] = this.slots[positions[position].intValue()];
+			}
+			this.keys = sortedKeys;
+			this.ids = sortedIds;
+			this.slots = sortedSlots;
+		}
+
+		void remove(long key, int id) {
+			int position = this.firstGreaterOrEqual(key, id);
+			if (position < this.size && this.keys[position] == key && this.ids[position] == id) {
+				System.arraycopy(this.keys, position + 1, this.keys, position, this.size - position - 1);
+				System.arraycopy(this.ids, position + 1, this.ids, position, this.size - position - 1);
+				System.arraycopy(this.slots, position + 1, this.slots, position, this.size - position - 1);
+				this.size--;
+			}
+		}
+
+		/**
+		 * Returns all slots with a key between from and to (both inclusive)
+		 */
+		@NonNull
+		BitSet between(long from, long to) {
+			BitSet result = new BitSet();
+			for (int position = this.firstGreaterOrEqual(from, Integer.MIN_VALUE); position < this.size
+					&& this.keys[position] <= to; position++) {
+				result.set(this.slots[position]);
+			}
+			return result;
+		}
+
+		/**
+		 * Returns the matching slots in descending order (key and id), starting
+		 * after the cursor
+		 */
+		@NonNull
+		int[] descending(@NonNull BitSet matches, @Nullable GodfatherCursor cursor, int wanted) {
+			int[] result = new int[Math.min(matches.cardinality(), wanted)];
+			int found = 0;
+			int position = cursor != null ? this.firstGreaterOrEqual(cursor.key, cursor.id) - 1 : this.size - 1;
+			for (; position >= 0 && found < result.length; position--) {
+				if (matches.get(this.slots[position])) {
+					result[found++] = this.slots[position];
+				}
+			}
+			return found < result.length ? Arrays.copyOf(result, found) : result;
+		}
+
+		@SuppressWarnings("null")
+		private void ensureCapacity() {
+			if (this.size == this.keys.length) {
+				this.keys = Arrays.copyOf(this.keys, this.size * 2);
+				this.ids = Arrays.copyOf(this.ids, this.size * 2);
+				this.slots = Arrays.copyOf(this.slots, this.size * 2);
+			}
+		}
+
+		private int compare(int position, long key, int id) {
+			int result = Long.compare(this.keys[position], key);
+			return result != 0 ? result : Integer.compare(this.ids[position], id);
+		}
+
+		private int firstGreaterOrEqual(long key, int id) {
+			int low = 0;
+			int high = this.size;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (this.compare(middle, key, id) < 0) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+
+		private int firstGreater(long key, int id) {
+			int low = 0;
+			int high = this.size;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (this.compare(middle, key, id) <= 0) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+	}
+}
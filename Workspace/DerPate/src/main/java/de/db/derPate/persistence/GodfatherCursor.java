@@ -0,0 +1,187 @@
+package de.db.derPate.persistence;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.db.derPate.model.Godfather;
+import de.db.derPate.model.GodfatherListEntry;
+import de.db.derPate.util.URIParameterEncryptionUtil;
+
+/**
+ * Position in a list of available {@link Godfather}s, used to continue the list
+ * after the last {@link Godfather} of a page (keyset pagination).<br>
+ * The cursor stores the sort key of the last {@link Godfather}: the number of
+ * current trainees and the first name for {@link GodfatherSort#DEFAULT}, the
+ * birthday for {@link GodfatherSort#AGE} and the hiring date for
+ * {@link GodfatherSort#EDUCATIONAL_YEAR}, followed by the id. It is passed to
+ * the client as an encrypted, opaque token.
+ *
+ * @author MichelBlank
+ *
+ */
+public final class GodfatherCursor {
+	/**
+	 * Key used for an unknown date
+	 */
+	static final long NO_DATE = Long.MIN_VALUE;
+	private static final char SEPARATOR = '|';
+
+	@NonNull
+	final GodfatherSort sort;
+	/**
+	 * Current trainees or days since epoch of the birthday/hiring date
+	 */
+	final long key;
+	@NonNull
+	final String name;
+	final int id;
+
+	/**
+	 * Constructor
+	 *
+	 * @param sort {@link GodfatherSort}
+	 * @param key  current trainees or days since epoch of the birthday/hiring
+	 *             date ({@link #NO_DATE}, if unknown)
+	 * @param name first name (only used by {@link GodfatherSort#DEFAULT})
+	 * @param id   id of the {@link Godfather}
+	 */
+	GodfatherCursor(@NonNull GodfatherSort sort, long key, @Nullable String name, int id) {
+		this.sort = sort;
+		this.key = key;
+		this.name = sort == GodfatherSort.DEFAULT && name != null ? name : ""; //$NON-NLS-1$
+		this.id = id;
+	}
+
+	/**
+	 * Creates the cursor pointing behind the given {@link Godfather}
+	 *
+	 * @param sort      {@link GodfatherSort}
+	 * @param godfather last {@link Godfather} of the page
+	 * @return {@link GodfatherCursor}
+	 */
+	@NonNull
+	static GodfatherCursor after(@NonNull GodfatherSort sort, @NonNull Godfather godfather) {
+		return after(sort, godfather.getCurrentNumberTrainees(), godfather.getBirthday(), godfather.getHiringDate(),
+				godfather.getFirstName(), godfather.getId());
+	}
+
+	/**
+	 * Creates the cursor pointing behind the given {@link GodfatherListEntry}
+	 *
+	 * @param sort  {@link GodfatherSort}
+	 * @param entry last {@link GodfatherListEntry} of the page
+	 * @return {@link GodfatherCursor}
+	 */
+	@NonNull
+	static GodfatherCursor after(@NonNull GodfatherSort sort, @NonNull GodfatherListEntry entry) {
+		return after(sort, entry.getCurrentTrainees(), entry.getBirthday(), entry.getHiringDate(),
+				entry.getFirstName(), entry.getId());
+	}
+
+	@NonNull
+	private static GodfatherCursor after(@NonNull GodfatherSort sort, int currentTrainees, @Nullable Date birthday,
+			@Nullable Date hiringDate, @NonNull String firstName, int id) {
+		long key;
+		switch (sort) {
+		case AGE:
+			key = toDays(birthday);
+			break;
+		case EDUCATIONAL_YEAR:
+			key = toDays(hiringDate);
+			break;
+		default:
+			key = currentTrainees;
+			break;
+		}
+		return new GodfatherCursor(sort, key, firstName, id);
+	}
+
+	/**
+	 * Returns the {@link GodfatherSort}, the cursor belongs to
+	 *
+	 * @return {@link GodfatherSort}
+	 */
+	@NonNull
+	public GodfatherSort getSort() {
+		return this.sort;
+	}
+
+	/**
+	 * Returns the key as {@link Date}
+	 *
+	 * @return {@link Date} or <code>null</code>, if the date is unknown
+	 */
+	@Nullable
+	Date getKeyAsDate() {
+		return this.key != NO_DATE ? Date.valueOf(LocalDate.ofEpochDay(this.key)) : null;
+	}
+
+	/**
+	 * Returns the encrypted cursor, that can be passed to the client
+	 *
+	 * @return encrypted token
+	 * @see #decrypt(String)
+	 */
+	@NonNull
+	public String encrypt() {
+		return URIParameterEncryptionUtil.encrypt(this.sort.name() + SEPARATOR + this.key + SEPARATOR + this.id
+				+ SEPARATOR + this.name);
+	}
+
+	/**
+	 * Decrypts a token created by {@link #encrypt()}
+	 *
+	 * @param token encrypted token
+	 * @return {@link GodfatherCursor} or <code>null</code>, if the token is
+	 *         <code>null</code> or invalid
+	 */
+	@Nullable
+	public static GodfatherCursor decrypt(@Nullable String token) {
+		String decrypted = URIParameterEncryptionUtil.decrypt(token);
+		if (decrypted == null) {
+			return null;
+		}
+
+		String[] parts = decrypted.split("\\" + SEPARATOR, 4); //$NON-NLS-1$
+		if (parts.length != 4) {
+			return null;
+		}
+		try {
+			GodfatherSort sort = GodfatherSort.valueOf(parts[0]);
+			return new GodfatherCursor(sort, Long.parseLong(parts[1]), parts[3], Integer.parseInt(parts[2]));
+		} catch (@SuppressWarnings("unused") IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Converts a {@link Date} to days since epoch
+	 *
+	 * @param date {@link Date}
+	 * @return days or {@link #NO_DATE}, if date is <code>null</code>
+	 */
+	static long toDays(@Nullable Date date) {
+		return date != null ? date.toLocalDate().toEpochDay() : NO_DATE;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof GodfatherCursor)) {
+			return false;
+		}
+		GodfatherCursor other = (GodfatherCursor) obj;
+		return this.sort == other.sort && this.key == other.key && this.id == other.id
+				&& this.name.equals(other.name);
+	}
+
+	@Override
+	public int hashCode() {
+		return ((this.sort.hashCode() * 31 + Long.hashCode(this.key)) * 31 + this.name.hashCode()) * 31 + this.id;
+	}
+}
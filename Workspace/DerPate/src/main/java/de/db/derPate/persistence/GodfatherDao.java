@@ -1,23 +1,45 @@
 package de.db.derPate.persistence;
 
-import java.math.BigInteger;
+import java.sql.Date;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.logging.Level;
 
+import javax.persistence.PersistenceException;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 import org.hibernate.Session;
+import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 
+import de.db.derPate.manager.LoggingManager;
 import de.db.derPate.model.Godfather;
+import de.db.derPate.model.GodfatherListEntry;
 import de.db.derPate.model.Godfather_;
 import de.db.derPate.model.Id_;
+import de.db.derPate.model.Job;
 import de.db.derPate.model.Job_;
+import de.db.derPate.model.Location;
+import de.db.derPate.model.Location_;
+import de.db.derPate.model.TeachingType;
+import de.db.derPate.model.TeachingType_;
+import de.db.derPate.util.DateUtil;
+import de.db.derPate.util.NumberUtil;
 
 /**
  * Data Access Object providing methods to get {@link Godfather} objects out of
@@ -28,6 +50,8 @@ import de.db.derPate.model.Job_;
  */
 public class GodfatherDao extends EmailPasswordLoginUserDao {
 	private static GodfatherDao instance;
+	@Nullable
+	private static volatile EducationalYears educationalYears;
 
 	private GodfatherDao() {
 		super(Godfather.class);
@@ -45,11 +69,17 @@ public class GodfatherDao extends EmailPasswordLoginUserDao {
 		return instance;
 	}
 
+	@Override
+	protected String getFetchGraph() {
+		return Godfather.GRAPH_DETAILS;
+	}
+
 	/**
 	 * Filters all Godfathers with the given id's for location, job, teachingType
 	 * and educationalYear, that have at least one free slot available for another
 	 * trainee. If multiple id's per type (location, job, etc.) are selected, only
-	 * one has to be true.
+	 * one has to be true.<br>
+	 * Availability and order are based on the indexed Current_Trainees column.
 	 *
 	 * @param location        the location ids
 	 * @param jobs            the job ids
@@ -60,65 +90,426 @@ public class GodfatherDao extends EmailPasswordLoginUserDao {
 	@Nullable
 	public List<Godfather> filterAvailable(@Nullable List<String> location, @Nullable List<String> jobs,
 			@Nullable List<String> teachingType, @Nullable List<String> educationalYear) {
+		return this.filterAvailable(new GodfatherFilter(parseIntegers(location), parseIntegers(jobs),
+				parseIntegers(teachingType), parseIntegers(educationalYear)));
+	}
 
-		Session session = sessionFactory.openSession();
-		CriteriaBuilder builder = session.getCriteriaBuilder();
+	/**
+	 * Filters all Godfathers matching the given {@link GodfatherFilter}, that have
+	 * at least one free slot available for another trainee.<br>
+	 * Availability and order are based on the indexed Current_Trainees column.
+	 * Location, job and teaching type are loaded in the same statement.
+	 *
+	 * @param filter {@link GodfatherFilter}
+	 * @return a {@link List} of {@link Godfather}s, that the filter applies to
+	 * @see GodfatherAvailabilityIndex#filter(GodfatherFilter)
+	 */
+	@Nullable
+	public List<Godfather> filterAvailable(@NonNull GodfatherFilter filter) {
+		Session session = openSession();
+		try {
+			CriteriaBuilder builder = session.getCriteriaBuilder();
+
+			CriteriaQuery<Godfather> query = builder.createQuery(Godfather.class);
+			Root<Godfather> root = query.from(Godfather.class);
 
-		CriteriaQuery<Godfather> query = builder.createQuery(Godfather.class);
-		Root<Godfather> root = query.from(Godfather.class);
+			query.select(root);
+			query.orderBy(order(builder, root, GodfatherSort.DEFAULT));
+			query.where(availablePredicate(builder, root, root.get(Godfather_.LOCATION).get(Id_.ID),
+					root.get(Godfather_.JOB).get(Id_.ID),
+					root.get(Godfather_.JOB).get(Job_.TEACHING_TYPE).get(Id_.ID), filter, null));
+
+			Query<Godfather> q = session.createQuery(query);
+			this.applyFetchGraph(session, q);
+			return q.getResultList();
+		} finally {
+			closeSession(session);
+		}
+	}
 
-		query.select(root);
-		query.orderBy(builder.asc(root.get(Godfather_.CURRENT_TRAINEES)), builder.asc(root.get(Godfather_.FIRST_NAME)));
+	/**
+	 * Returns one page of Godfathers matching the given {@link GodfatherFilter},
+	 * that have at least one free slot available for another trainee.<br>
+	 * Only the informations shown in the list are selected (joined in a single
+	 * query), so no entities are loaded into the session.<br>
+	 * The page is continued after the given {@link GodfatherCursor} (keyset
+	 * pagination), so the database can seek into the sorted index instead of
+	 * skipping all previous rows.
+	 *
+	 * @param filter {@link GodfatherFilter}
+	 * @param sort   {@link GodfatherSort}
+	 * @param cursor {@link GodfatherCursor} of the previous page or
+	 *               <code>null</code> for the first page
+	 * @param limit  maximum number of {@link GodfatherListEntry}s
+	 * @return {@link GodfatherPage}
+	 * @see GodfatherAvailabilityIndex#filter(GodfatherFilter, GodfatherSort,
+	 *      GodfatherCursor, int)
+	 */
+	@SuppressWarnings("null")
+	@NonNull
+	public GodfatherPage<GodfatherListEntry> listAvailable(@NonNull GodfatherFilter filter,
+			@NonNull GodfatherSort sort, @Nullable GodfatherCursor cursor, int limit) {
+		if (cursor != null && cursor.sort != sort) {
+			cursor = null; // cursor of another order -> start from the beginning
+		}
+
+		List<GodfatherListEntry> result;
+		Session session = openSession();
+		try {
+			CriteriaBuilder builder = session.getCriteriaBuilder();
+
+			CriteriaQuery<GodfatherListEntry> query = builder.createQuery(GodfatherListEntry.class);
+			Root<Godfather> root = query.from(Godfather.class);
+			Join<Godfather, Location> location = root.join(Godfather_.LOCATION);
+			Join<Godfather, Job> job = root.join(Godfather_.JOB);
+			Join<Job, TeachingType> teachingType = job.join(Job_.TEACHING_TYPE);
+
+			query.select(builder.construct(GodfatherListEntry.class, root.get(Godfather_.ID),
+					root.get(Godfather_.FIRST_NAME), root.get(Godfather_.CURRENT_TRAINEES),
+					location.get(Location_.LOCATION), job.get(Job_.JOB), teachingType.get(TeachingType_.TEACHING_TYPE),
+					root.get(Godfather_.HIRING_DATE), root.get(Godfather_.BIRTHDAY),
+					root.get(Godfather_.DESCRIPTION)));
+			query.orderBy(order(builder, root, sort));
+			query.where(availablePredicate(builder, root, location.get(Id_.ID), job.get(Id_.ID),
+					teachingType.get(Id_.ID), filter, cursor));
+
+			Query<GodfatherListEntry> q = session.createQuery(query);
+			q.setReadOnly(true);
+			if (limit < Integer.MAX_VALUE) {
+				q.setMaxResults(limit + 1); // one more than requested, to know if there is a next page
+			}
+			result = q.getResultList();
+		} finally {
+			closeSession(session);
+		}
+
+		GodfatherCursor next = null;
+		if (result.size() > limit) {
+			result = result.subList(0, limit);
+			next = GodfatherCursor.after(sort, result.get(limit - 1));
+		}
+		return new GodfatherPage<>(Collections.unmodifiableList(result), next);
+	}
 
+	/**
+	 * Creates the order of the given {@link GodfatherSort}
+	 *
+	 * @param builder {@link CriteriaBuilder}
+	 * @param root    {@link Root} of the query
+	 * @param sort    {@link GodfatherSort}
+	 * @return {@link List} of {@link Order}s
+	 */
+	@SuppressWarnings("null")
+	@NonNull
+	private static List<Order> order(@NonNull CriteriaBuilder builder, @NonNull Root<Godfather> root,
+			@NonNull GodfatherSort sort) {
+		Path<Integer> id = root.get(Godfather_.ID);
+		switch (sort) {
+		case AGE:
+			return Arrays.asList(builder.desc(root.get(Godfather_.BIRTHDAY)), builder.desc(id));
+		case EDUCATIONAL_YEAR:
+			return Arrays.asList(builder.desc(root.get(Godfather_.HIRING_DATE)), builder.desc(id));
+		default:
+			return Arrays.asList(builder.asc(root.get(Godfather_.CURRENT_TRAINEES)),
+					builder.asc(root.get(Godfather_.FIRST_NAME)), builder.asc(id));
+		}
+	}
+
+	/**
+	 * Creates a {@link Predicate}, that matches all {@link Godfather}s with free
+	 * trainee slots, that match the given {@link GodfatherFilter} (and are behind
+	 * the given {@link GodfatherCursor}). The ids are bound as integers.
+	 *
+	 * @param builder        {@link CriteriaBuilder}
+	 * @param root           {@link Root} of the query
+	 * @param locationId     {@link Path} of the location id
+	 * @param jobId          {@link Path} of the job id
+	 * @param teachingTypeId {@link Path} of the teaching type id
+	 * @param filter         {@link GodfatherFilter}
+	 * @param cursor         {@link GodfatherCursor} or <code>null</code>
+	 * @return {@link Predicate}
+	 */
+	@NonNull
+	private static Predicate availablePredicate(@NonNull CriteriaBuilder builder, @NonNull Root<Godfather> root,
+			@NonNull Path<Integer> locationId, @NonNull Path<Integer> jobId, @NonNull Path<Integer> teachingTypeId,
+			@NonNull GodfatherFilter filter, @Nullable GodfatherCursor cursor) {
 		Predicate predicate = builder.lt(root.get(Godfather_.CURRENT_TRAINEES), root.get(Godfather_.MAX_TRAINEES));
-		if (location != null && location.size() > 0) {
-			Predicate clause = root.get(Godfather_.LOCATION).get(Id_.ID).in(location);
-			predicate = builder.and(predicate, clause);
+		if (filter.locations.length > 0) {
+			predicate = builder.and(predicate, locationId.in(toList(filter.locations)));
 		}
-		if (jobs != null && jobs.size() > 0) {
-			Predicate clause = root.get(Godfather_.JOB).get(Id_.ID).in(jobs);
-			predicate = builder.and(predicate, clause);
+		if (filter.jobs.length > 0) {
+			predicate = builder.and(predicate, jobId.in(toList(filter.jobs)));
 		}
-		if (teachingType != null && teachingType.size() > 0) {
-			Predicate clause = root.get(Godfather_.JOB).get(Job_.TEACHING_TYPE).get(Id_.ID).in(teachingType);
-			predicate = builder.and(predicate, clause);
+		if (filter.teachingTypes.length > 0) {
+			predicate = builder.and(predicate, teachingTypeId.in(toList(filter.teachingTypes)));
 		}
-		if (educationalYear != null && educationalYear.size() > 0) {
-			Predicate clause = root.get(Godfather_.EDUCATIONAL_YEAR).in(educationalYear);
+		if (filter.educationalYears.length > 0) {
+			Predicate clause = educationalYearClause(builder, root, filter.educationalYears);
 			predicate = builder.and(predicate, clause);
 		}
+		if (filter.hasAgeRange()) {
+			// age n: born more than n + 1 and at most n years ago
+			Path<Date> birthday = root.<Date>get(Godfather_.BIRTHDAY);
+			if (filter.minAge != null) {
+				predicate = builder.and(predicate, builder.lessThanOrEqualTo(birthday,
+						new Date(DateUtil.getDateYearsAgo(filter.minAge.intValue()).getTime())));
+			}
+			if (filter.maxAge != null) {
+				predicate = builder.and(predicate, builder.greaterThan(birthday,
+						new Date(DateUtil.getDateYearsAgo(filter.maxAge.intValue() + 1).getTime())));
+			}
+		}
+		if (filter.hasEducationalYearRange()) {
+			Path<Date> hiringDate = root.<Date>get(Godfather_.HIRING_DATE);
+			if (filter.minEducationalYear != null) {
+				predicate = builder.and(predicate, builder.lessThanOrEqualTo(hiringDate,
+						new Date(DateUtil.getDateYearsAgo(filter.minEducationalYear.intValue() - 1).getTime())));
+			}
+			if (filter.maxEducationalYear != null) {
+				predicate = builder.and(predicate, builder.greaterThan(hiringDate,
+						new Date(DateUtil.getDateYearsAgo(filter.maxEducationalYear.intValue()).getTime())));
+			}
+		}
+		if (cursor != null) {
+			predicate = builder.and(predicate, cursorClause(builder, root, cursor));
+		}
+		return predicate;
+	}
+
+	/**
+	 * Creates a {@link Predicate}, that only matches {@link Godfather}s behind the
+	 * given {@link GodfatherCursor} (in the order of {@link GodfatherCursor#sort})
+	 *
+	 * @param builder {@link CriteriaBuilder}
+	 * @param root    {@link Root} of the query
+	 * @param cursor  {@link GodfatherCursor}
+	 * @return {@link Predicate}
+	 */
+	@NonNull
+	private static Predicate cursorClause(@NonNull CriteriaBuilder builder, @NonNull Root<Godfather> root,
+			@NonNull GodfatherCursor cursor) {
+		Path<Integer> id = root.get(Godfather_.ID);
+		Integer cursorId = Integer.valueOf(cursor.id);
+		switch (cursor.sort) {
+		case AGE:
+		case EDUCATIONAL_YEAR: {
+			// descending; unknown birthdays are sorted last
+			String attribute = cursor.sort == GodfatherSort.AGE ? Godfather_.BIRTHDAY : Godfather_.HIRING_DATE;
+			Path<Date> date = root.<Date>get(attribute);
+			Date cursorDate = cursor.getKeyAsDate();
+			if (cursorDate == null) {
+				return builder.and(builder.isNull(date), builder.lessThan(id, cursorId));
+			}
+			return builder.or(builder.lessThan(date, cursorDate),
+					builder.and(builder.equal(date, cursorDate), builder.lessThan(id, cursorId)), builder.isNull(date));
+		}
+		default: {
+			Path<Integer> currentTrainees = root.get(Godfather_.CURRENT_TRAINEES);
+			Path<String> firstName = root.get(Godfather_.FIRST_NAME);
+			Integer cursorTrainees = Integer.valueOf((int) cursor.key);
+			return builder.or(builder.greaterThan(currentTrainees, cursorTrainees),
+					builder.and(builder.equal(currentTrainees, cursorTrainees),
+							builder.greaterThan(firstName, cursor.name)),
+					builder.and(builder.equal(currentTrainees, cursorTrainees), builder.equal(firstName, cursor.name),
+							builder.greaterThan(id, cursorId)));
+		}
+		}
+	}
 
-		if (predicate != null) {
-			query.where(predicate);
+	/**
+	 * Creates a {@link Predicate}, that checks if a {@link Godfather} is in one of
+	 * the given educational years. The years are translated into ranges of the
+	 * (indexed) hiring date, relative to the current date. Consecutive years are
+	 * merged into a single range.
+	 *
+	 * @param builder         {@link CriteriaBuilder}
+	 * @param root            {@link Root} of the query
+	 * @param educationalYear the sorted educational years (1, 2, 3, ...)
+	 * @return {@link Predicate}
+	 */
+	@NonNull
+	private static Predicate educationalYearClause(@NonNull CriteriaBuilder builder, @NonNull Root<Godfather> root,
+			@NonNull int[] educationalYear) {
+		Path<Date> hiringDate = root.<Date>get(Godfather_.HIRING_DATE);
+		List<Predicate> ranges = new ArrayList<>();
+		int i = 0;
+		while (i < educationalYear.length) {
+			int first = educationalYear[i];
+			int last = first;
+			while (i + 1 < educationalYear.length && educationalYear[i + 1] == last + 1) {
+				last = educationalYear[++i];
+			}
+			i++;
+			if (first <= 0) {
+				continue; // invalid year
+			}
+
+			// educational year n: hired more than n - 1 and at most n years ago
+			Date newest = new Date(DateUtil.getDateYearsAgo(first - 1).getTime());
+			Date oldest = new Date(DateUtil.getDateYearsAgo(last).getTime());
+			ranges.add(builder.and(builder.lessThanOrEqualTo(hiringDate, newest),
+					builder.greaterThan(hiringDate, oldest)));
 		}
 
-		Query<Godfather> q = session.createQuery(query);
+		if (ranges.isEmpty()) {
+			return builder.disjunction(); // no valid year -> nobody matches
+		}
+		return builder.or(ranges.toArray(new Predicate[ranges.size()]));
+	}
 
-		return q.getResultList();
+	/**
+	 * Parses the ids. Ids, that are no integers, are replaced by <code>-1</code>,
+	 * so they don't match anything.
+	 *
+	 * @param values ids
+	 * @return {@link List} of ids
+	 */
+	@Nullable
+	private static List<Integer> parseIntegers(@Nullable List<String> values) {
+		if (values == null) {
+			return null;
+		}
+		List<Integer> result = new ArrayList<>(values.size());
+		for (String value : values) {
+			Integer parsed = NumberUtil.parseInteger(value);
+			result.add(parsed != null ? parsed : Integer.valueOf(-1));
+		}
+		return result;
+	}
+
+	@NonNull
+	private static List<Integer> toList(@NonNull int[] values) {
+		List<Integer> result = new ArrayList<>(values.length);
+		for (int value : values) {
+			result.add(Integer.valueOf(value));
+		}
+		return result;
+	}
+
+	/**
+	 * Sets the number of current trainees of every {@link Godfather} to the number
+	 * of trainees, that actually selected him/her. The number is maintained on
+	 * every selection, so this only repairs drift (e.g. caused by manual changes
+	 * in the database).
+	 *
+	 * @return number of repaired {@link Godfather}s or <code>-1</code>, if an
+	 *         error occurred
+	 */
+	public int reconcileCurrentTrainees() {
+		int repaired = -1;
+		Session session = openWriteSession();
+		Transaction transaction = null;
+		try {
+			transaction = beginTransaction(session);
+			repaired = session.createNativeQuery("UPDATE Godfather g SET g.Current_Trainees = " //$NON-NLS-1$
+					+ "(SELECT COUNT(*) FROM Trainee t WHERE t.Id_Godfather = g.Id_Godfather) " //$NON-NLS-1$
+					+ "WHERE g.Current_Trainees <> (SELECT COUNT(*) FROM Trainee t WHERE t.Id_Godfather = g.Id_Godfather)") //$NON-NLS-1$
+					.addSynchronizedEntityClass(Godfather.class) // evicts all cached godfathers
+					.executeUpdate();
+			if (!commit(session, transaction)) {
+				repaired = -1;
+			}
+		} catch (PersistenceException | IllegalStateException e) {
+			LoggingManager.log(Level.WARNING, "Error reconciling current trainees. Rolling back: " + e.getMessage()); //$NON-NLS-1$
+			rollback(session, transaction);
+			repaired = -1;
+		} finally {
+			closeSession(session);
+		}
+		return repaired;
+	}
+
+	/**
+	 * Reads the current trainees of the given {@link Godfather}s. Always uses its
+	 * own {@link Session}, so the values committed most recently are read (even
+	 * inside a {@link UnitOfWork}).
+	 *
+	 * @param ids ids of the {@link Godfather}s
+	 * @return current trainees by id (without unknown ids)
+	 */
+	@NonNull
+	public Map<Integer, Integer> currentTrainees(@NonNull Collection<Integer> ids) {
+		Map<Integer, Integer> result = new HashMap<>();
+		if (ids.isEmpty()) {
+			return result;
+		}
+
+		Session session = sessionFactory.openSession();
+		try {
+			List<?> rows = session
+					.createNativeQuery("SELECT Id_Godfather, Current_Trainees FROM Godfather WHERE Id_Godfather IN (:ids)") //$NON-NLS-1$
+					.setParameterList("ids", ids) //$NON-NLS-1$
+					.getResultList();
+			for (Object row : rows) {
+				Object[] columns = (Object[]) row;
+				result.put(Integer.valueOf(((Number) columns[0]).intValue()),
+						Integer.valueOf(((Number) columns[1]).intValue()));
+			}
+		} finally {
+			session.close();
+		}
+		return result;
 	}
 
 	/**
 	 * Returns a {@link List} of the educational years, the godfathers are in.<br>
-	 * For example 1, 2, 3.
+	 * For example 1, 2, 3.<br>
+	 * The years are calculated once a day (or after
+	 * {@link #invalidateEducationalYears()}).
 	 *
-	 * @return a {@link List} of educational years
+	 * @return an unmodifiable, sorted {@link List} of educational years
 	 */
 	@NonNull
 	public static List<@NonNull Integer> getEducationalYears() {
-		List<@NonNull Integer> result = new ArrayList<>();
+		EducationalYears current = educationalYears;
+		LocalDate today = LocalDate.now();
+		if (current == null || !today.equals(current.day)) {
+			current = new EducationalYears(today, loadEducationalYears());
+			educationalYears = current;
+		}
+		return current.years;
+	}
 
-		Session session = sessionFactory.openSession();
-		// TODO avoid sql and use a hibernate query instead
-		List<@NonNull BigInteger> sqlResult = session
-				.createSQLQuery("SELECT DISTINCT YEAR_DIFF(hiring_date) + 1 AS 'year' FROM Godfather") //$NON-NLS-1$
-				.list();
-		session.close();
+	/**
+	 * Forces {@link #getEducationalYears()} to recalculate the educational years
+	 * (e.g. after the hiring date of a godfather changed)
+	 */
+	public static void invalidateEducationalYears() {
+		educationalYears = null;
+	}
 
-		for (@NonNull
-		BigInteger year : sqlResult) {
-			result.add(year.intValue());
+	@NonNull
+	private static List<@NonNull Integer> loadEducationalYears() {
+		TreeSet<@NonNull Integer> result = new TreeSet<>();
+
+		Session session = openSession();
+		List<Date> hiringDates = session
+				.createQuery("SELECT DISTINCT g." + Godfather_.HIRING_DATE + " FROM Godfather g", Date.class) //$NON-NLS-1$ //$NON-NLS-2$
+				.getResultList();
+		closeSession(session);
+
+		for (Date hiringDate : hiringDates) {
+			Integer years = DateUtil.getYearDiff(hiringDate);
+			if (years != null) {
+				result.add(Integer.valueOf(years.intValue() + 1));
+			}
 		}
 
-		return result;
+		return Collections.unmodifiableList(new ArrayList<>(result));
+	}
+
+	/**
+	 * Educational years calculated at a specific day
+	 */
+	private static final class EducationalYears {
+		@NonNull
+		final LocalDate day;
+		@NonNull
+		final List<@NonNull Integer> years;
+
+		EducationalYears(@NonNull LocalDate day, @NonNull List<@NonNull Integer> years) {
+			this.day = day;
+			this.years = years;
+		}
 	}
 }
@@ -0,0 +1,298 @@
+package de.db.derPate.persistence;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.db.derPate.model.Godfather;
+import de.db.derPate.model.Id;
+import de.db.derPate.model.Job;
+
+/**
+ * Immutable, normalized filter for available {@link Godfather}s.<br>
+ * Ids and educational years are stored sorted and without duplicates, so two
+ * filters selecting the same {@link Godfather}s are {@link #equals(Object)
+ * equal}. Empty sets and <code>null</code> range bounds do not restrict the
+ * result.
+ *
+ * @author MichelBlank
+ *
+ */
+public final class GodfatherFilter {
+	@NonNull
+	final int[] locations;
+	@NonNull
+	final int[] jobs;
+	@NonNull
+	final int[] teachingTypes;
+	@NonNull
+	final int[] educationalYears;
+	@Nullable
+	final Integer minAge;
+	@Nullable
+	final Integer maxAge;
+	@Nullable
+	final Integer minEducationalYear;
+	@Nullable
+	final Integer maxEducationalYear;
+
+	/**
+	 * Constructor for a filter without range restrictions
+	 *
+	 * @param locations        location ids
+	 * @param jobs             job ids
+	 * @param teachingTypes    teaching type ids
+	 * @param educationalYears educational years (1, 2, 3, ...)
+	 */
+	public GodfatherFilter(@Nullable Collection<Integer> locations, @Nullable Collection<Integer> jobs,
+			@Nullable Collection<Integer> teachingTypes, @Nullable Collection<Integer> educationalYears) {
+		this(locations, jobs, teachingTypes, educationalYears, null, null, null, null);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param locations          location ids
+	 * @param jobs               job ids
+	 * @param teachingTypes      teaching type ids
+	 * @param educationalYears   educational years (1, 2, 3, ...)
+	 * @param minAge             minimum age (inclusive)
+	 * @param maxAge             maximum age (inclusive)
+	 * @param minEducationalYear minimum educational year (inclusive)
+	 * @param maxEducationalYear maximum educational year (inclusive)
+	 */
+	public GodfatherFilter(@Nullable Collection<Integer> locations, @Nullable Collection<Integer> jobs,
+			@Nullable Collection<Integer> teachingTypes, @Nullable Collection<Integer> educationalYears,
+			@Nullable Integer minAge, @Nullable Integer maxAge, @Nullable Integer minEducationalYear,
+			@Nullable Integer maxEducationalYear) {
+		this.locations = normalize(locations);
+		this.jobs = normalize(jobs);
+		this.teachingTypes = normalize(teachingTypes);
+		this.educationalYears = normalize(educationalYears);
+		this.minAge = minAge;
+		this.maxAge = maxAge;
+		this.minEducationalYear = minEducationalYear;
+		this.maxEducationalYear = maxEducationalYear;
+	}
+
+	/**
+	 * Returns the location ids
+	 *
+	 * @return sorted location ids
+	 */
+	@SuppressWarnings("null")
+	@NonNull
+	public int[] getLocations() {
+		return this.locations.clone();
+	}
+
+	/**
+	 * Returns the job ids
+	 *
+	 * @return sorted job ids
+	 */
+	@SuppressWarnings("null")
+	@NonNull
+	public int[] getJobs() {
+		return this.jobs.clone();
+	}
+
+	/**
+	 * Returns the teaching type ids
+	 *
+	 * @return sorted teaching type ids
+	 */
+	@SuppressWarnings("null")
+	@NonNull
+	public int[] getTeachingTypes() {
+		return this.teachingTypes.clone();
+	}
+
+	/**
+	 * Returns the educational years
+	 *
+	 * @return sorted educational years
+	 */
+	@SuppressWarnings("null")
+	@NonNull
+	public int[] getEducationalYears() {
+		return this.educationalYears.clone();
+	}
+
+	/**
+	 * Returns the minimum age
+	 *
+	 * @return minimum age or <code>null</code>
+	 */
+	@Nullable
+	public Integer getMinAge() {
+		return this.minAge;
+	}
+
+	/**
+	 * Returns the maximum age
+	 *
+	 * @return maximum age or <code>null</code>
+	 */
+	@Nullable
+	public Integer getMaxAge() {
+		return this.maxAge;
+	}
+
+	/**
+	 * Returns the minimum educational year
+	 *
+	 * @return minimum educational year or <code>null</code>
+	 */
+	@Nullable
+	public Integer getMinEducationalYear() {
+		return this.minEducationalYear;
+	}
+
+	/**
+	 * Returns the maximum educational year
+	 *
+	 * @return maximum educational year or <code>null</code>
+	 */
+	@Nullable
+	public Integer getMaxEducationalYear() {
+		return this.maxEducationalYear;
+	}
+
+	/**
+	 * Returns if an age range is set
+	 *
+	 * @return <code>true</code>, if minimum or maximum age is set
+	 */
+	public boolean hasAgeRange() {
+		return this.minAge != null || this.maxAge != null;
+	}
+
+	/**
+	 * Returns if an educational year range is set
+	 *
+	 * @return <code>true</code>, if minimum or maximum educational year is set
+	 */
+	public boolean hasEducationalYearRange() {
+		return this.minEducationalYear != null || this.maxEducationalYear != null;
+	}
+
+	/**
+	 * Checks, if the {@link Godfather} matches the filter (regardless of their
+	 * free trainee slots)
+	 *
+	 * @param godfather {@link Godfather}
+	 * @param today     the day, ages and educational years are calculated for
+	 * @return <code>true</code>, if the {@link Godfather} is selected by the
+	 *         filter
+	 */
+	boolean matches(@NonNull Godfather godfather, @NonNull LocalDate today) {
+		Job job = godfather.getJob();
+		long hiringDay = GodfatherCursor.toDays(godfather.getHiringDate());
+		long birthday = GodfatherCursor.toDays(godfather.getBirthday());
+		int educationalYear = hiringDay != GodfatherCursor.NO_DATE
+				? (int) ChronoUnit.YEARS.between(LocalDate.ofEpochDay(hiringDay), today) + 1
+				: 0;
+
+		if (!contains(this.locations, godfather.getLocation()) || !contains(this.jobs, job)
+				|| !contains(this.teachingTypes, job != null ? job.getTeachingType() : null)) {
+			return false;
+		}
+		if (this.educationalYears.length > 0 && Arrays.binarySearch(this.educationalYears, educationalYear) < 0) {
+			return false;
+		}
+		if (this.hasAgeRange()) {
+			if (birthday == GodfatherCursor.NO_DATE) {
+				return false;
+			}
+			long age = ChronoUnit.YEARS.between(LocalDate.ofEpochDay(birthday), today);
+			if (!inRange(age, this.minAge, this.maxAge)) {
+				return false;
+			}
+		}
+		if (this.hasEducationalYearRange()) {
+			return hiringDay != GodfatherCursor.NO_DATE
+					&& inRange(educationalYear, this.minEducationalYear, this.maxEducationalYear);
+		}
+		return true;
+	}
+
+	/**
+	 * Checks, if the id is one of the wanted ids
+	 *
+	 * @param ids sorted ids (empty, if all are wanted)
+	 * @param id  object with the id
+	 * @return <code>true</code>, if the id is wanted
+	 */
+	private static boolean contains(@NonNull int[] ids, @Nullable Id id) {
+		return ids.length == 0 || (id != null && Arrays.binarySearch(ids, id.getId()) >= 0);
+	}
+
+	/**
+	 * Checks, if the value is in the range
+	 *
+	 * @param value value
+	 * @param min   minimum (inclusive) or <code>null</code>
+	 * @param max   maximum (inclusive) or <code>null</code>
+	 * @return <code>true</code>, if the value is in the range
+	 */
+	private static boolean inRange(long value, @Nullable Integer min, @Nullable Integer max) {
+		return (min == null || value >= min.intValue()) && (max == null || value <= max.intValue());
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof GodfatherFilter)) {
+			return false;
+		}
+		GodfatherFilter other = (GodfatherFilter) obj;
+		return Arrays.equals(this.locations, other.locations) && Arrays.equals(this.jobs, other.jobs)
+				&& Arrays.equals(this.teachingTypes, other.teachingTypes)
+				&& Arrays.equals(this.educationalYears, other.educationalYears)
+				&& Objects.equals(this.minAge, other.minAge) && Objects.equals(this.maxAge, other.maxAge)
+				&& Objects.equals(this.minEducationalYear, other.minEducationalYear)
+				&& Objects.equals(this.maxEducationalYear, other.maxEducationalYear);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = Arrays.hashCode(this.locations);
+		result = 31 * result + Arrays.hashCode(this.jobs);
+		result = 31 * result + Arrays.hashCode(this.teachingTypes);
+		result = 31 * result + Arrays.hashCode(this.educationalYears);
+		result = 31 * result + Objects.hash(this.minAge, this.maxAge, this.minEducationalYear,
+				this.maxEducationalYear);
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "GodfatherFilter [locations=" + Arrays.toString(this.locations) + ", jobs=" //$NON-NLS-1$ //$NON-NLS-2$
+				+ Arrays.toString(this.jobs) + ", teachingTypes=" + Arrays.toString(this.teachingTypes) //$NON-NLS-1$
+				+ ", educationalYears=" + Arrays.toString(this.educationalYears) + ", age=" + this.minAge + "-" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ this.maxAge + ", educationalYear=" + this.minEducationalYear + "-" + this.maxEducationalYear + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/**
+	 * Sorts the values and removes duplicates and <code>null</code> values
+	 *
+	 * @param values values
+	 * @return sorted array
+	 */
+	@SuppressWarnings("null")
+	@NonNull
+	private static int[] normalize(@Nullable Collection<Integer> values) {
+		if (values == null || values.isEmpty()) {
+			return new int[0];
+		}
+		return values.stream().filter(Objects::nonNull).mapToInt(Integer::intValue).sorted().distinct().toArray();
+	}
+}
@@ -0,0 +1,135 @@
+package de.db.derPate.persistence;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+import de.db.derPate.model.Godfather;
+
+/**
+ * Store of serialized {@link Godfather}s (e.g. the json object of a godfather
+ * in the godfather list). Every {@link Godfather} is serialized once and the
+ * bytes are reused by all responses, that contain them.<br>
+ * The {@link Godfather}s must not be modified (like those of the
+ * {@link GodfatherAvailabilityIndex}): a fragment is reused, as long as the
+ * same object is passed. The index replaces the object, when the godfather was
+ * updated, and builds new objects, when locations or jobs changed, so their
+ * fragments are serialized again. All fragments are serialized again at
+ * midnight (ages and educational years change).
+ *
+ * @author MichelBlank
+ */
+public final class GodfatherFragmentStore {
+	/**
+	 * Separator of the fragments in a json array
+	 */
+	private static final int SEPARATOR = ',';
+
+	@NonNull
+	private final Serializer serializer;
+	@NonNull
+	private final ConcurrentHashMap<Integer, Fragment> fragments = new ConcurrentHashMap<>();
+	/**
+	 * Day of the stored fragments, older fragments are removed
+	 */
+	@NonNull
+	private volatile LocalDate day = LocalDate.now();
+
+	/**
+	 * Serializes a single {@link Godfather}
+	 */
+	@FunctionalInterface
+	public interface Serializer {
+		/**
+		 * Serializes the {@link Godfather}
+		 *
+		 * @param godfather {@link Godfather}
+		 * @return serialized {@link Godfather}
+		 * @throws IOException if the {@link Godfather} can't be serialized
+		 */
+		byte[] serialize(@NonNull Godfather godfather) throws IOException;
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param serializer {@link Serializer} of a single {@link Godfather}
+	 */
+	public GodfatherFragmentStore(@NonNull Serializer serializer) {
+		this.serializer = serializer;
+	}
+
+	/**
+	 * Returns the serialized {@link Godfather}, which is serialized, if the
+	 * object was not serialized before today
+	 *
+	 * @param godfather {@link Godfather} (must not be modified)
+	 * @return fragment (shared, must not be modified)
+	 * @throws IOException if the {@link Godfather} can't be serialized
+	 */
+	public byte[] get(@NonNull Godfather godfather) throws IOException {
+		LocalDate today = LocalDate.now();
+		if (!today.equals(this.day)) {
+			// all fragments are outdated -> remove fragments of godfathers, that aren't requested anymore
+			this.day = today;
+			this.fragments.clear();
+		}
+		Integer id = Integer.valueOf(godfather.getId());
+		Fragment fragment = this.fragments.get(id);
+		if (fragment != null && fragment.godfather == godfather && fragment.day.equals(today)) {
+			return fragment.content;
+		}
+		byte[] content = this.serializer.serialize(godfather);
+		this.fragments.put(id, new Fragment(godfather, today, content));
+		return content;
+	}
+
+	/**
+	 * Writes the fragments of the {@link Godfather}s separated by commas (the
+	 * elements of a json array)
+	 *
+	 * @param out        {@link OutputStream}
+	 * @param godfathers {@link Godfather}s (must not be modified)
+	 * @throws IOException if a {@link Godfather} can't be serialized or written
+	 */
+	public void write(@NonNull OutputStream out, @NonNull List<@NonNull Godfather> godfathers) throws IOException {
+		boolean first = true;
+		for (Godfather godfather : godfathers) {
+			if (!first) {
+				out.write(SEPARATOR);
+			}
+			out.write(this.get(godfather));
+			first = false;
+		}
+	}
+
+	/**
+	 * Returns the number of stored fragments
+	 *
+	 * @return number of fragments
+	 */
+	public int size() {
+		return this.fragments.size();
+	}
+
+	/**
+	 * A serialized {@link Godfather}
+	 */
+	private static final class Fragment {
+		@NonNull
+		final Godfather godfather;
+		@NonNull
+		final LocalDate day;
+		final byte[] content;
+
+		Fragment(@NonNull Godfather godfather, @NonNull LocalDate day, byte[] content) {
+			this.godfather = godfather;
+			this.day = day;
+			this.content = content;
+		}
+	}
+}
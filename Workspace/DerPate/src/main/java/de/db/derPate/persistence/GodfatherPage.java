@@ -0,0 +1,57 @@
+package de.db.derPate.persistence;
+
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.db.derPate.model.Godfather;
+import de.db.derPate.model.GodfatherListEntry;
+
+/**
+ * One page of available {@link Godfather}s
+ *
+ * @param <T> type of the entries ({@link Godfather} or
+ *        {@link GodfatherListEntry})
+ * @author MichelBlank
+ *
+ */
+public final class GodfatherPage<T> {
+	@NonNull
+	private final List<@NonNull T> godfathers;
+	@Nullable
+	private final GodfatherCursor next;
+
+	/**
+	 * Constructor
+	 *
+	 * @param godfathers entries of this page
+	 * @param next       {@link GodfatherCursor} of the next page or
+	 *                   <code>null</code>, if this is the last page
+	 */
+	GodfatherPage(@NonNull List<@NonNull T> godfathers, @Nullable GodfatherCursor next) {
+		this.godfathers = godfathers;
+		this.next = next;
+	}
+
+	/**
+	 * Returns the entries of this page
+	 *
+	 * @return unmodifiable {@link List} of entries
+	 */
+	@NonNull
+	public List<@NonNull T> getGodfathers() {
+		return this.godfathers;
+	}
+
+	/**
+	 * Returns the cursor of the next page
+	 *
+	 * @return {@link GodfatherCursor} or <code>null</code>, if this is the last
+	 *         page
+	 */
+	@Nullable
+	public GodfatherCursor getNext() {
+		return this.next;
+	}
+}
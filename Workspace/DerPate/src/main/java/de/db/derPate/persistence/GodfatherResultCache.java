@@ -0,0 +1,410 @@
+package de.db.derPate.persistence;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.db.derPate.Constants;
+import de.db.derPate.model.Godfather;
+
+/**
+ * Cache of the serialized pages of available {@link Godfather}s (e.g. the json
+ * responses of the godfather list), keyed by the normalized
+ * {@link GodfatherFilter}, {@link GodfatherSort}, {@link GodfatherCursor} and
+ * page size. Many trainees use the same filters at the same time, so a hit only
+ * copies the cached bytes.<br>
+ * Concurrent misses of the same key are loaded once: the first request loads
+ * the page, the others wait for its result (single flight).<br>
+ * Entries are removed precisely, when a change of a {@link Godfather} can
+ * change them (see {@link #invalidate(Godfather)} and
+ * {@link #invalidateCurrentTrainees(int, Godfather)}), after the change was
+ * committed. They expire after
+ * {@link Constants.Cache#GODFATHER_RESULTS_MAX_AGE_SECONDS} (changes of other
+ * instances of the application) and at midnight (ages and educational years
+ * change). The number of entries is limited, the entry used least recently is
+ * removed first.
+ *
+ * @author MichelBlank
+ */
+public final class GodfatherResultCache {
+	private static GodfatherResultCache instance;
+
+	private final int maxEntries;
+	private final long maxAgeNanos;
+
+	/**
+	 * Entries ordered by last access (guarded by itself)
+	 */
+	@NonNull
+	private final LinkedHashMap<Key, Value> entries;
+	/**
+	 * Number of invalidations (guarded by {@link #entries}), used to detect
+	 * changes while a page was loaded
+	 */
+	private long modifications;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong invalidationCount = new AtomicLong();
+
+	/**
+	 * Loads and serializes a page of available {@link Godfather}s
+	 */
+	@FunctionalInterface
+	public interface Loader {
+		/**
+		 * Loads the page
+		 *
+		 * @return {@link Page}
+		 * @throws IOException if the page can't be serialized
+		 */
+		@NonNull
+		Page load() throws IOException;
+	}
+
+	/**
+	 * A loaded, serialized page
+	 */
+	public static final class Page {
+		private final byte[] content;
+		@NonNull
+		private final int[] godfathers;
+
+		/**
+		 * Constructor
+		 *
+		 * @param content    serialized page (must not be modified afterwards)
+		 * @param godfathers ids of the {@link Godfather}s on the page
+		 */
+		public Page(byte[] content, @NonNull int[] godfathers) {
+			this.content = content;
+			int[] sorted = godfathers.clone();
+			Arrays.sort(sorted);
+			this.godfathers = sorted;
+		}
+
+		/**
+		 * Returns the serialized page
+		 *
+		 * @return content (shared, must not be modified)
+		 */
+		public byte[] getContent() {
+			return this.content;
+		}
+
+		boolean contains(int godfatherId) {
+			return Arrays.binarySearch(this.godfathers, godfatherId) >= 0;
+		}
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param maxEntries    maximum number of cached pages
+	 * @param maxAgeSeconds time in seconds, after which a page is loaded again
+	 */
+	GodfatherResultCache(int maxEntries, int maxAgeSeconds) {
+		this.maxEntries = maxEntries;
+		this.maxAgeNanos = TimeUnit.SECONDS.toNanos(maxAgeSeconds);
+		this.entries = new LinkedHashMap<Key, Value>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Entry<Key, Value> eldest) {
+				return size() > GodfatherResultCache.this.maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Returns current instance
+	 *
+	 * @return instance
+	 */
+	public static GodfatherResultCache getInstance() {
+		if (instance == null) {
+			instance = new GodfatherResultCache(Constants.Cache.GODFATHER_RESULTS_MAX_ENTRIES,
+					Constants.Cache.GODFATHER_RESULTS_MAX_AGE_SECONDS);
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns the cached page or loads it with the given {@link Loader}, if it
+	 * isn't cached (or is loaded by another request at the moment)
+	 *
+	 * @param filter {@link GodfatherFilter}
+	 * @param sort   {@link GodfatherSort}
+	 * @param cursor {@link GodfatherCursor} of the previous page or
+	 *               <code>null</code> for the first page
+	 * @param limit  maximum number of {@link Godfather}s
+	 * @param loader {@link Loader} of the page
+	 * @return serialized page (shared, must not be modified)
+	 * @throws IOException if the page can't be loaded
+	 */
+	public byte[] get(@NonNull GodfatherFilter filter, @NonNull GodfatherSort sort, @Nullable GodfatherCursor cursor,
+			int limit, @NonNull Loader loader) throws IOException {
+		if (this.maxEntries <= 0) {
+			return loader.load().getContent();
+		}
+		LocalDate today = LocalDate.now();
+		Key key = new Key(filter, sort, cursor, limit);
+		Value value;
+		boolean loading = false;
+		synchronized (this.entries) {
+			value = this.entries.get(key);
+			if (value != null && !value.isValid(today, this.maxAgeNanos)) {
+				this.entries.remove(key);
+				value = null;
+			}
+			if (value == null) {
+				value = new Value(today, this.modifications);
+				this.entries.put(key, value);
+				loading = true;
+			}
+		}
+
+		if (loading) {
+			this.missCount.incrementAndGet();
+			return this.load(key, value, loader);
+		}
+		this.hitCount.incrementAndGet();
+		try {
+			return value.page.get().getContent();
+		} catch (ExecutionException e) {
+			// loading failed for the other request -> try it once more, without caching
+			return loader.load().getContent();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for godfathers"); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Loads a page and passes it to the waiting requests
+	 *
+	 * @param key    {@link Key} of the page
+	 * @param value  {@link Value}, the page is stored in
+	 * @param loader {@link Loader}
+	 * @return serialized page
+	 * @throws IOException if the page can't be loaded
+	 */
+	private byte[] load(@NonNull Key key, @NonNull Value value, @NonNull Loader loader) throws IOException {
+		Page page;
+		try {
+			page = loader.load();
+		} catch (IOException | RuntimeException e) {
+			value.page.completeExceptionally(e);
+			this.remove(key, value);
+			throw e;
+		}
+		value.page.complete(page);
+		synchronized (this.entries) {
+			if (value.modifications != this.modifications) {
+				// a godfather changed while loading -> the page may be outdated
+				this.remove(key, value);
+			}
+		}
+		return page.getContent();
+	}
+
+	/**
+	 * Removes the entry, if it wasn't replaced in the meantime
+	 *
+	 * @param key   {@link Key}
+	 * @param value {@link Value}
+	 */
+	private void remove(@NonNull Key key, @NonNull Value value) {
+		synchronized (this.entries) {
+			if (this.entries.get(key) == value) {
+				this.entries.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Removes all pages, that contain the {@link Godfather} or whose filter
+	 * matches them, after the current {@link UnitOfWork} has ended. Has to be
+	 * called after a {@link Godfather} was changed (e.g. their profile).
+	 *
+	 * @param godfather the changed {@link Godfather}
+	 */
+	public void invalidate(@NonNull Godfather godfather) {
+		int godfatherId = godfather.getId();
+		UnitOfWork.runAfterEnd(() -> this.removeIf(
+				(key, page) -> page.contains(godfatherId) || key.filter.matches(godfather, LocalDate.now())));
+	}
+
+	/**
+	 * Removes all pages, that may change, when the number of current trainees of
+	 * the {@link Godfather} changed (e.g. a trainee selected them), after the
+	 * current {@link UnitOfWork} has ended: the pages, that contain them (they
+	 * may have no free slots anymore), and the pages ordered by the number of
+	 * current trainees ({@link GodfatherSort#DEFAULT}), whose filter matches them
+	 * (they move to a later page).
+	 *
+	 * @param godfatherId id of the changed {@link Godfather}
+	 * @param godfather   the changed {@link Godfather} (e.g. out of the
+	 *                    {@link GodfatherAvailabilityIndex}) or
+	 *                    <code>null</code>, if unknown (all pages ordered by the
+	 *                    number of current trainees are removed)
+	 */
+	public void invalidateCurrentTrainees(int godfatherId, @Nullable Godfather godfather) {
+		UnitOfWork.runAfterEnd(() -> this.removeIf((key, page) -> page.contains(godfatherId)
+				|| (key.sort == GodfatherSort.DEFAULT
+						&& (godfather == null || key.filter.matches(godfather, LocalDate.now())))));
+	}
+
+	/**
+	 * Removes all pages (e.g. after the number of trainees of many
+	 * {@link Godfather}s was repaired)
+	 */
+	public void invalidateAll() {
+		this.removeIf((key, page) -> true);
+	}
+
+	/**
+	 * Removes the loaded pages matching the condition. Pages, that are still
+	 * loading, are removed after they were loaded.
+	 *
+	 * @param condition condition
+	 */
+	private void removeIf(@NonNull Condition condition) {
+		this.invalidationCount.incrementAndGet();
+		synchronized (this.entries) {
+			this.modifications++;
+			Iterator<Entry<Key, Value>> iterator = this.entries.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Entry<Key, Value> entry = iterator.next();
+				Page page = entry.getValue().page.getNow(null);
+				if (page != null && condition.test(entry.getKey(), page)) {
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of requests, that were served out of the cache
+	 * (including requests, that waited for another request loading the page)
+	 *
+	 * @return number of hits
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * Returns the number of requests, that loaded the page
+	 *
+	 * @return number of misses
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * Returns the number of invalidations
+	 *
+	 * @return number of invalidations
+	 */
+	public long getInvalidationCount() {
+		return this.invalidationCount.get();
+	}
+
+	/**
+	 * Returns the number of cached pages
+	 *
+	 * @return number of pages
+	 */
+	public int size() {
+		synchronized (this.entries) {
+			return this.entries.size();
+		}
+	}
+
+	/**
+	 * Condition of pages, that have to be removed
+	 */
+	@FunctionalInterface
+	private interface Condition {
+		boolean test(@NonNull Key key, @NonNull Page page);
+	}
+
+	/**
+	 * Key of a page
+	 */
+	private static final class Key {
+		@NonNull
+		final GodfatherFilter filter;
+		@NonNull
+		final GodfatherSort sort;
+		@Nullable
+		private final GodfatherCursor cursor;
+		private final int limit;
+
+		Key(@NonNull GodfatherFilter filter, @NonNull GodfatherSort sort, @Nullable GodfatherCursor cursor,
+				int limit) {
+			this.filter = filter;
+			this.sort = sort;
+			this.cursor = cursor;
+			this.limit = limit;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return this.limit == other.limit && this.sort == other.sort && this.filter.equals(other.filter)
+					&& Objects.equals(this.cursor, other.cursor);
+		}
+
+		@Override
+		public int hashCode() {
+			return ((this.filter.hashCode() * 31 + this.sort.hashCode()) * 31 + Objects.hashCode(this.cursor)) * 31
+					+ this.limit;
+		}
+	}
+
+	/**
+	 * A cached page, that may still be loading
+	 */
+	private static final class Value {
+		@NonNull
+		final CompletableFuture<Page> page = new CompletableFuture<>();
+		@NonNull
+		private final LocalDate day;
+		private final long loadedAt;
+		/**
+		 * Number of invalidations, before the page was loaded
+		 */
+		final long modifications;
+
+		Value(@NonNull LocalDate day, long modifications) {
+			this.day = day;
+			this.loadedAt = System.nanoTime();
+			this.modifications = modifications;
+		}
+
+		boolean isValid(@NonNull LocalDate today, long maxAgeNanos) {
+			return this.day.equals(today) && System.nanoTime() - this.loadedAt < maxAgeNanos;
+		}
+	}
+}
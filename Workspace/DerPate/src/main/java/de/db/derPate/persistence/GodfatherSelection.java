@@ -0,0 +1,30 @@
+package de.db.derPate.persistence;
+
+import de.db.derPate.model.Godfather;
+import de.db.derPate.model.Trainee;
+
+/**
+ * This enum contains the results of
+ * {@link TraineeDao#selectGodfather(int, int)}.
+ *
+ * @author MichelBlank
+ *
+ */
+public enum GodfatherSelection {
+	/**
+	 * The {@link Godfather} was assigned to the {@link Trainee}
+	 */
+	SUCCESS,
+	/**
+	 * The {@link Godfather} doesn't exist or has no free trainee slot left
+	 */
+	FULL,
+	/**
+	 * The {@link Trainee} doesn't exist or already has a {@link Godfather}
+	 */
+	ALREADY_ASSIGNED,
+	/**
+	 * An error occurred while writing to the database, nothing was changed
+	 */
+	ERROR;
+}
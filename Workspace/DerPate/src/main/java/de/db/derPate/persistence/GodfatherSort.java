@@ -0,0 +1,65 @@
+package de.db.derPate.persistence;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.db.derPate.model.Godfather;
+
+/**
+ * This enum contains the orders, available {@link Godfather}s can be listed in.
+ * Every order ends with the id, so it is unique and can be continued with a
+ * {@link GodfatherCursor}.
+ *
+ * @author MichelBlank
+ *
+ */
+public enum GodfatherSort {
+	/**
+	 * Fewest current trainees first, then by first name and id
+	 */
+	DEFAULT("default"), //$NON-NLS-1$
+	/**
+	 * Youngest first (birthday descending, unknown birthdays last), then by id
+	 * (descending)
+	 */
+	AGE("age"), //$NON-NLS-1$
+	/**
+	 * Lowest educational year first (hiring date descending), then by id
+	 * (descending)
+	 */
+	EDUCATIONAL_YEAR("eduYear"); //$NON-NLS-1$
+
+	@NonNull
+	private final String parameterValue;
+
+	private GodfatherSort(@NonNull String parameterValue) {
+		this.parameterValue = parameterValue;
+	}
+
+	/**
+	 * Returns the value used as http parameter
+	 *
+	 * @return parameter value
+	 */
+	@NonNull
+	public String getParameterValue() {
+		return this.parameterValue;
+	}
+
+	/**
+	 * Returns the {@link GodfatherSort} with the given
+	 * {@link #getParameterValue() parameter value}
+	 *
+	 * @param parameterValue parameter value
+	 * @return {@link GodfatherSort} or {@link #DEFAULT}, if value is unknown
+	 */
+	@NonNull
+	public static GodfatherSort byParameterValue(@Nullable String parameterValue) {
+		for (GodfatherSort sort : values()) {
+			if (sort.parameterValue.equals(parameterValue)) {
+				return sort;
+			}
+		}
+		return DEFAULT;
+	}
+}
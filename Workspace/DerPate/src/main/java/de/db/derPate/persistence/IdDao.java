@@ -30,7 +30,8 @@ abstract class IdDao extends Dao {
 	}
 
 	/**
-	 * Finds object by {@link Id#getId()}
+	 * Finds object by {@link Id#getId()} (with the associations of the
+	 * {@link #getFetchGraph() entity graph})
 	 *
 	 * @param id id
 	 * @param    <T> type
@@ -41,9 +42,9 @@ abstract class IdDao extends Dao {
 	public <@Nullable T> T byId(int id) {
 		T result = null;
 		try {
-			Session session = sessionFactory.openSession();
-			result = (T) session.get(this.cls, id);
-			session.close();
+			Session session = openSession();
+			result = (T) session.find(this.cls, Integer.valueOf(id), this.fetchGraphHints(session));
+			closeSession(session);
 		} catch (HibernateException e) {
 			LoggingManager.log(Level.WARNING, "Could not get database element by id: " + e.getMessage()); //$NON-NLS-1$
 		}
@@ -3,12 +3,13 @@ package de.db.derPate.persistence;
 import de.db.derPate.model.Job;
 
 /**
- * Data Access Object providing methods to get {@link Job}s out of the Database
+ * Data Access Object providing methods to get {@link Job}s out of the Database.
+ * The data is cached (see {@link ReferenceDataCache}).
  *
  * @author MichelBlank
  *
  */
-public class JobDao extends IdDao {
+public class JobDao extends ReferenceDataDao<Job> {
 	private static JobDao instance;
 
 	private JobDao() {
@@ -4,12 +4,12 @@ import de.db.derPate.model.Location;
 
 /**
  * Data Access Object object providing methods to get {@link Location}s out of
- * the Database
+ * the Database. The data is cached (see {@link ReferenceDataCache}).
  *
  * @author MichelBlank
  *
  */
-public class LocationDao extends IdDao {
+public class LocationDao extends ReferenceDataDao<Location> {
 	private static LocationDao instance;
 
 	private LocationDao() {
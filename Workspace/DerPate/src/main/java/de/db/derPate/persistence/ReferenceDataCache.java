@@ -0,0 +1,255 @@
+package de.db.derPate.persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.db.derPate.Constants;
+import de.db.derPate.model.Id;
+
+/**
+ * Read-through cache holding an immutable snapshot of a reference table (e.g.
+ * {@link de.db.derPate.model.Location Locations}), that hardly ever changes.
+ * <br>
+ * All reference caches share one version counter. Whenever it changes (see
+ * {@link #invalidateAll()}) or the snapshot is older than
+ * {@link Constants.Cache#REFERENCE_DATA_MAX_AGE_SECONDS}, the snapshot gets
+ * reloaded and swapped atomically, so readers either see the old or the new
+ * snapshot, but never a partially loaded one.<br>
+ * <b>The cached objects are shared between all requests and must not be
+ * modified.</b>
+ *
+ * @author MichelBlank
+ *
+ * @param <T> type of the cached {@link Id}s
+ */
+public class ReferenceDataCache<T extends Id> {
+	/**
+	 * Version shared by all reference data caches
+	 */
+	private static final AtomicLong version = new AtomicLong();
+
+	@NonNull
+	private final Supplier<@NonNull List<T>> loader;
+	@Nullable
+	private volatile Snapshot<T> snapshot;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong reloadCount = new AtomicLong();
+
+	/**
+	 * Constructor
+	 *
+	 * @param loader {@link Supplier} loading all elements out of the database
+	 */
+	ReferenceDataCache(@NonNull Supplier<@NonNull List<T>> loader) {
+		this.loader = loader;
+	}
+
+	/**
+	 * Returns all cached elements
+	 *
+	 * @return unmodifiable {@link List} of all elements
+	 */
+	@SuppressWarnings("null")
+	@NonNull
+	public List<T> list() {
+		Snapshot<T> current = this.snapshot;
+		if (current == null || !current.isValid()) {
+			Snapshot<T> loaded = this.reload();
+			if (loaded != null) {
+				this.missCount.incrementAndGet();
+				return loaded.list;
+			}
+			current = this.snapshot; // reloaded by another thread
+		}
+		this.hitCount.incrementAndGet();
+		return current.list;
+	}
+
+	/**
+	 * Returns the cached element with the given id. If the id is unknown, the
+	 * element gets loaded with the given fallback (as it may have been added after
+	 * the snapshot was taken). Ids, that don't exist, are remembered for
+	 * {@link Constants.Cache#REFERENCE_DATA_ABSENT_MAX_AGE_SECONDS}, so they are
+	 * not loaded again on every request.<br>
+	 * A request is counted once: as miss, if it accessed the database (to reload
+	 * the snapshot or to load the element), otherwise as hit.
+	 *
+	 * @param id       id
+	 * @param fallback {@link Supplier} loading the element out of the database
+	 * @return element or <code>null</code>, if it does not exist
+	 */
+	@SuppressWarnings("null")
+	@Nullable
+	public T byId(int id, @NonNull Supplier<@Nullable T> fallback) {
+		boolean miss = false;
+		Snapshot<T> current = this.snapshot;
+		if (current == null || !current.isValid()) {
+			Snapshot<T> loaded = this.reload();
+			miss = loaded != null;
+			current = loaded != null ? loaded : this.snapshot; // otherwise reloaded by another thread
+		}
+
+		T element = current.byId.get(id);
+		if (element == null && !current.isAbsent(id)) {
+			miss = true;
+			element = fallback.get();
+			if (element != null) {
+				// element was added since the snapshot was taken
+				invalidateAll();
+			} else {
+				current.markAbsent(id);
+			}
+		}
+		(miss ? this.missCount : this.hitCount).incrementAndGet();
+		return element;
+	}
+
+	/**
+	 * Reloads the snapshot, if it is outdated
+	 *
+	 * @return reloaded snapshot or <code>null</code>, if another thread reloaded
+	 *         it in the meantime
+	 */
+	@Nullable
+	private synchronized Snapshot<T> reload() {
+		Snapshot<T> current = this.snapshot;
+		if (current != null && current.isValid()) {
+			return null;
+		}
+		this.reloadCount.incrementAndGet();
+
+		long loadedVersion = version.get(); // read before loading, so no change gets lost
+		current = new Snapshot<>(loadedVersion, this.loader.get());
+		this.snapshot = current;
+		return current;
+	}
+
+	/**
+	 * Returns the number of requests, that were served out of the snapshot
+	 * (including ids known to be absent)
+	 *
+	 * @return number of hits
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * Returns the number of requests, that had to access the database
+	 *
+	 * @return number of misses
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * Returns how often the snapshot has been (re)loaded
+	 *
+	 * @return number of reloads
+	 */
+	public long getReloadCount() {
+		return this.reloadCount.get();
+	}
+
+	/**
+	 * Marks the snapshots of all reference data caches as outdated. Has to be
+	 * called after writing reference data (e.g. by an admin).
+	 */
+	public static void invalidateAll() {
+		version.incrementAndGet();
+	}
+
+	/**
+	 * Returns the current version of the reference data
+	 *
+	 * @return version
+	 */
+	public static long getVersion() {
+		return version.get();
+	}
+
+	/**
+	 * Immutable snapshot of a reference table
+	 *
+	 * @param <T> type of the cached {@link Id}s
+	 */
+	private static final class Snapshot<T extends Id> {
+		private final long version;
+		private final long loadedAt;
+		@NonNull
+		final List<T> list;
+		@NonNull
+		final Map<Integer, T> byId;
+		/**
+		 * Ids, that were looked up, but don't exist, mapped to the time they expire
+		 * (see {@link System#nanoTime()})
+		 */
+		@NonNull
+		private final Map<Integer, Long> absent = new ConcurrentHashMap<>();
+
+		@SuppressWarnings("null")
+		Snapshot(long version, @NonNull List<T> elements) {
+			this.version = version;
+			this.loadedAt = System.nanoTime();
+
+			Map<Integer, T> map = new HashMap<>();
+			for (T element : elements) {
+				map.put(element.getId(), element);
+			}
+			this.list = Collections.unmodifiableList(new ArrayList<>(elements));
+			this.byId = Collections.unmodifiableMap(map);
+		}
+
+		/**
+		 * Checks, if the id was recently looked up and didn't exist
+		 *
+		 * @param id id
+		 * @return <code>true</code>, if the id is known to be absent
+		 */
+		boolean isAbsent(int id) {
+			Long expiresAt = this.absent.get(id);
+			if (expiresAt == null) {
+				return false;
+			}
+			if (System.nanoTime() - expiresAt.longValue() < 0) {
+				return true;
+			}
+			this.absent.remove(id, expiresAt);
+			return false;
+		}
+
+		/**
+		 * Remembers, that the id doesn't exist
+		 *
+		 * @param id id
+		 */
+		void markAbsent(int id) {
+			long now = System.nanoTime();
+			// bounded, so lookups of random ids can't fill the memory
+			if (this.absent.size() >= Constants.Cache.REFERENCE_DATA_ABSENT_MAX_ENTRIES) {
+				this.absent.values().removeIf(expiresAt -> now - expiresAt.longValue() >= 0);
+			}
+			if (this.absent.size() < Constants.Cache.REFERENCE_DATA_ABSENT_MAX_ENTRIES) {
+				this.absent.put(id, now + TimeUnit.SECONDS.toNanos(Constants.Cache.REFERENCE_DATA_ABSENT_MAX_AGE_SECONDS));
+			}
+		}
+
+		boolean isValid() {
+			return this.version == ReferenceDataCache.version.get() && System.nanoTime()
+					- this.loadedAt < TimeUnit.SECONDS.toNanos(Constants.Cache.REFERENCE_DATA_MAX_AGE_SECONDS);
+		}
+	}
+}
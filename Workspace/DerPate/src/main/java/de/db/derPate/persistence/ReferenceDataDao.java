@@ -0,0 +1,81 @@
+package de.db.derPate.persistence;
+
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.db.derPate.model.DatabaseEntity;
+import de.db.derPate.model.Id;
+
+/**
+ * Data Access Object for reference tables, that hardly ever change. Reading
+ * methods are served by a {@link ReferenceDataCache}, writing methods
+ * invalidate it.
+ *
+ * @author MichelBlank
+ *
+ * @param <E> type of the reference data
+ */
+abstract class ReferenceDataDao<E extends Id> extends IdDao {
+	@NonNull
+	private final ReferenceDataCache<E> cache;
+
+	/**
+	 * Constructor
+	 *
+	 * @param cls {@link Class} that the future objects should be of and that the
+	 *            data is stored in (in the database)
+	 */
+	public ReferenceDataDao(@NonNull Class<E> cls) {
+		super(cls);
+		this.cache = new ReferenceDataCache<>(super::list);
+	}
+
+	/**
+	 * Returns all objects out of the {@link ReferenceDataCache}.<br>
+	 * The returned {@link List} is unmodifiable and its elements must not be
+	 * modified.
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	@NonNull
+	public <T extends DatabaseEntity> List<T> list() {
+		return (List<T>) this.cache.list();
+	}
+
+	/**
+	 * Finds object by {@link Id#getId()} out of the {@link ReferenceDataCache}.
+	 * <br>
+	 * The returned object must not be modified.
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	@Nullable
+	public <@Nullable T> T byId(int id) {
+		return (T) this.cache.byId(id, () -> super.byId(id));
+	}
+
+	/**
+	 * Updates the entity and invalidates all reference data caches, after the
+	 * {@link UnitOfWork} has been completed (otherwise a reload could cache the
+	 * data, that was valid before the commit)
+	 */
+	@Override
+	public <T extends DatabaseEntity> boolean update(@NonNull T entity) {
+		boolean success = super.update(entity);
+		UnitOfWork.runAfterEnd(ReferenceDataCache::invalidateAll);
+		return success;
+	}
+
+	/**
+	 * Returns the {@link ReferenceDataCache} used by this dao, e.g. to read its
+	 * statistics
+	 *
+	 * @return {@link ReferenceDataCache}
+	 */
+	@NonNull
+	public ReferenceDataCache<E> getCache() {
+		return this.cache;
+	}
+}
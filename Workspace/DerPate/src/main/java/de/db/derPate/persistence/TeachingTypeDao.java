@@ -4,12 +4,12 @@ import de.db.derPate.model.TeachingType;
 
 /**
  * Data Access Object providing methods to get {@link TeachingType}s out of the
- * Database
+ * Database. The data is cached (see {@link ReferenceDataCache}).
  *
  * @author MichelBlank
  *
  */
-public class TeachingTypeDao extends IdDao {
+public class TeachingTypeDao extends ReferenceDataDao<TeachingType> {
 	private static TeachingTypeDao instance;
 
 	private TeachingTypeDao() {
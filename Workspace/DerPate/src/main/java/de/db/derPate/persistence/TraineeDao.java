@@ -2,12 +2,15 @@ package de.db.derPate.persistence;
 
 import java.util.logging.Level;
 
+import javax.persistence.PersistenceException;
+
+import org.eclipse.jdt.annotation.NonNull;
 import org.hibernate.HibernateException;
-import org.hibernate.NaturalIdLoadAccess;
 import org.hibernate.Session;
+import org.hibernate.Transaction;
 
 import de.db.derPate.manager.LoggingManager;
-import de.db.derPate.model.DatabaseEntity;
+import de.db.derPate.model.Godfather;
 import de.db.derPate.model.Trainee;
 import de.db.derPate.model.Trainee_;
 
@@ -37,8 +40,15 @@ public class TraineeDao extends IdDao {
 		return instance;
 	}
 
+	@Override
+	protected String getFetchGraph() {
+		return Trainee.GRAPH_DETAILS;
+	}
+
 	/**
-	 * Returns the Trainee with the given token.
+	 * Returns the Trainee with the given token. The token is the natural id, so
+	 * the trainee is taken from the second level cache, if it was loaded before.
+	 * Otherwise it is loaded with its {@link Godfather} in a single statement.
 	 *
 	 * @param token the Login token
 	 * @return the {@link Trainee} or <code>null</code>, if no {@link Trainee} was
@@ -47,18 +57,64 @@ public class TraineeDao extends IdDao {
 	public Trainee byToken(String token) {
 		Trainee result = null;
 		try {
-			Session session = sessionFactory.openSession();
-
-			NaturalIdLoadAccess<? extends DatabaseEntity> loader = session.byNaturalId(this.cls);
-			loader = loader.using(Trainee_.LOGIN_TOKEN, token);
-			DatabaseEntity entity = loader.load();
-			result = (Trainee) entity;
-
-			session.close();
+			Session session = openSession();
+			result = this.byNaturalId(session, Trainee_.LOGIN_TOKEN, token);
+			closeSession(session);
 		} catch (HibernateException e) {
 			LoggingManager.log(Level.WARNING, "An error occurred while finding trainee by token:\n" + e.getMessage()); //$NON-NLS-1$
 		}
 
 		return result;
 	}
+
+	/**
+	 * Assigns a {@link Godfather} to a {@link Trainee}, who hasn't selected one
+	 * yet. Both rows are changed by guarded updates in one transaction, so
+	 * concurrent selections can never exceed the maximum number of trainees of
+	 * the {@link Godfather}: the number of current trainees is only increased, if
+	 * a slot is free, and the {@link Godfather} is only set, if the
+	 * {@link Trainee} has none.
+	 *
+	 * @param traineeId   id of the {@link Trainee}
+	 * @param godfatherId id of the {@link Godfather}
+	 * @return {@link GodfatherSelection}
+	 */
+	@NonNull
+	public GodfatherSelection selectGodfather(int traineeId, int godfatherId) {
+		GodfatherSelection result = GodfatherSelection.ERROR;
+		Session session = openWriteSession();
+		Transaction transaction = null;
+		try {
+			transaction = beginTransaction(session);
+
+			// locks the godfather row until the end of the transaction
+			int reserved = session.createNativeQuery(
+					"UPDATE Godfather SET Current_Trainees = Current_Trainees + 1 WHERE Id_Godfather = ?1 AND Current_Trainees < Max_Trainees") //$NON-NLS-1$
+					.addSynchronizedQuerySpace(NATIVE_UPDATE_SPACE).setParameter(1, godfatherId).executeUpdate();
+			if (reserved == 0) {
+				result = GodfatherSelection.FULL; // nothing changed
+				commit(session, transaction);
+			} else {
+				evictAfterCompletion(session, Godfather.class, Integer.valueOf(godfatherId));
+				int assigned = session.createNativeQuery(
+						"UPDATE Trainee SET Id_Godfather = ?1 WHERE Id_Trainee = ?2 AND Id_Godfather IS NULL") //$NON-NLS-1$
+						.addSynchronizedQuerySpace(NATIVE_UPDATE_SPACE).setParameter(1, godfatherId)
+						.setParameter(2, traineeId).executeUpdate();
+				evictAfterCompletion(session, Trainee.class, Integer.valueOf(traineeId));
+				if (assigned == 0) {
+					result = GodfatherSelection.ALREADY_ASSIGNED;
+					rollback(session, transaction); // release the reserved slot
+				} else if (commit(session, transaction)) {
+					result = GodfatherSelection.SUCCESS;
+				}
+			}
+		} catch (PersistenceException | IllegalStateException e) {
+			LoggingManager.log(Level.WARNING, "Error selecting godfather of trainee. Rolling back: " + e.getMessage()); //$NON-NLS-1$
+			result = GodfatherSelection.ERROR;
+			rollback(session, transaction);
+		} finally {
+			closeSession(session);
+		}
+		return result;
+	}
 }
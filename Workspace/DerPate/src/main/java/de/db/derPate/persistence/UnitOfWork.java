@@ -0,0 +1,334 @@
+package de.db.derPate.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import javax.persistence.PersistenceException;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.persister.entity.EntityPersister;
+
+import de.db.derPate.manager.LoggingManager;
+
+/**
+ * A unit of work binds one {@link Session} and one {@link Transaction} to the
+ * current thread (e.g. for the duration of a http request). All {@link Dao}
+ * calls inside the unit of work share them, so only one connection is checked
+ * out of the pool.<br>
+ * The session is opened lazily, when a {@link Dao} needs it for the first time.
+ * It never flushes automatically: only changes written by a {@link Dao} (e.g.
+ * {@link Dao#update(de.db.derPate.model.DatabaseEntity)}) are sent to the
+ * database, modified entities are not (a {@link Dao} fails instead of writing
+ * them, see {@link #flush(Session, Object...)}). In a read only unit of work,
+ * entities are loaded read only (without snapshots) and writing {@link Dao}
+ * methods use their own session.<br>
+ * The transaction has to be completed with {@link #complete()}, before the
+ * result of a write is sent to the client, as the client must not get a
+ * success status for changes, that were never committed.<br>
+ * <br>
+ * Usage:
+ *
+ * <pre>
+ * UnitOfWork unitOfWork = UnitOfWork.begin(false);
+ * try {
+ * 	// dao calls
+ * 	if (!UnitOfWork.complete()) {
+ * 		// send error
+ * 	}
+ * } catch (RuntimeException e) {
+ * 	unitOfWork.setRollbackOnly();
+ * 	throw e;
+ * } finally {
+ * 	unitOfWork.end();
+ * }
+ * </pre>
+ *
+ * @author MichelBlank
+ * @see de.db.derPate.servlet.filter.UnitOfWorkFilter
+ */
+public final class UnitOfWork {
+	private static final ThreadLocal<UnitOfWork> current = new ThreadLocal<>();
+
+	private final boolean readOnly;
+	@Nullable
+	private Session session;
+	private boolean rollbackOnly = false;
+	@Nullable
+	private List<Runnable> afterEnd;
+	@Nullable
+	private List<Runnable> afterCommit;
+
+	private UnitOfWork(boolean readOnly) {
+		this.readOnly = readOnly;
+	}
+
+	/**
+	 * Starts a unit of work for the current thread
+	 *
+	 * @param readOnly if entities should be loaded read only
+	 * @return {@link UnitOfWork}
+	 * @throws IllegalStateException if a unit of work was already started for
+	 *                               the current thread
+	 */
+	@NonNull
+	public static UnitOfWork begin(boolean readOnly) throws IllegalStateException {
+		if (current.get() != null) {
+			throw new IllegalStateException("Unit of work already started"); //$NON-NLS-1$
+		}
+		UnitOfWork unitOfWork = new UnitOfWork(readOnly);
+		current.set(unitOfWork);
+		return unitOfWork;
+	}
+
+	/**
+	 * Returns the unit of work of the current thread
+	 *
+	 * @return {@link UnitOfWork} or <code>null</code>, if none was started
+	 */
+	@Nullable
+	public static UnitOfWork current() {
+		return current.get();
+	}
+
+	/**
+	 * Checks, if the given {@link Session} belongs to the unit of work of the
+	 * current thread
+	 *
+	 * @param session {@link Session}
+	 * @return <code>true</code>, if the session is shared by the unit of work
+	 */
+	static boolean owns(@NonNull Session session) {
+		UnitOfWork unitOfWork = current.get();
+		return unitOfWork != null && unitOfWork.session == session;
+	}
+
+	/**
+	 * Returns if entities are loaded read only
+	 *
+	 * @return <code>true</code>, if read only
+	 */
+	public boolean isReadOnly() {
+		return this.readOnly;
+	}
+
+	/**
+	 * Returns the shared {@link Session} with an active {@link Transaction}. The
+	 * session is opened on the first call.
+	 *
+	 * @return {@link Session}
+	 */
+	@NonNull
+	Session getSession() {
+		Session result = this.session;
+		if (result == null) {
+			result = Dao.sessionFactory.openSession();
+			result.setHibernateFlushMode(FlushMode.MANUAL);
+			result.setDefaultReadOnly(this.readOnly);
+			result.beginTransaction();
+			this.session = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Detaches the entity from the session of the unit of work of the current
+	 * thread, so later changes of it (e.g.
+	 * {@link de.db.derPate.model.LoginUser#removeSecret()}) are never written to
+	 * the database. Without a unit of work, loaded entities are detached already.
+	 *
+	 * @param entity entity (managed or not)
+	 */
+	public static void detach(@NonNull Object entity) {
+		UnitOfWork unitOfWork = current.get();
+		Session currentSession = unitOfWork != null ? unitOfWork.session : null;
+		if (currentSession != null && currentSession.contains(entity)) {
+			currentSession.detach(entity);
+		}
+	}
+
+	/**
+	 * Runs the action, after the transaction of the unit of work of the current
+	 * thread has been completed (see {@link #complete()} and {@link #end()}), so
+	 * its changes are visible for other transactions. Without a unit of work or
+	 * a pending transaction (e.g. after {@link #complete()}), the action is run
+	 * immediately.
+	 *
+	 * @param action action (e.g. invalidating a cache)
+	 */
+	public static void runAfterEnd(@NonNull Runnable action) {
+		UnitOfWork unitOfWork = current.get();
+		if (unitOfWork == null || unitOfWork.session == null) {
+			action.run();
+			return;
+		}
+		unitOfWork.afterEnd = add(unitOfWork.afterEnd, action);
+	}
+
+	/**
+	 * Runs the action like {@link #runAfterEnd(Runnable)}, but only if the
+	 * transaction is committed. Used for changes, that must not be applied for
+	 * rolled back data (e.g. incremental changes of an index).
+	 *
+	 * @param action action
+	 */
+	public static void runAfterCommit(@NonNull Runnable action) {
+		UnitOfWork unitOfWork = current.get();
+		if (unitOfWork == null || unitOfWork.session == null) {
+			if (unitOfWork == null || !unitOfWork.rollbackOnly) {
+				action.run();
+			}
+			return;
+		}
+		unitOfWork.afterCommit = add(unitOfWork.afterCommit, action);
+	}
+
+	@NonNull
+	private static List<Runnable> add(@Nullable List<Runnable> actions, @NonNull Runnable action) {
+		List<Runnable> result = actions != null ? actions : new ArrayList<>(2);
+		result.add(action);
+		return result;
+	}
+
+	/**
+	 * Marks the unit of work, so the transaction is rolled back at the
+	 * {@link #end()}
+	 */
+	public void setRollbackOnly() {
+		this.rollbackOnly = true;
+	}
+
+	/**
+	 * Completes the transaction of the unit of work of the current thread (see
+	 * {@link #end()}), but doesn't end the unit of work. Has to be called, before
+	 * the result of a write is sent to the client. Later {@link Dao} calls use a
+	 * new session and transaction.
+	 *
+	 * @return <code>false</code>, if the commit failed (the changes were rolled
+	 *         back); <code>true</code> otherwise (also after
+	 *         {@link #setRollbackOnly()}, as the caller reports that error
+	 *         itself)
+	 */
+	public static boolean complete() {
+		UnitOfWork unitOfWork = current.get();
+		return unitOfWork == null || unitOfWork.completeTransaction();
+	}
+
+	/**
+	 * Ends the unit of work: commits (or rolls back, if
+	 * {@link #setRollbackOnly()} was called) the transaction, closes the session
+	 * and runs the actions registered by {@link #runAfterEnd(Runnable)}
+	 *
+	 * @return <code>false</code>, if the commit failed (see {@link #complete()})
+	 */
+	public boolean end() {
+		current.remove();
+		return this.completeTransaction();
+	}
+
+	/**
+	 * Commits or rolls back the transaction, closes the session and runs the
+	 * actions registered by {@link #runAfterCommit(Runnable)} (if committed) and
+	 * {@link #runAfterEnd(Runnable)}
+	 *
+	 * @return <code>false</code>, if the commit failed
+	 */
+	private boolean completeTransaction() {
+		Session currentSession = this.session;
+		this.session = null;
+		boolean success = true;
+		try {
+			if (currentSession != null) { // otherwise no dao was called
+				success = this.commitOrRollback(currentSession);
+			}
+		} finally {
+			List<Runnable> committed = this.afterCommit;
+			List<Runnable> ended = this.afterEnd;
+			this.afterCommit = null;
+			this.afterEnd = null;
+			if (committed != null && !this.rollbackOnly) {
+				committed.forEach(Runnable::run);
+			}
+			if (ended != null) {
+				ended.forEach(Runnable::run);
+			}
+		}
+		return success;
+	}
+
+	/**
+	 * Commits or rolls back the transaction of the session and closes it
+	 *
+	 * @param currentSession {@link Session}
+	 * @return <code>false</code>, if the commit failed
+	 */
+	private boolean commitOrRollback(@NonNull Session currentSession) {
+		Transaction transaction = currentSession.getTransaction();
+		try {
+			if (transaction.isActive()) {
+				if (this.rollbackOnly) {
+					transaction.rollback();
+				} else {
+					transaction.commit();
+				}
+			}
+			return true;
+		} catch (PersistenceException | IllegalStateException e) {
+			LoggingManager.log(Level.WARNING, "Error ending unit of work. Rolling back: " + e.getMessage()); //$NON-NLS-1$
+			this.rollbackOnly = true; // later changes depend on the failed ones
+			if (transaction.isActive()) {
+				transaction.rollback();
+			}
+			return false;
+		} finally {
+			currentSession.close();
+		}
+	}
+
+	/**
+	 * Flushes the changes of the given entities, without committing them. As the
+	 * session would write every modified entity, the flush fails, if another
+	 * managed entity was modified (e.g. by mistake), instead of writing it
+	 * silently.
+	 *
+	 * @param session {@link Session} of the unit of work
+	 * @param changed entities, that were changed by the {@link Dao}
+	 * @throws IllegalStateException if another entity was modified
+	 */
+	static void flush(@NonNull Session session, @NonNull Object... changed) throws IllegalStateException {
+		SessionImplementor implementor = session.unwrap(SessionImplementor.class);
+		for (Map.Entry<Object, EntityEntry> managed : implementor.getPersistenceContext()
+				.reentrantSafeEntityEntries()) {
+			Object entity = managed.getKey();
+			EntityEntry entry = managed.getValue();
+			if (isOneOf(entity, changed) || entry.getStatus() != Status.MANAGED || entry.isReadOnly()
+					|| entry.getLoadedState() == null) {
+				continue;
+			}
+			EntityPersister persister = entry.getPersister();
+			if (persister.findDirty(persister.getPropertyValues(entity), entry.getLoadedState(), entity,
+					implementor) != null) {
+				throw new IllegalStateException(
+						"Unit of work contains unsaved changes of " + entry.getEntityName() + '#' + entry.getId()); //$NON-NLS-1$
+			}
+		}
+		session.flush();
+	}
+
+	private static boolean isOneOf(@NonNull Object entity, @NonNull Object[] entities) {
+		for (Object other : entities) {
+			if (other == entity) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -8,17 +8,23 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 
+import de.db.derPate.manager.SessionPrincipal;
+import de.db.derPate.persistence.UnitOfWork;
+import de.db.derPate.servlet.RequestContext.Phase;
+import de.db.derPate.util.ETagUtil;
 import de.db.derPate.util.ServletUtil;
 
 /**
  * This abstract {@link HttpServlet} should be used for all created servlets, as
  * it sets the character encoding and stops request, if request or response is
  * null.<br>
+ * Servlets are shared by all requests, so they must not store anything of a
+ * request in a field; everything resolved for a request is held by its
+ * {@link RequestContext}.<br>
  * <b>Supported Methods: GET, POST</b>
  *
  * @author MichelBlank
@@ -37,22 +43,36 @@ public abstract class BaseServlet extends HttpServlet {
 	protected static DateFormat HTML_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd"); //$NON-NLS-1$
 
 	/**
-	 * The request's {@link HttpSession}
+	 * Header field containing the entity tag of a response
 	 */
-	protected HttpSession session;
+	public static final String HEADER_ETAG = "ETag"; //$NON-NLS-1$
+	/**
+	 * Header field containing the entity tags, the client already has
+	 */
+	public static final String HEADER_IF_NONE_MATCH = "If-None-Match"; //$NON-NLS-1$
+	/**
+	 * Cache-Control of responses of {@link ConditionalGet} servlets: only cached
+	 * by the client, which has to revalidate them on every use
+	 */
+	private static final String CACHE_CONTROL_REVALIDATE = "private, no-cache"; //$NON-NLS-1$
 
 	/**
 	 * Handles get request, sets character encoding and calls custom get method
-	 * ({@link #get(HttpServletRequest, HttpServletResponse)}
+	 * ({@link #get(RequestContext)} with a new {@link RequestContext}
 	 */
 	@Override
 	protected final void doGet(@Nullable HttpServletRequest req, @Nullable HttpServletResponse resp)
 			throws ServletException, IOException {
 
 		if (req != null && resp != null) {
-			this.session = req.getSession();
 			ServletUtil.setCharacterEncoding(req, resp);
-			this.get(req, resp);
+			RequestContext context = RequestContext.of(req, resp);
+			try {
+				this.get(context);
+			} finally {
+				context.mark(Phase.HANDLE);
+				context.logDurations();
+			}
 		}
 	}
 
@@ -63,25 +83,36 @@ public abstract class BaseServlet extends HttpServlet {
 	 * {@value HttpServletResponse#SC_METHOD_NOT_ALLOWED}) http error as response,
 	 * if this method does not get overwritten by subclass.
 	 *
-	 * @param req  {@link HttpServletRequest}
-	 * @param resp {@link HttpServletResponse}
+	 * @param context {@link RequestContext} of the request
 	 * @throws IOException if an input or output exception occurs
 	 */
-	protected void get(@NonNull HttpServletRequest req, @NonNull HttpServletResponse resp) throws IOException {
-		resp.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+	protected void get(@NonNull RequestContext context) throws IOException {
+		context.getResponse().sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
 	}
 
 	/**
 	 * Handles post request, sets character encoding and calls custom post method
-	 * ({@link #post(HttpServletRequest, HttpServletResponse)}
+	 * ({@link #post(RequestContext)} with a new {@link RequestContext}. Afterwards
+	 * the {@link UnitOfWork} is completed, so the response is replaced by an
+	 * error, if the changes couldn't be committed (and the response wasn't sent
+	 * yet).
 	 */
 	@Override
 	protected final void doPost(@Nullable HttpServletRequest req, @Nullable HttpServletResponse resp)
 			throws ServletException, IOException {
 		if (req != null && resp != null) {
-			this.session = req.getSession();
 			ServletUtil.setCharacterEncoding(req, resp);
-			this.post(req, resp);
+			RequestContext context = RequestContext.of(req, resp);
+			try {
+				this.post(context);
+				if (!UnitOfWork.complete() && !resp.isCommitted()) {
+					resp.reset();
+					resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+				}
+			} finally {
+				context.mark(Phase.HANDLE);
+				context.logDurations();
+			}
 		}
 	}
 
@@ -92,12 +123,71 @@ public abstract class BaseServlet extends HttpServlet {
 	 * {@value HttpServletResponse#SC_METHOD_NOT_ALLOWED}) http error as response,
 	 * if this method does not get overwritten by subclass.
 	 *
-	 * @param req  {@link HttpServletRequest}
-	 * @param resp {@link HttpServletResponse}
+	 * @param context {@link RequestContext} of the request
 	 * @throws IOException if an input or output exception occurs
 	 */
-	protected void post(@NonNull HttpServletRequest req, @NonNull HttpServletResponse resp) throws IOException {
-		resp.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+	protected void post(@NonNull RequestContext context) throws IOException {
+		context.getResponse().sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+	}
+
+	/**
+	 * Returns the version of the data, the GET response of this servlet is created
+	 * of. It has to change, whenever the response (for the same parameters and
+	 * user, see {@link ConditionalGet}) changes, and should be cheap, as it is
+	 * checked on every request.<br>
+	 * Only used, if the servlet is annotated with {@link ConditionalGet}. By
+	 * default, returns <code>-1</code>.
+	 *
+	 * @param context {@link RequestContext} of the request
+	 * @return version or a negative value, if the response can't be validated
+	 *         (then it is always sent)
+	 */
+	protected long getDataVersion(@NonNull RequestContext context) {
+		return -1;
+	}
+
+	/**
+	 * Answers a GET request with
+	 * {@value HttpServletResponse#SC_NOT_MODIFIED}, if the servlet is annotated
+	 * with {@link ConditionalGet} and the client already has the current response
+	 * (see {@link ETagUtil}). Otherwise, the entity tag is attached to the
+	 * response, which has to be sent by the caller.<br>
+	 * Has to be called before anything is written to the response (e.g. after the
+	 * access was checked, see {@link FilterServlet}).
+	 *
+	 * @param context {@link RequestContext} of the request
+	 * @return <code>true</code>, if
+	 *         {@value HttpServletResponse#SC_NOT_MODIFIED} was sent and the
+	 *         request must not be handled anymore
+	 */
+	protected final boolean sendNotModified(@NonNull RequestContext context) {
+		ConditionalGet conditionalGet = this.getClass().getAnnotation(ConditionalGet.class);
+		if (conditionalGet == null) {
+			return false;
+		}
+		long version = this.getDataVersion(context);
+		if (version < 0) {
+			return false;
+		}
+
+		String user = null;
+		if (conditionalGet.perUser()) {
+			SessionPrincipal principal = context.getPrincipal();
+			user = principal != null
+					? principal.getUsermode() + "#" + principal.getId() + "#" + principal.getVersion() //$NON-NLS-1$ //$NON-NLS-2$
+					: ""; //$NON-NLS-1$
+		}
+		HttpServletRequest req = context.getRequest();
+		String etag = ETagUtil.create(version, req.getParameterMap(), conditionalGet.parameters(), user);
+
+		HttpServletResponse resp = context.getResponse();
+		resp.setHeader(HEADER_ETAG, etag);
+		resp.setHeader("Cache-Control", CACHE_CONTROL_REVALIDATE); //$NON-NLS-1$
+		if (ETagUtil.matches(req.getHeader(HEADER_IF_NONE_MATCH), etag)) {
+			resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return true;
+		}
+		return false;
 	}
 
 }
@@ -0,0 +1,41 @@
+package de.db.derPate.servlet;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a servlet, whose GET responses can be validated by an entity tag (see
+ * {@link de.db.derPate.util.ETagUtil}). The servlet has to return the version
+ * of its data by {@link BaseServlet#getDataVersion(RequestContext)}. If the
+ * client sends the current entity tag ("If-None-Match"), it gets a
+ * {@value javax.servlet.http.HttpServletResponse#SC_NOT_MODIFIED} response,
+ * before the request is handled (see
+ * {@link BaseServlet#sendNotModified(RequestContext)}).<br>
+ * Responses are marked as private, so they are only cached by the client.
+ *
+ * @author MichelBlank
+ * @see BaseServlet
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ConditionalGet {
+	/**
+	 * Names of the request parameters, the response depends on
+	 *
+	 * @return parameter names
+	 */
+	String[] parameters() default {};
+
+	/**
+	 * Whether the response depends on the logged in user. If <code>true</code>,
+	 * the entity tag contains the {@link de.db.derPate.manager.SessionPrincipal}
+	 * (including its version, which changes, when the user was updated).
+	 *
+	 * @return <code>true</code>, if the response is different for each user
+	 */
+	boolean perUser() default false;
+}
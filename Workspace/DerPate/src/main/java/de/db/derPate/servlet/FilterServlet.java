@@ -2,12 +2,12 @@ package de.db.derPate.servlet;
 
 import java.io.IOException;
 
-import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.eclipse.jdt.annotation.NonNull;
 
 import de.db.derPate.handler.FilterServletHandler;
+import de.db.derPate.servlet.RequestContext.Phase;
 import de.db.derPate.servlet.filter.ServletFilter;
 
 /**
@@ -41,12 +41,15 @@ public abstract class FilterServlet extends BaseServlet {
 
 	/**
 	 * Handles get request. Checks if all filters apply and calls
-	 * {@link #onGet(HttpServletRequest, HttpServletResponse)}, if they do.
+	 * {@link #onGet(RequestContext)}, if they do and the client doesn't have the
+	 * current response already (see {@link ConditionalGet}).
 	 */
 	@Override
-	protected final void get(@NonNull HttpServletRequest req, @NonNull HttpServletResponse resp) throws IOException {
-		if (this.filterHandler.handleFilter(req, resp)) {
-			this.onGet(req, resp);
+	protected final void get(@NonNull RequestContext context) throws IOException {
+		boolean valid = this.filterHandler.handleFilter(context);
+		context.mark(Phase.FILTER);
+		if (valid && !this.sendNotModified(context)) {
+			this.onGet(context);
 		}
 	}
 
@@ -57,24 +60,25 @@ public abstract class FilterServlet extends BaseServlet {
 	 * {@value HttpServletResponse#SC_METHOD_NOT_ALLOWED}) http status, when not
 	 * overwritten.
 	 *
-	 * @param req  {@link HttpServletRequest}
-	 * @param resp {@link HttpServletResponse}
+	 * @param context {@link RequestContext} of the request
 	 * @throws IOException if an input or output exception occurs, while sending
 	 *                     error
 	 */
-	protected void onGet(@NonNull HttpServletRequest req, @NonNull HttpServletResponse resp) throws IOException {
-		resp.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+	protected void onGet(@NonNull RequestContext context) throws IOException {
+		context.getResponse().sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
 		return;
 	}
 
 	/**
 	 * Handles post request. Checks if all filters apply and calls
-	 * {@link #onPost(HttpServletRequest, HttpServletResponse)}, if they do.
+	 * {@link #onPost(RequestContext)}, if they do.
 	 */
 	@Override
-	protected final void post(@NonNull HttpServletRequest req, @NonNull HttpServletResponse resp) throws IOException {
-		if (this.filterHandler.handleFilter(req, resp)) {
-			this.onPost(req, resp);
+	protected final void post(@NonNull RequestContext context) throws IOException {
+		boolean valid = this.filterHandler.handleFilter(context);
+		context.mark(Phase.FILTER);
+		if (valid) {
+			this.onPost(context);
 		}
 	}
 
@@ -85,13 +89,12 @@ public abstract class FilterServlet extends BaseServlet {
 	 * {@value HttpServletResponse#SC_METHOD_NOT_ALLOWED}) http status, when not
 	 * overwritten.
 	 *
-	 * @param req  {@link HttpServletRequest}
-	 * @param resp {@link HttpServletResponse}
+	 * @param context {@link RequestContext} of the request
 	 * @throws IOException if an input or output exception occurs, while sending
 	 *                     error
 	 */
-	protected void onPost(@NonNull HttpServletRequest req, @NonNull HttpServletResponse resp) throws IOException {
-		resp.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+	protected void onPost(@NonNull RequestContext context) throws IOException {
+		context.getResponse().sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
 		return;
 	}
 
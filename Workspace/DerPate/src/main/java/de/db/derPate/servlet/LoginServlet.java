@@ -6,23 +6,27 @@ import java.util.logging.Level;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
 
 import de.db.derPate.CSRFForm;
 import de.db.derPate.Constants;
 import de.db.derPate.manager.LoggingManager;
 import de.db.derPate.manager.LoginManager;
-import de.db.derPate.model.Admin;
-import de.db.derPate.model.Godfather;
+import de.db.derPate.model.EmailPasswordLoginUser;
 import de.db.derPate.model.Trainee;
 import de.db.derPate.persistence.AdminDao;
+import de.db.derPate.persistence.EmailPasswordLoginUserDao;
 import de.db.derPate.persistence.GodfatherDao;
 import de.db.derPate.persistence.TraineeDao;
 import de.db.derPate.servlet.filter.CSRFServletFilter;
+import de.db.derPate.servlet.filter.RateLimitServletFilter;
 import de.db.derPate.util.CSRFPreventionUtil;
+import de.db.derPate.util.HashVerificationPool;
+import de.db.derPate.util.HashVerificationPool.Verification;
 import de.db.derPate.util.InputVerifyUtil;
+import de.db.derPate.util.RateLimiter;
 
 /**
  * This servlet get's called by the client, when the user tries to log on. It
@@ -57,6 +61,18 @@ public class LoginServlet extends FilterServlet {
 	 * with a user and therefore cannot be used by another user.
 	 */
 	public static final int SC_ALREADY_LOGGED_IN = HttpServletResponse.SC_CONFLICT;
+	/**
+	 * Http status code used to indicate, that the password could not get checked,
+	 * because there are too many login attempts at the moment. The client may try
+	 * again after {@link #RETRY_AFTER_SECONDS}.
+	 */
+	public static final int SC_LOGIN_BUSY = HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+	/**
+	 * Seconds, after which the client may try again, if the login was rejected
+	 * with {@link #SC_LOGIN_BUSY}
+	 */
+	public static final int RETRY_AFTER_SECONDS = 1;
+	private static final String HEADER_RETRY_AFTER = "Retry-After"; //$NON-NLS-1$
 
 	/**
 	 * Input field name for user to submit mail (Godfather / Admin)
@@ -78,11 +94,24 @@ public class LoginServlet extends FilterServlet {
 	@NonNull
 	public static final CSRFForm USERFORM = CSRFForm.LOGIN;
 
+	/**
+	 * Limits the login attempts per ip address and per email address or token.
+	 * Checked before any other filter, so limited requests don't cost anything
+	 * else.
+	 */
+	@NonNull
+	public static final RateLimitServletFilter RATE_LIMIT = new RateLimitServletFilter(
+			new RateLimiter(Constants.Login.RATE_LIMIT_ADDRESS_BURST, Constants.Login.RATE_LIMIT_ADDRESS_PER_MINUTE,
+					Constants.Login.RATE_LIMIT_MAX_KEYS),
+			new RateLimiter(Constants.Login.RATE_LIMIT_USER_BURST, Constants.Login.RATE_LIMIT_USER_PER_MINUTE,
+					Constants.Login.RATE_LIMIT_MAX_KEYS),
+			INPUT_FIELD_EMAIL, INPUT_FIELD_TOKEN);
+
 	/**
 	 * Constructor
 	 */
 	public LoginServlet() {
-		super(new CSRFServletFilter(USERFORM));
+		super(RATE_LIMIT, new CSRFServletFilter(USERFORM));
 	}
 
 	/**
@@ -93,9 +122,10 @@ public class LoginServlet extends FilterServlet {
 	 * @throws IOException if an input or output exception occurs
 	 */
 	@Override
-	protected void onPost(@NonNull final HttpServletRequest request, @NonNull final HttpServletResponse response)
-			throws IOException {
-		if (LoginManager.getInstance().isLoggedIn(request.getSession())) {
+	protected void onPost(@NonNull RequestContext context) throws IOException {
+		HttpServletRequest request = context.getRequest();
+		HttpServletResponse response = context.getResponse();
+		if (context.isLoggedIn()) {
 			response.setStatus(SC_ALREADY_LOGGED_IN);
 			return;
 		}
@@ -107,37 +137,30 @@ public class LoginServlet extends FilterServlet {
 		if (email != null && InputVerifyUtil.isNotBlank(email) && password != null
 				&& InputVerifyUtil.isNotBlank(password)) {
 
-			// find admin user
-			Admin admin = AdminDao.getInstance().byEmail(email);
-			if (admin != null) {
-				// try to login as admin
-				String dbPassword = admin.getPassword();
-				if (Constants.Login.hashUtil.isEqual(password, dbPassword, Constants.Login.hashPepper,
-						Constants.Login.hashSeparator)) {
-					LoginManager.getInstance().login(request, admin);
-					response.setStatus(SC_LOGIN_SUCCESS);
-					return;
-				}
-			} else {
-				// find godfather
-				Godfather godfather = GodfatherDao.getInstance().byEmail(email);
-				if (godfather != null) {
-					// try to login as godfather
-					String dbPassword = godfather.getPassword();
-					if (Constants.Login.hashUtil.isEqual(password, dbPassword, Constants.Login.hashPepper,
-							Constants.Login.hashSeparator)) {
-						LoginManager.getInstance().login(request, godfather);
-						response.setStatus(SC_LOGIN_SUCCESS);
-						return;
-					}
-				}
+			// find admin user or godfather
+			EmailPasswordLoginUserDao dao = AdminDao.getInstance();
+			EmailPasswordLoginUser user = AdminDao.getInstance().byEmail(email);
+			if (user == null) {
+				dao = GodfatherDao.getInstance();
+				user = GodfatherDao.getInstance().byEmail(email);
+			}
+
+			// a password is checked, even if the user doesn't exist (same response time)
+			Verification verification = verifyPassword(password, user, dao);
+			if (user != null && verification == Verification.VALID) {
+				LoginManager.getInstance().login(request, response, user);
+				response.setStatus(SC_LOGIN_SUCCESS);
+				return;
+			} else if (verification == Verification.BUSY) {
+				sendBusy(request, response);
+				return;
 			}
 		} else if (InputVerifyUtil.isNotBlank(token)) {
 			// find token
 			Trainee trainee = TraineeDao.getInstance().byToken(token);
 			if (trainee != null) {
 				// no password needed
-				LoginManager.getInstance().login(request, trainee);
+				LoginManager.getInstance().login(request, response, trainee);
 				response.setStatus(SC_LOGIN_SUCCESS);
 				return;
 			}
@@ -156,24 +179,67 @@ public class LoginServlet extends FilterServlet {
 		return;
 	}
 
+	/**
+	 * Checks the password of the user on the {@link HashVerificationPool}. If it
+	 * is valid, but the hash is outdated (see
+	 * {@link HashVerificationPool#needsRehash(String)}), the password is rehashed
+	 * and stored in the background.<br>
+	 * Without a user (or password), the password is checked against a dummy hash
+	 * (see {@link HashVerificationPool#verifyUnknown(String)}), so the response
+	 * time doesn't reveal, which email addresses are registered.
+	 *
+	 * @param password the password sent by the client
+	 * @param user     the user, who tries to login, or <code>null</code>, if not
+	 *                 found
+	 * @param dao      the dao used to store a new hash
+	 * @return {@link Verification} ({@link Verification#VALID} only for a user)
+	 */
+	@NonNull
+	private static Verification verifyPassword(@NonNull String password, @Nullable EmailPasswordLoginUser user,
+			@NonNull EmailPasswordLoginUserDao dao) {
+		HashVerificationPool pool = HashVerificationPool.getInstance();
+		String dbPassword = user != null ? user.getPassword() : null;
+		if (user == null || dbPassword == null) {
+			return pool.verifyUnknown(password);
+		}
+
+		Verification verification = pool.verify(password, dbPassword);
+		if (verification == Verification.VALID && pool.needsRehash(dbPassword)) {
+			int id = user.getId();
+			pool.rehash(password, newPassword -> dao.updatePassword(id, dbPassword, newPassword));
+		}
+		return verification;
+	}
+
+	/**
+	 * Sends {@link #SC_LOGIN_BUSY}, when the password could not get checked,
+	 * because there are too many login attempts at the moment
+	 *
+	 * @param request  the {@link HttpServletRequest}
+	 * @param response the {@link HttpServletResponse}
+	 * @throws IOException if an input or output exception occurs
+	 */
+	private static void sendBusy(@NonNull final HttpServletRequest request,
+			@NonNull final HttpServletResponse response) throws IOException {
+		attachCSRFHeader(request, response); // attach new token
+		response.setHeader(HEADER_RETRY_AFTER, String.valueOf(RETRY_AFTER_SECONDS));
+		response.sendError(SC_LOGIN_BUSY);
+	}
+
 	/**
 	 * Attaches a header to the given {@link HttpServletResponse}, that the client
 	 * can use for a new request
 	 *
-	 * @param request  the {@link HttpServletRequest} containing the
-	 *                 {@link HttpSession} of client
+	 * @param request  the {@link HttpServletRequest}
 	 * @param response the {@link HttpServletResponse}
 	 *
-	 * @see CSRFPreventionUtil#attachNewTokenToHttpResponse(HttpSession,
+	 * @see CSRFPreventionUtil#attachNewTokenToHttpResponse(HttpServletRequest,
 	 *      HttpServletResponse, CSRFForm)
 	 */
 	private static void attachCSRFHeader(@NonNull final HttpServletRequest request,
 			@NonNull final HttpServletResponse response) {
 		// no valid login, but valid token. So request can be trusted again
-		HttpSession session = request.getSession();
-		if (session != null) {
-			CSRFPreventionUtil.attachNewTokenToHttpResponse(session, response, USERFORM);
-		}
+		CSRFPreventionUtil.attachNewTokenToHttpResponse(request, response, USERFORM);
 	}
 
 }
@@ -42,13 +42,11 @@ public class LogoutServlet extends FilterServlet {
 	 * redirects to the start page.
 	 */
 	@Override
-	protected void onGet(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response)
-			throws IOException {
-		// get data
-		HttpSession session = request.getSession();
-
+	protected void onGet(@NonNull RequestContext context) throws IOException {
+		HttpServletRequest request = context.getRequest();
+		HttpServletResponse response = context.getResponse();
 		// logout
-		LoginManager.getInstance().logout(session);
+		LoginManager.getInstance().logout(request, response);
 
 		// redirect back to start
 		response.sendRedirect(request.getContextPath());
@@ -0,0 +1,249 @@
+package de.db.derPate.servlet;
+
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.db.derPate.Usermode;
+import de.db.derPate.manager.LoggingManager;
+import de.db.derPate.manager.LoginManager;
+import de.db.derPate.manager.SessionPrincipal;
+import de.db.derPate.model.LoginUser;
+import de.db.derPate.servlet.filter.ServletFilter;
+
+/**
+ * This class holds everything, that is resolved while handling one request:
+ * the {@link HttpSession}, the {@link SessionPrincipal} of the logged in user
+ * (and the user, if needed) and the time spent in each {@link Phase}. Each of
+ * them is resolved at most once, when it is first needed, so
+ * {@link ServletFilter}s and servlets don't have to look them up again.<br>
+ * A context is created per request (see
+ * {@link #of(HttpServletRequest, HttpServletResponse)}) and must not be shared
+ * between requests or threads. Changes of the login (e.g.
+ * {@link LoginManager#login(HttpServletRequest, HttpServletResponse, LoginUser)})
+ * are not reflected by an existing context.
+ *
+ * @author MichelBlank
+ * @see BaseServlet
+ */
+public final class RequestContext {
+	/**
+	 * Request attribute containing the context of the request
+	 */
+	private static final String ATTRIBUTE = RequestContext.class.getName();
+
+	/**
+	 * Phases of a request, whose durations are recorded
+	 */
+	public enum Phase {
+		/**
+		 * Checking the {@link ServletFilter}s
+		 */
+		FILTER,
+		/**
+		 * Handling the request (e.g. in {@link FilterServlet#onGet(RequestContext)})
+		 */
+		HANDLE
+	}
+
+	@NonNull
+	private final HttpServletRequest request;
+	@NonNull
+	private final HttpServletResponse response;
+
+	private boolean sessionResolved;
+	@Nullable
+	private HttpSession session;
+	private boolean principalResolved;
+	@Nullable
+	private SessionPrincipal principal;
+	private boolean userResolved;
+	@Nullable
+	private LoginUser user;
+
+	/**
+	 * Time of the last call of {@link #mark(Phase)} (or of the creation)
+	 */
+	private long lastMark;
+	@NonNull
+	private final long[] durations = new long[Phase.values().length];
+
+	/**
+	 * Constructor
+	 *
+	 * @param request  the {@link HttpServletRequest}
+	 * @param response the {@link HttpServletResponse}
+	 */
+	private RequestContext(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response) {
+		this.request = request;
+		this.response = response;
+		this.lastMark = System.nanoTime();
+	}
+
+	/**
+	 * Returns the context of the request and creates it, if the request has none
+	 * yet (e.g. a native filter already created it, before the request was
+	 * forwarded)
+	 *
+	 * @param request  the {@link HttpServletRequest}
+	 * @param response the {@link HttpServletResponse}
+	 * @return {@link RequestContext}
+	 */
+	@NonNull
+	public static RequestContext of(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response) {
+		Object attribute = request.getAttribute(ATTRIBUTE);
+		if (attribute instanceof RequestContext) {
+			return (RequestContext) attribute;
+		}
+		RequestContext context = new RequestContext(request, response);
+		request.setAttribute(ATTRIBUTE, context);
+		return context;
+	}
+
+	/**
+	 * Returns the request
+	 *
+	 * @return {@link HttpServletRequest}
+	 */
+	@NonNull
+	public HttpServletRequest getRequest() {
+		return this.request;
+	}
+
+	/**
+	 * Returns the response
+	 *
+	 * @return {@link HttpServletResponse}
+	 */
+	@NonNull
+	public HttpServletResponse getResponse() {
+		return this.response;
+	}
+
+	/**
+	 * Returns the {@link HttpSession} of the client. Doesn't create a session.
+	 *
+	 * @return {@link HttpSession} or <code>null</code>, if the client has none
+	 */
+	@Nullable
+	public HttpSession getSession() {
+		if (!this.sessionResolved) {
+			this.session = this.request.getSession(false);
+			this.sessionResolved = true;
+		}
+		return this.session;
+	}
+
+	/**
+	 * Returns the {@link SessionPrincipal} of the logged in user (see
+	 * {@link LoginManager#getPrincipal(HttpServletRequest)})
+	 *
+	 * @return {@link SessionPrincipal} or <code>null</code>, if user is not logged
+	 *         in
+	 */
+	@Nullable
+	public SessionPrincipal getPrincipal() {
+		if (!this.principalResolved) {
+			LoginManager loginManager = LoginManager.getInstance();
+			this.principal = loginManager.isStateless() ? loginManager.getPrincipal(this.request)
+					: loginManager.getPrincipal(this.getSession()); // shares the session lookup
+			this.principalResolved = true;
+		}
+		return this.principal;
+	}
+
+	/**
+	 * Returns the logged in {@link LoginUser}, which is loaded on the first call
+	 * (see {@link LoginManager#getUser(SessionPrincipal)})
+	 *
+	 * @return {@link LoginUser} or <code>null</code>, if user is not logged in or
+	 *         doesn't exist anymore
+	 */
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T extends LoginUser> T getUser() {
+		if (!this.userResolved) {
+			this.user = LoginManager.getInstance().getUser(this.getPrincipal());
+			this.userResolved = true;
+		}
+		return (T) this.user;
+	}
+
+	/**
+	 * Returns the {@link Usermode} of the logged in user
+	 *
+	 * @return {@link Usermode} or <code>null</code>, if user is not logged in
+	 */
+	@Nullable
+	public Usermode getUsermode() {
+		SessionPrincipal currentPrincipal = this.getPrincipal();
+		return currentPrincipal != null ? currentPrincipal.getUsermode() : null;
+	}
+
+	/**
+	 * Returns current login status
+	 *
+	 * @return <code>true</code>, if user is logged in
+	 */
+	public boolean isLoggedIn() {
+		return this.getPrincipal() != null;
+	}
+
+	/**
+	 * Checks, if the logged in user is a user of one of the given
+	 * {@link Usermode}s
+	 *
+	 * @param usermodes the allowed {@link Usermode}s (should be an
+	 *                  {@link java.util.EnumSet})
+	 * @return <code>true</code>, if user is logged in and has one of the
+	 *         {@link Usermode}s
+	 */
+	public boolean isUserInUsermode(@NonNull Set<Usermode> usermodes) {
+		Usermode usermode = this.getUsermode();
+		return usermode != null && usermodes.contains(usermode);
+	}
+
+	/**
+	 * Records the time since the last mark (or the creation of the context) as
+	 * duration of the given {@link Phase}
+	 *
+	 * @param phase the {@link Phase}, that ended
+	 */
+	public void mark(@NonNull Phase phase) {
+		long now = System.nanoTime();
+		this.durations[phase.ordinal()] += now - this.lastMark;
+		this.lastMark = now;
+	}
+
+	/**
+	 * Returns the recorded duration of a {@link Phase}
+	 *
+	 * @param phase the {@link Phase}
+	 * @return duration in nanoseconds (0, if it wasn't recorded)
+	 */
+	public long getDuration(@NonNull Phase phase) {
+		return this.durations[phase.ordinal()];
+	}
+
+	/**
+	 * Logs the recorded durations with {@link Level#FINE}
+	 */
+	void logDurations() {
+		Logger logger = LoggingManager.getLogger();
+		if (logger != null && logger.isLoggable(Level.FINE)) {
+			StringBuilder message = new StringBuilder(this.request.getMethod()).append(' ')
+					.append(this.request.getRequestURI());
+			for (Phase phase : Phase.values()) {
+				message.append(' ').append(phase).append('=').append(this.getDuration(phase) / 1000).append("us"); //$NON-NLS-1$
+			}
+			LoggingManager.log(Level.FINE, message.toString());
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package de.db.derPate.servlet.adminOnly;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.http.entity.ContentType;
+import org.eclipse.jdt.annotation.NonNull;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import com.google.gson.JsonObject;
+
+import de.db.derPate.Usermode;
+import de.db.derPate.persistence.GodfatherResultCache;
+import de.db.derPate.persistence.JobDao;
+import de.db.derPate.persistence.LocationDao;
+import de.db.derPate.persistence.ReferenceDataCache;
+import de.db.derPate.persistence.TeachingTypeDao;
+import de.db.derPate.servlet.FilterServlet;
+import de.db.derPate.servlet.RequestContext;
+import de.db.derPate.servlet.LoginServlet;
+import de.db.derPate.servlet.filter.LoginServletFilter;
+import de.db.derPate.util.HibernateSessionFactoryUtil;
+import io.agroal.api.AgroalDataSourceMetrics;
+
+/**
+ * This servlet is only available for Admins and responds with runtime
+ * statistics (e.g. connection pool utilisation and cache hit rates) as JSON, so
+ * the application can be sized for peak times.<br>
+ * Allowed http methods: <code>GET</code>
+ *
+ * @author MichelBlank
+ *
+ */
+@WebServlet("/statistics")
+public class StatisticsServlet extends FilterServlet {
+	/**
+	 * Default serial version UID
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Json element name for the connection pool statistics
+	 */
+	public static final String JSON_OUTPUT_CONNECTION_POOL = "connectionPool"; //$NON-NLS-1$
+	/**
+	 * Json element name for the reference data cache statistics
+	 */
+	public static final String JSON_OUTPUT_REFERENCE_DATA = "referenceData"; //$NON-NLS-1$
+	/**
+	 * Json element name for the statistics of the hibernate second level cache
+	 */
+	public static final String JSON_OUTPUT_SECOND_LEVEL_CACHE = "secondLevelCache"; //$NON-NLS-1$
+	/**
+	 * Json element name for the statistics of the login rate limit
+	 */
+	public static final String JSON_OUTPUT_LOGIN_RATE_LIMIT = "loginRateLimit"; //$NON-NLS-1$
+	/**
+	 * Json element name for the statistics of the cached godfather pages
+	 */
+	public static final String JSON_OUTPUT_GODFATHER_RESULTS = "godfatherResults"; //$NON-NLS-1$
+
+	/**
+	 * Constructor initializing the access filter
+	 */
+	public StatisticsServlet() {
+		super(new LoginServletFilter(Usermode.ADMIN));
+	}
+
+	@Override
+	protected void onGet(@NonNull RequestContext context) throws IOException {
+		HttpServletResponse resp = context.getResponse();
+		JsonObject object = new JsonObject();
+		object.add(JSON_OUTPUT_CONNECTION_POOL, connectionPoolToJson());
+
+		JsonObject referenceData = new JsonObject();
+		referenceData.add("location", cacheToJson(LocationDao.getInstance().getCache())); //$NON-NLS-1$
+		referenceData.add("job", cacheToJson(JobDao.getInstance().getCache())); //$NON-NLS-1$
+		referenceData.add("teachingType", cacheToJson(TeachingTypeDao.getInstance().getCache())); //$NON-NLS-1$
+		referenceData.addProperty("version", ReferenceDataCache.getVersion()); //$NON-NLS-1$
+		object.add(JSON_OUTPUT_REFERENCE_DATA, referenceData);
+		object.add(JSON_OUTPUT_SECOND_LEVEL_CACHE, secondLevelCacheToJson());
+
+		GodfatherResultCache godfatherResults = GodfatherResultCache.getInstance();
+		JsonObject godfatherResultsObject = new JsonObject();
+		godfatherResultsObject.addProperty("hits", godfatherResults.getHitCount()); //$NON-NLS-1$
+		godfatherResultsObject.addProperty("misses", godfatherResults.getMissCount()); //$NON-NLS-1$
+		godfatherResultsObject.addProperty("invalidations", godfatherResults.getInvalidationCount()); //$NON-NLS-1$
+		godfatherResultsObject.addProperty("size", godfatherResults.size()); //$NON-NLS-1$
+		object.add(JSON_OUTPUT_GODFATHER_RESULTS, godfatherResultsObject);
+
+		JsonObject rateLimit = new JsonObject();
+		rateLimit.addProperty("limited", LoginServlet.RATE_LIMIT.getLimitedCount()); //$NON-NLS-1$
+		rateLimit.addProperty("tracked", LoginServlet.RATE_LIMIT.size()); //$NON-NLS-1$
+		object.add(JSON_OUTPUT_LOGIN_RATE_LIMIT, rateLimit);
+
+		resp.setContentType(ContentType.APPLICATION_JSON.getMimeType());
+		resp.getWriter().print(object.toString());
+	}
+
+	@Override
+	protected void onPost(@NonNull RequestContext context) throws IOException {
+		super.onPost(context); // unsupported method
+	}
+
+	@NonNull
+	private static JsonObject connectionPoolToJson() {
+		JsonObject object = new JsonObject();
+		AgroalDataSourceMetrics metrics = HibernateSessionFactoryUtil.getConnectionPoolMetrics();
+		if (metrics == null) {
+			return object;
+		}
+
+		object.addProperty("active", metrics.activeCount()); //$NON-NLS-1$
+		object.addProperty("available", metrics.availableCount()); //$NON-NLS-1$
+		object.addProperty("maxUsed", metrics.maxUsedCount()); //$NON-NLS-1$
+		object.addProperty("awaiting", metrics.awaitingCount()); //$NON-NLS-1$
+		object.addProperty("acquired", metrics.acquireCount()); //$NON-NLS-1$
+		object.addProperty("created", metrics.creationCount()); //$NON-NLS-1$
+		object.addProperty("leaksDetected", metrics.leakDetectionCount()); //$NON-NLS-1$
+		object.addProperty("invalid", metrics.invalidCount()); //$NON-NLS-1$
+		object.addProperty("waitTimeAverageMillis", toMillis(metrics.blockingTimeAverage())); //$NON-NLS-1$
+		object.addProperty("waitTimeMaxMillis", toMillis(metrics.blockingTimeMax())); //$NON-NLS-1$
+		object.addProperty("waitTimeTotalMillis", toMillis(metrics.blockingTimeTotal())); //$NON-NLS-1$
+		return object;
+	}
+
+	@NonNull
+	private static JsonObject secondLevelCacheToJson() {
+		JsonObject object = new JsonObject();
+		Statistics statistics = HibernateSessionFactoryUtil.getSessionFactory().getStatistics();
+		object.addProperty("hits", statistics.getSecondLevelCacheHitCount()); //$NON-NLS-1$
+		object.addProperty("misses", statistics.getSecondLevelCacheMissCount()); //$NON-NLS-1$
+		object.addProperty("puts", statistics.getSecondLevelCachePutCount()); //$NON-NLS-1$
+		object.addProperty("naturalIdHits", statistics.getNaturalIdCacheHitCount()); //$NON-NLS-1$
+		object.addProperty("naturalIdMisses", statistics.getNaturalIdCacheMissCount()); //$NON-NLS-1$
+		object.addProperty("naturalIdPuts", statistics.getNaturalIdCachePutCount()); //$NON-NLS-1$
+
+		JsonObject regions = new JsonObject();
+		for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+			CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+			if (region != null) {
+				JsonObject regionObject = new JsonObject();
+				regionObject.addProperty("hits", region.getHitCount()); //$NON-NLS-1$
+				regionObject.addProperty("misses", region.getMissCount()); //$NON-NLS-1$
+				regionObject.addProperty("puts", region.getPutCount()); //$NON-NLS-1$
+				regions.add(regionName, regionObject);
+			}
+		}
+		object.add("regions", regions); //$NON-NLS-1$
+		return object;
+	}
+
+	@NonNull
+	private static JsonObject cacheToJson(@NonNull ReferenceDataCache<?> cache) {
+		JsonObject object = new JsonObject();
+		object.addProperty("hits", cache.getHitCount()); //$NON-NLS-1$
+		object.addProperty("misses", cache.getMissCount()); //$NON-NLS-1$
+		object.addProperty("reloads", cache.getReloadCount()); //$NON-NLS-1$
+		return object;
+	}
+
+	private static long toMillis(Duration duration) {
+		return duration != null ? duration.toMillis() : 0;
+	}
+}
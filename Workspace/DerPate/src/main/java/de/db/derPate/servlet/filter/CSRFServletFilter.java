@@ -8,7 +8,9 @@ import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 
 import de.db.derPate.CSRFForm;
+import de.db.derPate.manager.LoginManager;
 import de.db.derPate.servlet.FilterServlet;
+import de.db.derPate.servlet.RequestContext;
 import de.db.derPate.util.CSRFPreventionUtil;
 
 /**
@@ -40,17 +42,23 @@ public class CSRFServletFilter implements ServletFilter {
 	 * Checks (and invalidates, if necessary) a CSRF token provided by a header or
 	 * parameter in the {@link HttpServletRequest}.
 	 *
-	 * @param req the {@link HttpServletRequest}
+	 * @param context the {@link RequestContext} of the request
 	 * @return <code>true</code>, if a valid token was found; <code>false</code>, if
 	 *         no valid token was found
 	 */
 	@Override
-	public boolean filter(@NonNull HttpServletRequest req) {
-		String csrfToken = getCSRFToken(req);
-		HttpSession session = req.getSession();
+	public boolean filter(@NonNull RequestContext context) {
+		String csrfToken = getCSRFToken(context.getRequest());
+		if (csrfToken == null) {
+			return false;
+		}
 
-		return (csrfToken != null && session != null
-				&& CSRFPreventionUtil.checkToken(session, this.csrfForm, csrfToken));
+		if (this.csrfForm.isSigned() && LoginManager.getInstance().isStateless()) {
+			// bound to the login cookie, doesn't need a session
+			return CSRFPreventionUtil.checkToken(context.getRequest(), this.csrfForm, csrfToken);
+		}
+		HttpSession session = context.getSession(); // already resolved by the login filter
+		return (session != null && CSRFPreventionUtil.checkToken(session, this.csrfForm, csrfToken));
 	}
 
 	@Override
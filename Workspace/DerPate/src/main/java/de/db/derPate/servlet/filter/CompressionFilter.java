@@ -0,0 +1,333 @@
+package de.db.derPate.servlet.filter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.db.derPate.Constants;
+import de.db.derPate.util.CompressionUtil;
+import de.db.derPate.util.ThresholdGzipOutputStream;
+
+/**
+ * This filter compresses responses with gzip, if the client accepts it and the
+ * response is text (e.g. json or html) and larger than
+ * {@link Constants.Compression#MIN_SIZE}. The response is streamed: only the
+ * first bytes up to the minimum size are buffered (see
+ * {@link ThresholdGzipOutputStream}).<br>
+ * Responses, that already have a Content-Encoding (e.g. precompressed assets of
+ * the {@link StaticAssetFilter}), are not compressed again.<br>
+ * USAGE: JSP/SERVLET via WEB.XML
+ *
+ * @author MichelBlank
+ */
+public class CompressionFilter implements Filter {
+	/**
+	 * Header field containing the encodings, the client accepts
+	 */
+	public static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding"; //$NON-NLS-1$
+	/**
+	 * Header field containing the encoding of the response
+	 */
+	public static final String HEADER_CONTENT_ENCODING = "Content-Encoding"; //$NON-NLS-1$
+	/**
+	 * Header field containing the request headers, the response depends on
+	 */
+	public static final String HEADER_VARY = "Vary"; //$NON-NLS-1$
+
+	@Override
+	public void doFilter(@Nullable ServletRequest request, @Nullable ServletResponse response,
+			@Nullable FilterChain chain) throws IOException, ServletException {
+		if (request != null && response != null && chain != null) {
+			if (request instanceof HttpServletRequest && response instanceof HttpServletResponse) {
+				HttpServletRequest req = (HttpServletRequest) request;
+				HttpServletResponse resp = (HttpServletResponse) response;
+				// the response differs by the header, even if this client doesn't accept gzip
+				resp.addHeader(HEADER_VARY, HEADER_ACCEPT_ENCODING);
+				if (!"HEAD".equals(req.getMethod()) //$NON-NLS-1$
+						&& CompressionUtil.acceptsGzip(req.getHeader(HEADER_ACCEPT_ENCODING))) {
+					CompressionResponse compressionResponse = new CompressionResponse(resp);
+					chain.doFilter(request, compressionResponse);
+					compressionResponse.finish();
+					return;
+				}
+			}
+			chain.doFilter(request, response);
+		}
+	}
+
+	@Override
+	public void init(FilterConfig filterConfig) throws ServletException {
+		// nothing to initialize
+	}
+
+	@Override
+	public void destroy() {
+		// nothing to destroy
+	}
+
+	/**
+	 * Response, whose content is written to a {@link ThresholdGzipOutputStream}
+	 *
+	 * @author MichelBlank
+	 */
+	private static class CompressionResponse extends HttpServletResponseWrapper
+			implements ThresholdGzipOutputStream.Target {
+		@Nullable
+		private ThresholdGzipOutputStream stream;
+		@Nullable
+		private ServletOutputStream outputStream;
+		@Nullable
+		private PrintWriter writer;
+		/**
+		 * Content length set by the servlet, before the content was written
+		 */
+		private long contentLength = -1;
+		/**
+		 * <code>true</code>, if the content was replaced by the container (e.g. an
+		 * error page)
+		 */
+		private boolean bypassed;
+
+		/**
+		 * Constructor
+		 *
+		 * @param response the wrapped response
+		 */
+		public CompressionResponse(@NonNull HttpServletResponse response) {
+			super(response);
+		}
+
+		@NonNull
+		private ThresholdGzipOutputStream stream() {
+			ThresholdGzipOutputStream current = this.stream;
+			if (current == null) {
+				current = new ThresholdGzipOutputStream(this, Constants.Compression.MIN_SIZE);
+				this.stream = current;
+			}
+			return current;
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			if (this.writer != null) {
+				throw new IllegalStateException("getWriter() has already been called"); //$NON-NLS-1$
+			}
+			ServletOutputStream current = this.outputStream;
+			if (current == null) {
+				current = new CompressionServletOutputStream(this.stream());
+				this.outputStream = current;
+			}
+			return current;
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			if (this.outputStream != null) {
+				throw new IllegalStateException("getOutputStream() has already been called"); //$NON-NLS-1$
+			}
+			PrintWriter current = this.writer;
+			if (current == null) {
+				current = new PrintWriter(new OutputStreamWriter(this.stream(), this.getCharacterEncoding()));
+				this.writer = current;
+			}
+			return current;
+		}
+
+		@Override
+		public void setContentLength(int len) {
+			this.setContentLengthLong(len);
+		}
+
+		@Override
+		public void setContentLengthLong(long len) {
+			ThresholdGzipOutputStream current = this.stream;
+			if (current == null || !current.isStarted()) {
+				this.contentLength = len; // decided, when the content is written
+				if (len >= 0 && len <= Constants.Compression.MIN_SIZE) {
+					// too small to be compressed -> written right away instead of being buffered
+					try {
+						this.stream().expectLength(len);
+					} catch (IOException e) {
+						// decided again (and failing again), when the content is written
+					}
+				}
+			} else if (!current.isCompressed()) {
+				super.setContentLengthLong(len);
+			}
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			PrintWriter currentWriter = this.writer;
+			if (currentWriter != null) {
+				currentWriter.flush();
+			}
+			ThresholdGzipOutputStream current = this.stream;
+			if (current == null || current.isStarted()) {
+				super.flushBuffer();
+			} // otherwise the response isn't committed, until it is decided, if it is compressed
+		}
+
+		@Override
+		public void resetBuffer() {
+			this.resetStream();
+			super.resetBuffer();
+		}
+
+		@Override
+		public void reset() {
+			this.resetStream();
+			this.contentLength = -1;
+			super.reset();
+			super.addHeader(HEADER_VARY, HEADER_ACCEPT_ENCODING);
+		}
+
+		/**
+		 * Discards the buffered content, if it wasn't written yet
+		 */
+		private void resetStream() {
+			ThresholdGzipOutputStream current = this.stream;
+			if (current != null && !current.isStarted()) {
+				current.reset();
+			}
+		}
+
+		@Override
+		public void sendError(int sc) throws IOException {
+			this.bypass();
+			super.sendError(sc);
+		}
+
+		@Override
+		public void sendError(int sc, String msg) throws IOException {
+			this.bypass();
+			super.sendError(sc, msg);
+		}
+
+		@Override
+		public void sendRedirect(String location) throws IOException {
+			this.bypass();
+			super.sendRedirect(location);
+		}
+
+		/**
+		 * Discards the buffered content, as the container sends its own content
+		 */
+		private void bypass() {
+			this.resetStream();
+			this.bypassed = true;
+		}
+
+		@Override
+		public OutputStream startCompressed() throws IOException {
+			if (this.bypassed || this.getStatus() < HttpServletResponse.SC_OK
+					|| this.getStatus() == HttpServletResponse.SC_NO_CONTENT
+					|| this.getStatus() == HttpServletResponse.SC_PARTIAL_CONTENT
+					|| this.getStatus() == HttpServletResponse.SC_NOT_MODIFIED
+					|| this.getHeader(HEADER_CONTENT_ENCODING) != null
+					|| !CompressionUtil.isCompressible(this.getContentType())) {
+				return null;
+			}
+			super.setHeader(HEADER_CONTENT_ENCODING, CompressionUtil.GZIP);
+			return super.getOutputStream();
+		}
+
+		@Override
+		public OutputStream startUncompressed(long length) throws IOException {
+			long knownLength = this.contentLength >= 0 ? this.contentLength : length;
+			if (knownLength >= 0 && !this.bypassed) {
+				super.setContentLengthLong(knownLength);
+			}
+			return super.getOutputStream();
+		}
+
+		/**
+		 * Writes the buffered content and finishes the compression. Called by the
+		 * filter after the request was handled.
+		 *
+		 * @throws IOException if the content can't be written
+		 */
+		public void finish() throws IOException {
+			ThresholdGzipOutputStream current = this.stream;
+			if (current == null || (this.bypassed && !current.isStarted())) {
+				// nothing was written
+				if (this.contentLength >= 0 && !this.bypassed) {
+					super.setContentLengthLong(this.contentLength);
+				}
+				return;
+			}
+			PrintWriter currentWriter = this.writer;
+			if (currentWriter != null) {
+				currentWriter.close();
+			} else {
+				current.close();
+			}
+		}
+	}
+
+	/**
+	 * {@link ServletOutputStream} writing to a {@link ThresholdGzipOutputStream}
+	 *
+	 * @author MichelBlank
+	 */
+	private static class CompressionServletOutputStream extends ServletOutputStream {
+		@NonNull
+		private final ThresholdGzipOutputStream stream;
+
+		/**
+		 * Constructor
+		 *
+		 * @param stream the {@link ThresholdGzipOutputStream}
+		 */
+		public CompressionServletOutputStream(@NonNull ThresholdGzipOutputStream stream) {
+			this.stream = stream;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			this.stream.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			this.stream.write(b, off, len);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			this.stream.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.stream.close();
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			// as specified for requests, that are not asynchronous
+			throw new IllegalStateException("Asynchronous output is not supported"); //$NON-NLS-1$
+		}
+	}
+}
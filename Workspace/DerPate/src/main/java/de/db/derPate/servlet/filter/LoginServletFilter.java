@@ -2,6 +2,8 @@ package de.db.derPate.servlet.filter;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -18,6 +20,7 @@ import org.eclipse.jdt.annotation.Nullable;
 import de.db.derPate.Usermode;
 import de.db.derPate.manager.LoginManager;
 import de.db.derPate.servlet.FilterServlet;
+import de.db.derPate.servlet.RequestContext;
 
 /**
  * This filter checks, if a client is logged in.<br>
@@ -34,7 +37,7 @@ public class LoginServletFilter implements ServletFilter, Filter {
 	 * null, if no special {@link Usermode} is required.
 	 */
 	@Nullable
-	private Usermode[] requiredUsermode;
+	private EnumSet<Usermode> requiredUsermode;
 
 	/**
 	 * Default constructor<br>
@@ -50,7 +53,24 @@ public class LoginServletFilter implements ServletFilter, Filter {
 	 * @param requiredUsermode {@link Usermode}, that are allowed
 	 */
 	public LoginServletFilter(@Nullable Usermode... requiredUsermode) {
-		this.requiredUsermode = requiredUsermode;
+		this.requiredUsermode = toSet(requiredUsermode);
+	}
+
+	/**
+	 * Converts the {@link Usermode}s into a set, which is checked on every request
+	 *
+	 * @param usermodes {@link Usermode}s
+	 * @return {@link EnumSet} or <code>null</code>, if no {@link Usermode}s were
+	 *         given
+	 */
+	@Nullable
+	private static EnumSet<Usermode> toSet(@Nullable Usermode... usermodes) {
+		if (usermodes == null) {
+			return null;
+		}
+		EnumSet<Usermode> result = EnumSet.noneOf(Usermode.class);
+		Collections.addAll(result, usermodes);
+		return result;
 	}
 
 	/**
@@ -64,29 +84,36 @@ public class LoginServletFilter implements ServletFilter, Filter {
 	 *         if user was not logged in or is not permitted
 	 */
 	@Override
-	public boolean filter(@NonNull HttpServletRequest req) {
-		boolean isLoggedIn = LoginManager.getInstance().isLoggedIn(req.getSession());
-		boolean result = isLoggedIn;
-		if (result == true && this.requiredUsermode != null) {
-			result = LoginManager.getInstance().isUserOfSessionInUsermode(req.getSession(), this.requiredUsermode);
-		}
+	public boolean filter(@NonNull RequestContext context) {
+		EnumSet<Usermode> usermodes = this.requiredUsermode;
+		return usermodes == null ? context.isLoggedIn() : context.isUserInUsermode(usermodes);
+	}
 
-		return result;
+	/**
+	 * Renews the login (see
+	 * {@link LoginManager#renew(HttpServletRequest, HttpServletResponse)})
+	 */
+	@Override
+	public void onAccepted(@NonNull RequestContext context) {
+		LoginManager.getInstance().renew(context.getRequest(), context.getResponse());
 	}
 
 	/**
 	 * Method used for native filtering (jsp).<br>
 	 * It sends an error to the client, if client is not logged in
 	 * ({@link #getErrorStatusCode()}).<br>
-	 * If client is logged in, the next filter in the filter chain get's called.
+	 * If client is logged in, the login gets renewed and the next filter in the
+	 * filter chain get's called.
 	 */
 	@Override
 	public void doFilter(@Nullable ServletRequest request, @Nullable ServletResponse response,
 			@Nullable FilterChain chain) throws IOException, ServletException {
 		if (request != null && response != null && chain != null) {
-			if (!this.filter((HttpServletRequest) request)) {
+			RequestContext context = RequestContext.of((HttpServletRequest) request, (HttpServletResponse) response);
+			if (!this.filter(context)) {
 				((HttpServletResponse) response).sendError(this.getErrorStatusCode());
 			} else {
+				this.onAccepted(context);
 				chain.doFilter(request, response);
 			}
 		}
@@ -105,7 +132,7 @@ public class LoginServletFilter implements ServletFilter, Filter {
 					wantedUsermodes.add(modeToAdd);
 				}
 			}
-			this.requiredUsermode = wantedUsermodes.toArray(new Usermode[0]);
+			this.requiredUsermode = toSet(wantedUsermodes.toArray(new Usermode[0]));
 		}
 	}
 
@@ -0,0 +1,132 @@
+package de.db.derPate.servlet.filter;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.Filter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+import de.db.derPate.servlet.FilterServlet;
+import de.db.derPate.servlet.RequestContext;
+import de.db.derPate.util.InputVerifyUtil;
+import de.db.derPate.util.RateLimiter;
+
+/**
+ * This filter limits the number of requests per ip address and per value of
+ * the given parameters (e.g. per email address), so that a burst of requests
+ * (e.g. guessing passwords) can't overload the server. Limited requests are
+ * responded with {@link #SC_TOO_MANY_REQUESTS} and a
+ * {@value #HEADER_RETRY_AFTER} header.<br>
+ * It can only be used by the {@link FilterServlet} and cannot be used by the
+ * native filter servlet mechanism, as it does not implement {@link Filter}.<br>
+ * USAGE: SERVLET/REST only
+ *
+ * @author MichelBlank
+ * @see RateLimiter
+ */
+public class RateLimitServletFilter implements ServletFilter {
+	/**
+	 * Http status code used to indicate, that too many requests were sent
+	 */
+	public static final int SC_TOO_MANY_REQUESTS = 429;
+	/**
+	 * Header field containing the seconds, after which the client may try again
+	 */
+	public static final String HEADER_RETRY_AFTER = "Retry-After"; //$NON-NLS-1$
+	/**
+	 * Request attribute used to pass the wait time from {@link #filter} to
+	 * {@link #sendError}
+	 */
+	private static final String ATTRIBUTE_RETRY_AFTER = RateLimitServletFilter.class.getName() + ".retryAfter"; //$NON-NLS-1$
+
+	@NonNull
+	private final RateLimiter addressLimiter;
+	@NonNull
+	private final RateLimiter parameterLimiter;
+	@NonNull
+	private final String[] parameters;
+
+	/**
+	 * Constructor
+	 *
+	 * @param addressLimiter   {@link RateLimiter} used per ip address
+	 * @param parameterLimiter {@link RateLimiter} used per value of a parameter
+	 * @param parameters       names of the parameters, whose values are limited
+	 *                         (compared case insensitive and trimmed)
+	 */
+	public RateLimitServletFilter(@NonNull RateLimiter addressLimiter, @NonNull RateLimiter parameterLimiter,
+			@NonNull String... parameters) {
+		this.addressLimiter = addressLimiter;
+		this.parameterLimiter = parameterLimiter;
+		this.parameters = parameters;
+	}
+
+	/**
+	 * Takes a token for the ip address and the values of the parameters.
+	 *
+	 * @param context the {@link RequestContext} of the request
+	 * @return <code>true</code>, if the request is allowed; <code>false</code>, if
+	 *         it is limited
+	 */
+	@SuppressWarnings("null")
+	@Override
+	public boolean filter(@NonNull RequestContext context) {
+		HttpServletRequest req = context.getRequest();
+		long wait = this.addressLimiter.tryAcquire(req.getRemoteAddr());
+		if (wait == 0) {
+			for (String parameter : this.parameters) {
+				String value = req.getParameter(parameter);
+				if (value != null && InputVerifyUtil.isNotBlank(value)) {
+					wait = Math.max(wait, this.parameterLimiter
+							.tryAcquire(parameter + ':' + value.trim().toLowerCase(Locale.ROOT)));
+				}
+			}
+		}
+
+		if (wait > 0) {
+			req.setAttribute(ATTRIBUTE_RETRY_AFTER, Long.valueOf(wait));
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public int getErrorStatusCode() {
+		return SC_TOO_MANY_REQUESTS;
+	}
+
+	/**
+	 * Sends {@link #SC_TOO_MANY_REQUESTS} with the seconds until the next request
+	 * is allowed in the {@value #HEADER_RETRY_AFTER} header
+	 */
+	@Override
+	public void sendError(@NonNull HttpServletRequest req, @NonNull HttpServletResponse resp) throws IOException {
+		Object wait = req.getAttribute(ATTRIBUTE_RETRY_AFTER);
+		long nanos = wait instanceof Long ? ((Long) wait).longValue() : 0;
+		long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanos + TimeUnit.SECONDS.toNanos(1) - 1));
+		resp.setHeader(HEADER_RETRY_AFTER, String.valueOf(seconds));
+		resp.sendError(getErrorStatusCode());
+	}
+
+	/**
+	 * Returns the number of requests, that were limited
+	 *
+	 * @return number of limited requests
+	 */
+	public long getLimitedCount() {
+		return this.addressLimiter.getLimitedCount() + this.parameterLimiter.getLimitedCount();
+	}
+
+	/**
+	 * Returns the number of tracked ip addresses and parameter values
+	 *
+	 * @return number of tracked keys
+	 */
+	public int size() {
+		return this.addressLimiter.size() + this.parameterLimiter.size();
+	}
+}
@@ -1,5 +1,7 @@
 package de.db.derPate.servlet.filter;
 
+import java.io.IOException;
+
 import javax.servlet.Filter;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -7,6 +9,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.eclipse.jdt.annotation.NonNull;
 
 import de.db.derPate.servlet.FilterServlet;
+import de.db.derPate.servlet.RequestContext;
 
 /**
  * Interface used for ServletFilters, that are used in the
@@ -21,11 +24,13 @@ public interface ServletFilter {
 	/**
 	 * Method, that returns if the filter applies.
 	 *
-	 * @param req the {@link HttpServletRequest}
+	 * @param context the {@link RequestContext} of the request (holds the session
+	 *                and the login, which should be used instead of looking them
+	 *                up again)
 	 * @return <code>true</code>, if request is valid;<code>false</code>, if request
 	 *         is missing required informations or is not valid
 	 */
-	boolean filter(@NonNull HttpServletRequest req);
+	boolean filter(@NonNull RequestContext context);
 
 	/**
 	 * Returns the default status code ({@value HttpServletResponse#SC_FORBIDDEN}},
@@ -37,4 +42,29 @@ public interface ServletFilter {
 	default int getErrorStatusCode() {
 		return HttpServletResponse.SC_FORBIDDEN;
 	}
+
+	/**
+	 * Responds to a request, that the filter forbids. By default, sends the
+	 * {@link #getErrorStatusCode()}.<br>
+	 * Can be overwritten (e.g. to add headers).
+	 *
+	 * @param req  the {@link HttpServletRequest}
+	 * @param resp the {@link HttpServletResponse}
+	 * @throws IOException if an input or output exception occurs, while sending
+	 *                     error
+	 */
+	default void sendError(@NonNull HttpServletRequest req, @NonNull HttpServletResponse resp) throws IOException {
+		resp.sendError(getErrorStatusCode());
+	}
+
+	/**
+	 * Called, when all filters accepted a request, before it is handled. Does
+	 * nothing by default.<br>
+	 * Can be overwritten (e.g. to add headers).
+	 *
+	 * @param context the {@link RequestContext} of the request
+	 */
+	default void onAccepted(@NonNull RequestContext context) {
+		// nothing to do
+	}
 }
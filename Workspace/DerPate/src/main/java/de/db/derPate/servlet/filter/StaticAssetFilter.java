@@ -0,0 +1,157 @@
+package de.db.derPate.servlet.filter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.db.derPate.Constants;
+import de.db.derPate.util.AssetCompressor;
+import de.db.derPate.util.CompressionUtil;
+
+/**
+ * This filter serves static assets (e.g. bootstrap): if the client accepts
+ * gzip and the build created a compressed variant of the requested file (see
+ * {@link AssetCompressor}), the variant is sent as it is, instead of
+ * compressing the file on every request.<br>
+ * Assets requested with the current {@link Constants.Cache#ASSET_VERSION}
+ * (parameter {@value #PARAM_VERSION}) are cached by the client for
+ * {@link Constants.Cache#ASSET_MAX_AGE_SECONDS} and never revalidated, as a new
+ * build changes their urls. Other requests (including requests of missing
+ * assets) have to be revalidated.<br>
+ * USAGE: JSP/SERVLET via WEB.XML (mapped to the directory of the assets)
+ *
+ * @author MichelBlank
+ */
+public class StaticAssetFilter implements Filter {
+	/**
+	 * Http parameter containing the version of the asset
+	 */
+	public static final String PARAM_VERSION = "v"; //$NON-NLS-1$
+	private static final String HEADER_CACHE_CONTROL = "Cache-Control"; //$NON-NLS-1$
+	/**
+	 * Cache-Control of assets of the current version
+	 */
+	private static final String CACHE_CONTROL_IMMUTABLE = "public, max-age=" + Constants.Cache.ASSET_MAX_AGE_SECONDS //$NON-NLS-1$
+			+ ", immutable"; //$NON-NLS-1$
+	/**
+	 * Cache-Control of assets without version
+	 */
+	private static final String CACHE_CONTROL_REVALIDATE = "no-cache"; //$NON-NLS-1$
+	private static final int BUFFER_SIZE = 8192;
+
+	@Nullable
+	private ServletContext servletContext;
+
+	@Override
+	public void doFilter(@Nullable ServletRequest request, @Nullable ServletResponse response,
+			@Nullable FilterChain chain) throws IOException, ServletException {
+		if (request != null && response != null && chain != null) {
+			ServletContext context = this.servletContext;
+			if (context != null && request instanceof HttpServletRequest
+					&& response instanceof HttpServletResponse) {
+				HttpServletRequest req = (HttpServletRequest) request;
+				HttpServletResponse resp = (HttpServletResponse) response;
+				boolean current = Constants.Cache.ASSET_VERSION.equals(req.getParameter(PARAM_VERSION));
+				String method = req.getMethod();
+				String path = getPath(req);
+
+				if ("GET".equals(method) && CompressionUtil //$NON-NLS-1$
+						.acceptsGzip(req.getHeader(CompressionFilter.HEADER_ACCEPT_ENCODING))) {
+					URL variant = path.endsWith(CompressionUtil.GZIP_EXTENSION) ? null
+							: context.getResource(path + CompressionUtil.GZIP_EXTENSION);
+					if (variant != null) {
+						resp.setHeader(HEADER_CACHE_CONTROL,
+								current ? CACHE_CONTROL_IMMUTABLE : CACHE_CONTROL_REVALIDATE);
+						sendVariant(req, resp, variant, context.getMimeType(path));
+						return;
+					}
+				}
+
+				// only an existing asset is served, errors (e.g. 404) must not be cached
+				boolean served = ("GET".equals(method) || "HEAD".equals(method)) //$NON-NLS-1$ //$NON-NLS-2$
+						&& !path.endsWith("/") && context.getResource(path) != null; //$NON-NLS-1$
+				resp.setHeader(HEADER_CACHE_CONTROL,
+						current && served ? CACHE_CONTROL_IMMUTABLE : CACHE_CONTROL_REVALIDATE);
+			}
+			chain.doFilter(request, response);
+		}
+	}
+
+	/**
+	 * Returns the path of the requested asset inside of the web application
+	 *
+	 * @param req the {@link HttpServletRequest}
+	 * @return path (starting with "/")
+	 */
+	@NonNull
+	private static String getPath(@NonNull HttpServletRequest req) {
+		String pathInfo = req.getPathInfo();
+		return req.getServletPath() + (pathInfo != null ? pathInfo : ""); //$NON-NLS-1$
+	}
+
+	/**
+	 * Sends the compressed variant of an asset (or
+	 * {@value HttpServletResponse#SC_NOT_MODIFIED}, if the client has it already)
+	 *
+	 * @param req         the {@link HttpServletRequest}
+	 * @param resp        the {@link HttpServletResponse}
+	 * @param variant     the compressed variant
+	 * @param contentType the content type of the asset
+	 * @throws IOException if the variant can't be read or sent
+	 */
+	private static void sendVariant(@NonNull HttpServletRequest req, @NonNull HttpServletResponse resp,
+			@NonNull URL variant, @Nullable String contentType) throws IOException {
+		URLConnection connection = variant.openConnection();
+		long lastModified = connection.getLastModified() / 1000 * 1000; // http dates have seconds only
+		if (lastModified > 0) {
+			resp.setDateHeader("Last-Modified", lastModified); //$NON-NLS-1$
+			long ifModifiedSince = req.getDateHeader("If-Modified-Since"); //$NON-NLS-1$
+			if (ifModifiedSince >= lastModified) {
+				connection.getInputStream().close(); // releases the connection (e.g. of a jar)
+				resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+				return;
+			}
+		}
+		if (contentType != null) {
+			resp.setContentType(contentType);
+		}
+		resp.setHeader(CompressionFilter.HEADER_CONTENT_ENCODING, CompressionUtil.GZIP);
+		long length = connection.getContentLengthLong();
+		if (length >= 0) {
+			resp.setContentLengthLong(length);
+		}
+		try (InputStream in = connection.getInputStream()) {
+			OutputStream out = resp.getOutputStream();
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				out.write(buffer, 0, read);
+			}
+		}
+	}
+
+	@Override
+	public void init(FilterConfig filterConfig) throws ServletException {
+		this.servletContext = filterConfig.getServletContext();
+	}
+
+	@Override
+	public void destroy() {
+		// nothing to destroy
+	}
+}
@@ -0,0 +1,76 @@
+package de.db.derPate.servlet.filter;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.db.derPate.persistence.UnitOfWork;
+
+/**
+ * This filter wraps every request into a {@link UnitOfWork}, so all database
+ * accesses of the request share one session, transaction and connection.<br>
+ * GET, HEAD and OPTIONS requests use a read only unit of work. If the request
+ * fails with an exception, the transaction is rolled back. Writes should be
+ * committed by {@link UnitOfWork#complete()} before the response is written
+ * (see {@link de.db.derPate.servlet.BaseServlet}); if the commit at the end
+ * fails, an error is sent, as long as the response wasn't committed.<br>
+ * USAGE: JSP/SERVLET via WEB.XML (has to be mapped before all other filters)
+ *
+ * @author MichelBlank
+ */
+public class UnitOfWorkFilter implements Filter {
+
+	@Override
+	public void doFilter(@Nullable ServletRequest request, @Nullable ServletResponse response,
+			@Nullable FilterChain chain) throws IOException, ServletException {
+		if (request != null && response != null && chain != null) {
+			UnitOfWork unitOfWork = UnitOfWork.begin(isReadOnly(request));
+			boolean committed;
+			try {
+				chain.doFilter(request, response);
+			} catch (IOException | ServletException | RuntimeException e) {
+				unitOfWork.setRollbackOnly();
+				throw e;
+			} finally {
+				committed = unitOfWork.end();
+			}
+			if (!committed && !response.isCommitted() && response instanceof HttpServletResponse) {
+				response.reset();
+				((HttpServletResponse) response).sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+			}
+		}
+	}
+
+	/**
+	 * Checks, if the request only reads data
+	 *
+	 * @param request {@link ServletRequest}
+	 * @return <code>true</code>, if the http method is GET, HEAD or OPTIONS
+	 */
+	private static boolean isReadOnly(ServletRequest request) {
+		if (!(request instanceof HttpServletRequest)) {
+			return false;
+		}
+		String method = ((HttpServletRequest) request).getMethod();
+		return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	@Override
+	public void init(FilterConfig filterConfig) throws ServletException {
+		// nothing to initialize
+	}
+
+	@Override
+	public void destroy() {
+		// nothing to destroy
+	}
+}
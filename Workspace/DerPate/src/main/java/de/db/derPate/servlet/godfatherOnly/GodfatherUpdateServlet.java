@@ -1,6 +1,7 @@
 package de.db.derPate.servlet.godfatherOnly;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.HashMap;
 import java.util.Map.Entry;
@@ -8,23 +9,26 @@ import java.util.Map.Entry;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 
 import org.apache.http.entity.ContentType;
 import org.eclipse.jdt.annotation.NonNull;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 
 import de.db.derPate.CSRFForm;
 import de.db.derPate.Constants;
 import de.db.derPate.Usermode;
 import de.db.derPate.manager.LoginManager;
+import de.db.derPate.manager.SessionPrincipal;
 import de.db.derPate.model.Godfather;
 import de.db.derPate.model.Location;
+import de.db.derPate.persistence.GodfatherAvailabilityIndex;
+import de.db.derPate.persistence.GodfatherResultCache;
 import de.db.derPate.persistence.GodfatherDao;
 import de.db.derPate.persistence.LocationDao;
+import de.db.derPate.persistence.UnitOfWork;
 import de.db.derPate.servlet.FilterServlet;
+import de.db.derPate.servlet.RequestContext;
 import de.db.derPate.servlet.filter.CSRFServletFilter;
 import de.db.derPate.servlet.filter.LoginServletFilter;
 import de.db.derPate.util.CSRFPreventionUtil;
@@ -99,7 +103,9 @@ public class GodfatherUpdateServlet extends FilterServlet {
 	 * names that were changed
 	 */
 	@Override
-	protected void onPost(@NonNull HttpServletRequest req, @NonNull HttpServletResponse resp) throws IOException {
+	protected void onPost(@NonNull RequestContext context) throws IOException {
+		HttpServletRequest req = context.getRequest();
+		HttpServletResponse resp = context.getResponse();
 		// retrieve and parse data
 		String email = req.getParameter(PARAMETER_EMAIL);
 		String locationId = req.getParameter(PARAMETER_LOCATION);
@@ -110,8 +116,7 @@ public class GodfatherUpdateServlet extends FilterServlet {
 		HashMap<String, SimpleEntry<String, Boolean>> jsonOutput = new HashMap<>(); // key: input name, value: new
 																					// value, boolean (success or error)
 
-		HttpSession session = req.getSession();
-		Godfather loggedInUser = LoginManager.getInstance().getUserBySession(session);
+		SessionPrincipal loggedInUser = context.getPrincipal();
 		if (loggedInUser == null) {
 			resp.sendError(SC_ERROR);
 			return;
@@ -133,14 +138,17 @@ public class GodfatherUpdateServlet extends FilterServlet {
 		checkPickText(pickText, godfatherToUpdate, jsonOutput);
 
 		// Update database
-		boolean dbUpdateSuccess = GodfatherDao.getInstance().update(godfatherToUpdate); // update database
+		boolean dbUpdateSuccess = GodfatherDao.getInstance().update(godfatherToUpdate) // update database
+				&& UnitOfWork.complete(); // commit, before the changes are used
 
 		if (dbUpdateSuccess) {
-			LoginManager.getInstance().update(session, godfatherToUpdate); // update session
+			LoginManager.getInstance().update(req, resp, godfatherToUpdate); // update login
+			GodfatherAvailabilityIndex.getInstance().update(godfatherToUpdate); // update filter index
+			GodfatherResultCache.getInstance().invalidate(godfatherToUpdate); // remove affected pages
 
 			resp.setStatus(SC_SUCCESS);
 			resp.setContentType(ContentType.APPLICATION_JSON.getMimeType());
-			resp.getWriter().print(toJson(jsonOutput));
+			writeJson(resp.getWriter(), jsonOutput);
 		} else {
 			resp.sendError(SC_ERROR);
 		}
@@ -148,18 +156,32 @@ public class GodfatherUpdateServlet extends FilterServlet {
 		return;
 	}
 
-	private static String toJson(@NonNull HashMap<String, SimpleEntry<String, Boolean>> map) {
-		JsonObject obj = new JsonObject();
+	/**
+	 * Writes the changed input fields as json object directly to the given
+	 * {@link Writer}: the name of the field with its (new) value and if it was
+	 * valid.<br>
+	 * Like {@link com.google.gson.Gson#toJson(com.google.gson.JsonElement)},
+	 * <code>null</code> values are left out and html characters are escaped.
+	 *
+	 * @param out the {@link Writer} of the response
+	 * @param map key: input name, value: new value and its validity
+	 * @throws IOException if an input or output exception occurs
+	 */
+	private static void writeJson(@NonNull Writer out, @NonNull HashMap<String, SimpleEntry<String, Boolean>> map)
+			throws IOException {
+		JsonWriter writer = new JsonWriter(out);
+		writer.setSerializeNulls(false);
+		writer.setHtmlSafe(true);
 
+		writer.beginObject();
 		for (Entry<String, SimpleEntry<String, Boolean>> entry : map.entrySet()) {
-			JsonObject value = new JsonObject();
-			value.addProperty(JSON_OUTPUT_VALUE, entry.getValue().getKey());
-			value.addProperty(JSON_OUTPUT_VALID, entry.getValue().getValue());
-
-			obj.add(entry.getKey(), value);
+			writer.name(entry.getKey()).beginObject();
+			writer.name(JSON_OUTPUT_VALUE).value(entry.getValue().getKey());
+			writer.name(JSON_OUTPUT_VALID).value(entry.getValue().getValue());
+			writer.endObject();
 		}
-
-		return new Gson().toJson(obj);
+		writer.endObject();
+		writer.flush();
 	}
 
 	private static void checkEmail(String email, Godfather outGodfather,
@@ -9,12 +9,15 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.http.entity.ContentType;
 import org.eclipse.jdt.annotation.NonNull;
 
+import de.db.derPate.Constants;
 import de.db.derPate.Usermode;
 import de.db.derPate.model.Godfather;
+import de.db.derPate.persistence.GodfatherAvailabilityIndex;
 import de.db.derPate.persistence.GodfatherDao;
+import de.db.derPate.servlet.ConditionalGet;
 import de.db.derPate.servlet.FilterServlet;
+import de.db.derPate.servlet.RequestContext;
 import de.db.derPate.servlet.filter.LoginServletFilter;
-import de.db.derPate.util.InputVerifyUtil;
 import de.db.derPate.util.URIParameterEncryptionUtil;
 
 /**
@@ -27,6 +30,7 @@ import de.db.derPate.util.URIParameterEncryptionUtil;
  *
  */
 @WebServlet("/godfatherImage")
+@ConditionalGet(parameters = GodfatherImageServlet.PARAMETER_ID)
 public class GodfatherImageServlet extends FilterServlet {
 	/**
 	 * Default serial version UID
@@ -45,13 +49,32 @@ public class GodfatherImageServlet extends FilterServlet {
 		super(new LoginServletFilter(Usermode.TRAINEE));
 	}
 
+	/**
+	 * Returns the version of the requested godfather in the
+	 * {@link GodfatherAvailabilityIndex} (see
+	 * {@link GodfatherAvailabilityIndex#getVersion(int)}), which changes with
+	 * every update of the godfather (and so with a new image), but not with
+	 * selections or changes of other godfathers
+	 */
+	@Override
+	protected long getDataVersion(@NonNull RequestContext context) {
+		if (!Constants.Godfather.IN_MEMORY_INDEX) {
+			return -1;
+		}
+		String encryptedId = context.getRequest().getParameter(PARAMETER_ID);
+		Integer id = encryptedId != null ? URIParameterEncryptionUtil.decryptToInteger(encryptedId) : null;
+		return id != null ? GodfatherAvailabilityIndex.getInstance().getVersion(id.intValue()) : -1;
+	}
+
 	@Override
-	protected void onGet(@NonNull HttpServletRequest req, @NonNull HttpServletResponse resp) throws IOException {
+	protected void onGet(@NonNull RequestContext context) throws IOException {
+		HttpServletRequest req = context.getRequest();
+		HttpServletResponse resp = context.getResponse();
 		String encryptedUserid = req.getParameter(PARAMETER_ID);
 		if (encryptedUserid != null) {
-			String decryptedUserid = URIParameterEncryptionUtil.decrypt(encryptedUserid);
-			if (decryptedUserid != null && InputVerifyUtil.isInteger(decryptedUserid)) {
-				int userid = Integer.parseInt(decryptedUserid);
+			Integer decryptedUserid = URIParameterEncryptionUtil.decryptToInteger(encryptedUserid);
+			if (decryptedUserid != null) {
+				int userid = decryptedUserid.intValue();
 				Godfather godfather = GodfatherDao.getInstance().byId(userid);
 				if (godfather != null) {
 					// valid user -> try to find image on file system
@@ -68,7 +91,7 @@ public class GodfatherImageServlet extends FilterServlet {
 	}
 
 	@Override
-	protected void onPost(@NonNull HttpServletRequest req, @NonNull HttpServletResponse resp) throws IOException {
-		super.onPost(req, resp);
+	protected void onPost(@NonNull RequestContext context) throws IOException {
+		super.onPost(context);
 	}
 }
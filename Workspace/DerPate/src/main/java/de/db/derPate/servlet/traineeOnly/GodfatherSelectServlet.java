@@ -5,21 +5,22 @@ import java.io.IOException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 
 import org.eclipse.jdt.annotation.NonNull;
 
 import de.db.derPate.CSRFForm;
 import de.db.derPate.Usermode;
 import de.db.derPate.manager.LoginManager;
-import de.db.derPate.model.Godfather;
 import de.db.derPate.model.Trainee;
-import de.db.derPate.persistence.GodfatherDao;
+import de.db.derPate.persistence.GodfatherAvailabilityIndex;
+import de.db.derPate.persistence.GodfatherResultCache;
+import de.db.derPate.persistence.GodfatherSelection;
 import de.db.derPate.persistence.TraineeDao;
+import de.db.derPate.persistence.UnitOfWork;
 import de.db.derPate.servlet.FilterServlet;
+import de.db.derPate.servlet.RequestContext;
 import de.db.derPate.servlet.filter.CSRFServletFilter;
 import de.db.derPate.servlet.filter.LoginServletFilter;
-import de.db.derPate.util.InputVerifyUtil;
 import de.db.derPate.util.URIParameterEncryptionUtil;
 
 /**
@@ -47,6 +48,24 @@ public class GodfatherSelectServlet extends FilterServlet {
 	 * godfather
 	 */
 	public static final int SC_SET_GODFATHER_ERROR = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+	/**
+	 * This status code is used, when the godfather has no free trainee slot left
+	 * (e.g. another trainee selected him at the same time)
+	 */
+	public static final int SC_SET_GODFATHER_UNAVAILABLE = HttpServletResponse.SC_CONFLICT;
+	/**
+	 * This message is send with {@link #SC_SET_GODFATHER_UNAVAILABLE}
+	 */
+	public static final String MSG_SET_GODFATHER_UNAVAILABLE = "Godfather not available"; //$NON-NLS-1$
+	/**
+	 * This status code is used, when the trainee already has a godfather (e.g.
+	 * selected in another tab at the same time)
+	 */
+	public static final int SC_SET_GODFATHER_ALREADY_ASSIGNED = HttpServletResponse.SC_CONFLICT;
+	/**
+	 * This message is send with {@link #SC_SET_GODFATHER_ALREADY_ASSIGNED}
+	 */
+	public static final String MSG_SET_GODFATHER_ALREADY_ASSIGNED = "Trainee already has a godfather"; //$NON-NLS-1$
 	/**
 	 * This status code is send, when an invalid request was send.
 	 */
@@ -60,36 +79,46 @@ public class GodfatherSelectServlet extends FilterServlet {
 	}
 
 	@Override
-	protected void onPost(@NonNull HttpServletRequest req, @NonNull HttpServletResponse resp) throws IOException {
+	protected void onPost(@NonNull RequestContext context) throws IOException {
+		HttpServletRequest req = context.getRequest();
+		HttpServletResponse resp = context.getResponse();
 		// pick a godfather
 		String encryptedId = req.getParameter(PARAM_GODFAHTER_ID);
-		HttpSession session = req.getSession();
-		if (encryptedId != null && session != null) {
-			String decryptedId = URIParameterEncryptionUtil.decrypt(encryptedId);
-			if (decryptedId != null && InputVerifyUtil.isInteger(decryptedId)) {
+		if (encryptedId != null) {
+			Integer decryptedId = URIParameterEncryptionUtil.decryptToInteger(encryptedId);
+			if (decryptedId != null) {
 				// submitted id is a valid integer
-				int id = Integer.parseInt(decryptedId);
-				Trainee loggedInTrainee = LoginManager.getInstance().getUserBySession(session);
-				Godfather wantedGodfather = GodfatherDao.getInstance().byId(id);
-
-				if (loggedInTrainee != null && wantedGodfather != null
-						&& wantedGodfather.getMaxTrainees() > wantedGodfather.getCurrentNumberTrainees()) {
-					// Trainee hasn't selected godfather and godfather is available
-					Trainee trainee = TraineeDao.getInstance().byId(loggedInTrainee.getId()); // get full object out of
-																								// database (with
-																								// password)
-					if (trainee != null && trainee.getGodfather() == null) {
-						trainee.setGodfather(wantedGodfather);
-						boolean success = TraineeDao.getInstance().update(trainee); // database update
-						if (!success) {
-							// error writing to database
-							resp.setStatus(SC_SET_GODFATHER_ERROR);
+				int id = decryptedId.intValue();
+				Trainee loggedInTrainee = context.getUser();
+				if (loggedInTrainee != null) {
+					GodfatherSelection selection = TraineeDao.getInstance().selectGodfather(loggedInTrainee.getId(), id);
+					switch (selection) {
+					case SUCCESS:
+						if (!UnitOfWork.complete()) {
+							// error committing to database
+							resp.sendError(SC_SET_GODFATHER_ERROR);
 							return;
 						}
 						// successfully wrote to database
-						LoginManager.getInstance().update(session, trainee); // update session
+						GodfatherAvailabilityIndex.getInstance().changeCurrentTrainees(id, 1);
+						GodfatherResultCache.getInstance().invalidateCurrentTrainees(id,
+								GodfatherAvailabilityIndex.getInstance().get(id)); // may be full or on a later page now
+						LoginManager.getInstance().update(req, resp, loggedInTrainee); // update login
 						resp.setStatus(SC_SET_GODFATHER_SUCCESS);
 						return;
+					case FULL:
+						// godfather isn't available (anymore)
+						resp.sendError(SC_SET_GODFATHER_UNAVAILABLE, MSG_SET_GODFATHER_UNAVAILABLE);
+						return;
+					case ALREADY_ASSIGNED:
+						// trainee has a godfather already
+						resp.sendError(SC_SET_GODFATHER_ALREADY_ASSIGNED, MSG_SET_GODFATHER_ALREADY_ASSIGNED);
+						return;
+					case ERROR:
+					default:
+						// error writing to database
+						resp.sendError(SC_SET_GODFATHER_ERROR);
+						return;
 					}
 				}
 			}
@@ -98,7 +127,7 @@ public class GodfatherSelectServlet extends FilterServlet {
 	}
 
 	@Override
-	protected void onGet(@NonNull HttpServletRequest req, @NonNull HttpServletResponse resp) throws IOException {
-		super.onGet(req, resp);
+	protected void onGet(@NonNull RequestContext context) throws IOException {
+		super.onGet(context);
 	}
 }
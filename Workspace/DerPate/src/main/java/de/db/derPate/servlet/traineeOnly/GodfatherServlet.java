@@ -1,7 +1,11 @@
 package de.db.derPate.servlet.traineeOnly;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.sql.Date;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.logging.Level;
 
@@ -15,32 +19,54 @@ import org.eclipse.jdt.annotation.Nullable;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 
+import de.db.derPate.Constants;
 import de.db.derPate.Usermode;
 import de.db.derPate.manager.LoggingManager;
-import de.db.derPate.manager.LoginManager;
 import de.db.derPate.model.Godfather;
+import de.db.derPate.model.GodfatherListEntry;
 import de.db.derPate.model.HasName;
 import de.db.derPate.model.Job;
 import de.db.derPate.model.Trainee;
 import de.db.derPate.model.typeAdapter.DateTypeAdapter;
+import de.db.derPate.persistence.GodfatherAvailabilityIndex;
 import de.db.derPate.persistence.GodfatherDao;
+import de.db.derPate.persistence.GodfatherCursor;
+import de.db.derPate.persistence.GodfatherFilter;
+import de.db.derPate.persistence.GodfatherFragmentStore;
+import de.db.derPate.persistence.GodfatherPage;
+import de.db.derPate.persistence.GodfatherResultCache;
+import de.db.derPate.persistence.GodfatherResultCache.Page;
+import de.db.derPate.persistence.GodfatherSort;
+import de.db.derPate.servlet.ConditionalGet;
 import de.db.derPate.servlet.FilterServlet;
+import de.db.derPate.servlet.RequestContext;
 import de.db.derPate.servlet.filter.LoginServletFilter;
 import de.db.derPate.util.DateUtil;
+import de.db.derPate.util.NumberUtil;
 import de.db.derPate.util.URIParameterEncryptionUtil;
 
 /**
  * This servlet is only available for Trainees and is used to filter available
  * godfathers or - if the trainee already selected a godfahter - get information
- * of their selected godfather.
+ * of their selected godfather.<br>
+ * Available godfathers are listed page by page: the response contains the
+ * cursor of the next page, that has to be sent as {@link #PARAM_CURSOR} to
+ * continue the list.<br>
+ * If the godfathers are filtered by the {@link GodfatherAvailabilityIndex},
+ * unchanged responses are answered with an entity tag only (see
+ * {@link ConditionalGet}).
  *
  * @author MichelBlank
  *
  */
 @WebServlet("/godfather")
+@ConditionalGet(parameters = { GodfatherServlet.FILTER_PARAM_LOCATION, GodfatherServlet.FILTER_PARAM_JOB,
+		GodfatherServlet.FILTER_PARAM_TEACHING_TYPE, GodfatherServlet.FILTER_PARAM_EDUCATIONAL_YEAR,
+		GodfatherServlet.FILTER_PARAM_MIN_AGE, GodfatherServlet.FILTER_PARAM_MAX_AGE,
+		GodfatherServlet.FILTER_PARAM_MIN_EDUCATIONAL_YEAR, GodfatherServlet.FILTER_PARAM_MAX_EDUCATIONAL_YEAR,
+		GodfatherServlet.PARAM_SORT, GodfatherServlet.PARAM_CURSOR, GodfatherServlet.PARAM_PAGE_SIZE }, perUser = true)
 public class GodfatherServlet extends FilterServlet {
 	/**
 	 * Default Serial Version UID
@@ -62,6 +88,47 @@ public class GodfatherServlet extends FilterServlet {
 	 * Http parameter used to specify the year (e.g. 2), the Godfather is hired
 	 */
 	public static final String FILTER_PARAM_EDUCATIONAL_YEAR = "eduYear"; //$NON-NLS-1$
+	/**
+	 * Http parameter used to specify the minimum age of the godfather
+	 */
+	public static final String FILTER_PARAM_MIN_AGE = "minAge"; //$NON-NLS-1$
+	/**
+	 * Http parameter used to specify the maximum age of the godfather
+	 */
+	public static final String FILTER_PARAM_MAX_AGE = "maxAge"; //$NON-NLS-1$
+	/**
+	 * Http parameter used to specify the minimum educational year of the godfather
+	 */
+	public static final String FILTER_PARAM_MIN_EDUCATIONAL_YEAR = "minEduYear"; //$NON-NLS-1$
+	/**
+	 * Http parameter used to specify the maximum educational year of the godfather
+	 */
+	public static final String FILTER_PARAM_MAX_EDUCATIONAL_YEAR = "maxEduYear"; //$NON-NLS-1$
+	/**
+	 * Http parameter used to specify the order of the godfathers (see
+	 * {@link GodfatherSort#getParameterValue()})
+	 */
+	public static final String PARAM_SORT = "sort"; //$NON-NLS-1$
+	/**
+	 * Http parameter used to continue the list (value of {@link #JSON_OUTPUT_NEXT}
+	 * of the previous page)
+	 */
+	public static final String PARAM_CURSOR = "cursor"; //$NON-NLS-1$
+	/**
+	 * Http parameter used to specify the number of godfathers per page (at most
+	 * {@link Constants.Godfather#MAX_PAGE_SIZE})
+	 */
+	public static final String PARAM_PAGE_SIZE = "pageSize"; //$NON-NLS-1$
+
+	/**
+	 * Json element name for the godfathers of the current page
+	 */
+	public static final String JSON_OUTPUT_GODFATHERS = "godfathers"; //$NON-NLS-1$
+	/**
+	 * Json element name for the (encrypted) cursor of the next page. Missing, if
+	 * there is no next page.
+	 */
+	public static final String JSON_OUTPUT_NEXT = "next"; //$NON-NLS-1$
 
 	/**
 	 * Json element name for godfather ID (encrypted)
@@ -114,6 +181,13 @@ public class GodfatherServlet extends FilterServlet {
 	protected static Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation()
 			.registerTypeAdapter(Date.class, new DateTypeAdapter()).create();
 
+	/**
+	 * The json objects of the godfathers of the {@link GodfatherAvailabilityIndex}
+	 * in the list
+	 */
+	private static final GodfatherFragmentStore fragmentStore = new GodfatherFragmentStore(
+			GodfatherServlet::toJsonFragment);
+
 	/**
 	 * Constructor
 	 */
@@ -121,13 +195,35 @@ public class GodfatherServlet extends FilterServlet {
 		super(new LoginServletFilter(Usermode.TRAINEE));
 	}
 
+	/**
+	 * Returns the version of the {@link GodfatherAvailabilityIndex}, which changes
+	 * with every update or selection of a godfather, combined with the current day
+	 * (ages and educational years change over night). The selected godfather of
+	 * the trainee is covered by the version of the login (see
+	 * {@link ConditionalGet#perUser()}).<br>
+	 * The version is local to this instance of the application (see
+	 * {@link GodfatherAvailabilityIndex#getVersion()}), so responses of other
+	 * instances are sent again. Without the index, there is no version, so the
+	 * responses are not validated.
+	 */
+	@Override
+	protected long getDataVersion(@NonNull RequestContext context) {
+		if (!Constants.Godfather.IN_MEMORY_INDEX) {
+			return -1;
+		}
+		return (31 * GodfatherAvailabilityIndex.getInstance().getVersion() + LocalDate.now().toEpochDay())
+				& Long.MAX_VALUE;
+	}
+
 	@SuppressWarnings("null") // Suppress warning, that session or wantedEncryptedLocation,... might be null
 	@Override
-	protected void onGet(@NonNull HttpServletRequest req, @NonNull HttpServletResponse resp) throws IOException {
+	protected void onGet(@NonNull RequestContext context) throws IOException {
+		HttpServletRequest req = context.getRequest();
+		HttpServletResponse resp = context.getResponse();
 		resp.setContentType(ContentType.APPLICATION_JSON.getMimeType());
 
 		// get logged in trainee
-		Trainee trainee = LoginManager.getInstance().getUserBySession(this.session);
+		Trainee trainee = context.getUser();
 		if (trainee == null) {
 			LoggingManager.log(Level.WARNING,
 					"Trainee could call GodfatherServlet without permission, as Filter failed! Request stopped."); //$NON-NLS-1$
@@ -137,7 +233,9 @@ public class GodfatherServlet extends FilterServlet {
 		if (trainee.getGodfather() != null) {
 			// look for my godfather, as user has already selected a godfather permanently
 			Godfather godfather = trainee.getGodfather();
-			resp.getWriter().print(toJson(godfather, true).toString());
+			JsonWriter writer = new JsonWriter(resp.getWriter());
+			writeJson(writer, godfather, true);
+			writer.flush();
 			return;
 		}
 
@@ -145,91 +243,183 @@ public class GodfatherServlet extends FilterServlet {
 		// list available godfathers
 
 		// decryption
-		List<String> wantedDecrypedLocations = URIParameterEncryptionUtil
-				.decrypt(req.getParameterValues(FILTER_PARAM_LOCATION));
-		List<String> wantedDecrypedJobs = URIParameterEncryptionUtil.decrypt(req.getParameterValues(FILTER_PARAM_JOB));
-		List<String> wantedDecrypedTeachingTypes = URIParameterEncryptionUtil
-				.decrypt(req.getParameterValues(FILTER_PARAM_TEACHING_TYPE));
-		List<String> wantedDecrypedEducationalYears = URIParameterEncryptionUtil
-				.decrypt(req.getParameterValues(FILTER_PARAM_EDUCATIONAL_YEAR));
+		List<Integer> wantedLocations = URIParameterEncryptionUtil
+				.decryptToIntegers(req.getParameterValues(FILTER_PARAM_LOCATION));
+		List<Integer> wantedJobs = URIParameterEncryptionUtil.decryptToIntegers(req.getParameterValues(FILTER_PARAM_JOB));
+		List<Integer> wantedTeachingTypes = URIParameterEncryptionUtil
+				.decryptToIntegers(req.getParameterValues(FILTER_PARAM_TEACHING_TYPE));
+		List<Integer> wantedEducationalYears = URIParameterEncryptionUtil
+				.decryptToIntegers(req.getParameterValues(FILTER_PARAM_EDUCATIONAL_YEAR));
 
-		List<Godfather> all = GodfatherDao.getInstance().filterAvailable(wantedDecrypedLocations, wantedDecrypedJobs,
-				wantedDecrypedTeachingTypes, wantedDecrypedEducationalYears);
+		GodfatherFilter filter = new GodfatherFilter(wantedLocations, wantedJobs, wantedTeachingTypes,
+				wantedEducationalYears,
+				NumberUtil.parseInteger(req.getParameter(FILTER_PARAM_MIN_AGE)),
+				NumberUtil.parseInteger(req.getParameter(FILTER_PARAM_MAX_AGE)),
+				NumberUtil.parseInteger(req.getParameter(FILTER_PARAM_MIN_EDUCATIONAL_YEAR)),
+				NumberUtil.parseInteger(req.getParameter(FILTER_PARAM_MAX_EDUCATIONAL_YEAR)));
 
-		resp.getWriter().print(toJson(all, false).toString());
+		GodfatherSort sort = GodfatherSort.byParameterValue(req.getParameter(PARAM_SORT));
+		String cursorToken = req.getParameter(PARAM_CURSOR);
+		GodfatherCursor cursor = GodfatherCursor.decrypt(cursorToken);
+		if (cursorToken != null && (cursor == null || cursor.getSort() != sort)) {
+			resp.sendError(HttpServletResponse.SC_BAD_REQUEST);
+			return;
+		}
+		int pageSize = getPageSize(req.getParameter(PARAM_PAGE_SIZE));
+
+		// many trainees use the same filters -> the serialized page is cached
+		byte[] content = GodfatherResultCache.getInstance().get(filter, sort, cursor, pageSize,
+				() -> loadPage(filter, sort, cursor, pageSize));
+		resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		resp.setContentLength(content.length);
+		resp.getOutputStream().write(content);
 
 		return;
 	}
 
+	/**
+	 * Loads a page of available godfathers and serializes it as json (utf-8)
+	 *
+	 * @param filter   {@link GodfatherFilter}
+	 * @param sort     {@link GodfatherSort}
+	 * @param cursor   {@link GodfatherCursor} of the previous page or
+	 *                 <code>null</code>
+	 * @param pageSize maximum number of godfathers
+	 * @return {@link Page}
+	 * @throws IOException if the page can't be serialized
+	 */
+	@NonNull
+	private static Page loadPage(@NonNull GodfatherFilter filter, @NonNull GodfatherSort sort,
+			@Nullable GodfatherCursor cursor, int pageSize) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		JsonWriter writer = new JsonWriter(new OutputStreamWriter(bytes, StandardCharsets.UTF_8));
+		writer.beginObject();
+		writer.name(JSON_OUTPUT_GODFATHERS).beginArray();
+		int[] ids;
+		GodfatherCursor next;
+		if (Constants.Godfather.IN_MEMORY_INDEX) {
+			GodfatherPage<Godfather> page = GodfatherAvailabilityIndex.getInstance().filter(filter, sort, cursor,
+					pageSize);
+			ids = page.getGodfathers().stream().mapToInt(Godfather::getId).toArray();
+			// the godfathers of the index are serialized once -> their json objects are copied as they are
+			writer.flush();
+			fragmentStore.write(bytes, page.getGodfathers());
+			next = page.getNext();
+		} else {
+			GodfatherPage<GodfatherListEntry> page = GodfatherDao.getInstance().listAvailable(filter, sort, cursor,
+					pageSize);
+			ids = page.getGodfathers().stream().mapToInt(GodfatherListEntry::getId).toArray();
+			for (GodfatherListEntry entry : page.getGodfathers()) {
+				writeJson(writer, entry);
+			}
+			next = page.getNext();
+		}
+		writer.endArray();
+		if (next != null) {
+			writer.name(JSON_OUTPUT_NEXT).value(next.encrypt());
+		}
+		writer.endObject();
+		writer.flush();
+		return new Page(bytes.toByteArray(), ids);
+	}
+
+	/**
+	 * Serializes a godfather of the list as json object (utf-8, see
+	 * {@link #writeJson(JsonWriter, Godfather, boolean)} with more set to
+	 * <code>false</code>)
+	 *
+	 * @param godfather the {@link Godfather} to write
+	 * @return json object
+	 * @throws IOException if the godfather can't be serialized
+	 */
+	static byte[] toJsonFragment(@NonNull Godfather godfather) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		JsonWriter writer = new JsonWriter(new OutputStreamWriter(bytes, StandardCharsets.UTF_8));
+		writeJson(writer, godfather, false);
+		writer.flush();
+		return bytes.toByteArray();
+	}
+
 	@Override
-	protected void onPost(@NonNull HttpServletRequest req, @NonNull HttpServletResponse resp) throws IOException {
-		super.onPost(req, resp); // unsupported method
+	protected void onPost(@NonNull RequestContext context) throws IOException {
+		super.onPost(context); // unsupported method
 	}
 
 	/**
-	 * Reads the informations of a godfather and puts them into a JsonObject.<br>
+	 * Writes the informations of a godfather as json object.<br>
 	 * The encrypted id, the first name, location name, teaching type name, job
-	 * name, educational year and description is added to the JsonObject. If
-	 * selected is <code>true</code>, the last name, eMail and picktext will be
-	 * added too.
+	 * name, educational year and description is written. If more is
+	 * <code>true</code>, the last name, eMail and picktext will be written too.
 	 *
-	 * @param godfather the {@link Godfather} to add
+	 * @param writer    the {@link JsonWriter} (e.g. of the response)
+	 * @param godfather the {@link Godfather} to write (an empty object is written,
+	 *                  if it is <code>null</code>)
 	 * @param more      if the trainee has already commited to this godfather
-	 * @return a {@link JsonObject} containing the informations
+	 * @throws IOException if an input or output exception occurs
 	 */
-	@NonNull
-	public static JsonObject toJson(@Nullable Godfather godfather, boolean more) {
-		JsonObject object = new JsonObject();
-		if (godfather == null) {
-			return object;
-		}
+	public static void writeJson(@NonNull JsonWriter writer, @Nullable Godfather godfather, boolean more)
+			throws IOException {
+		writer.beginObject();
+		if (godfather != null) {
+			writer.name(JSON_OUTPUT_ID).value(URIParameterEncryptionUtil.encrypt(godfather.getId()));
+			writer.name(JSON_OUTPUT_FIRST_NAME).value(godfather.getFirstName());
+			writer.name(JSON_OUTPUT_LOCATION_NAME).value(getNameOutOfGodfather(godfather.getLocation()));
 
-		object.addProperty(JSON_OUTPUT_ID, URIParameterEncryptionUtil.encrypt(godfather.getId()));
-		object.addProperty(JSON_OUTPUT_FIRST_NAME, godfather.getFirstName());
-		object.addProperty(JSON_OUTPUT_LOCATION_NAME, getNameOutOfGodfather(godfather.getLocation()));
-
-		Job job = godfather.getJob();
-		object.addProperty(JSON_OUTPUT_TEACHING_TYPE_NAME,
-				getNameOutOfGodfather(job != null ? job.getTeachingType() : null));
-		object.addProperty(JSON_OUTPUT_JOB_NAME, getNameOutOfGodfather(job));
-		object.addProperty(JSON_OUTPUT_EDUCATIONAL_YEAR, godfather.getEducationalYear());
-		object.addProperty(JSON_OUTPUT_AGE, DateUtil.getYearDiff(godfather.getBirthday()));
-		object.addProperty(JSON_OUTPUT_DESCRIPTION, godfather.getDescription());
-
-		if (more) {
-			// when user is selected, show more informations
-			object.addProperty(JSON_OUTPUT_LAST_NAME, godfather.getLastName());
-			object.addProperty(JSON_OUTPUT_EMAIL, godfather.getEmail());
-			object.addProperty(JSON_OUTPUT_PICKTEXT, godfather.getPickText());
-		}
+			Job job = godfather.getJob();
+			writer.name(JSON_OUTPUT_TEACHING_TYPE_NAME)
+					.value(getNameOutOfGodfather(job != null ? job.getTeachingType() : null));
+			writer.name(JSON_OUTPUT_JOB_NAME).value(getNameOutOfGodfather(job));
+			writer.name(JSON_OUTPUT_EDUCATIONAL_YEAR).value(godfather.getEducationalYear());
+			writer.name(JSON_OUTPUT_AGE).value(DateUtil.getYearDiff(godfather.getBirthday()));
+			writer.name(JSON_OUTPUT_DESCRIPTION).value(godfather.getDescription());
 
-		return object;
+			if (more) {
+				// when user is selected, show more informations
+				writer.name(JSON_OUTPUT_LAST_NAME).value(godfather.getLastName());
+				writer.name(JSON_OUTPUT_EMAIL).value(godfather.getEmail());
+				writer.name(JSON_OUTPUT_PICKTEXT).value(godfather.getPickText());
+			}
+		}
+		writer.endObject();
 	}
 
 	/**
-	 * Uses the {@link #toJson(Godfather, boolean)} method to create a
-	 * {@link JsonArray}, that may be used to create a json string of godfather
-	 * informations
+	 * Writes the informations of a {@link GodfatherListEntry} as json object.<br>
+	 * The elements are the same as of
+	 * {@link #writeJson(JsonWriter, Godfather, boolean)} with more set to
+	 * <code>false</code>.
 	 *
-	 * @param list     a {@link List} (can be null) containing non null
-	 *                 {@link Godfathers}
-	 * @param selected if more information should be shown
-	 * @return a {@link JsonArray} containg informations
+	 * @param writer the {@link JsonWriter} (e.g. of the response)
+	 * @param entry  the {@link GodfatherListEntry} to write
+	 * @throws IOException if an input or output exception occurs
 	 */
-	@NonNull
-	private static JsonArray toJson(@Nullable List<@NonNull Godfather> list, boolean more) {
-		JsonArray resultArray = new JsonArray();
-		if (list == null) {
-			return resultArray;
-		}
+	public static void writeJson(@NonNull JsonWriter writer, @NonNull GodfatherListEntry entry) throws IOException {
+		writer.beginObject();
+		writer.name(JSON_OUTPUT_ID).value(URIParameterEncryptionUtil.encrypt(entry.getId()));
+		writer.name(JSON_OUTPUT_FIRST_NAME).value(entry.getFirstName());
+		writer.name(JSON_OUTPUT_LOCATION_NAME).value(entry.getLocation());
+		writer.name(JSON_OUTPUT_TEACHING_TYPE_NAME).value(entry.getTeachingType());
+		writer.name(JSON_OUTPUT_JOB_NAME).value(entry.getJob());
+		writer.name(JSON_OUTPUT_EDUCATIONAL_YEAR).value(entry.getEducationalYear());
+		writer.name(JSON_OUTPUT_AGE).value(DateUtil.getYearDiff(entry.getBirthday()));
+		writer.name(JSON_OUTPUT_DESCRIPTION).value(entry.getDescription());
+		writer.endObject();
+	}
 
-		for (@NonNull
-		Godfather godfather : list) {
-			JsonObject object = toJson(godfather, more);
-			resultArray.add(object);
+	/**
+	 * Returns the requested page size, bounded by
+	 * {@link Constants.Godfather#MAX_PAGE_SIZE}
+	 *
+	 * @param pageSize requested page size
+	 * @return page size or {@link Constants.Godfather#PAGE_SIZE}, if not set or
+	 *         invalid
+	 */
+	private static int getPageSize(@Nullable String pageSize) {
+		Integer parsed = NumberUtil.parseInteger(pageSize);
+		if (parsed == null || parsed.intValue() <= 0) {
+			return Math.min(Constants.Godfather.PAGE_SIZE, Constants.Godfather.MAX_PAGE_SIZE);
 		}
-
-		return resultArray;
+		return Math.min(parsed.intValue(), Constants.Godfather.MAX_PAGE_SIZE);
 	}
 
 	@Nullable
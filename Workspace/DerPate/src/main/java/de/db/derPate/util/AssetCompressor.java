@@ -0,0 +1,107 @@
+package de.db.derPate.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+/**
+ * This tool creates gzip compressed variants (*.gz) of static assets, which are
+ * served by the {@link de.db.derPate.servlet.filter.StaticAssetFilter} instead
+ * of the original files. It is run by the build (see pom.xml) and writes the
+ * variants into a separate directory, that is added to the web application.<br>
+ * A variant is only created, if it is notably smaller than the original file
+ * (e.g. not for png images, which are compressed already).<br>
+ * USAGE: <code>AssetCompressor &lt;source directory&gt; &lt;target
+ * directory&gt;</code>
+ *
+ * @author MichelBlank
+ */
+public class AssetCompressor {
+	/**
+	 * Maximum size of a compressed variant relative to the original file
+	 */
+	private static final double MAX_RATIO = 0.9;
+
+	/**
+	 * Compresses the assets
+	 *
+	 * @param args source and target directory
+	 * @throws IOException if an asset can't be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			throw new IllegalArgumentException("Usage: AssetCompressor <source directory> <target directory>"); //$NON-NLS-1$
+		}
+		int compressed = compress(Paths.get(args[0]), Paths.get(args[1]));
+		System.out.println("Compressed " + compressed + " assets of " + args[0]); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Creates the compressed variants of all files of the source directory
+	 * (including sub directories), that get notably smaller. The variants are
+	 * written to the same relative path in the target directory. Variants, that
+	 * are newer than their original file, are kept.
+	 *
+	 * @param source source directory
+	 * @param target target directory
+	 * @return number of compressed variants
+	 * @throws IOException if an asset can't be read or written
+	 */
+	public static int compress(@NonNull Path source, @NonNull Path target) throws IOException {
+		List<Path> files;
+		try (Stream<Path> stream = Files.walk(source)) {
+			files = stream.filter(Files::isRegularFile)
+					.filter(file -> !file.toString().endsWith(CompressionUtil.GZIP_EXTENSION))
+					.collect(Collectors.toList());
+		}
+		int compressed = 0;
+		for (Path file : files) {
+			Path variant = target.resolve(source.relativize(file).toString() + CompressionUtil.GZIP_EXTENSION);
+			if (Files.exists(variant)
+					&& Files.getLastModifiedTime(variant).compareTo(Files.getLastModifiedTime(file)) >= 0) {
+				compressed++;
+				continue;
+			}
+			byte[] content = Files.readAllBytes(file);
+			byte[] gzip = gzip(content);
+			if (gzip.length <= content.length * MAX_RATIO) {
+				Files.createDirectories(variant.getParent());
+				Files.write(variant, gzip);
+				compressed++;
+			} else {
+				Files.deleteIfExists(variant);
+			}
+		}
+		return compressed;
+	}
+
+	/**
+	 * Compresses the content with the best compression (it is done once by the
+	 * build only)
+	 *
+	 * @param content content
+	 * @return compressed content
+	 * @throws IOException if the compression fails
+	 */
+	static byte[] gzip(byte[] content) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 2 + 64);
+		try (OutputStream out = new GZIPOutputStream(bytes) {
+			{
+				this.def.setLevel(Deflater.BEST_COMPRESSION);
+			}
+		}) {
+			out.write(content);
+		}
+		return bytes.toByteArray();
+	}
+}
@@ -1,10 +1,12 @@
 package de.db.derPate.util;
 
+import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Map;
 import java.util.Random;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
@@ -12,12 +14,21 @@ import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 
 import de.db.derPate.CSRFForm;
+import de.db.derPate.Constants;
+import de.db.derPate.manager.LoginManager;
 
 /**
  * This util should be used to prevent cross-site request forgery. It creates
  * random tokens, which can be used in hidden fields in a form. The backend then
  * checks if the token is valid. That way it is safe to say, that the user
- * filled out the form and did not just used the backend interface.
+ * filled out the form and did not just used the backend interface.<br>
+ * Tokens of {@link CSRFForm#isSigned() signed} forms are not stored in the
+ * session, but signed with the session id (see {@link CSRFTokenSigner}). The
+ * methods taking a {@link HttpServletRequest} sign them with the id returned by
+ * {@link LoginManager#getCsrfBindingId(HttpServletRequest)} instead, so they
+ * don't need a session, if {@link Constants.Login#STATELESS} is enabled.
+ * Single-use signed tokens are remembered in a {@link ReplayWindow} after their
+ * use.
  *
  * @author MichelBlank
  */
@@ -44,6 +55,10 @@ public class CSRFPreventionUtil {
 	 * attributes
 	 */
 	public static final String SESSION_ATTRIBUTE_PREFIX = "csrfTokenList_"; //$NON-NLS-1$
+	/**
+	 * Source of random tokens (shared, as {@link SecureRandom} is thread-safe)
+	 */
+	private static final Random RANDOM = new SecureRandom();
 
 	/**
 	 * This method generates a token and registers it in the user's
@@ -57,6 +72,10 @@ public class CSRFPreventionUtil {
 	@SuppressWarnings("null")
 	@NonNull
 	public static String generateToken(@Nullable final HttpSession session, @NonNull final CSRFForm form) {
+		if (form.isSigned()) {
+			return generateSignedToken(session != null ? session.getId() : "", form); //$NON-NLS-1$
+		}
+
 		ArrayList<@NonNull String> list;
 		if (session != null) {
 			list = getFormTokens(session, form);
@@ -85,6 +104,55 @@ public class CSRFPreventionUtil {
 		return randomToken;
 	}
 
+	/**
+	 * This method generates a token for the client. Tokens of signed forms are
+	 * bound to {@link LoginManager#getCsrfBindingId(HttpServletRequest)} (which is
+	 * created, if necessary), other tokens are registered in the client's
+	 * {@link HttpSession} (which is created, if necessary).
+	 *
+	 * @param request  the {@link HttpServletRequest}
+	 * @param response the {@link HttpServletResponse} (used to create the binding
+	 *                 id)
+	 * @param form     {@link CSRFForm} used to limit token to this specific form
+	 * @return random string
+	 */
+	@NonNull
+	public static String generateToken(@NonNull final HttpServletRequest request,
+			@NonNull final HttpServletResponse response, @NonNull final CSRFForm form) {
+		if (form.isSigned()) {
+			return generateSignedToken(LoginManager.getInstance().getCsrfBindingId(request, response), form);
+		}
+		return generateToken(request.getSession(), form);
+	}
+
+	/**
+	 * Automatically escapes characters for use as a uri paramter.
+	 *
+	 * @param request  the {@link HttpServletRequest}
+	 * @param response the {@link HttpServletResponse}
+	 * @param form     {@link CSRFForm} used to limit token to this specific form
+	 * @return random string
+	 * @see #generateToken(HttpServletRequest, HttpServletResponse, CSRFForm)
+	 */
+	public static String generateTokenForGETParameter(@NonNull final HttpServletRequest request,
+			@NonNull final HttpServletResponse response, @NonNull final CSRFForm form) {
+		return StringEscapeUtil.encodeURL(generateToken(request, response, form));
+	}
+
+	/**
+	 * Creates a signed token
+	 *
+	 * @param bindingId id, the token is bound to
+	 * @param form      {@link CSRFForm}
+	 * @return signed token
+	 */
+	@NonNull
+	private static String generateSignedToken(@NonNull final String bindingId, @NonNull final CSRFForm form) {
+		int maxAge = form.isRequestBased() ? Constants.Security.CSRF_SIGNED_REQUEST_MAX_AGE_SECONDS
+				: Constants.Security.CSRF_SIGNED_MAX_AGE_SECONDS;
+		return Signing.SIGNER.sign(bindingId, form.toString(), maxAge);
+	}
+
 	/**
 	 * Automatically escapes characters for use as a uri paramter.
 	 *
@@ -108,7 +176,7 @@ public class CSRFPreventionUtil {
 	@NonNull
 	private static String generateRandomString(final int length) {
 		byte[] bytes = new byte[length];
-		new Random().nextBytes(bytes);
+		RANDOM.nextBytes(bytes);
 
 		return Base64.getEncoder().encodeToString(bytes);
 	}
@@ -214,8 +282,13 @@ public class CSRFPreventionUtil {
 	 *         beforehand and is still valid; <code>false</code>, if token wasn't
 	 *         registered or got removed
 	 */
+	@SuppressWarnings("null")
 	public static boolean checkToken(@NonNull final HttpSession session, @NonNull final CSRFForm form,
 			@NonNull final String token) {
+		if (form.isSigned()) {
+			return checkSignedToken(session.getId(), form, token);
+		}
+
 		ArrayList<String> formTokens = getFormTokens(session, form);
 
 		boolean isvalid = formTokens.contains(token);
@@ -228,14 +301,66 @@ public class CSRFPreventionUtil {
 	}
 
 	/**
-	 * Invalidates token
+	 * This method checks the given token (see
+	 * {@link #checkToken(HttpSession, CSRFForm, String)}). Tokens of signed forms
+	 * are checked against {@link LoginManager#getCsrfBindingId(HttpServletRequest)},
+	 * so no session is needed.
+	 *
+	 * @param request the {@link HttpServletRequest}
+	 * @param form    {@link CSRFForm}
+	 * @param token   token given by the user
+	 * @return <code>true</code>, if token is valid for the given form;
+	 *         <code>false</code>, if not
+	 */
+	public static boolean checkToken(@NonNull final HttpServletRequest request, @NonNull final CSRFForm form,
+			@NonNull final String token) {
+		if (form.isSigned()) {
+			String bindingId = LoginManager.getInstance().getCsrfBindingId(request);
+			return bindingId != null && checkSignedToken(bindingId, form, token);
+		}
+		HttpSession session = request.getSession(false);
+		return session != null && checkToken(session, form, token);
+	}
+
+	/**
+	 * Checks a signed token and marks single-use tokens as used
+	 *
+	 * @param bindingId id, the token has to be bound to
+	 * @param form      {@link CSRFForm}
+	 * @param token     token given by the user
+	 * @return <code>true</code>, if token is valid
+	 */
+	private static boolean checkSignedToken(@NonNull final String bindingId, @NonNull final CSRFForm form,
+			@NonNull final String token) {
+		long expiry = Signing.SIGNER.verify(bindingId, form.toString(), token);
+		if (expiry == 0) {
+			return false;
+		}
+		return !form.isRequestBased() || Signing.REPLAY_WINDOW.markUsed(CSRFTokenSigner.getNonce(token), expiry);
+	}
+
+	/**
+	 * Invalidates token<br>
+	 * Signed tokens can only be invalidated, if they are request based (single
+	 * use).
 	 *
 	 * @param session client's {@link HttpSession}
 	 * @param form    {@link CSRFForm}
 	 * @param token   token given by the user
 	 */
+	@SuppressWarnings("null")
 	public static void invalidateToken(@NonNull final HttpSession session, @NonNull final CSRFForm form,
 			@NonNull final String token) {
+		if (form.isSigned()) {
+			if (form.isRequestBased()) {
+				long expiry = Signing.SIGNER.verify(session.getId(), form.toString(), token);
+				if (expiry != 0) {
+					Signing.REPLAY_WINDOW.markUsed(CSRFTokenSigner.getNonce(token), expiry);
+				}
+			}
+			return;
+		}
+
 		ArrayList<String> list = getFormTokens(session, form);
 		int listIndex = list.indexOf(token);
 		if (listIndex >= 0) {
@@ -258,4 +383,40 @@ public class CSRFPreventionUtil {
 			@NonNull final HttpServletResponse response, @NonNull final CSRFForm form) {
 		response.setHeader(HEADER_FIELD, generateToken(session, form));
 	}
+
+	/**
+	 * Attaches a http header to the {@link HttpServletResponse}, that includes a
+	 * new valid csrf token (see
+	 * {@link #generateToken(HttpServletRequest, HttpServletResponse, CSRFForm)})<br>
+	 * <b>Should be used, when a valid token was sent beforehand!</b>
+	 *
+	 * @param request  the {@link HttpServletRequest}
+	 * @param response the {@link HttpServletResponse}
+	 * @param form     the {@link CSRFForm}
+	 */
+	public static void attachNewTokenToHttpResponse(@NonNull final HttpServletRequest request,
+			@NonNull final HttpServletResponse response, @NonNull final CSRFForm form) {
+		response.setHeader(HEADER_FIELD, generateToken(request, response, form));
+	}
+
+	/**
+	 * Holds the signer and replay window of the signed tokens, which are created,
+	 * when a signed token is used the first time
+	 */
+	private static final class Signing {
+		/**
+		 * Signer using the key of {@link Constants.Security#CSRF_SIGNING_KEY} (or a
+		 * key derived from {@link Constants.Security#ENCRYPTION_AES256_PASSWORD})
+		 */
+		@NonNull
+		static final CSRFTokenSigner SIGNER = new CSRFTokenSigner(Constants.Security.CSRF_SIGNING_KEY != null
+				? Base64.getDecoder().decode(Constants.Security.CSRF_SIGNING_KEY.trim())
+				: KeyDerivationUtil.deriveKey(CSRFTokenSigner.KEY_PURPOSE,
+						Constants.Security.ENCRYPTION_AES256_PASSWORD));
+		/**
+		 * Used single-use tokens
+		 */
+		@NonNull
+		static final ReplayWindow REPLAY_WINDOW = new ReplayWindow(Constants.Security.CSRF_REPLAY_WINDOW_SIZE);
+	}
 }
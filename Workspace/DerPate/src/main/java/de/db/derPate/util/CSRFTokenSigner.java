@@ -0,0 +1,162 @@
+package de.db.derPate.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.function.LongSupplier;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+/**
+ * This util creates and checks signed csrf tokens, that don't have to be stored
+ * in the {@link javax.servlet.http.HttpSession}.<br>
+ * A token contains a random nonce and its expiry and is signed with
+ * HMAC-SHA256 over the session id, the form, the nonce and the expiry. So it
+ * is only valid for the session and form it was created for and can't be
+ * modified or extended.<br>
+ * Format (URL-safe base64): nonce (12 bytes), expiry in seconds (8 bytes),
+ * truncated HMAC (16 bytes).<br>
+ * This util is thread-safe.
+ *
+ * @author MichelBlank
+ *
+ */
+public final class CSRFTokenSigner {
+	private static final String ALGORITHM = "HmacSHA256"; //$NON-NLS-1$
+	private static final int NONCE_LENGTH = 12;
+	private static final int EXPIRY_LENGTH = 8;
+	private static final int MAC_LENGTH = 16;
+	private static final int TOKEN_LENGTH = NONCE_LENGTH + EXPIRY_LENGTH + MAC_LENGTH;
+	/**
+	 * Length of the nonce in the encoded token (see {@link #getNonce(String)})
+	 */
+	private static final int ENCODED_NONCE_LENGTH = NONCE_LENGTH / 3 * 4;
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+	private static final SecureRandom RANDOM = new SecureRandom();
+	/**
+	 * Purpose used to derive the key from a secret, if no key is configured (see
+	 * {@link KeyDerivationUtil#deriveKey(String, String)})
+	 */
+	@NonNull
+	public static final String KEY_PURPOSE = "csrf"; //$NON-NLS-1$
+
+	@NonNull
+	private final ThreadLocal<Mac> mac;
+	@NonNull
+	private final LongSupplier clock;
+
+	/**
+	 * Constructor
+	 *
+	 * @param key secret key (at least 32 bytes)
+	 * @throws IllegalArgumentException if the key is too short
+	 */
+	public CSRFTokenSigner(byte[] key) throws IllegalArgumentException {
+		this(key, () -> System.currentTimeMillis() / 1000);
+	}
+
+	/**
+	 * Constructor with a custom clock (for tests)
+	 *
+	 * @param key   secret key (at least 32 bytes)
+	 * @param clock returns the current time in seconds
+	 * @throws IllegalArgumentException if the key is too short
+	 */
+	CSRFTokenSigner(byte[] key, @NonNull LongSupplier clock) throws IllegalArgumentException {
+		if (key.length < 32) {
+			throw new IllegalArgumentException("Key has to have at least 32 bytes"); //$NON-NLS-1$
+		}
+		SecretKeySpec spec = new SecretKeySpec(key, ALGORITHM);
+		this.mac = ThreadLocal.withInitial(() -> {
+			try {
+				Mac result = Mac.getInstance(ALGORITHM);
+				result.init(spec);
+				return result;
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException(e); // HmacSHA256 is available in every JRE
+			}
+		});
+		this.clock = clock;
+	}
+
+	/**
+	 * Creates a new token
+	 *
+	 * @param sessionId     id of the session, the token is valid for
+	 * @param form          name of the form, the token is valid for
+	 * @param maxAgeSeconds time in seconds, that the token is valid
+	 * @return token (URL-safe)
+	 */
+	@SuppressWarnings("null")
+	@NonNull
+	public String sign(@NonNull String sessionId, @NonNull String form, long maxAgeSeconds) {
+		ByteBuffer token = ByteBuffer.allocate(TOKEN_LENGTH);
+		byte[] nonce = new byte[NONCE_LENGTH];
+		RANDOM.nextBytes(nonce);
+		token.put(nonce);
+		token.putLong(this.clock.getAsLong() + maxAgeSeconds);
+		token.put(mac(sessionId, form, token.array(), NONCE_LENGTH + EXPIRY_LENGTH), 0, MAC_LENGTH);
+		return ENCODER.encodeToString(token.array());
+	}
+
+	/**
+	 * Checks a token
+	 *
+	 * @param sessionId id of the session, that sent the token
+	 * @param form      name of the form, that was sent
+	 * @param token     token
+	 * @return expiry of the token in seconds, if it is valid; <code>0</code>, if
+	 *         it is invalid or expired
+	 */
+	public long verify(@NonNull String sessionId, @NonNull String form, @NonNull String token) {
+		byte[] bytes;
+		try {
+			bytes = DECODER.decode(token);
+		} catch (IllegalArgumentException e) {
+			return 0;
+		}
+		if (bytes.length != TOKEN_LENGTH) {
+			return 0;
+		}
+
+		byte[] expected = mac(sessionId, form, bytes, NONCE_LENGTH + EXPIRY_LENGTH);
+		int difference = 0;
+		for (int i = 0; i < MAC_LENGTH; i++) { // constant time
+			difference |= expected[i] ^ bytes[NONCE_LENGTH + EXPIRY_LENGTH + i];
+		}
+		if (difference != 0) {
+			return 0;
+		}
+
+		long expiry = ByteBuffer.wrap(bytes, NONCE_LENGTH, EXPIRY_LENGTH).getLong();
+		return expiry > this.clock.getAsLong() ? expiry : 0;
+	}
+
+	/**
+	 * Returns the nonce of a (valid) token, used to remember single-use tokens
+	 *
+	 * @param token token
+	 * @return nonce
+	 */
+	@SuppressWarnings("null")
+	@NonNull
+	public static String getNonce(@NonNull String token) {
+		return token.substring(0, ENCODED_NONCE_LENGTH);
+	}
+
+	private byte[] mac(@NonNull String sessionId, @NonNull String form, byte[] data, int length) {
+		Mac instance = this.mac.get();
+		instance.update(sessionId.getBytes(StandardCharsets.UTF_8));
+		instance.update((byte) 0);
+		instance.update(form.getBytes(StandardCharsets.UTF_8));
+		instance.update((byte) 0);
+		instance.update(data, 0, length);
+		return instance.doFinal();
+	}
+}
@@ -0,0 +1,195 @@
+package de.db.derPate.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * This {@link EncryptionUtil} remembers the results of another
+ * {@link EncryptionUtil}'s decryption, so the same encrypted values (e.g.
+ * parameters of links, that are sent again and again) are only decrypted once.
+ * Values, that could not get decrypted, are remembered as well (negative
+ * cache), so invalid values don't pass the cipher and its exception path over
+ * and over.<br>
+ * Both caches are limited in size and age; if a size is exceeded, the value used
+ * least recently is removed. Invalid values are kept in their own cache, so they
+ * can't displace the valid ones. Values longer than the given maximum length
+ * are not cached.<br>
+ * <b>Caution</b>: Only use this with an {@link EncryptionUtil}, whose keys don't
+ * change.
+ *
+ * @author MichelBlank
+ *
+ */
+public final class CachingDecryptionUtil implements EncryptionUtil {
+	/**
+	 * Marks a cached value, that could not get decrypted
+	 */
+	private static final Object INVALID = new Object();
+
+	@NonNull
+	private final EncryptionUtil delegate;
+	private final int maxValueLength;
+	private final long maxAgeNanos;
+	@NonNull
+	private final LongSupplier clock;
+	/**
+	 * Encrypted value -&gt; decrypted value, ordered by last access
+	 */
+	@NonNull
+	private final LinkedHashMap<String, CachedValue> decrypted;
+	/**
+	 * Encrypted value -&gt; {@link #INVALID}, ordered by last access
+	 */
+	@NonNull
+	private final LinkedHashMap<String, CachedValue> invalid;
+
+	/**
+	 * Constructor
+	 *
+	 * @param delegate          the {@link EncryptionUtil} used to encrypt and
+	 *                          decrypt
+	 * @param maxEntries        maximum number of cached decrypted values
+	 * @param maxInvalidEntries maximum number of cached values, that could not
+	 *                          get decrypted
+	 * @param maxAgeSeconds     time in seconds, that a value is cached
+	 * @param maxValueLength    maximum length of an encrypted value, to get cached
+	 */
+	public CachingDecryptionUtil(@NonNull EncryptionUtil delegate, int maxEntries, int maxInvalidEntries,
+			int maxAgeSeconds, int maxValueLength) {
+		this(delegate, maxEntries, maxInvalidEntries, maxAgeSeconds, maxValueLength, System::nanoTime);
+	}
+
+	/**
+	 * Constructor with a custom clock (for tests)
+	 *
+	 * @param delegate          the {@link EncryptionUtil} used to encrypt and
+	 *                          decrypt
+	 * @param maxEntries        maximum number of cached decrypted values
+	 * @param maxInvalidEntries maximum number of cached values, that could not
+	 *                          get decrypted
+	 * @param maxAgeSeconds     time in seconds, that a value is cached
+	 * @param maxValueLength    maximum length of an encrypted value, to get cached
+	 * @param clock             returns the current time in nanoseconds
+	 */
+	CachingDecryptionUtil(@NonNull EncryptionUtil delegate, int maxEntries, int maxInvalidEntries,
+			int maxAgeSeconds, int maxValueLength, @NonNull LongSupplier clock) {
+		this.delegate = delegate;
+		this.maxValueLength = maxValueLength;
+		this.maxAgeNanos = TimeUnit.SECONDS.toNanos(maxAgeSeconds);
+		this.clock = clock;
+		this.decrypted = createCache(maxEntries);
+		this.invalid = createCache(maxInvalidEntries);
+	}
+
+	/**
+	 * Encrypts the given text with the delegate and remembers the result, so it
+	 * doesn't have to be decrypted, when it is received again.
+	 */
+	@Override
+	@NonNull
+	public String encrypt(@NonNull String stringToEncrypt) {
+		String encrypted = this.delegate.encrypt(stringToEncrypt);
+		if (encrypted.length() <= this.maxValueLength) {
+			put(this.decrypted, encrypted, stringToEncrypt);
+		}
+		return encrypted;
+	}
+
+	/**
+	 * Returns the cached result or decrypts the given text with the delegate and
+	 * caches the result (also, if it could not get decrypted).
+	 */
+	@Override
+	@Nullable
+	public String decrypt(@NonNull String stringToDecrypt) {
+		if (stringToDecrypt.length() > this.maxValueLength) {
+			return this.delegate.decrypt(stringToDecrypt);
+		}
+
+		Object cached = get(this.decrypted, stringToDecrypt);
+		if (cached == null) {
+			cached = get(this.invalid, stringToDecrypt);
+		}
+		if (cached != null) {
+			return cached == INVALID ? null : (String) cached;
+		}
+
+		// decrypt without blocking other threads
+		String result = this.delegate.decrypt(stringToDecrypt);
+		if (result != null) {
+			put(this.decrypted, stringToDecrypt, result);
+		} else {
+			put(this.invalid, stringToDecrypt, INVALID);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of cached values (decrypted and invalid)
+	 *
+	 * @return number of cached values
+	 */
+	public int size() {
+		int size;
+		synchronized (this.decrypted) {
+			size = this.decrypted.size();
+		}
+		synchronized (this.invalid) {
+			size += this.invalid.size();
+		}
+		return size;
+	}
+
+	@Nullable
+	private Object get(@NonNull LinkedHashMap<String, CachedValue> cache, @NonNull String key) {
+		synchronized (cache) {
+			CachedValue cached = cache.get(key);
+			if (cached == null) {
+				return null;
+			}
+			if (this.clock.getAsLong() - cached.created > this.maxAgeNanos) {
+				cache.remove(key);
+				return null;
+			}
+			return cached.value;
+		}
+	}
+
+	private void put(@NonNull LinkedHashMap<String, CachedValue> cache, @NonNull String key, @NonNull Object value) {
+		CachedValue cached = new CachedValue(value, this.clock.getAsLong());
+		synchronized (cache) {
+			cache.put(key, cached);
+		}
+	}
+
+	@NonNull
+	private static LinkedHashMap<String, CachedValue> createCache(int maxEntries) {
+		return new LinkedHashMap<String, CachedValue>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Entry<String, CachedValue> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * A cached value and the time it was cached
+	 */
+	private static final class CachedValue {
+		@NonNull
+		final Object value;
+		final long created;
+
+		CachedValue(@NonNull Object value, long created) {
+			this.value = value;
+			this.created = created;
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package de.db.derPate.util;
+
+import java.util.Locale;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * This util offers methods to negotiate the compression of http responses.
+ *
+ * @author MichelBlank
+ * @see ThresholdGzipOutputStream
+ */
+public class CompressionUtil {
+	/**
+	 * Content-Encoding of gzip compressed content
+	 */
+	public static final String GZIP = "gzip"; //$NON-NLS-1$
+	/**
+	 * File extension of gzip compressed files
+	 */
+	public static final String GZIP_EXTENSION = ".gz"; //$NON-NLS-1$
+
+	/**
+	 * Content types (besides text/*), that are worth to be compressed. Images,
+	 * fonts (woff) and archives are compressed already.
+	 */
+	private static final String[] COMPRESSIBLE_TYPES = { "application/json", "application/javascript", //$NON-NLS-1$ //$NON-NLS-2$
+			"application/xml", "image/svg+xml", "image/x-icon", "application/x-font-ttf", "font/ttf" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+
+	/**
+	 * Checks, if the client accepts gzip compressed content
+	 *
+	 * @param acceptEncoding value of the "Accept-Encoding" header
+	 * @return <code>true</code>, if gzip (or any encoding) is listed and not
+	 *         excluded by a quality value of 0
+	 */
+	public static boolean acceptsGzip(@Nullable String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (String coding : acceptEncoding.split(",")) { //$NON-NLS-1$
+			String[] parts = coding.split(";"); //$NON-NLS-1$
+			String name = parts[0].trim().toLowerCase(Locale.ROOT);
+			if (GZIP.equals(name) || "x-gzip".equals(name) || "*".equals(name)) { //$NON-NLS-1$ //$NON-NLS-2$
+				return getQuality(parts) > 0;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the quality value of a coding of the "Accept-Encoding" header
+	 *
+	 * @param parts the coding split at ";"
+	 * @return quality value or 1, if none is given (0, if it is invalid)
+	 */
+	private static double getQuality(String[] parts) {
+		for (int i = 1; i < parts.length; i++) {
+			String parameter = parts[i].trim();
+			if (parameter.startsWith("q=")) { //$NON-NLS-1$
+				try {
+					return Double.parseDouble(parameter.substring(2));
+				} catch (NumberFormatException e) {
+					return 0;
+				}
+			}
+		}
+		return 1;
+	}
+
+	/**
+	 * Checks, if content of the given type gets smaller by compression
+	 *
+	 * @param contentType value of the "Content-Type" header (may contain
+	 *                    parameters like the charset)
+	 * @return <code>true</code>, if the content is text
+	 */
+	public static boolean isCompressible(@Nullable String contentType) {
+		if (contentType == null) {
+			return false;
+		}
+		int end = contentType.indexOf(';');
+		String mimeType = (end < 0 ? contentType : contentType.substring(0, end)).trim().toLowerCase(Locale.ROOT);
+		if (mimeType.startsWith("text/")) { //$NON-NLS-1$
+			return true;
+		}
+		for (String type : COMPRESSIBLE_TYPES) {
+			if (type.equals(mimeType)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
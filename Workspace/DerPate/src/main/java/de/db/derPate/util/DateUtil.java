@@ -73,6 +73,27 @@ public class DateUtil {
 		return age;
 	}
 
+	/**
+	 * Returns the date (without time) of today the given number of years ago.<br>
+	 * For every date <code>d</code> with <code>getDateYearsAgo(n + 1) &lt; d &lt;=
+	 * getDateYearsAgo(n)</code>, {@link #getYearDiff(Date)} returns
+	 * <code>n</code>.
+	 *
+	 * @param years number of years
+	 * @return {@link Date} at midnight
+	 */
+	@SuppressWarnings("null")
+	@NonNull
+	public static Date getDateYearsAgo(int years) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.set(Calendar.HOUR_OF_DAY, 0);
+		calendar.set(Calendar.MINUTE, 0);
+		calendar.set(Calendar.SECOND, 0);
+		calendar.set(Calendar.MILLISECOND, 0);
+		calendar.add(Calendar.YEAR, -years);
+		return calendar.getTime();
+	}
+
 	/**
 	 * Parses a {@link String} to the given {@link DateFormat}
 	 *
@@ -0,0 +1,129 @@
+package de.db.derPate.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * This util creates and compares entity tags (http header "ETag"), that are
+ * used to answer conditional requests ("If-None-Match") without creating the
+ * response again.<br>
+ * An entity tag is a hash of a data version (which has to change, whenever the
+ * response changes), the values of the request parameters, that the response
+ * depends on, and optionally the user, the response was created for. The
+ * parameters are normalized (sorted by name and value), so their order doesn't
+ * matter. The tags are weak, as the same data may be serialized differently
+ * (e.g. encrypted ids).
+ *
+ * @author MichelBlank
+ */
+public class ETagUtil {
+	/**
+	 * Number of bytes of the hash used for the entity tag
+	 */
+	private static final int HASH_LENGTH = 12;
+	private static final String WEAK_PREFIX = "W/"; //$NON-NLS-1$
+
+	/**
+	 * Creates a weak entity tag
+	 *
+	 * @param version    data version of the response
+	 * @param parameters all request parameters (see
+	 *                   {@link javax.servlet.ServletRequest#getParameterMap()})
+	 * @param names      names of the parameters, the response depends on (other
+	 *                   parameters are ignored)
+	 * @param user       identifier of the user, the response was created for, or
+	 *                   <code>null</code>, if it is the same for all users
+	 * @return entity tag (including quotes)
+	 */
+	@NonNull
+	public static String create(long version, @NonNull Map<String, String[]> parameters, @NonNull String[] names,
+			@Nullable String user) {
+		MessageDigest digest = newDigest();
+		digest.update(ByteBuffer.allocate(Long.BYTES).putLong(version).array());
+
+		String[] sortedNames = names.clone();
+		Arrays.sort(sortedNames);
+		for (String name : sortedNames) {
+			String[] values = parameters.get(name);
+			if (values != null) {
+				update(digest, name);
+				String[] sortedValues = values.clone();
+				Arrays.sort(sortedValues);
+				digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(sortedValues.length).array());
+				for (String value : sortedValues) {
+					update(digest, value);
+				}
+			}
+		}
+		if (user != null) {
+			update(digest, user);
+		}
+
+		byte[] hash = Arrays.copyOf(digest.digest(), HASH_LENGTH);
+		return WEAK_PREFIX + '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + '"';
+	}
+
+	/**
+	 * Checks, if the value of a "If-None-Match" header matches the given entity tag
+	 * (weak comparison)
+	 *
+	 * @param ifNoneMatch value of the header (a list of entity tags or "*")
+	 * @param etag        current entity tag
+	 * @return <code>true</code>, if the client has the current version and the
+	 *         response doesn't have to be sent again
+	 */
+	public static boolean matches(@Nullable String ifNoneMatch, @NonNull String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		String opaqueTag = stripWeakPrefix(etag);
+		for (String tag : ifNoneMatch.split(",")) { //$NON-NLS-1$
+			String trimmed = tag.trim();
+			if ("*".equals(trimmed) || opaqueTag.equals(stripWeakPrefix(trimmed))) { //$NON-NLS-1$
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes the prefix of a weak entity tag
+	 *
+	 * @param etag entity tag
+	 * @return entity tag without prefix
+	 */
+	@SuppressWarnings("null")
+	@NonNull
+	private static String stripWeakPrefix(@NonNull String etag) {
+		return etag.startsWith(WEAK_PREFIX) ? etag.substring(WEAK_PREFIX.length()) : etag;
+	}
+
+	/**
+	 * Adds a value and its length (so values can't be shifted into each other)
+	 *
+	 * @param digest {@link MessageDigest}
+	 * @param value  value
+	 */
+	private static void update(@NonNull MessageDigest digest, @NonNull String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+		digest.update(bytes);
+	}
+
+	@NonNull
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e); // SHA-256 is available in every JRE
+		}
+	}
+}
@@ -44,4 +44,15 @@ public interface HashUtil {
 	 *         not equal to what the hashed string formerly was
 	 */
 	public boolean isEqual(String unhashed, String hashed, byte[] pepper, String hashseperator);
+
+	/**
+	 * Checks, if a hash was created with other (e.g. weaker) settings or by
+	 * another util than the current one. If so, it should be replaced by a new
+	 * hash, the next time the unhashed {@link String} is known (e.g. on login).
+	 *
+	 * @param hashed        hashed String with salt
+	 * @param hashseperator character used to separate salt and hash
+	 * @return <code>true</code>, if the hash should be replaced
+	 */
+	public boolean needsRehash(String hashed, String hashseperator);
 }
@@ -0,0 +1,254 @@
+package de.db.derPate.util;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.db.derPate.Constants;
+import de.db.derPate.manager.LoggingManager;
+
+/**
+ * This pool checks and creates password hashes (see {@link HashUtil}) on its own
+ * threads. Hashing passwords is expensive on purpose; with a limited number of
+ * threads and a limited queue, a burst of login attempts can't occupy all
+ * threads of the servlet container. If the pool is busy, the login should be
+ * rejected and retried later.<br>
+ * A verification, that timed out, is cancelled: its thread is interrupted and
+ * the {@link HashUtil} should stop hashing (as {@link PBKDF2Util} does), so the
+ * thread is free again.
+ *
+ * @author MichelBlank
+ *
+ */
+public class HashVerificationPool {
+	private static HashVerificationPool instance;
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	@NonNull
+	private final HashUtil hashUtil;
+	private final byte[] pepper;
+	@NonNull
+	private final String hashSeparator;
+	private final int saltLength;
+	private final long timeoutMillis;
+	@NonNull
+	private final ThreadPoolExecutor executor;
+	/**
+	 * Hash of a random password, checked instead of the hash of an unknown user
+	 * (created by the first check)
+	 */
+	@Nullable
+	private volatile String dummyHash;
+
+	/**
+	 * Result of a password verification
+	 */
+	public enum Verification {
+		/**
+		 * Password matches the hash
+		 */
+		VALID,
+		/**
+		 * Password doesn't match the hash
+		 */
+		INVALID,
+		/**
+		 * Pool is busy or the verification took too long
+		 */
+		BUSY
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param hashUtil      {@link HashUtil} used to check and create hashes
+	 * @param pepper        pepper
+	 * @param hashSeparator character used to separate salt and hash
+	 * @param saltLength    length of the salt of new hashes
+	 * @param threads       number of threads
+	 * @param queueSize     maximum number of waiting tasks
+	 * @param timeoutMillis maximum time in milliseconds to wait for a
+	 *                      verification
+	 */
+	public HashVerificationPool(@NonNull HashUtil hashUtil, byte[] pepper, @NonNull String hashSeparator,
+			int saltLength, int threads, int queueSize, long timeoutMillis) {
+		this.hashUtil = hashUtil;
+		this.pepper = pepper;
+		this.hashSeparator = hashSeparator;
+		this.saltLength = saltLength;
+		this.timeoutMillis = timeoutMillis;
+
+		AtomicInteger count = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueSize), runnable -> {
+					Thread thread = new Thread(runnable, "password-hash-" + count.incrementAndGet()); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	/**
+	 * Returns instance of {@link HashVerificationPool}, that uses the settings of
+	 * {@link Constants.Login}
+	 *
+	 * @return instance
+	 */
+	@SuppressWarnings("null")
+	@NonNull
+	public static synchronized HashVerificationPool getInstance() {
+		if (instance == null) {
+			int threads = Constants.Login.HASH_THREADS > 0 ? Constants.Login.HASH_THREADS
+					: Runtime.getRuntime().availableProcessors();
+			instance = new HashVerificationPool(Constants.Login.hashUtil, Constants.Login.hashPepper,
+					Constants.Login.hashSeparator, Constants.Login.hashSaltLength, threads,
+					Constants.Login.HASH_QUEUE_SIZE, Constants.Login.HASH_TIMEOUT_MILLIS);
+		}
+		return instance;
+	}
+
+	/**
+	 * Stops the threads of the instance, if it was created
+	 */
+	public static synchronized void shutdownInstance() {
+		if (instance != null) {
+			instance.shutdown();
+			instance = null;
+		}
+	}
+
+	/**
+	 * Stops the threads of this pool
+	 */
+	public void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Checks the password against the hash on a thread of this pool and waits for
+	 * the result
+	 *
+	 * @param password unhashed password
+	 * @param hashed   hash (e.g. out of the database)
+	 * @return {@link Verification}
+	 */
+	@NonNull
+	public Verification verify(@NonNull String password, @NonNull String hashed) {
+		Future<Boolean> result;
+		try {
+			result = this.executor.submit(
+					() -> Boolean.valueOf(this.hashUtil.isEqual(password, hashed, this.pepper, this.hashSeparator)));
+		} catch (RejectedExecutionException e) {
+			LoggingManager.log(Level.WARNING, "Password verification rejected, too many login attempts"); //$NON-NLS-1$
+			return Verification.BUSY;
+		}
+
+		try {
+			return result.get(this.timeoutMillis, TimeUnit.MILLISECONDS).booleanValue() ? Verification.VALID
+					: Verification.INVALID;
+		} catch (TimeoutException e) {
+			result.cancel(true);
+			LoggingManager.log(Level.WARNING, "Password verification timed out"); //$NON-NLS-1$
+			return Verification.BUSY;
+		} catch (InterruptedException e) {
+			result.cancel(true);
+			Thread.currentThread().interrupt();
+			return Verification.BUSY;
+		} catch (ExecutionException e) {
+			LoggingManager.log(Level.WARNING, "Error verifying password: " + e.getCause()); //$NON-NLS-1$
+			return Verification.INVALID;
+		}
+	}
+
+	/**
+	 * Checks the password against a dummy hash, when there is no user (e.g. for an
+	 * unknown email address). It takes as long as a real verification, so the
+	 * response time doesn't reveal, if a user exists.
+	 *
+	 * @param password unhashed password
+	 * @return {@link Verification#INVALID} or {@link Verification#BUSY} (like a
+	 *         real verification)
+	 */
+	@NonNull
+	public Verification verifyUnknown(@NonNull String password) {
+		Future<?> result;
+		try {
+			result = this.executor.submit(() -> {
+				String hashed = this.dummyHash;
+				if (hashed == null) { // creating the hash costs as much as checking it
+					byte[] random = new byte[this.saltLength];
+					RANDOM.nextBytes(random);
+					this.dummyHash = this.hashUtil.hash(Base64.getEncoder().encodeToString(random), this.saltLength,
+							this.pepper, this.hashSeparator);
+				} else {
+					this.hashUtil.isEqual(password, hashed, this.pepper, this.hashSeparator);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			LoggingManager.log(Level.WARNING, "Password verification rejected, too many login attempts"); //$NON-NLS-1$
+			return Verification.BUSY;
+		}
+
+		try {
+			result.get(this.timeoutMillis, TimeUnit.MILLISECONDS);
+			return Verification.INVALID;
+		} catch (TimeoutException e) {
+			result.cancel(true);
+			LoggingManager.log(Level.WARNING, "Password verification timed out"); //$NON-NLS-1$
+			return Verification.BUSY;
+		} catch (InterruptedException e) {
+			result.cancel(true);
+			Thread.currentThread().interrupt();
+			return Verification.BUSY;
+		} catch (ExecutionException e) {
+			LoggingManager.log(Level.WARNING, "Error verifying password: " + e.getCause()); //$NON-NLS-1$
+			return Verification.INVALID;
+		}
+	}
+
+	/**
+	 * Checks, if the hash should be replaced (see
+	 * {@link HashUtil#needsRehash(String, String)})
+	 *
+	 * @param hashed hash
+	 * @return <code>true</code>, if the hash should be replaced
+	 */
+	public boolean needsRehash(@NonNull String hashed) {
+		return this.hashUtil.needsRehash(hashed, this.hashSeparator);
+	}
+
+	/**
+	 * Hashes the password on a thread of this pool and passes the new hash to the
+	 * given {@link Consumer} (e.g. to store it). Doesn't wait for the result. If
+	 * the pool is busy, nothing happens: the password can be rehashed next time.
+	 *
+	 * @param password unhashed password
+	 * @param store    receives the new hash
+	 * @return <code>true</code>, if the hash will be created
+	 */
+	public boolean rehash(@NonNull String password, @NonNull Consumer<String> store) {
+		try {
+			this.executor.execute(() -> {
+				try {
+					store.accept(this.hashUtil.hash(password, this.saltLength, this.pepper, this.hashSeparator));
+				} catch (RuntimeException e) {
+					LoggingManager.log(Level.WARNING, "Error rehashing password: " + e.getMessage()); //$NON-NLS-1$
+				}
+			});
+			return true;
+		} catch (RejectedExecutionException e) {
+			return false;
+		}
+	}
+}
@@ -1,29 +1,76 @@
 package de.db.derPate.util;
 
+import java.net.URL;
+import java.time.Duration;
 import java.util.logging.Level;
 
+import org.eclipse.jdt.annotation.Nullable;
 import org.hibernate.HibernateException;
 import org.hibernate.SessionFactory;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 
 import de.db.derPate.Constants;
 import de.db.derPate.manager.LoggingManager;
+import io.agroal.api.AgroalDataSource;
+import io.agroal.api.AgroalDataSourceMetrics;
 
 /**
- * This util configures the {@link SessionFactory} of Hibernate and stores it
+ * This util configures the {@link SessionFactory} of Hibernate and stores it.
+ * <br>
+ * Connections are pooled by Agroal, which gets configured with the pool
+ * settings of {@link Constants.Database}. Entities are cached in the second
+ * level cache (JCache provided by Ehcache, see ehcache.xml).
  *
  * @author MichelBlank
  *
  */
 public class HibernateSessionFactoryUtil {
+	private static final String AGROAL_PREFIX = "hibernate.agroal."; //$NON-NLS-1$
+	private static final String URL_PROPERTY = "hibernate.connection.url"; //$NON-NLS-1$
+	private static final String CACHE_CONFIGURATION = "/ehcache.xml"; //$NON-NLS-1$
+
 	private static final SessionFactory sessionFactory;
 
 	static {
 		try {
 			Configuration config = new Configuration().configure();
-			config.setProperty("hibernate.connection.url", Constants.Database.URL); //$NON-NLS-1$
-			config.setProperty("hibernate.connection.username", Constants.Database.USERNAME); //$NON-NLS-1$
-			config.setProperty("hibernate.connection.password", Constants.Database.PASSWORD); //$NON-NLS-1$
+			if (config.getProperty(URL_PROPERTY) == null) {
+				// not set by the configuration file (e.g. the in-memory database of the tests)
+				config.setProperty(URL_PROPERTY, Constants.Database.URL);
+				config.setProperty("hibernate.connection.username", Constants.Database.USERNAME); //$NON-NLS-1$
+				config.setProperty("hibernate.connection.password", Constants.Database.PASSWORD); //$NON-NLS-1$
+			}
+
+			// connection pool
+			config.setProperty(AGROAL_PREFIX + "minSize", Integer.toString(Constants.Database.POOL_MIN_SIZE)); //$NON-NLS-1$
+			config.setProperty(AGROAL_PREFIX + "initialSize", Integer.toString(Constants.Database.POOL_MIN_SIZE)); //$NON-NLS-1$
+			config.setProperty(AGROAL_PREFIX + "maxSize", Integer.toString(Constants.Database.POOL_MAX_SIZE)); //$NON-NLS-1$
+			config.setProperty(AGROAL_PREFIX + "acquisitionTimeout", //$NON-NLS-1$
+					Duration.ofMillis(Constants.Database.POOL_ACQUISITION_TIMEOUT_MILLIS).toString());
+			config.setProperty(AGROAL_PREFIX + "validationTimeout", //$NON-NLS-1$
+					Duration.ofSeconds(Constants.Database.POOL_VALIDATION_INTERVAL_SECONDS).toString());
+			config.setProperty(AGROAL_PREFIX + "leakTimeout", //$NON-NLS-1$
+					Duration.ofSeconds(Constants.Database.POOL_LEAK_TIMEOUT_SECONDS).toString());
+			config.setProperty(AGROAL_PREFIX + "reapTimeout", //$NON-NLS-1$
+					Duration.ofSeconds(Constants.Database.POOL_REAP_TIMEOUT_SECONDS).toString());
+			config.setProperty(AGROAL_PREFIX + "maxLifetime", //$NON-NLS-1$
+					Duration.ofSeconds(Constants.Database.POOL_MAX_LIFETIME_SECONDS).toString());
+			config.setProperty(AGROAL_PREFIX + "metricsEnabled", Boolean.TRUE.toString()); //$NON-NLS-1$
+
+			// second level cache, the regions are configured in ehcache.xml
+			config.setProperty("hibernate.cache.use_second_level_cache", Boolean.TRUE.toString()); //$NON-NLS-1$
+			config.setProperty("hibernate.cache.region.factory_class", "jcache"); //$NON-NLS-1$ //$NON-NLS-2$
+			config.setProperty("hibernate.javax.cache.provider", "org.ehcache.jsr107.EhcacheCachingProvider"); //$NON-NLS-1$ //$NON-NLS-2$
+			URL cacheConfiguration = HibernateSessionFactoryUtil.class.getResource(CACHE_CONFIGURATION);
+			if (cacheConfiguration != null) {
+				config.setProperty("hibernate.javax.cache.uri", cacheConfiguration.toExternalForm()); //$NON-NLS-1$
+			}
+
+			// statistics (e.g. cache hit rates), without logging the metrics of every session
+			config.setProperty("hibernate.generate_statistics", Boolean.TRUE.toString()); //$NON-NLS-1$
+			config.setProperty("hibernate.session.events.log", Boolean.FALSE.toString()); //$NON-NLS-1$
 
 			sessionFactory = config.buildSessionFactory();
 		} catch (HibernateException e) {
@@ -42,4 +89,33 @@ public class HibernateSessionFactoryUtil {
 	public static SessionFactory getSessionFactory() {
 		return sessionFactory;
 	}
+
+	/**
+	 * Returns the metrics of the connection pool (e.g. number of active
+	 * connections, time spent waiting for a connection, detected leaks)
+	 *
+	 * @return {@link AgroalDataSourceMetrics} or <code>null</code>, if no Agroal
+	 *         pool is used
+	 */
+	@Nullable
+	public static AgroalDataSourceMetrics getConnectionPoolMetrics() {
+		AgroalDataSource dataSource = getConnectionPool();
+		return dataSource != null ? dataSource.getMetrics() : null;
+	}
+
+	/**
+	 * Returns the {@link AgroalDataSource} used by Hibernate
+	 *
+	 * @return {@link AgroalDataSource} or <code>null</code>, if no Agroal pool is
+	 *         used
+	 */
+	@Nullable
+	private static AgroalDataSource getConnectionPool() {
+		ConnectionProvider provider = sessionFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+				.getService(ConnectionProvider.class);
+		if (provider.isUnwrappableAs(AgroalDataSource.class)) {
+			return provider.unwrap(AgroalDataSource.class);
+		}
+		return null;
+	}
 }
@@ -0,0 +1,251 @@
+package de.db.derPate.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.db.derPate.Constants;
+
+/**
+ * This codec turns int ids into short, opaque and URL-safe {@link String}s (23
+ * characters), so the user can't guess other ids.<br>
+ * The id is written into a single 128 bit block, whose remaining 96 bits are
+ * zero, and encrypted with AES. As AES is a keyed permutation, the zero bits
+ * work as a MAC: a modified or guessed value decodes to random bits and is
+ * rejected. The encoding is deterministic, so encoded ids can be precomputed
+ * and cached.<br>
+ * The first character is the tag of the key, so keys can be rotated: new ids
+ * are encoded with the current key, ids encoded with older keys can still be
+ * decoded. The tag is part of the configuration of a key, so removing an old
+ * key doesn't change the tags of the others.
+ *
+ * @author MichelBlank
+ *
+ */
+public final class IdCodec {
+	private static final String ALGORITHM = "AES"; //$NON-NLS-1$
+	private static final String TRANSFORMATION = "AES/ECB/NoPadding"; //$NON-NLS-1$
+	private static final int BLOCK_SIZE = 16;
+	private static final int ID_SIZE = 4;
+	/**
+	 * Characters allowed as key tag (URL-safe base64 alphabet)
+	 */
+	private static final String TAGS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"; //$NON-NLS-1$
+	private static final int ENCODED_LENGTH = 1 + 22;
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	private static IdCodec instance;
+
+	/**
+	 * Keys by the index of their tag in {@link #TAGS}
+	 */
+	@NonNull
+	private final SecretKeySpec[] keys = new SecretKeySpec[TAGS.length()];
+	private final char current;
+	@NonNull
+	private final ThreadLocal<Cipher> encryptor;
+	@NonNull
+	private final ThreadLocal<Cipher[]> decryptors;
+
+	/**
+	 * Constructor
+	 *
+	 * @param keys    AES keys (16, 24 or 32 bytes) by their tag (a character of
+	 *                the URL-safe base64 alphabet). All keys are used for
+	 *                decoding.
+	 * @param current tag of the key used for encoding
+	 * @throws IllegalArgumentException if no keys are given, a tag or key is
+	 *                                  invalid or there is no key with the
+	 *                                  current tag
+	 */
+	public IdCodec(@NonNull Map<Character, byte[]> keys, char current) throws IllegalArgumentException {
+		for (Map.Entry<Character, byte[]> entry : keys.entrySet()) {
+			int tag = TAGS.indexOf(entry.getKey().charValue());
+			if (tag < 0) {
+				throw new IllegalArgumentException("Invalid key tag: " + entry.getKey()); //$NON-NLS-1$
+			}
+			byte[] key = entry.getValue();
+			if (key.length != 16 && key.length != 24 && key.length != 32) {
+				throw new IllegalArgumentException("Invalid key length: " + key.length); //$NON-NLS-1$
+			}
+			this.keys[tag] = new SecretKeySpec(key, ALGORITHM);
+		}
+		int currentTag = TAGS.indexOf(current);
+		if (currentTag < 0 || this.keys[currentTag] == null) {
+			throw new IllegalArgumentException("No key with tag " + current); //$NON-NLS-1$
+		}
+
+		this.current = current;
+		this.encryptor = ThreadLocal.withInitial(() -> createCipher(Cipher.ENCRYPT_MODE, currentTag));
+		this.decryptors = ThreadLocal.withInitial(() -> new Cipher[TAGS.length()]);
+	}
+
+	/**
+	 * Returns the codec configured with {@link Constants.Security#ENCRYPTION_ID_KEYS}
+	 *
+	 * @return instance
+	 */
+	@NonNull
+	public static IdCodec getInstance() {
+		IdCodec result = instance;
+		if (result == null) {
+			result = configuredCodec();
+			instance = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Encodes the given id with the current key
+	 *
+	 * @param id the id
+	 * @return encoded id (23 URL-safe characters)
+	 */
+	@SuppressWarnings("null")
+	@NonNull
+	public String encode(int id) {
+		byte[] block = new byte[BLOCK_SIZE];
+		block[0] = (byte) (id >>> 24);
+		block[1] = (byte) (id >>> 16);
+		block[2] = (byte) (id >>> 8);
+		block[3] = (byte) id;
+
+		try {
+			this.encryptor.get().doFinal(block, 0, BLOCK_SIZE, block);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+		return this.current + ENCODER.encodeToString(block);
+	}
+
+	/**
+	 * Decodes an id, that was encoded with {@link #encode(int)} (with any of the
+	 * keys)
+	 *
+	 * @param encoded encoded id
+	 * @return the id or <code>null</code>, if the value is <code>null</code> or
+	 *         no valid encoded id
+	 */
+	@Nullable
+	public Integer decode(@Nullable String encoded) {
+		if (encoded == null || encoded.length() != ENCODED_LENGTH) {
+			return null;
+		}
+		int tag = TAGS.indexOf(encoded.charAt(0));
+		if (tag < 0 || this.keys[tag] == null) {
+			return null;
+		}
+
+		byte[] block;
+		try {
+			block = DECODER.decode(encoded.substring(1));
+			if (block.length != BLOCK_SIZE) {
+				return null;
+			}
+			decryptor(tag).doFinal(block, 0, BLOCK_SIZE, block);
+		} catch (IllegalArgumentException | GeneralSecurityException e) {
+			return null;
+		}
+
+		int padding = 0;
+		for (int i = ID_SIZE; i < BLOCK_SIZE; i++) {
+			padding |= block[i];
+		}
+		if (padding != 0) {
+			return null; // modified or not encoded with this key
+		}
+		return Integer.valueOf(((block[0] & 0xFF) << 24) | ((block[1] & 0xFF) << 16) | ((block[2] & 0xFF) << 8)
+				| (block[3] & 0xFF));
+	}
+
+	@NonNull
+	private Cipher decryptor(int tag) {
+		Cipher[] ciphers = this.decryptors.get();
+		Cipher cipher = ciphers[tag];
+		if (cipher == null) {
+			cipher = createCipher(Cipher.DECRYPT_MODE, tag);
+			ciphers[tag] = cipher;
+		}
+		return cipher;
+	}
+
+	@SuppressWarnings("null")
+	@NonNull
+	private Cipher createCipher(int mode, int tag) {
+		try {
+			Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+			cipher.init(mode, this.keys[tag]);
+			return cipher;
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e); // AES is available in every JRE
+		}
+	}
+
+	/**
+	 * Returns the codec for the keys of
+	 * {@link Constants.Security#ENCRYPTION_ID_KEYS}. The last key is the current
+	 * one. If none are configured, a key with tag <code>A</code> is derived from
+	 * the default AES256 password and salt.
+	 *
+	 * @return codec
+	 */
+	@NonNull
+	private static IdCodec configuredCodec() {
+		String configured = Constants.Security.ENCRYPTION_ID_KEYS;
+		LinkedHashMap<Character, byte[]> keys = configured != null ? parseKeys(configured) : new LinkedHashMap<>();
+		if (keys.isEmpty()) {
+			try {
+				PBEKeySpec spec = new PBEKeySpec(Constants.Security.ENCRYPTION_AES256_PASSWORD.toCharArray(),
+						Constants.Security.ENCRYPTION_AES256_SALT.getBytes(StandardCharsets.UTF_8), 65536, 128);
+				keys.put(Character.valueOf(TAGS.charAt(0)),
+						SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded()); //$NON-NLS-1$
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		char current = 0;
+		for (Character tag : keys.keySet()) {
+			current = tag.charValue();
+		}
+		return new IdCodec(keys, current);
+	}
+
+	/**
+	 * Parses keys in the format of {@link Constants.Security#ENCRYPTION_ID_KEYS}
+	 * (comma-separated <code>tag:key</code> pairs, base64 encoded keys)
+	 *
+	 * @param configured configured keys
+	 * @return keys by their tag, in the configured order
+	 * @throws IllegalArgumentException if an entry has no single character tag or
+	 *                                  a tag is used twice
+	 */
+	@NonNull
+	static LinkedHashMap<Character, byte[]> parseKeys(@NonNull String configured) throws IllegalArgumentException {
+		LinkedHashMap<Character, byte[]> keys = new LinkedHashMap<>();
+		for (String entry : configured.split(",")) { //$NON-NLS-1$
+			if (InputVerifyUtil.isNotBlank(entry)) {
+				String trimmed = entry.trim();
+				if (trimmed.length() < 2 || trimmed.charAt(1) != ':') {
+					throw new IllegalArgumentException("Id key without tag (tag:key expected)"); //$NON-NLS-1$
+				}
+				Character tag = Character.valueOf(trimmed.charAt(0));
+				if (keys.put(tag, Base64.getDecoder().decode(trimmed.substring(2).trim())) != null) {
+					throw new IllegalArgumentException("Id key tag used twice: " + tag); //$NON-NLS-1$
+				}
+			}
+		}
+		return keys;
+	}
+}
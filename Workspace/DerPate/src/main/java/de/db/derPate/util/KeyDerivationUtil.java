@@ -0,0 +1,40 @@
+package de.db.derPate.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+/**
+ * Util deriving keys from a configured secret (e.g. a password), if no key is
+ * configured for a purpose (e.g. signing csrf tokens). The purpose is part of
+ * the derivation, so every purpose gets its own key out of the same secret.
+ *
+ * @author MichelBlank
+ * @see CSRFPreventionUtil
+ * @see CSRFTokenSigner
+ */
+public final class KeyDerivationUtil {
+	private static final String ALGORITHM = "SHA-256"; //$NON-NLS-1$
+
+	private KeyDerivationUtil() {
+		// static only
+	}
+
+	/**
+	 * Derives a key from a secret
+	 *
+	 * @param purpose purpose of the key (e.g. "csrf")
+	 * @param secret  secret
+	 * @return key (32 bytes)
+	 */
+	public static byte[] deriveKey(@NonNull String purpose, @NonNull String secret) {
+		try {
+			return MessageDigest.getInstance(ALGORITHM)
+					.digest((purpose + ':' + secret).getBytes(StandardCharsets.UTF_8));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e); // SHA-256 is available in every JRE
+		}
+	}
+}
@@ -0,0 +1,225 @@
+package de.db.derPate.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import de.db.derPate.Constants;
+
+/**
+ * This util uses PBKDF2 with HMAC-SHA256 to hash passwords.<br>
+ * It implements the methods of {@link HashUtil}. The number of iterations is the
+ * cost of a hash: the more iterations, the more expensive it is for an attacker
+ * to guess a password (and for the server to check it). It is stored with every
+ * hash, so it can be increased at any time: old hashes are still checked with
+ * their number of iterations and should be rehashed (see
+ * {@link #needsRehash(String, String)}).<br>
+ * Hashes of {@link SHA256Util} can still be checked, so existing passwords keep
+ * working until they are rehashed.<br>
+ * This util is thread-safe.
+ *
+ * @author MichelBlank
+ *
+ */
+public class PBKDF2Util implements HashUtil {
+	private static PBKDF2Util instance;
+	private static final String ALGORITHM = "PBKDF2WithHmacSHA256"; //$NON-NLS-1$
+	/**
+	 * Prefix of the hashes created by this util
+	 */
+	private static final String PREFIX = "pbkdf2"; //$NON-NLS-1$
+	private static final int HASH_LENGTH = 256;
+	private static final String MAC_ALGORITHM = "HmacSHA256"; //$NON-NLS-1$
+	/**
+	 * Index of the (only) block of the hash, see RFC 8018
+	 */
+	private static final byte[] FIRST_BLOCK = { 0, 0, 0, 1 };
+	/**
+	 * The interrupt flag is checked every 1024 iterations
+	 */
+	private static final int INTERRUPT_CHECK_MASK = 1023;
+	private final Random RANDOM = new SecureRandom();
+	private final int iterations;
+
+	/**
+	 * Constructor
+	 *
+	 * @param iterations number of iterations used for new hashes
+	 * @throws IllegalArgumentException if iterations is not positive
+	 */
+	public PBKDF2Util(int iterations) throws IllegalArgumentException {
+		if (iterations <= 0) {
+			throw new IllegalArgumentException("Iterations have to be positive: " + iterations); //$NON-NLS-1$
+		}
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Returns instance of {@link PBKDF2Util}, that uses
+	 * {@link Constants.Login#HASH_ITERATIONS} iterations
+	 *
+	 * @return instance
+	 */
+	public static PBKDF2Util getInstance() {
+		if (instance == null) {
+			instance = new PBKDF2Util(Constants.Login.HASH_ITERATIONS);
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns the number of iterations used for new hashes
+	 *
+	 * @return iterations
+	 */
+	public int getIterations() {
+		return this.iterations;
+	}
+
+	/**
+	 * Generates a random byte array
+	 *
+	 * @param length Length of array
+	 * @return bytes
+	 */
+	public byte[] getRandomBytes(int length) {
+		byte[] bytes = new byte[length];
+		this.RANDOM.nextBytes(bytes);
+		return bytes;
+	}
+
+	@Override
+	public String hash(String unhashed, int saltlength, byte[] pepper, String hashseperator) {
+		return this.hash(unhashed, this.getRandomBytes(saltlength), pepper, hashseperator);
+	}
+
+	/**
+	 * Returns the hash in format "pbkdf2.iterations.salt.hash" (with the given
+	 * separator; salt and hash are base64 encoded)
+	 */
+	@Override
+	public String hash(String unhashed, byte[] saltBytes, byte[] pepper, String hashseperator) {
+		byte[] hash = pbkdf2(unhashed, saltBytes, pepper, this.iterations);
+
+		StringBuilder sb = new StringBuilder();
+		sb.append(PREFIX);
+		sb.append(hashseperator);
+		sb.append(this.iterations);
+		sb.append(hashseperator);
+		sb.append(Base64.getEncoder().encodeToString(saltBytes));
+		sb.append(hashseperator);
+		sb.append(Base64.getEncoder().encodeToString(hash));
+		return sb.toString();
+	}
+
+	@Override
+	public boolean isEqual(final String unhashedString, final String completeHash, byte[] pepper,
+			String hashseperator) {
+		String[] parts = completeHash.split("\\" + hashseperator); //$NON-NLS-1$
+		if (parts.length == 2) {
+			// created by SHA256Util
+			return SHA256Util.getInstance().isEqual(unhashedString, completeHash, pepper, hashseperator);
+		}
+		if (parts.length != 4 || !PREFIX.equals(parts[0]) || !InputVerifyUtil.isInteger(parts[1])) {
+			return false;
+		}
+
+		try {
+			int hashIterations = Integer.parseInt(parts[1]);
+			byte[] salt = Base64.getDecoder().decode(parts[2]);
+			byte[] expected = Base64.getDecoder().decode(parts[3]);
+			if (hashIterations <= 0) {
+				return false;
+			}
+
+			byte[] actual = pbkdf2(unhashedString, salt, pepper, hashIterations);
+			return MessageDigest.isEqual(actual, expected); // constant time
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns <code>true</code>, if the hash wasn't created by this util or with
+	 * less iterations than {@link #getIterations()}
+	 */
+	@Override
+	public boolean needsRehash(String completeHash, String hashseperator) {
+		String[] parts = completeHash.split("\\" + hashseperator); //$NON-NLS-1$
+		if (parts.length != 4 || !PREFIX.equals(parts[0]) || !InputVerifyUtil.isInteger(parts[1])) {
+			return true;
+		}
+		return Integer.parseInt(parts[1]) < this.iterations;
+	}
+
+	/**
+	 * Hashes the text with the salt and pepper. The iterations are computed here
+	 * (instead of by {@link SecretKeyFactory}), so hashing stops, when the thread
+	 * is interrupted (e.g. after a verification timed out, see
+	 * {@link HashVerificationPool#verify(String, String)}). The result is the same
+	 * as of {@value #ALGORITHM}.
+	 *
+	 * @param unhashed   unhashed {@link String}
+	 * @param salt       salt
+	 * @param pepper     pepper (appended to the salt)
+	 * @param iterations number of iterations
+	 * @return hash
+	 * @throws IllegalStateException if the thread was interrupted
+	 */
+	private static byte[] pbkdf2(String unhashed, byte[] salt, byte[] pepper, int iterations)
+			throws IllegalStateException {
+		byte[] saltWithPepper = new byte[salt.length + pepper.length];
+		System.arraycopy(salt, 0, saltWithPepper, 0, salt.length);
+		System.arraycopy(pepper, 0, saltWithPepper, salt.length, pepper.length);
+
+		byte[] password = unhashed.getBytes(StandardCharsets.UTF_8);
+		if (password.length == 0) { // not accepted as hmac key
+			return pbkdf2WithKeyFactory(unhashed, saltWithPepper, iterations);
+		}
+		try {
+			Mac mac = Mac.getInstance(MAC_ALGORITHM);
+			mac.init(new SecretKeySpec(password, MAC_ALGORITHM));
+
+			// one block, as the hash has the length of the mac
+			mac.update(saltWithPepper);
+			mac.update(FIRST_BLOCK);
+			byte[] u = mac.doFinal();
+			byte[] result = u.clone();
+			for (int i = 1; i < iterations; i++) {
+				if ((i & INTERRUPT_CHECK_MASK) == 0 && Thread.currentThread().isInterrupted()) {
+					throw new IllegalStateException("Hashing interrupted"); //$NON-NLS-1$
+				}
+				mac.update(u);
+				mac.doFinal(u, 0);
+				for (int j = 0; j < result.length; j++) {
+					result[j] ^= u[j];
+				}
+			}
+			return result;
+		} catch (GeneralSecurityException e) {
+			throw new RuntimeException(e.getMessage(), e);
+		} finally {
+			Arrays.fill(password, (byte) 0);
+		}
+	}
+
+	private static byte[] pbkdf2WithKeyFactory(String unhashed, byte[] saltWithPepper, int iterations) {
+		PBEKeySpec spec = new PBEKeySpec(unhashed.toCharArray(), saltWithPepper, iterations, HASH_LENGTH);
+		try {
+			return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+		} catch (GeneralSecurityException e) {
+			throw new RuntimeException(e.getMessage(), e);
+		} finally {
+			spec.clearPassword();
+		}
+	}
+}
@@ -91,16 +91,39 @@ public class PropertyUtil {
 	}
 
 	/**
-	 * Read property value and try to convert it to an integer. If value could not
-	 * be converted, the given default value is returned.
+	 * Read property value and try to convert it to an integer. If key was not
+	 * found or value could not be converted, the given default value is returned.
 	 *
 	 * @param key          Key
 	 * @param defaultValue default value
-	 * @return value as integer or the default value, if value could not be
-	 *         converted to an integer
+	 * @return value as integer or the default value, if key was not found or
+	 *         value could not be converted to an integer
 	 */
 	public int getIntProperty(@NonNull String key, int defaultValue) {
-		String value = this.getProperty(key);
+		String value = this.getProperty(key, null);
 		return (InputVerifyUtil.isInteger(value) ? Integer.parseInt(value) : defaultValue);
 	}
+
+	/**
+	 * Read property value and try to convert it to a boolean ("true" or "false",
+	 * case insensitive). If key was not found or value could not be converted,
+	 * the given default value is returned.
+	 *
+	 * @param key          Key
+	 * @param defaultValue default value
+	 * @return value as boolean or the default value, if key was not found or
+	 *         value could not be converted to a boolean
+	 */
+	public boolean getBooleanProperty(@NonNull String key, boolean defaultValue) {
+		String value = this.getProperty(key, null);
+		if (value != null) {
+			value = value.trim();
+			if ("true".equalsIgnoreCase(value)) { //$NON-NLS-1$
+				return true;
+			} else if ("false".equalsIgnoreCase(value)) { //$NON-NLS-1$
+				return false;
+			}
+		}
+		return defaultValue;
+	}
 }
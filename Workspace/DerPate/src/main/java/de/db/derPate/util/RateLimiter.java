@@ -0,0 +1,206 @@
+package de.db.derPate.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+/**
+ * This rate limiter uses a token bucket per key (e.g. per ip address): every
+ * request takes a token, tokens are refilled at a constant rate up to the
+ * capacity of the bucket. So short bursts are allowed, but the long term rate
+ * is limited.<br>
+ * Buckets are only locked one at a time, so requests with different keys don't
+ * block each other. Buckets, that haven't been used for the time needed to
+ * refill them completely, are removed, as a new bucket would be the same. The
+ * number of buckets is limited; if it is exceeded and no bucket is idle, the
+ * least recently used bucket is removed, so new keys are limited as well.
+ *
+ * @author MichelBlank
+ *
+ */
+public class RateLimiter {
+	private final int capacity;
+	/**
+	 * Time in nanoseconds to refill one token
+	 */
+	private final long nanosPerToken;
+	/**
+	 * Time in nanoseconds, after which an unused bucket is full
+	 */
+	private final long idleNanos;
+	private final int maxBuckets;
+	@NonNull
+	private final LongSupplier clock;
+	@NonNull
+	private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+	@NonNull
+	private final AtomicBoolean sweeping = new AtomicBoolean();
+	@NonNull
+	private final AtomicLong lastSweep;
+	@NonNull
+	private final AtomicLong limitedCount = new AtomicLong();
+
+	/**
+	 * Constructor
+	 *
+	 * @param capacity        maximum number of requests in a burst
+	 * @param tokensPerMinute number of requests per minute in the long term
+	 * @param maxBuckets      maximum number of keys, that are tracked
+	 * @throws IllegalArgumentException if a value is not positive
+	 */
+	public RateLimiter(int capacity, int tokensPerMinute, int maxBuckets) throws IllegalArgumentException {
+		this(capacity, tokensPerMinute, maxBuckets, System::nanoTime);
+	}
+
+	/**
+	 * Constructor with a custom clock (for tests)
+	 *
+	 * @param capacity        maximum number of requests in a burst
+	 * @param tokensPerMinute number of requests per minute in the long term
+	 * @param maxBuckets      maximum number of keys, that are tracked
+	 * @param clock           returns the current time in nanoseconds
+	 * @throws IllegalArgumentException if a value is not positive
+	 */
+	RateLimiter(int capacity, int tokensPerMinute, int maxBuckets, @NonNull LongSupplier clock)
+			throws IllegalArgumentException {
+		if (capacity <= 0 || tokensPerMinute <= 0 || maxBuckets <= 0) {
+			throw new IllegalArgumentException("Rate limits have to be positive"); //$NON-NLS-1$
+		}
+		this.capacity = capacity;
+		this.nanosPerToken = TimeUnit.MINUTES.toNanos(1) / tokensPerMinute;
+		this.idleNanos = this.nanosPerToken * capacity;
+		this.maxBuckets = maxBuckets;
+		this.clock = clock;
+		this.lastSweep = new AtomicLong(clock.getAsLong());
+	}
+
+	/**
+	 * Takes a token out of the bucket of the given key, if there is one
+	 *
+	 * @param key key (e.g. ip address)
+	 * @return 0, if the request is allowed; otherwise the time in nanoseconds,
+	 *         until the next token is available
+	 */
+	public long tryAcquire(@NonNull String key) {
+		long now = this.clock.getAsLong();
+		if (now - this.lastSweep.get() > this.idleNanos) {
+			sweep(now);
+		}
+
+		Bucket bucket = this.buckets.get(key);
+		if (bucket == null) {
+			if (this.buckets.size() >= this.maxBuckets) {
+				sweep(now);
+				if (this.buckets.size() >= this.maxBuckets) {
+					evictLeastRecentlyUsed();
+				}
+			}
+			bucket = this.buckets.computeIfAbsent(key, k -> new Bucket(this.capacity, now));
+		}
+
+		long wait = bucket.tryAcquire(now);
+		if (wait > 0) {
+			this.limitedCount.incrementAndGet();
+		}
+		return wait;
+	}
+
+	/**
+	 * Returns the number of requests, that were limited
+	 *
+	 * @return number of limited requests
+	 */
+	public long getLimitedCount() {
+		return this.limitedCount.get();
+	}
+
+	/**
+	 * Returns the number of tracked keys
+	 *
+	 * @return number of buckets
+	 */
+	public int size() {
+		return this.buckets.size();
+	}
+
+	/**
+	 * Removes buckets, that are full again (only one thread sweeps at a time)
+	 *
+	 * @param now current time in nanoseconds
+	 */
+	private void sweep(long now) {
+		if (this.sweeping.compareAndSet(false, true)) {
+			try {
+				this.lastSweep.set(now);
+				this.buckets.values().removeIf(bucket -> bucket.isIdle(now, this.idleNanos));
+			} finally {
+				this.sweeping.set(false);
+			}
+		}
+	}
+
+	/**
+	 * Removes the bucket, that was used least recently. Its key starts with a full
+	 * bucket again, if it is used later on.
+	 */
+	private void evictLeastRecentlyUsed() {
+		String oldestKey = null;
+		Bucket oldest = null;
+		long oldestUse = Long.MAX_VALUE;
+		for (Map.Entry<String, Bucket> entry : this.buckets.entrySet()) {
+			long lastUse = entry.getValue().getLastRefill();
+			if (oldest == null || lastUse - oldestUse < 0) {
+				oldestKey = entry.getKey();
+				oldest = entry.getValue();
+				oldestUse = lastUse;
+			}
+		}
+		if (oldestKey != null && oldest != null) {
+			this.buckets.remove(oldestKey, oldest);
+		}
+	}
+
+	/**
+	 * Token bucket of a key
+	 */
+	private final class Bucket {
+		private double tokens;
+		private long lastRefill;
+
+		Bucket(int tokens, long now) {
+			this.tokens = tokens;
+			this.lastRefill = now;
+		}
+
+		synchronized long tryAcquire(long now) {
+			refill(now);
+			if (this.tokens >= 1) {
+				this.tokens--;
+				return 0;
+			}
+			return (long) ((1 - this.tokens) * RateLimiter.this.nanosPerToken);
+		}
+
+		synchronized boolean isIdle(long now, long idle) {
+			return now - this.lastRefill >= idle;
+		}
+
+		synchronized long getLastRefill() {
+			return this.lastRefill;
+		}
+
+		private void refill(long now) {
+			long elapsed = now - this.lastRefill;
+			if (elapsed > 0) {
+				this.tokens = Math.min(RateLimiter.this.capacity,
+						this.tokens + (double) elapsed / RateLimiter.this.nanosPerToken);
+				this.lastRefill = now;
+			}
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package de.db.derPate.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+/**
+ * This window remembers the nonces of used single-use tokens (see
+ * {@link CSRFTokenSigner}) until they expire, so a token can't be used twice.
+ * As expired tokens are rejected anyway, they are removed.<br>
+ * The number of remembered nonces is limited. If it is reached, expired nonces
+ * are removed first. If all remembered nonces are still valid, further tokens
+ * are rejected until the first of them expires: forgetting a valid nonce would
+ * allow to replay its token. So the limit has to be larger than the number of
+ * single-use tokens used within their lifetime.
+ *
+ * @author MichelBlank
+ *
+ */
+public final class ReplayWindow {
+	private final int maxEntries;
+	@NonNull
+	private final LongSupplier clock;
+	/**
+	 * Nonce -&gt; expiry in seconds
+	 */
+	@NonNull
+	private final ConcurrentHashMap<String, Long> used = new ConcurrentHashMap<>();
+	@NonNull
+	private final Object purgeLock = new Object();
+	/**
+	 * Earliest expiry of the remembered nonces in seconds (no nonce can be removed
+	 * before)
+	 */
+	@NonNull
+	private final AtomicLong nextExpiry = new AtomicLong(Long.MAX_VALUE);
+
+	/**
+	 * Constructor
+	 *
+	 * @param maxEntries maximum number of remembered nonces
+	 */
+	public ReplayWindow(int maxEntries) {
+		this(maxEntries, () -> System.currentTimeMillis() / 1000);
+	}
+
+	/**
+	 * Constructor with a custom clock (for tests)
+	 *
+	 * @param maxEntries maximum number of remembered nonces
+	 * @param clock      returns the current time in seconds
+	 */
+	ReplayWindow(int maxEntries, @NonNull LongSupplier clock) {
+		this.maxEntries = maxEntries;
+		this.clock = clock;
+	}
+
+	/**
+	 * Marks a nonce as used
+	 *
+	 * @param nonce  nonce of the token
+	 * @param expiry expiry of the token in seconds
+	 * @return <code>true</code>, if the nonce wasn't used before;
+	 *         <code>false</code>, if it was used or can't be remembered (all
+	 *         remembered nonces are still valid)
+	 */
+	public boolean markUsed(@NonNull String nonce, long expiry) {
+		if (this.used.size() >= this.maxEntries && !purge()) {
+			return false;
+		}
+		if (this.used.putIfAbsent(nonce, Long.valueOf(expiry)) != null) {
+			return false;
+		}
+		this.nextExpiry.accumulateAndGet(expiry, Math::min);
+		return true;
+	}
+
+	/**
+	 * Returns the number of remembered nonces
+	 *
+	 * @return number of nonces
+	 */
+	public int size() {
+		return this.used.size();
+	}
+
+	/**
+	 * Removes expired nonces. The nonces are only scanned, if one of them is
+	 * expired, so a full window of valid nonces rejects tokens without a scan.
+	 *
+	 * @return <code>true</code>, if there is space for another nonce
+	 */
+	private boolean purge() {
+		synchronized (this.purgeLock) {
+			if (this.used.size() < this.maxEntries) {
+				return true; // purged by another thread
+			}
+			long now = this.clock.getAsLong();
+			if (this.nextExpiry.get() > now) {
+				return false;
+			}
+			this.nextExpiry.set(Long.MAX_VALUE);
+			this.used.values().removeIf(expiry -> {
+				if (expiry.longValue() <= now) {
+					return true;
+				}
+				this.nextExpiry.accumulateAndGet(expiry.longValue(), Math::min);
+				return false;
+			});
+			return this.used.size() < this.maxEntries;
+		}
+	}
+}
@@ -8,7 +8,10 @@ import java.util.Random;
 
 /**
  * This util uses the SHA-265 algorithm to hash data.<br>
- * It implements the methods of {@link HashUtil}.
+ * It implements the methods of {@link HashUtil}. Every thread uses its own
+ * {@link MessageDigest}, so this util is thread-safe.<br>
+ * <b>Caution</b>: A single SHA-256 is fast to compute and therefore cheap to
+ * guess. Use {@link PBKDF2Util} for passwords.
  *
  * @author MichelBlank
  *
@@ -17,7 +20,7 @@ public class SHA256Util implements HashUtil {
 	private static SHA256Util instance;
 	private static final String ALGORITHM = "SHA-256"; //$NON-NLS-1$
 	private final Random RANDOM = new SecureRandom();
-	private final MessageDigest MESSAGEDIGEST;
+	private final ThreadLocal<MessageDigest> MESSAGEDIGEST;
 
 	/**
 	 * Constructor<br>
@@ -28,8 +31,20 @@ public class SHA256Util implements HashUtil {
 	 *                          not found
 	 */
 	private SHA256Util() {
+		createMessageDigest(); // fail early, if algorithm is missing
+		this.MESSAGEDIGEST = ThreadLocal.withInitial(SHA256Util::createMessageDigest);
+	}
+
+	/**
+	 * Creates a new {@link MessageDigest}
+	 *
+	 * @return {@link MessageDigest}
+	 * @throws RuntimeException gets thrown, when {@value SHA256Util#ALGORITHM} was
+	 *                          not found
+	 */
+	private static MessageDigest createMessageDigest() {
 		try {
-			this.MESSAGEDIGEST = MessageDigest.getInstance(ALGORITHM);
+			return MessageDigest.getInstance(ALGORITHM);
 		} catch (NoSuchAlgorithmException e) {
 			throw new RuntimeException(e.getMessage(), e);
 		}
@@ -121,12 +136,13 @@ public class SHA256Util implements HashUtil {
 		byte[] unhashedBytes = unhashed.getBytes();
 		String salt = bytesToBase64(saltBytes);
 
-		this.MESSAGEDIGEST.reset();
-		this.MESSAGEDIGEST.update(saltBytes);
+		MessageDigest messageDigest = this.MESSAGEDIGEST.get();
+		messageDigest.reset();
+		messageDigest.update(saltBytes);
 
 		byte[] unhashedWithPepper = combineBytes(unhashedBytes, pepper); // add pepper to input
 		byte[] unhashedWithPepperAndSalt = combineBytes(unhashedWithPepper, saltBytes);
-		byte[] hashedBytes = this.MESSAGEDIGEST.digest(unhashedWithPepperAndSalt); // hash
+		byte[] hashedBytes = messageDigest.digest(unhashedWithPepperAndSalt); // hash
 		String hash = bytesToBase64(hashedBytes);
 
 		return hashToBase64(hash, salt, hashseperator);
@@ -145,4 +161,9 @@ public class SHA256Util implements HashUtil {
 		}
 		return false;
 	}
+
+	@Override
+	public boolean needsRehash(String completeHash, String hashseperator) {
+		return completeHash.split("\\" + hashseperator).length != 2; //$NON-NLS-1$
+	}
 }
@@ -0,0 +1,112 @@
+package de.db.derPate.util;
+
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * This codec encrypts and authenticates small values (e.g. the login data of a
+ * cookie) with AES-GCM, so they can be given to the client, which can neither
+ * read nor modify them.<br>
+ * Format (URL-safe base64): random IV (12 bytes), ciphertext, tag (16
+ * bytes).<br>
+ * This codec is thread-safe.
+ *
+ * @author MichelBlank
+ *
+ */
+public final class SessionCookieCodec {
+	private static final String ALGORITHM = "AES"; //$NON-NLS-1$
+	private static final String TRANSFORMATION = "AES/GCM/NoPadding"; //$NON-NLS-1$
+	private static final int IV_LENGTH = 12;
+	private static final int TAG_LENGTH = 16;
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	@NonNull
+	private final SecretKeySpec key;
+	@NonNull
+	private final ThreadLocal<Cipher> cipher = ThreadLocal.withInitial(() -> {
+		try {
+			return Cipher.getInstance(TRANSFORMATION);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e); // AES/GCM is available in every JRE
+		}
+	});
+
+	/**
+	 * Constructor
+	 *
+	 * @param key AES key (32 bytes)
+	 * @throws IllegalArgumentException if the key doesn't have 32 bytes
+	 */
+	public SessionCookieCodec(byte[] key) throws IllegalArgumentException {
+		if (key.length != 32) {
+			throw new IllegalArgumentException("Key has to have 32 bytes"); //$NON-NLS-1$
+		}
+		this.key = new SecretKeySpec(key, ALGORITHM);
+	}
+
+	/**
+	 * Encrypts the given value
+	 *
+	 * @param plaintext value
+	 * @return encrypted value (URL-safe, can be used as cookie value)
+	 */
+	@SuppressWarnings("null")
+	@NonNull
+	public String encode(byte[] plaintext) {
+		byte[] iv = new byte[IV_LENGTH];
+		RANDOM.nextBytes(iv);
+		try {
+			Cipher instance = this.cipher.get();
+			instance.init(Cipher.ENCRYPT_MODE, this.key, new GCMParameterSpec(TAG_LENGTH * 8, iv));
+			byte[] result = Arrays.copyOf(iv, IV_LENGTH + instance.getOutputSize(plaintext.length));
+			instance.doFinal(plaintext, 0, plaintext.length, result, IV_LENGTH);
+			return ENCODER.encodeToString(result);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Decrypts a value, that was encrypted by {@link #encode(byte[])} with the same
+	 * key
+	 *
+	 * @param encoded encrypted value
+	 * @return value or <code>null</code>, if it was modified, encrypted with
+	 *         another key or is no encrypted value
+	 */
+	@Nullable
+	public byte[] decode(@Nullable String encoded) {
+		if (encoded == null) {
+			return null;
+		}
+		byte[] bytes;
+		try {
+			bytes = DECODER.decode(encoded);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+		if (bytes.length < IV_LENGTH + TAG_LENGTH) {
+			return null;
+		}
+
+		try {
+			Cipher instance = this.cipher.get();
+			instance.init(Cipher.DECRYPT_MODE, this.key, new GCMParameterSpec(TAG_LENGTH * 8, bytes, 0, IV_LENGTH));
+			return instance.doFinal(bytes, IV_LENGTH, bytes.length - IV_LENGTH);
+		} catch (GeneralSecurityException e) {
+			return null; // tag doesn't match
+		}
+	}
+}
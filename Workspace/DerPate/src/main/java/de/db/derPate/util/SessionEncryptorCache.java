@@ -0,0 +1,99 @@
+package de.db.derPate.util;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+/**
+ * This cache stores the {@link EncryptionUtil}s of the session bound
+ * encryption (see {@link URIParameterEncryptionUtil#encrypt(String,
+ * javax.servlet.http.HttpSession, de.db.derPate.model.LoginUser)}).<br>
+ * Creating an {@link AES256EncryptionUtil} derives the secret key from the
+ * password and salt, which is expensive on purpose. With this cache, the key is
+ * derived once per session and user, instead of once per encrypted value.<br>
+ * The number of cached sessions is limited; if it is exceeded, the session
+ * used least recently is removed. Sessions should be removed, when they are
+ * destroyed (see {@link de.db.derPate.listener.SessionEncryptorListener}).
+ *
+ * @author MichelBlank
+ *
+ */
+public final class SessionEncryptorCache {
+	private final int maxSessions;
+	/**
+	 * Session id -&gt; (salt -&gt; encryptor), ordered by last access
+	 */
+	@NonNull
+	private final LinkedHashMap<String, Map<String, EncryptionUtil>> sessions;
+
+	/**
+	 * Constructor
+	 *
+	 * @param maxSessions maximum number of sessions, whose encryptors are cached
+	 */
+	public SessionEncryptorCache(int maxSessions) {
+		this.maxSessions = maxSessions;
+		this.sessions = new LinkedHashMap<String, Map<String, EncryptionUtil>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Entry<String, Map<String, EncryptionUtil>> eldest) {
+				return size() > SessionEncryptorCache.this.maxSessions;
+			}
+		};
+	}
+
+	/**
+	 * Returns the encryptor for the given session id (used as password) and salt.
+	 * If it isn't cached yet, it is created and cached.
+	 *
+	 * @param sessionId id of the session
+	 * @param salt      hex-encoded salt (see
+	 *                  {@link AES256EncryptionUtil#AES256EncryptionUtil(String, String)})
+	 * @return {@link EncryptionUtil}
+	 */
+	@NonNull
+	public EncryptionUtil get(@NonNull String sessionId, @NonNull String salt) {
+		EncryptionUtil encryptor;
+		synchronized (this.sessions) {
+			Map<String, EncryptionUtil> encryptors = this.sessions.get(sessionId);
+			encryptor = encryptors != null ? encryptors.get(salt) : null;
+		}
+		if (encryptor != null) {
+			return encryptor;
+		}
+
+		// derive key without blocking other sessions
+		EncryptionUtil created = new AES256EncryptionUtil(sessionId, salt);
+		synchronized (this.sessions) {
+			Map<String, EncryptionUtil> encryptors = this.sessions.computeIfAbsent(sessionId, id -> new HashMap<>(2));
+			encryptor = encryptors.putIfAbsent(salt, created);
+		}
+		return encryptor != null ? encryptor : created;
+	}
+
+	/**
+	 * Removes the encryptors of a session
+	 *
+	 * @param sessionId id of the session
+	 */
+	public void remove(@NonNull String sessionId) {
+		synchronized (this.sessions) {
+			this.sessions.remove(sessionId);
+		}
+	}
+
+	/**
+	 * Returns the number of sessions, whose encryptors are cached
+	 *
+	 * @return number of sessions
+	 */
+	public int size() {
+		synchronized (this.sessions) {
+			return this.sessions.size();
+		}
+	}
+}
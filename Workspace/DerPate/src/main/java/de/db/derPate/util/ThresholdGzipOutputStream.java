@@ -0,0 +1,217 @@
+package de.db.derPate.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * This stream compresses its content with gzip, if it is larger than a
+ * threshold. Only the first bytes up to the threshold are buffered: as soon as
+ * the threshold is exceeded, the compression is started and everything else is
+ * streamed to the {@link Target}. If the stream is closed before, the buffered
+ * bytes are written uncompressed.<br>
+ * {@link #flush()} doesn't write the buffered bytes, as long as it isn't
+ * decided, whether the content is compressed (the content may still exceed the
+ * threshold). After that, it flushes the compressed data written so far (sync
+ * flush), so a client can process streamed content.<br>
+ * This class is not thread-safe.
+ *
+ * @author MichelBlank
+ * @see CompressionUtil
+ */
+public class ThresholdGzipOutputStream extends OutputStream {
+	/**
+	 * Size of the buffer of the {@link GZIPOutputStream}
+	 */
+	private static final int GZIP_BUFFER_SIZE = 8192;
+
+	/**
+	 * The target of a {@link ThresholdGzipOutputStream}, which decides about the
+	 * compression (e.g. a http response)
+	 */
+	public interface Target {
+		/**
+		 * Called once, when the content exceeds the threshold
+		 *
+		 * @return the stream to write the compressed content to or <code>null</code>,
+		 *         if the content must not be compressed
+		 * @throws IOException if the stream can't be opened
+		 */
+		@Nullable
+		OutputStream startCompressed() throws IOException;
+
+		/**
+		 * Called once, when the content is written uncompressed
+		 *
+		 * @param length length of the whole content or -1, if it is not known yet
+		 * @return the stream to write the content to
+		 * @throws IOException if the stream can't be opened
+		 */
+		@NonNull
+		OutputStream startUncompressed(long length) throws IOException;
+	}
+
+	@NonNull
+	private final Target target;
+	private final int threshold;
+
+	@Nullable
+	private byte[] buffer;
+	private int count;
+	@Nullable
+	private OutputStream out;
+	private boolean compressed;
+	private boolean closed;
+
+	/**
+	 * Constructor
+	 *
+	 * @param target    the {@link Target}
+	 * @param threshold minimum size of content in bytes, that is compressed
+	 */
+	public ThresholdGzipOutputStream(@NonNull Target target, int threshold) {
+		this.target = target;
+		this.threshold = Math.max(threshold, 0);
+		this.buffer = new byte[Math.min(this.threshold, GZIP_BUFFER_SIZE)];
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		this.write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (this.closed) {
+			throw new IOException("Stream closed"); //$NON-NLS-1$
+		}
+		OutputStream current = this.out;
+		if (current == null) {
+			if (this.count + len <= this.threshold) {
+				this.buffer(b, off, len);
+				return;
+			}
+			current = this.start(true);
+		}
+		current.write(b, off, len);
+	}
+
+	/**
+	 * Adds the bytes to the buffer and enlarges it, if needed (up to the
+	 * threshold)
+	 *
+	 * @param b   bytes
+	 * @param off offset
+	 * @param len number of bytes
+	 */
+	@SuppressWarnings("null")
+	private void buffer(byte[] b, int off, int len) {
+		byte[] current = this.buffer;
+		if (this.count + len > current.length) {
+			byte[] enlarged = new byte[Math.min(Math.max(current.length * 2, this.count + len), this.threshold)];
+			System.arraycopy(current, 0, enlarged, 0, this.count);
+			current = enlarged;
+			this.buffer = current;
+		}
+		System.arraycopy(b, off, current, this.count, len);
+		this.count += len;
+	}
+
+	/**
+	 * Decides about the compression and writes the buffered bytes
+	 *
+	 * @param large <code>true</code>, if the content exceeds the threshold
+	 * @return the stream to write the content to
+	 * @throws IOException if the stream of the {@link Target} fails
+	 */
+	@SuppressWarnings("null")
+	@NonNull
+	private OutputStream start(boolean large) throws IOException {
+		OutputStream compressedStream = large ? this.target.startCompressed() : null;
+		OutputStream started;
+		if (compressedStream != null) {
+			started = new GZIPOutputStream(compressedStream, GZIP_BUFFER_SIZE, true);
+			this.compressed = true;
+		} else {
+			started = this.target.startUncompressed(large ? -1 : this.count);
+		}
+		started.write(this.buffer, 0, this.count);
+		this.buffer = null;
+		this.out = started;
+		return started;
+	}
+
+	/**
+	 * Decides about the compression by the length of the whole content, before it
+	 * is written (e.g. if the length was set by the writer). Has no effect, if it
+	 * is already decided.
+	 *
+	 * @param length length of the whole content in bytes
+	 * @throws IOException if the stream of the {@link Target} fails
+	 */
+	public void expectLength(long length) throws IOException {
+		if (this.out == null && !this.closed) {
+			this.start(length > this.threshold);
+		}
+	}
+
+	/**
+	 * Discards the buffered bytes
+	 *
+	 * @throws IllegalStateException if the content was already started to be
+	 *                               written to the {@link Target}
+	 */
+	public void reset() {
+		if (this.out != null) {
+			throw new IllegalStateException("Content already written"); //$NON-NLS-1$
+		}
+		this.count = 0;
+	}
+
+	/**
+	 * Returns, whether it is decided, if the content is compressed
+	 *
+	 * @return <code>true</code>, if the content is written to the {@link Target}
+	 */
+	public boolean isStarted() {
+		return this.out != null;
+	}
+
+	/**
+	 * Returns, whether the content is compressed
+	 *
+	 * @return <code>true</code>, if the content exceeded the threshold and the
+	 *         {@link Target} accepted compressed content
+	 */
+	public boolean isCompressed() {
+		return this.compressed;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		OutputStream current = this.out;
+		if (current != null) {
+			current.flush();
+		}
+	}
+
+	/**
+	 * Writes the buffered bytes (uncompressed) or finishes the compression and
+	 * closes the stream of the {@link Target}
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		OutputStream current = this.out;
+		if (current == null) {
+			current = this.start(false);
+		}
+		this.closed = true;
+		current.close();
+	}
+}
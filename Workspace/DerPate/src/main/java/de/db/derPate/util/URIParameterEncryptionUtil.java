@@ -24,9 +24,20 @@ public class URIParameterEncryptionUtil {
 	private static String DEFAULT_PASSWORD = Constants.Security.ENCRYPTION_AES256_PASSWORD;
 	@NonNull
 	private static String DEFAULT_SALT = Constants.Security.ENCRYPTION_AES256_SALT;
+	@NonNull
+	private static final SessionEncryptorCache sessionEncryptors = new SessionEncryptorCache(
+			Constants.Security.ENCRYPTION_SESSION_CACHE_SIZE);
+
+	/**
+	 * Maximum length of a value, whose decryption is cached
+	 */
+	private static final int MAX_CACHED_VALUE_LENGTH = 512;
 
 	static {
-		defaultEncrypter = new AES256EncryptionUtil(DEFAULT_PASSWORD, DEFAULT_SALT);
+		defaultEncrypter = new CachingDecryptionUtil(new AES256EncryptionUtil(DEFAULT_PASSWORD, DEFAULT_SALT),
+				Constants.Security.ENCRYPTION_DECRYPT_CACHE_SIZE,
+				Constants.Security.ENCRYPTION_DECRYPT_CACHE_INVALID_SIZE,
+				Constants.Security.ENCRYPTION_DECRYPT_CACHE_MAX_AGE_SECONDS, MAX_CACHED_VALUE_LENGTH);
 	}
 
 	/**
@@ -44,18 +55,18 @@ public class URIParameterEncryptionUtil {
 	}
 
 	/**
-	 * Returns a hexadecimal representation of the (with global password and salt)
-	 * AES256 encrypted int value.<br>
+	 * Returns the encoded int value (e.g. an id, see {@link IdCodec}). The same
+	 * value is always encoded to the same {@link String}, so it can be cached.<br>
 	 * This encryption method should be used, when links are visible to the user.
 	 * The user may copy this link and use it some time later.
 	 *
 	 * @param parameterValue the int value of the parameter to encrypt
-	 * @return the encrypted value (hex {@link String})
+	 * @return the encoded value (URL-safe {@link String})
+	 * @see #decryptToInteger(String)
 	 */
-	@SuppressWarnings("null")
 	@NonNull
 	public static String encrypt(int parameterValue) {
-		return defaultEncrypter.encrypt(Integer.toString(parameterValue));
+		return IdCodec.getInstance().encode(parameterValue);
 	}
 
 	/**
@@ -71,28 +82,17 @@ public class URIParameterEncryptionUtil {
 	 * @param user           the {@link LoginUser}.
 	 * @return the encrypted value
 	 */
-	@SuppressWarnings("null")
 	@NonNull
 	public static String encrypt(@NonNull String parameterValue, @NonNull final HttpSession session,
 			@Nullable LoginUser user) {
-		String encryptionPassword = session.getId();
-		String salt = DEFAULT_SALT;
-		if (user != null) {
-			salt += Integer.toHexString(user.getId());
-		}
-
-		if (salt.length() % 2 != 0) {
-			// if salt has not a even number of characters, make it even by appending a "0"
-			// (see AES256EncryptionUtil#encrypt)
-			salt = "0" + salt; //$NON-NLS-1$
-		}
-
-		return AES256EncryptionUtil.encrypt(encryptionPassword, salt, parameterValue);
+		return sessionEncryptor(session, user).encrypt(parameterValue);
 	}
 
 	/**
 	 * Returns the decrypted AES256 value (represented in a base64 format). It must
-	 * have been encrypted with the global password and salt.
+	 * have been encrypted with the global password and salt.<br>
+	 * The results are cached (see {@link CachingDecryptionUtil}), so values sent
+	 * again and again are only decrypted once.
 	 *
 	 * @param parameterValue the received value of the parameter
 	 * @return the decrypted value or <code>null</code>, if parameterValue is
@@ -136,9 +136,10 @@ public class URIParameterEncryptionUtil {
 	}
 
 	/**
-	 * Decryptes the given {@link String}, checks if the result is an integer and
-	 * parses it. If given {@link String} is <code>null</code> or not a number,
-	 * <code>null</code> is returned
+	 * Decodes an int value, that was encrypted with {@link #encrypt(int)}. Values
+	 * encrypted with {@link #encrypt(String)} (hex, e.g. in links created before
+	 * the {@link IdCodec} was used) are still decrypted. If given {@link String} is
+	 * <code>null</code> or no encoded int value, <code>null</code> is returned
 	 *
 	 * @param parameterValue received value
 	 * @return decrypted integer or <code>null</code>, if parameterValue was null or
@@ -146,14 +147,57 @@ public class URIParameterEncryptionUtil {
 	 */
 	@Nullable
 	public static Integer decryptToInteger(@Nullable String parameterValue) {
-		Integer result = null;
+		Integer result = IdCodec.getInstance().decode(parameterValue);
+		if (result == null && parameterValue != null && isHex(parameterValue)) {
+			result = NumberUtil.parseInteger(decrypt(parameterValue));
+		}
+		return result;
+	}
 
-		if (parameterValue != null) {
-			String decrypted = decrypt(parameterValue);
-			result = NumberUtil.parseInteger(decrypted);
+	/**
+	 * Checks, if the value could have been encrypted with {@link #encrypt(String)}
+	 * (a hex {@link String} of an even length)
+	 *
+	 * @param value value
+	 * @return <code>true</code>, if hex
+	 */
+	private static boolean isHex(@NonNull String value) {
+		if (value.isEmpty() || value.length() % 2 != 0) {
+			return false;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			if (Character.digit(value.charAt(i), 16) < 0) {
+				return false;
+			}
 		}
+		return true;
+	}
 
-		return result;
+	/**
+	 * Takes a Array of int values encrypted with {@link #encrypt(int)} and returns
+	 * those, who could get decrypted.<br>
+	 * Useful for the evaluation of http parameters (e.g. for checkboxes).<br>
+	 * Returns <code>null</code>, if parameterValues was null or no value could get
+	 * decrypted.
+	 *
+	 * @param parameterValues the received values
+	 * @return a {@link List} of the decrypted values or <code>null</code>, if
+	 *         parameterValues was null or no value could get decrypted
+	 */
+	@Nullable
+	public static List<Integer> decryptToIntegers(@Nullable String[] parameterValues) {
+		List<Integer> decryptedValues = new ArrayList<>();
+
+		if (parameterValues != null) {
+			for (String parameterValue : parameterValues) {
+				Integer decryptedValue = decryptToInteger(parameterValue);
+				if (decryptedValue != null) {
+					decryptedValues.add(decryptedValue);
+				}
+			}
+		}
+
+		return decryptedValues.size() > 0 ? decryptedValues : null;
 	}
 
 	/**
@@ -168,11 +212,36 @@ public class URIParameterEncryptionUtil {
 	 * @param user
 	 * @return the decrypted value
 	 */
-	@SuppressWarnings("null")
 	@Nullable
 	public static String decrypt(@NonNull String parameterValue, @NonNull final HttpSession session,
 			@Nullable LoginUser user) {
-		String encryptionPassword = session.getId();
+		return sessionEncryptor(session, user).decrypt(parameterValue);
+	}
+
+	/**
+	 * Removes the cached encryptors of the session bound encryption. Should be
+	 * called, when the session is destroyed.
+	 *
+	 * @param session the destroyed {@link HttpSession}
+	 * @see SessionEncryptorCache
+	 */
+	@SuppressWarnings("null")
+	public static void removeSessionEncryptors(@NonNull HttpSession session) {
+		sessionEncryptors.remove(session.getId());
+	}
+
+	/**
+	 * Returns the (cached) encryptor using the {@link HttpSession#getId()} as
+	 * password and the {@link #DEFAULT_SALT} (with the id of the {@link LoginUser}
+	 * appended, if set) as salt
+	 *
+	 * @param session the {@link HttpSession} the client is using
+	 * @param user    the {@link LoginUser}
+	 * @return {@link EncryptionUtil}
+	 */
+	@SuppressWarnings("null")
+	@NonNull
+	private static EncryptionUtil sessionEncryptor(@NonNull HttpSession session, @Nullable LoginUser user) {
 		String salt = DEFAULT_SALT;
 		if (user != null) {
 			salt += Integer.toHexString(user.getId());
@@ -184,6 +253,6 @@ public class URIParameterEncryptionUtil {
 			salt = "0" + salt; //$NON-NLS-1$
 		}
 
-		return AES256EncryptionUtil.decrypt(encryptionPassword, salt, parameterValue);
+		return sessionEncryptors.get(session.getId(), salt);
 	}
 }
@@ -1,15 +1,17 @@
-<!DOCTYPE html>
+<%@ page session="false" import="de.db.derPate.Constants, de.db.derPate.servlet.filter.StaticAssetFilter" %><!DOCTYPE html>
 <html lang="de">
+	<%-- the version changes the urls of the assets with every build, so they can be cached forever --%>
+	<% String assetVersion = StaticAssetFilter.PARAM_VERSION + "=" + Constants.Cache.ASSET_VERSION; %>
 	<head>
 		<title>DerPate</title>
-		<link rel="shortcut icon" type="image/x-icon" href="<%=request.getContextPath() %>/include/images/favicon.ico"  />
+		<link rel="shortcut icon" type="image/x-icon" href="<%=request.getContextPath() %>/include/images/favicon.ico?<%=assetVersion %>"  />
 		<meta charset="utf-8">
 		<meta name="viewport" content="width=device-width, initial-scale=1" />
 		<link rel="stylesheet" type="text/css"
-			href="include/bootstrap/css/bootstrap.min.css" />
-		<link rel="stylesheet" type="text/css" href="include/css/styles.css" />
-		<link rel="stylesheet" type="text/css" href="include/css/footer.css" />
-		<script src="include/bootstrap/js/jquery-3.3.1.min.js"></script>
-		<script src="include/bootstrap/js/popper.min.js"></script>
-		<script src="include/bootstrap/js/bootstrap.min.js"></script>
+			href="include/bootstrap/css/bootstrap.min.css?<%=assetVersion %>" />
+		<link rel="stylesheet" type="text/css" href="include/css/styles.css?<%=assetVersion %>" />
+		<link rel="stylesheet" type="text/css" href="include/css/footer.css?<%=assetVersion %>" />
+		<script src="include/bootstrap/js/jquery-3.3.1.min.js?<%=assetVersion %>"></script>
+		<script src="include/bootstrap/js/popper.min.js?<%=assetVersion %>"></script>
+		<script src="include/bootstrap/js/bootstrap.min.js?<%=assetVersion %>"></script>
 	</head>
\ No newline at end of file
@@ -1,5 +1,6 @@
 <%@ page
 	isErrorPage="true"
+	session="false"
 	contentType="text/html"
 	pageEncoding="UTF-8"
 	import="org.apache.http.impl.EnglishReasonPhraseCatalog" %>
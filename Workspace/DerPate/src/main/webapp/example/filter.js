@@ -2,20 +2,31 @@
 
 $(document).ready(function () {
 	var submitButton = $("#filtering-form-submit");
+	var loadMoreButton = $("#load-more");
+	var filterData = null; // serialized filter of the current list
+	var nextCursor = null; // cursor of the next page or null, if there is none
+	var loading = false;
 	
-	$("#filtering-form").submit(function (e) {
-		e.preventDefault();
-		
+	function loadGodfathers() {
+		if (loading) {
+			return;
+		}
+		loading = true;
 		$(submitButton).prop("disabled", true);
+		$(loadMoreButton).prop("disabled", true);
+		
+		var data = filterData;
+		if (nextCursor !== null) {
+			data += "&cursor=" + encodeURIComponent(nextCursor);
+		}
 		
-		$("#async-results").empty();
 		$.ajax({
 			url: '../godfather',
 			method: 'GET',
-			data: $(this).serialize(),
+			data: data,
 			dataType: 'json',
 			success: function (data, textStatus, jqXHR) {
-				var godfathers = data;
+				var godfathers = data["godfathers"];
 				$.each(godfathers, function (index, godfather) {
 					// for each godfather
 					var id = godfather["id"];
@@ -44,18 +55,46 @@ $(document).ready(function () {
 					
 				});
 				
+				nextCursor = data["next"] !== undefined ? data["next"] : null;
+				$(loadMoreButton).toggleClass("default", nextCursor === null);
 			},
 			error: function (jqXHR, textStatus, errorThrown) {
 				
 			},
 			complete: function() {
+				loading = false;
 				$(submitButton).prop("disabled", false);
+				$(loadMoreButton).prop("disabled", false);
 			}
 		});
+	}
+	
+	$("#filtering-form").submit(function (e) {
+		e.preventDefault();
+		
+		// start a new list
+		$("#async-results").empty();
+		$(loadMoreButton).addClass("default");
+		filterData = $(this).serialize();
+		nextCursor = null;
+		loadGodfathers();
 		
 		return false;
 	});
 	
+	$(loadMoreButton).click(function () {
+		if (nextCursor !== null) {
+			loadGodfathers();
+		}
+	});
+	
+	$(window).scroll(function () {
+		// load the next page, when the end of the list is reached
+		if (nextCursor !== null && $(window).scrollTop() + $(window).height() >= $(document).height() - 200) {
+			loadGodfathers();
+		}
+	});
+	
 	$("#async-results").on("submit", ".godfahter-card-select-form", function (e) {
 		e.preventDefault();
 		
@@ -77,6 +116,12 @@ $(document).ready(function () {
 				}else if(e.status == 500) {
 					// internal error
 					alert("Internal error");
+				}else if(e.status == 409 && e.responseText && e.responseText.indexOf("Trainee already has a godfather") >= 0) {
+					// trainee selected a godfather before
+					alert("You already have a godfather");
+				}else if(e.status == 409) {
+					// godfather has no free slot left
+					alert("Godfather not available anymore");
 				}else if(e.status == 400) {
 					// bad request
 					alert("Bad request");
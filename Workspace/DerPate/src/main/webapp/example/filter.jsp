@@ -1,5 +1,5 @@
 <%@page
-	contentType="text/html" pageEncoding="UTF-8"
+	contentType="text/html" pageEncoding="UTF-8" session="false"
 	import="de.db.derPate.CSRFForm"
 	import="de.db.derPate.servlet.traineeOnly.GodfatherServlet"
 	import="de.db.derPate.servlet.traineeOnly.GodfatherSelectServlet"
@@ -12,6 +12,7 @@
 	import="de.db.derPate.persistence.JobDao"
 	import="org.eclipse.jdt.annotation.NonNull"
 	import="de.db.derPate.persistence.GodfatherDao"
+	import="de.db.derPate.persistence.GodfatherSort"
 	import="de.db.derPate.model.Job"
 	import="de.db.derPate.Constants"
 	import="java.util.List"
@@ -99,6 +100,12 @@
 							</ul>
 						</div>
 						
+						<select class="custom-select" name="<%= GodfatherServlet.PARAM_SORT %>">
+							<option value="<%= GodfatherSort.DEFAULT.getParameterValue() %>">Freie Pl&auml;tze</option>
+							<option value="<%= GodfatherSort.AGE.getParameterValue() %>">Alter</option>
+							<option value="<%= GodfatherSort.EDUCATIONAL_YEAR.getParameterValue() %>">Lehrjahr</option>
+						</select>
+						
 						<input class="btn btn-secondary" id="filtering-form-submit" type="submit" value="Suchen" />
 					</div>
 				</form>
@@ -122,7 +129,7 @@
 					</div>
 					<div class="card-footer">
 						<form class="godfahter-card-select-form" action="../godfatherSelect" method="POST">
-							<input type="hidden" class="godfather-card-select-csrf" name="<%= CSRFPreventionUtil.FIELD_NAME %>" value="<%= CSRFPreventionUtil.generateToken(session, CSRFForm.TRAINEE_SELECT_GODFATHER) %>" />
+							<input type="hidden" class="godfather-card-select-csrf" name="<%= CSRFPreventionUtil.FIELD_NAME %>" value="<%= CSRFPreventionUtil.generateToken(request, response, CSRFForm.TRAINEE_SELECT_GODFATHER) %>" />
 							<input type="hidden" class="godfather-card-select-id" name="<%= GodfatherSelectServlet.PARAM_GODFAHTER_ID %>" value="">
 							<input type="submit" class="btn godfather-card-select-btn" value="Als Paten ausw&auml;hlen"/>
 						</form>
@@ -132,6 +139,9 @@
 				<div id="async-results">
 				
 				</div>
+				<div class="text-center load-more">
+					<button type="button" class="btn btn-secondary default" id="load-more">Weitere Paten laden</button>
+				</div>
 			</div>
 		</div>
 	</body>
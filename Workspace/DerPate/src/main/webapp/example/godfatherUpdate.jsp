@@ -1,4 +1,4 @@
-<%@page contentType="text/html" pageEncoding="UTF-8"
+<%@page contentType="text/html" pageEncoding="UTF-8" session="false"
 		import="de.db.derPate.model.Godfather"
 		import="de.db.derPate.manager.LoginManager"
 		import="de.db.derPate.servlet.godfatherOnly.GodfatherUpdateServlet"
@@ -10,15 +10,10 @@
 		import="de.db.derPate.model.Location"
 		import="de.db.derPate.util.URIParameterEncryptionUtil"
 		import="de.db.derPate.model.Job"
-		import="de.db.derPate.persistence.JobDao"
-		import="de.db.derPate.persistence.GodfatherDao" %>
+		import="de.db.derPate.persistence.JobDao" %>
 <% 
-// FIXME find better solution
-Godfather sessionGodfather = LoginManager.getInstance().getUserBySession(session);
-if(sessionGodfather == null) return;
-Godfather godfather = GodfatherDao.getInstance().byId(sessionGodfather.getId()); // always use up to date godfather, as maxTrainees will be displayed
-if(godfather == null) return;
-LoginManager.getInstance().update(session, godfather); // update session %>
+Godfather godfather = LoginManager.getInstance().getUser(request); // always up to date, as it is loaded on demand
+if(godfather == null) return; %>
 <!DOCTYPE html>
 <html>
 	<head>
@@ -74,7 +69,7 @@ LoginManager.getInstance().update(session, godfather); // update session %>
 						<textarea class="form-control" name="<%= GodfatherUpdateServlet.PARAMETER_PICKTEXT %>" rows="3" placeholder="Ich freue mich, dass Du dich für mich entschieden hast! ..." ><%= godfather.getPickText() %></textarea>
 						<div class="invalid-feedback">Hier stimmt etwas nicht. Maximal 500 Zeichen sind erlaubt. Unicodeblock Smileys sind nicht zulässig.</div>
 					</div>
-					<input type="hidden" name="<%= CSRFPreventionUtil.FIELD_NAME %>" value="<%= CSRFPreventionUtil.generateToken(session, CSRFForm.GODFATHER_UPDATE_SELF) %>" />
+					<input type="hidden" name="<%= CSRFPreventionUtil.FIELD_NAME %>" value="<%= CSRFPreventionUtil.generateToken(request, response, CSRFForm.GODFATHER_UPDATE_SELF) %>" />
 					<button type="submit" class="btn btn-secondary">
 						<span class="spinner-border spinner-border-sm" role="status" aria-hidden="true"></span>
 						Daten &auml;ndern
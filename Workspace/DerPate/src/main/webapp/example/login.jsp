@@ -1,12 +1,17 @@
 <%@page
-	contentType="text/html" pageEncoding="UTF-8"
+	contentType="text/html" pageEncoding="UTF-8" session="false"
 	import="de.db.derPate.util.CSRFPreventionUtil"
 	import="de.db.derPate.manager.LoginManager"
 	import="de.db.derPate.servlet.LoginServlet"
 	import="de.db.derPate.servlet.filter.CSRFServletFilter"
+	import="de.db.derPate.servlet.filter.RateLimitServletFilter"
 	import="de.db.derPate.CSRFForm"
 	import="de.db.derPate.util.URIParameterEncryptionUtil"
 %>
+<% // generated before any output, as it might set a cookie
+String loginToken = CSRFPreventionUtil.generateToken(request, response, CSRFForm.LOGIN);
+String logoutToken = LoginManager.getInstance().isLoggedIn(request)
+		? CSRFPreventionUtil.generateTokenForGETParameter(request, response, CSRFForm.LOGOUT) : null; %>
 <!DOCTYPE html>
 <html>
 	<head>
@@ -47,6 +52,10 @@
 							if(e.status === <%= LoginServlet.SC_ALREADY_LOGGED_IN %>) {
 								// already logged in
 								alert("Already logged in");	
+							}else
+							if(e.status === <%= LoginServlet.SC_LOGIN_BUSY %> || e.status === <%= RateLimitServletFilter.SC_TOO_MANY_REQUESTS %>) {
+								// too many login attempts
+								alert("Too many login attempts, please try again in " + e.getResponseHeader("<%= RateLimitServletFilter.HEADER_RETRY_AFTER %>") + " seconds");
 							}else{
 								// unknown
 								alert("Unknown error");
@@ -81,14 +90,14 @@
 						<input id="input_password" name="<%= LoginServlet.INPUT_FIELD_PASSWORD %>" type="password" value="" placeholder="Passwort" />
 					</div>
 					<div class="input-group">
-						<input type="hidden" name="<%= CSRFPreventionUtil.FIELD_NAME %>" value="<%= CSRFPreventionUtil.generateToken(session, CSRFForm.LOGIN) %>" />
+						<input type="hidden" name="<%= CSRFPreventionUtil.FIELD_NAME %>" value="<%= loginToken %>" />
 						<input type="submit" value="Anmelden" />
 					</div>
 				</form>
 			</div>
 			<%=
-			LoginManager.getInstance().isLoggedIn(session) ?
-					"<a href=\"../logout?"+CSRFPreventionUtil.FIELD_NAME + "=" + CSRFPreventionUtil.generateTokenForGETParameter(session, CSRFForm.LOGOUT) +"\">Logout</a>"
+			logoutToken != null ?
+					"<a href=\"../logout?"+CSRFPreventionUtil.FIELD_NAME + "=" + logoutToken +"\">Logout</a>"
 					: "" %>
 		</div>
 	</body>
@@ -1,13 +1,16 @@
 <%@ page language="java" contentType="text/html; charset=UTF-8"
-	pageEncoding="UTF-8" import="de.db.derPate.util.CSRFPreventionUtil"
+	pageEncoding="UTF-8" session="false" import="de.db.derPate.util.CSRFPreventionUtil"
 	import="de.db.derPate.manager.LoginManager"
 	import="de.db.derPate.servlet.LoginServlet"
 	import="de.db.derPate.servlet.filter.CSRFServletFilter"
+	import="de.db.derPate.servlet.filter.RateLimitServletFilter"
 	import="de.db.derPate.CSRFForm"
 	import="de.db.derPate.util.URIParameterEncryptionUtil"%>
 <%
 	boolean loginFailed = (request.getParameter("login") != null
 			&& request.getParameter("login").equals("failed"));
+	// generated before any output, as it might set a cookie
+	String loginToken = CSRFPreventionUtil.generateToken(request, response, CSRFForm.LOGIN);
 %>
 
 
@@ -28,7 +31,7 @@
 			<form method="post" action="login" id="login">
 				<input type="hidden" id="csrftoken"
 					name="<%=CSRFPreventionUtil.FIELD_NAME%>"
-					value="<%=CSRFPreventionUtil.generateToken(session, CSRFForm.LOGIN)%>" />
+					value="<%=loginToken%>" />
 				<div class="form-signin <%if (loginFailed) {%>has-error<%}%>">
 					<input type="text" class="form-control"
 						name="<%=LoginServlet.INPUT_FIELD_EMAIL%>"
@@ -87,6 +90,10 @@
 							if(e.status === <%=LoginServlet.SC_ALREADY_LOGGED_IN%>) {
 								// already logged in
 								alert("Already logged in");	
+							}else
+							if(e.status === <%=LoginServlet.SC_LOGIN_BUSY%> || e.status === <%=RateLimitServletFilter.SC_TOO_MANY_REQUESTS%>) {
+								// too many login attempts
+								alert("Too many login attempts, please try again in " + e.getResponseHeader("<%=RateLimitServletFilter.HEADER_RETRY_AFTER%>") + " seconds");
 							}else{
 								// unknown
 								alert("Unknown error");
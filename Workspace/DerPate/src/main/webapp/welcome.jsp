@@ -1,4 +1,4 @@
-<%@ page language="java" contentType="text/html; charset=UTF-8"%>
+<%@ page language="java" contentType="text/html; charset=UTF-8" session="false"%>
 
 
 <jsp:include page="WEB-INF/include/header.jsp" />
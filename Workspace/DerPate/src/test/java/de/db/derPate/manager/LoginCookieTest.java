@@ -0,0 +1,67 @@
+package de.db.derPate.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import de.db.derPate.Usermode;
+
+@SuppressWarnings({ "javadoc", "nls", "null" })
+public class LoginCookieTest {
+	private static final long NOW = 1_000_000;
+
+	@Test
+	public void serialization() {
+		LoginCookie cookie = LoginCookie.login(new SessionPrincipal(4711, Usermode.TRAINEE, 2), NOW);
+		LoginCookie copy = LoginCookie.fromBytes(cookie.toBytes());
+
+		assertNotNull(copy);
+		assertEquals(4711, copy.getPrincipal().getId());
+		assertEquals(Usermode.TRAINEE, copy.getPrincipal().getUsermode());
+		assertEquals(2, copy.getPrincipal().getVersion());
+		assertEquals(cookie.getBindingId(), copy.getBindingId());
+	}
+
+	@Test
+	public void invalidBytes() {
+		byte[] bytes = LoginCookie.login(new SessionPrincipal(1, Usermode.ADMIN, 0), NOW).toBytes();
+		assertNull(LoginCookie.fromBytes(null));
+		assertNull(LoginCookie.fromBytes(new byte[3]));
+
+		bytes[5] = 42; // usermode
+		assertNull(LoginCookie.fromBytes(bytes));
+		bytes[5] = 0;
+		bytes[0] = 99; // format
+		assertNull(LoginCookie.fromBytes(bytes));
+	}
+
+	@Test
+	public void expiry() {
+		LoginCookie cookie = LoginCookie.login(new SessionPrincipal(1, Usermode.GODFATHER, 0), NOW);
+
+		assertTrue(cookie.isValid(NOW + 599, 600, 3600));
+		assertFalse(cookie.isValid(NOW + 600, 600, 3600)); // inactive
+
+		LoginCookie renewed = cookie.renew(cookie.getPrincipal(), NOW + 500);
+		assertTrue(renewed.isValid(NOW + 1000, 600, 3600));
+		assertFalse(renewed.renew(cookie.getPrincipal(), NOW + 3500).isValid(NOW + 3600, 600, 3600)); // max age
+	}
+
+	@Test
+	public void renewal() {
+		LoginCookie cookie = LoginCookie.login(new SessionPrincipal(1, Usermode.GODFATHER, 0), NOW);
+		assertFalse(cookie.needsRenewal(NOW + 59, 60));
+		assertTrue(cookie.needsRenewal(NOW + 60, 60));
+
+		LoginCookie renewed = cookie.renew(cookie.getPrincipal().nextVersion(), NOW + 60);
+		assertEquals(cookie.getBindingId(), renewed.getBindingId());
+		assertEquals(1, renewed.getPrincipal().getVersion());
+		assertNotEquals(cookie.getBindingId(),
+				LoginCookie.login(cookie.getPrincipal(), NOW).getBindingId()); // new login, new id
+	}
+}
@@ -0,0 +1,69 @@
+package de.db.derPate.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+
+import de.db.derPate.Usermode;
+
+@SuppressWarnings({ "javadoc", "nls" })
+public class SessionPrincipalTest {
+
+	@Test
+	public void serialization() throws IOException, ClassNotFoundException {
+		for (Usermode usermode : Usermode.values()) {
+			SessionPrincipal principal = new SessionPrincipal(4711, usermode, 3);
+			SessionPrincipal copy = (SessionPrincipal) deserialize(serialize(principal));
+
+			assertEquals(4711, copy.getId());
+			assertEquals(usermode, copy.getUsermode());
+			assertEquals(3, copy.getVersion());
+		}
+	}
+
+	@Test
+	public void compact() throws IOException {
+		// class descriptor and 9 bytes of data
+		assertTrue(serialize(new SessionPrincipal(4711, Usermode.GODFATHER, 0)).length < 100);
+	}
+
+	@Test
+	public void nextVersion() {
+		SessionPrincipal principal = new SessionPrincipal(1, Usermode.TRAINEE, 0);
+		SessionPrincipal next = principal.nextVersion();
+
+		assertEquals(0, principal.getVersion());
+		assertEquals(1, next.getVersion());
+		assertEquals(1, next.getId());
+		assertEquals(Usermode.TRAINEE, next.getUsermode());
+	}
+
+	@Test(expected = InvalidObjectException.class)
+	public void unknownUsermode() throws IOException, ClassNotFoundException {
+		byte[] bytes = serialize(new SessionPrincipal(1, Usermode.ADMIN, 0));
+		bytes[bytes.length - 6] = 42; // ordinal, followed by the version and the end of block data
+		deserialize(bytes);
+	}
+
+	private static byte[] serialize(Object object) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(object);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return in.readObject();
+		}
+	}
+}
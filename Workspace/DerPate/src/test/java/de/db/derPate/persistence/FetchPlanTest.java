@@ -0,0 +1,124 @@
+package de.db.derPate.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.List;
+
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.db.derPate.model.Godfather;
+import de.db.derPate.model.GodfatherListEntry;
+import de.db.derPate.model.Trainee;
+
+/**
+ * Checks, that the godfather and trainee queries load their associations in a
+ * fixed number of statements (uses the in-memory database of
+ * src/test/resources/hibernate.cfg.xml)
+ */
+@SuppressWarnings({ "javadoc", "nls", "null" })
+public class FetchPlanTest {
+	private final Statistics statistics = TestDatabase.sessionFactory.getStatistics();
+
+	@Before
+	public void init() {
+		TestDatabase.reset();
+	}
+
+	@Test
+	public void listOneGodfather() {
+		assertListingStatements(1);
+	}
+
+	@Test
+	public void list100Godfathers() {
+		assertListingStatements(100);
+	}
+
+	@Test
+	public void list10000Godfathers() {
+		assertListingStatements(10000);
+	}
+
+	@Test
+	public void godfatherById() {
+		TestDatabase.insertGodfathers(10);
+
+		this.statistics.clear();
+		Godfather godfather = GodfatherDao.getInstance().byId(7);
+		assertEquals(1, this.statistics.getPrepareStatementCount());
+		assertInitialized(godfather);
+	}
+
+	@Test
+	public void godfatherByEmail() {
+		TestDatabase.insertGodfathers(10);
+
+		this.statistics.clear();
+		Godfather godfather = GodfatherDao.getInstance().byEmail("godfather3@example.com");
+		assertEquals(1, this.statistics.getPrepareStatementCount());
+		assertInitialized(godfather);
+		assertEquals(3, godfather.getId());
+
+		// second level cache
+		this.statistics.clear();
+		godfather = GodfatherDao.getInstance().byEmail("godfather3@example.com");
+		assertEquals(0, this.statistics.getPrepareStatementCount());
+		assertInitialized(godfather);
+	}
+
+	@Test
+	public void traineeByToken() {
+		TestDatabase.insertGodfathers(10);
+		TestDatabase.execute(
+				"INSERT INTO Trainee (Id_Trainee, Login_Code, Id_Godfather) VALUES (1, 'token1', 4), (2, 'token2', NULL)");
+
+		this.statistics.clear();
+		Trainee trainee = TraineeDao.getInstance().byToken("token1");
+		assertEquals(1, this.statistics.getPrepareStatementCount());
+		assertInitialized(trainee.getGodfather());
+
+		this.statistics.clear();
+		trainee = TraineeDao.getInstance().byToken("token2");
+		assertEquals(1, this.statistics.getPrepareStatementCount());
+		assertEquals(null, trainee.getGodfather());
+
+		// second level cache
+		this.statistics.clear();
+		trainee = TraineeDao.getInstance().byToken("token1");
+		assertEquals(0, this.statistics.getPrepareStatementCount());
+		assertInitialized(trainee.getGodfather());
+	}
+
+	private void assertListingStatements(int godfathers) {
+		TestDatabase.insertGodfathers(godfathers);
+		GodfatherFilter filter = new GodfatherFilter(null, null, null, null);
+
+		this.statistics.clear();
+		List<Godfather> result = GodfatherDao.getInstance().filterAvailable(filter);
+		assertEquals(1, this.statistics.getPrepareStatementCount());
+		assertEquals(godfathers, result.size());
+		result.forEach(FetchPlanTest::assertInitialized);
+
+		this.statistics.clear();
+		List<Godfather> all = GodfatherDao.getInstance().list();
+		assertEquals(1, this.statistics.getPrepareStatementCount());
+		assertEquals(godfathers, all.size());
+		all.forEach(FetchPlanTest::assertInitialized);
+
+		this.statistics.clear();
+		GodfatherPage<GodfatherListEntry> page = GodfatherDao.getInstance().listAvailable(filter,
+				GodfatherSort.DEFAULT, null, Integer.MAX_VALUE);
+		assertEquals(1, this.statistics.getPrepareStatementCount());
+		assertEquals(godfathers, page.getGodfathers().size());
+	}
+
+	private static void assertInitialized(Godfather godfather) {
+		assertNotNull(godfather);
+		assertNotNull(godfather.getLocation().getName());
+		assertNotNull(godfather.getJob().getName());
+		assertNotNull(godfather.getJob().getTeachingType().getName());
+	}
+}
@@ -0,0 +1,308 @@
+package de.db.derPate.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.db.derPate.model.Godfather;
+import de.db.derPate.model.Job;
+import de.db.derPate.model.Location;
+import de.db.derPate.model.TeachingType;
+
+@SuppressWarnings({ "javadoc", "nls", "null" })
+public class GodfatherAvailabilityIndexTest {
+	private final TeachingType training = new TeachingType(1, "Ausbildung");
+	private final TeachingType study = new TeachingType(2, "Duales Studium");
+	private final Location berlin = new Location(1, "Berlin");
+	private final Location frankfurt = new Location(2, "Frankfurt");
+	private final Job developer = new Job(1, "Fachinformatiker", this.training);
+	private final Job computerScience = new Job(2, "Informatik", this.study);
+
+	private List<Godfather> godfathers;
+	private GodfatherAvailabilityIndex index;
+
+	@Before
+	public void init() {
+		this.godfathers = new ArrayList<>();
+		this.godfathers.add(godfather(1, "Anna", this.berlin, this.developer, 1, 1, 30));
+		this.godfathers.add(godfather(2, "bernd", this.berlin, this.computerScience, 2, 2, 25));
+		this.godfathers.add(godfather(3, "Carla", this.frankfurt, this.developer, 3, 1, null));
+		this.godfathers.add(godfather(4, "Dieter", this.frankfurt, this.computerScience, 1, 2, 40));
+		this.index = new GodfatherAvailabilityIndex(() -> this.godfathers);
+	}
+
+	@Test
+	public void filterWithoutRestriction() {
+		assertIds(this.index.filter(filter(null, null, null, null)), 1, 2, 3, 4);
+	}
+
+	@Test
+	public void filterByIds() {
+		assertIds(this.index.filter(filter(Arrays.asList(1), null, null, null)), 1, 2);
+		assertIds(this.index.filter(filter(Arrays.asList(1, 2), Arrays.asList(2), null, null)), 2, 4);
+		assertIds(this.index.filter(filter(null, null, Arrays.asList(1), null)), 1, 3);
+		assertIds(this.index.filter(filter(Arrays.asList(2), null, Arrays.asList(2), null)), 4);
+		assertIds(this.index.filter(filter(Arrays.asList(99), null, null, null)));
+	}
+
+	@Test
+	public void filterByEducationalYear() {
+		assertIds(this.index.filter(filter(null, null, null, Arrays.asList(2))), 2);
+		assertIds(this.index.filter(filter(null, null, null, Arrays.asList(1, 3))), 1, 3, 4);
+		assertIds(this.index.filter(filter(null, null, null, Arrays.asList(0))));
+	}
+
+	@Test
+	public void filterByRanges() {
+		assertIds(this.index.filter(new GodfatherFilter(null, null, null, null, 25, 30, null, null)), 1, 2);
+		assertIds(this.index.filter(new GodfatherFilter(null, null, null, null, 31, null, null, null)), 4);
+		assertIds(this.index.filter(new GodfatherFilter(null, null, null, null, null, null, 2, 3)), 2, 3);
+		assertIds(this.index.filter(new GodfatherFilter(null, null, null, null, null, null, null, 1)), 1, 4);
+		assertIds(this.index.filter(new GodfatherFilter(null, null, null, null, 20, 35, 1, 2)), 1, 2);
+	}
+
+	@Test
+	public void selectionChangesAvailabilityAndOrder() {
+		this.index.filter(filter(null, null, null, null)); // build index
+
+		this.index.changeCurrentTrainees(1, 1); // Anna is full now
+		assertIds(this.index.filter(filter(null, null, null, null)), 2, 3, 4);
+
+		this.index.changeCurrentTrainees(2, 1); // bernd has one trainee -> sorted to the end
+		assertIds(this.index.filter(filter(null, null, null, null)), 3, 4, 2);
+
+		this.index.changeCurrentTrainees(1, -1); // Anna is available again
+		assertIds(this.index.filter(filter(null, null, null, null)), 1, 3, 4, 2);
+	}
+
+	@Test
+	public void profileEdit() {
+		this.index.filter(filter(null, null, null, null)); // build index
+
+		Godfather carla = godfather(3, "Carla", this.berlin, this.developer, 3, 0, null);
+		this.index.update(carla); // moved to berlin and doesn't accept trainees anymore
+		assertIds(this.index.filter(filter(Arrays.asList(1), null, null, null)), 1, 2);
+		assertIds(this.index.filter(filter(Arrays.asList(2), null, null, null)), 4);
+
+		carla.setMaxTrainees(1);
+		this.index.update(carla);
+		assertIds(this.index.filter(filter(Arrays.asList(1), null, null, null)), 1, 2, 3);
+
+		this.index.update(godfather(5, "Aaron", this.frankfurt, this.developer, 1, 1, 50)); // new godfather
+		assertIds(this.index.filter(filter(Arrays.asList(2), null, null, null)), 5, 4);
+		assertEquals(5, this.index.size());
+	}
+
+	@Test
+	public void updateKeepsGivenGodfather() {
+		this.index.filter(filter(null, null, null, null)); // build index
+
+		Godfather carla = new Godfather(3, "godfather3@example.com", "hash");
+		carla.setFirstName("Carla");
+		carla.setLastName("Lastname");
+		carla.setLocation(this.berlin);
+		carla.setJob(this.developer);
+		carla.setMaxTrainees(1);
+		carla.setHiringDate(Date.valueOf(LocalDate.now().minusYears(2).minusDays(1)));
+		this.index.update(carla);
+
+		assertEquals("hash", carla.getPassword()); // still usable by the caller
+		Godfather indexed = this.index.get(3);
+		assertNotSame(carla, indexed);
+		assertNull(indexed.getPassword());
+		assertEquals(this.berlin, indexed.getLocation());
+
+		carla.setFirstName("Changed"); // doesn't affect the index
+		assertEquals("Carla", this.index.get(3).getFirstName());
+	}
+
+	@Test
+	public void versions() {
+		long version = this.index.getVersion();
+		long annaVersion = this.index.getVersion(1);
+		long berndVersion = this.index.getVersion(2);
+		// another start of the application (or instance) with the same data
+		assertNotEquals(version, new GodfatherAvailabilityIndex(() -> this.godfathers).getVersion());
+
+		this.index.changeCurrentTrainees(1, 1);
+		assertNotEquals(version, this.index.getVersion());
+		assertEquals(annaVersion, this.index.getVersion(1));
+
+		this.index.update(godfather(2, "Bernd", this.berlin, this.computerScience, 2, 2, 25));
+		assertNotEquals(berndVersion, this.index.getVersion(2));
+		assertEquals(annaVersion, this.index.getVersion(1));
+		assertEquals(-1, this.index.getVersion(99));
+	}
+
+	@Test
+	public void invalidate() {
+		this.index.filter(filter(null, null, null, null)); // build index
+
+		this.godfathers.remove(0);
+		assertIds(this.index.filter(filter(null, null, null, null)), 1, 2, 3, 4);
+
+		this.index.invalidate();
+		assertIds(this.index.filter(filter(null, null, null, null)), 2, 3, 4);
+	}
+
+	@Test
+	public void changesWhileRebuilding() {
+		int[] loads = new int[1];
+		Map<Integer, Integer> committed = new HashMap<>();
+		this.index = new GodfatherAvailabilityIndex(() -> {
+			loads[0]++;
+			if (loads[0] == 2) { // changed by other requests, after the godfathers were read
+				committed.put(1, 1);
+				this.index.changeCurrentTrainees(1, 1);
+				this.index.update(godfather(3, "Carla", this.berlin, this.developer, 3, 1, null));
+			}
+			return this.godfathers;
+		}, ids -> committed);
+		this.index.filter(filter(null, null, null, null)); // build index
+
+		this.index.invalidate();
+		assertIds(this.index.filter(filter(Arrays.asList(1), null, null, null)), 2, 3);
+		assertIds(this.index.filter(filter(null, null, null, null)), 2, 3, 4);
+		assertEquals(2, loads[0]); // replayed instead of loaded again
+	}
+
+	@Test
+	public void pages() {
+		GodfatherPage<Godfather> page = this.index.filter(filter(null, null, null, null), GodfatherSort.DEFAULT, null, 3);
+		assertIds(page.getGodfathers(), 1, 2, 3);
+		assertNotNull(page.getNext());
+
+		page = this.index.filter(filter(null, null, null, null), GodfatherSort.DEFAULT, page.getNext(), 3);
+		assertIds(page.getGodfathers(), 4);
+		assertNull(page.getNext());
+
+		page = this.index.filter(filter(null, null, null, null), GodfatherSort.DEFAULT, null, 4);
+		assertIds(page.getGodfathers(), 1, 2, 3, 4);
+		assertNull(page.getNext());
+	}
+
+	@Test
+	public void pagesContinueAfterChanges() {
+		GodfatherPage<Godfather> page = this.index.filter(filter(null, null, null, null), GodfatherSort.DEFAULT, null, 2);
+		assertIds(page.getGodfathers(), 1, 2);
+
+		this.index.changeCurrentTrainees(1, 1); // Anna (first page) is full now
+		page = this.index.filter(filter(null, null, null, null), GodfatherSort.DEFAULT, page.getNext(), 2);
+		assertIds(page.getGodfathers(), 3, 4);
+	}
+
+	@Test
+	public void sortByAge() {
+		GodfatherPage<Godfather> page = this.index.filter(filter(null, null, null, null), GodfatherSort.AGE, null, 3);
+		assertIds(page.getGodfathers(), 2, 1, 4);
+
+		page = this.index.filter(filter(null, null, null, null), GodfatherSort.AGE, page.getNext(), 3);
+		assertIds(page.getGodfathers(), 3); // unknown birthday last
+		assertNull(page.getNext());
+	}
+
+	@Test
+	public void sortByEducationalYear() {
+		GodfatherPage<Godfather> page = this.index.filter(filter(Arrays.asList(1, 2), null, null, null),
+				GodfatherSort.EDUCATIONAL_YEAR, null, 1);
+		assertIds(page.getGodfathers(), 4);
+
+		page = this.index.filter(filter(Arrays.asList(1, 2), null, null, null), GodfatherSort.EDUCATIONAL_YEAR,
+				page.getNext(), 10);
+		assertIds(page.getGodfathers(), 1, 2, 3);
+	}
+
+	@Test
+	public void cursorOfOtherSort() {
+		GodfatherPage<Godfather> page = this.index.filter(filter(null, null, null, null), GodfatherSort.AGE, null, 1);
+		page = this.index.filter(filter(null, null, null, null), GodfatherSort.DEFAULT, page.getNext(), 10);
+		assertIds(page.getGodfathers(), 1, 2, 3, 4);
+	}
+
+	@Test
+	public void filterEquality() {
+		GodfatherFilter filter = filter(Arrays.asList(2, 1, 2), null, null, Arrays.asList(3));
+		assertEquals(filter(Arrays.asList(1, 2), new ArrayList<>(), null, Arrays.asList(3)), filter);
+		assertEquals(filter(Arrays.asList(1, 2), null, null, Arrays.asList(3)).hashCode(), filter.hashCode());
+		assertNotEquals(filter(Arrays.asList(1), null, null, Arrays.asList(3)), filter);
+		assertNotEquals(new GodfatherFilter(Arrays.asList(1, 2), null, null, Arrays.asList(3), 20, null, null, null),
+				filter);
+	}
+
+	@Test
+	public void manyGodfathers() {
+		this.godfathers.clear();
+		for (int id = 1; id <= 20000; id++) {
+			this.godfathers.add(godfather(id, "Name" + (id % 1000), id % 2 == 0 ? this.berlin : this.frankfurt,
+					id % 3 == 0 ? this.developer : this.computerScience, id % 5 + 1, 2, 20 + id % 40));
+		}
+		this.index.invalidate();
+
+		List<Godfather> result = this.index.filter(filter(Arrays.asList(1), Arrays.asList(1), null, Arrays.asList(1)));
+		assertEquals(20000 / 30, result.size());
+		for (int i = 1; i < result.size(); i++) {
+			assertTrue(result.get(i - 1).getFirstName().compareToIgnoreCase(result.get(i).getFirstName()) <= 0);
+		}
+	}
+
+	@Test
+	public void pageThroughManyGodfathers() {
+		this.godfathers.clear();
+		for (int id = 1; id <= 5000; id++) {
+			this.godfathers.add(godfather(id, "Name" + (id % 100), id % 2 == 0 ? this.berlin : this.frankfurt,
+					this.developer, id % 5 + 1, 2, id % 3 == 0 ? null : Integer.valueOf(20 + id % 40)));
+		}
+		this.index.invalidate();
+
+		for (GodfatherSort sort : GodfatherSort.values()) {
+			List<Godfather> all = this.index
+					.filter(filter(Arrays.asList(1), null, null, null), sort, null, Integer.MAX_VALUE).getGodfathers();
+			assertEquals(2500, all.size());
+
+			List<Godfather> paged = new ArrayList<>();
+			GodfatherCursor cursor = null;
+			do {
+				GodfatherPage<Godfather> page = this.index.filter(filter(Arrays.asList(1), null, null, null), sort, cursor, 70);
+				paged.addAll(page.getGodfathers());
+				cursor = page.getNext();
+			} while (cursor != null);
+			assertEquals(all, paged);
+		}
+	}
+
+	@NonNull
+	private static GodfatherFilter filter(@Nullable List<Integer> locations, @Nullable List<Integer> jobs,
+			@Nullable List<Integer> teachingTypes, @Nullable List<Integer> educationalYears) {
+		return new GodfatherFilter(locations, jobs, teachingTypes, educationalYears);
+	}
+
+	@NonNull
+	private static Godfather godfather(int id, @NonNull String firstName, @NonNull Location location, @NonNull Job job,
+			int educationalYear, int maxTrainees, @Nullable Integer age) {
+		Date hiringDate = Date.valueOf(LocalDate.now().minusYears(educationalYear - 1).minusDays(1));
+		Date birthday = age != null ? Date.valueOf(LocalDate.now().minusYears(age.intValue()).minusDays(1)) : null;
+		return new Godfather(id, "godfather" + id + "@example.com", "Lastname", firstName, location, maxTrainees,
+				null, job, hiringDate, birthday, null);
+	}
+
+	private static void assertIds(@NonNull List<@NonNull Godfather> actual, int... expected) {
+		int[] ids = actual.stream().mapToInt(Godfather::getId).toArray();
+		assertEquals(Arrays.toString(expected), Arrays.toString(ids));
+	}
+}
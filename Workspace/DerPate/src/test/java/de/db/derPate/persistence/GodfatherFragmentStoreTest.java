@@ -0,0 +1,79 @@
+package de.db.derPate.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.junit.Test;
+
+import de.db.derPate.model.Godfather;
+import de.db.derPate.model.Job;
+import de.db.derPate.model.Location;
+import de.db.derPate.model.TeachingType;
+
+@SuppressWarnings({ "javadoc", "nls", "null" })
+public class GodfatherFragmentStoreTest {
+	private final Location location = new Location(1, "Berlin");
+	private final Job job = new Job(1, "Fachinformatiker", new TeachingType(1, "Ausbildung"));
+
+	private final AtomicInteger serialized = new AtomicInteger();
+	private final GodfatherFragmentStore store = new GodfatherFragmentStore(godfather -> {
+		this.serialized.incrementAndGet();
+		return ("{\"" + godfather.getFirstName() + "\"}").getBytes(StandardCharsets.UTF_8);
+	});
+
+	@NonNull
+	private Godfather godfather(int id, String firstName) {
+		return new Godfather(id, "godfather" + id + "@example.com", "Lastname", firstName, this.location, 1, null,
+				this.job, Date.valueOf(LocalDate.now()), null, null);
+	}
+
+	@Test
+	public void reused() throws IOException {
+		Godfather godfather = godfather(1, "Anna");
+		byte[] first = this.store.get(godfather);
+		byte[] second = this.store.get(godfather);
+
+		assertSame(first, second);
+		assertEquals(1, this.serialized.get());
+		assertEquals(1, this.store.size());
+	}
+
+	@Test
+	public void replaced() throws IOException {
+		byte[] first = this.store.get(godfather(1, "Anna"));
+		// updated godfather -> new object of the index
+		byte[] second = this.store.get(godfather(1, "Anne"));
+
+		assertNotSame(first, second);
+		assertEquals("{\"Anne\"}", new String(second, StandardCharsets.UTF_8));
+		assertEquals(2, this.serialized.get());
+		assertEquals(1, this.store.size());
+	}
+
+	@Test
+	public void write() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		this.store.write(out, Arrays.asList(godfather(1, "Anna"), godfather(2, "Björn"), godfather(3, "Carla")));
+
+		assertEquals("{\"Anna\"},{\"Björn\"},{\"Carla\"}", new String(out.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void writeEmpty() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		this.store.write(out, Collections.emptyList());
+
+		assertEquals(0, out.size());
+	}
+}
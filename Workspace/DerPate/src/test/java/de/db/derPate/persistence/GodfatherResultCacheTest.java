@@ -0,0 +1,243 @@
+package de.db.derPate.persistence;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.Test;
+
+import de.db.derPate.model.Godfather;
+import de.db.derPate.model.Job;
+import de.db.derPate.model.Location;
+import de.db.derPate.model.TeachingType;
+
+@SuppressWarnings({ "javadoc", "nls", "null" })
+public class GodfatherResultCacheTest {
+	private final TeachingType training = new TeachingType(1, "Ausbildung");
+	private final TeachingType study = new TeachingType(2, "Duales Studium");
+	private final Location berlin = new Location(1, "Berlin");
+	private final Location frankfurt = new Location(2, "Frankfurt");
+	private final Job developer = new Job(1, "Fachinformatiker", this.training);
+	private final Job computerScience = new Job(2, "Informatik", this.study);
+
+	private final GodfatherResultCache cache = new GodfatherResultCache(10, 60);
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private static GodfatherFilter locations(Integer... locations) {
+		return new GodfatherFilter(Arrays.asList(locations), null, null, null);
+	}
+
+	private byte[] get(GodfatherFilter filter, int... ids) throws IOException {
+		return this.cache.get(filter, GodfatherSort.DEFAULT, null, 24, () -> {
+			this.loads.incrementAndGet();
+			return new GodfatherResultCache.Page(Arrays.toString(ids).getBytes(StandardCharsets.UTF_8), ids);
+		});
+	}
+
+	private static GodfatherResultCache.Page empty() {
+		return new GodfatherResultCache.Page(new byte[0], new int[0]);
+	}
+
+	@NonNull
+	private static Godfather godfather(int id, @NonNull Location location, @NonNull Job job, int educationalYear,
+			@Nullable Integer age) {
+		Date hiringDate = Date.valueOf(LocalDate.now().minusYears(educationalYear - 1).minusDays(1));
+		Date birthday = age != null ? Date.valueOf(LocalDate.now().minusYears(age.intValue()).minusDays(1)) : null;
+		return new Godfather(id, "godfather" + id + "@example.com", "Lastname", "Firstname", location, 1, null, job,
+				hiringDate, birthday, null);
+	}
+
+	@Test
+	public void hit() throws IOException {
+		byte[] first = get(locations(1), 1, 2);
+		byte[] second = get(locations(1), 1, 2);
+
+		assertSame(first, second);
+		assertEquals(1, this.loads.get());
+		assertEquals(1, this.cache.getHitCount());
+		assertEquals(1, this.cache.getMissCount());
+	}
+
+	@Test
+	public void keys() throws IOException {
+		get(locations(1, 2));
+		get(locations(2, 1, 2)); // normalized -> same filter
+		this.cache.get(locations(1, 2), GodfatherSort.AGE, null, 24, GodfatherResultCacheTest::empty);
+		this.cache.get(locations(1, 2), GodfatherSort.DEFAULT, null, 10, GodfatherResultCacheTest::empty);
+
+		assertEquals(1, this.loads.get());
+		assertEquals(3, this.cache.size());
+	}
+
+	@Test
+	public void singleFlight() throws Exception {
+		int threads = 8;
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<byte[]>> results = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				results.add(executor.submit(() -> this.cache.get(locations(1), GodfatherSort.DEFAULT, null, 24, () -> {
+					this.loads.incrementAndGet();
+					started.countDown();
+					try {
+						release.await(5, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						throw new InterruptedIOException();
+					}
+					return new GodfatherResultCache.Page("page".getBytes(StandardCharsets.UTF_8), new int[] { 1 });
+				})));
+			}
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			Thread.sleep(50); // let the other threads wait for the loading one
+			release.countDown();
+			for (Future<byte[]> result : results) {
+				assertArrayEquals("page".getBytes(StandardCharsets.UTF_8), result.get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(1, this.loads.get());
+	}
+
+	@Test
+	public void failedLoad() throws IOException {
+		try {
+			this.cache.get(locations(1), GodfatherSort.DEFAULT, null, 24, () -> {
+				throw new IOException("failed");
+			});
+		} catch (IOException e) {
+			// expected
+		}
+		assertEquals(0, this.cache.size());
+		get(locations(1), 1);
+		assertEquals(1, this.loads.get());
+	}
+
+	@Test
+	public void invalidateById() throws IOException {
+		get(locations(1), 1, 2);
+		get(locations(2), 3);
+
+		this.cache.invalidateCurrentTrainees(2, godfather(2, this.berlin, this.developer, 1, null));
+
+		assertEquals(1, this.cache.size());
+		get(locations(2), 3);
+		assertEquals(2, this.loads.get()); // still cached
+		get(locations(1), 1);
+		assertEquals(3, this.loads.get());
+	}
+
+	@Test
+	public void invalidatePagesAfterSelectedGodfather() throws IOException {
+		GodfatherCursor afterFirstPage = new GodfatherCursor(GodfatherSort.DEFAULT, 0, "Firstname", 2);
+		get(locations(1), 1, 2);
+		// godfather 1 is selected and moves behind godfather 3 on the second page
+		this.cache.get(locations(1), GodfatherSort.DEFAULT, afterFirstPage, 24, GodfatherResultCacheTest::empty);
+		this.cache.get(locations(1), GodfatherSort.AGE, afterFirstPage, 24, GodfatherResultCacheTest::empty);
+		this.cache.get(locations(2), GodfatherSort.DEFAULT, afterFirstPage, 24, GodfatherResultCacheTest::empty);
+
+		this.cache.invalidateCurrentTrainees(1, godfather(1, this.berlin, this.developer, 1, null));
+
+		assertEquals(2, this.cache.size()); // other order and filter are still cached
+		this.cache.get(locations(1), GodfatherSort.DEFAULT, afterFirstPage, 24, () -> {
+			this.loads.incrementAndGet();
+			return empty();
+		});
+		assertEquals(2, this.loads.get());
+	}
+
+	@Test
+	public void invalidateUnknownSelectedGodfather() throws IOException {
+		get(locations(1), 1);
+		this.cache.get(locations(2), GodfatherSort.AGE, null, 24, GodfatherResultCacheTest::empty);
+
+		this.cache.invalidateCurrentTrainees(5, null);
+
+		assertEquals(1, this.cache.size());
+	}
+
+	@Test
+	public void invalidateByGodfather() throws IOException {
+		get(locations(1), 1);
+		get(locations(2), 3);
+		get(locations(1, 2), 1, 3);
+
+		// godfather 5 moved to frankfurt -> all pages, they may appear on now
+		this.cache.invalidate(godfather(5, this.frankfurt, this.developer, 1, null));
+
+		assertEquals(1, this.cache.size());
+		get(locations(1), 1);
+		assertEquals(3, this.loads.get()); // still cached
+	}
+
+	@Test
+	public void invalidateWhileLoading() throws IOException {
+		this.cache.get(locations(1), GodfatherSort.DEFAULT, null, 24, () -> {
+			this.cache.invalidateAll(); // changed, while the page was loaded
+			return empty();
+		});
+
+		assertEquals(0, this.cache.size());
+	}
+
+	@Test
+	public void maxEntries() throws IOException {
+		for (int i = 0; i < 20; i++) {
+			get(locations(i));
+		}
+		assertEquals(10, this.cache.size());
+	}
+
+	@Test
+	public void disabled() throws IOException {
+		GodfatherResultCache disabled = new GodfatherResultCache(0, 60);
+		disabled.get(locations(1), GodfatherSort.DEFAULT, null, 24, GodfatherResultCacheTest::empty);
+		assertEquals(0, disabled.size());
+	}
+
+	@Test
+	public void matchesLikeIndex() {
+		List<Godfather> godfathers = new ArrayList<>();
+		godfathers.add(godfather(1, this.berlin, this.developer, 1, Integer.valueOf(30)));
+		godfathers.add(godfather(2, this.berlin, this.computerScience, 2, Integer.valueOf(25)));
+		godfathers.add(godfather(3, this.frankfurt, this.developer, 3, null));
+		godfathers.add(godfather(4, this.frankfurt, this.computerScience, 1, Integer.valueOf(40)));
+		GodfatherAvailabilityIndex index = new GodfatherAvailabilityIndex(() -> godfathers);
+
+		GodfatherFilter[] filters = { new GodfatherFilter(null, null, null, null), locations(1),
+				new GodfatherFilter(null, Arrays.asList(1), Arrays.asList(1), null),
+				new GodfatherFilter(null, null, null, Arrays.asList(1, 3)),
+				new GodfatherFilter(null, null, null, null, 25, 30, null, null),
+				new GodfatherFilter(null, null, null, null, null, null, 2, 3) };
+		LocalDate today = LocalDate.now();
+		for (GodfatherFilter filter : filters) {
+			List<Godfather> matching = index.filter(filter);
+			for (Godfather godfather : godfathers) {
+				assertEquals(filter + " " + godfather.getId(), matching.contains(godfather),
+						filter.matches(godfather, today));
+			}
+		}
+		assertFalse(locations(3).matches(godfathers.get(0), today));
+	}
+}
@@ -0,0 +1,100 @@
+package de.db.derPate.persistence;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.db.derPate.model.Trainee;
+
+/**
+ * Uses the in-memory database of src/test/resources/hibernate.cfg.xml
+ */
+@SuppressWarnings({ "javadoc", "nls", "null" })
+public class GodfatherSelectionTest {
+	private static final int SELECTORS = 500;
+
+	@Before
+	public void init() {
+		TestDatabase.reset();
+		TestDatabase.insertGodfathers(3);
+		TestDatabase.execute("UPDATE Godfather SET Max_Trainees = 7 WHERE Id_Godfather = 1",
+				"UPDATE Godfather SET Max_Trainees = 3 WHERE Id_Godfather = 2",
+				"UPDATE Godfather SET Max_Trainees = 0 WHERE Id_Godfather = 3",
+				"INSERT INTO Trainee (Id_Trainee, Login_Code, Id_Godfather) SELECT X, CONCAT('token', X), NULL "
+						+ "FROM SYSTEM_RANGE(1, " + SELECTORS + ")");
+	}
+
+	@Test
+	public void select() {
+		assertEquals(GodfatherSelection.SUCCESS, TraineeDao.getInstance().selectGodfather(1, 2));
+		assertEquals(GodfatherSelection.ALREADY_ASSIGNED, TraineeDao.getInstance().selectGodfather(1, 1));
+		assertEquals(GodfatherSelection.FULL, TraineeDao.getInstance().selectGodfather(2, 3));
+		assertEquals(GodfatherSelection.FULL, TraineeDao.getInstance().selectGodfather(2, 99));
+		assertEquals(GodfatherSelection.ALREADY_ASSIGNED, TraineeDao.getInstance().selectGodfather(9999, 1));
+
+		assertCurrentTrainees(1, 0); // reserved slot was released
+		assertCurrentTrainees(2, 1);
+		assertCurrentTrainees(3, 0);
+		Trainee trainee = TraineeDao.getInstance().byId(1);
+		assertEquals(2, trainee.getGodfather().getId());
+	}
+
+	@Test
+	public void concurrentSelectionsNeverExceedCapacity() throws InterruptedException {
+		ConcurrentMap<GodfatherSelection, AtomicInteger> results = new ConcurrentHashMap<>();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 1; i <= SELECTORS; i++) {
+			int traineeId = i;
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				// every trainee selects twice, alternating the first godfather
+				int godfatherId = traineeId % 2 + 1;
+				for (int id : new int[] { godfatherId, 3 - godfatherId }) {
+					GodfatherSelection result = TraineeDao.getInstance().selectGodfather(traineeId, id);
+					results.computeIfAbsent(result, r -> new AtomicInteger()).incrementAndGet();
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(0, count(results, GodfatherSelection.ERROR));
+		assertEquals(10, count(results, GodfatherSelection.SUCCESS));
+		assertEquals(2 * SELECTORS - 10,
+				count(results, GodfatherSelection.FULL) + count(results, GodfatherSelection.ALREADY_ASSIGNED));
+		assertCurrentTrainees(1, 7);
+		assertCurrentTrainees(2, 3);
+		assertEquals(10, ((Number) TestDatabase.query("SELECT COUNT(*) FROM Trainee WHERE Id_Godfather IS NOT NULL"))
+				.intValue());
+	}
+
+	private static int count(ConcurrentMap<GodfatherSelection, AtomicInteger> results, GodfatherSelection result) {
+		AtomicInteger count = results.get(result);
+		return count != null ? count.get() : 0;
+	}
+
+	private static void assertCurrentTrainees(int godfatherId, int expected) {
+		assertEquals(expected, ((Number) TestDatabase
+				.query("SELECT Current_Trainees FROM Godfather WHERE Id_Godfather = " + godfatherId)).intValue());
+		assertEquals(expected, ((Number) TestDatabase
+				.query("SELECT COUNT(*) FROM Trainee WHERE Id_Godfather = " + godfatherId)).intValue());
+	}
+}
@@ -0,0 +1,65 @@
+package de.db.derPate.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import de.db.derPate.model.Location;
+
+@SuppressWarnings({ "javadoc", "nls", "null" })
+public class ReferenceDataCacheTest {
+	private final Location berlin = new Location(1, "Berlin");
+	private final AtomicInteger loads = new AtomicInteger();
+	private final AtomicInteger fallbacks = new AtomicInteger();
+
+	private final ReferenceDataCache<Location> cache = new ReferenceDataCache<>(() -> {
+		this.loads.incrementAndGet();
+		return Arrays.asList(this.berlin);
+	});
+
+	private Location byId(int id) {
+		return this.cache.byId(id, () -> {
+			this.fallbacks.incrementAndGet();
+			return null;
+		});
+	}
+
+	@Test
+	public void reloadIsCountedOnce() {
+		assertSame(this.berlin, byId(1));
+		assertSame(this.berlin, byId(1));
+
+		assertEquals(1, this.loads.get());
+		assertEquals(0, this.fallbacks.get());
+		assertEquals(1, this.cache.getMissCount());
+		assertEquals(1, this.cache.getHitCount());
+		assertEquals(1, this.cache.getReloadCount());
+	}
+
+	@Test
+	public void absentIdIsRemembered() {
+		this.cache.list();
+		assertNull(byId(2));
+		assertNull(byId(2));
+		assertNull(byId(2));
+
+		assertEquals(1, this.fallbacks.get());
+		assertEquals(2, this.cache.getMissCount()); // reload and first lookup of the absent id
+		assertEquals(2, this.cache.getHitCount());
+	}
+
+	@Test
+	public void absentIdIsLoadedAfterInvalidation() {
+		assertNull(byId(2));
+		ReferenceDataCache.invalidateAll();
+		assertNull(byId(2));
+
+		assertEquals(2, this.loads.get());
+		assertEquals(2, this.fallbacks.get());
+	}
+}
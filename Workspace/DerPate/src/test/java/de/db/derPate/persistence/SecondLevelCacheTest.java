@@ -0,0 +1,81 @@
+package de.db.derPate.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.db.derPate.model.Godfather;
+import de.db.derPate.model.Trainee;
+
+/**
+ * Checks, that login lookups are cached and changed entities are evicted (uses
+ * the in-memory database of src/test/resources/hibernate.cfg.xml)
+ */
+@SuppressWarnings({ "javadoc", "nls", "null" })
+public class SecondLevelCacheTest {
+	private final Statistics statistics = TestDatabase.sessionFactory.getStatistics();
+
+	@Before
+	public void init() {
+		TestDatabase.reset();
+		TestDatabase.insertGodfathers(3);
+		TestDatabase.execute("INSERT INTO Trainee (Id_Trainee, Login_Code, Id_Godfather) VALUES (1, 'token1', NULL)");
+	}
+
+	@Test
+	public void loginLookupsAreCached() {
+		GodfatherDao.getInstance().byEmail("godfather1@example.com");
+		TraineeDao.getInstance().byToken("token1");
+
+		this.statistics.clear();
+		for (int i = 0; i < 100; i++) {
+			assertEquals(1, GodfatherDao.getInstance().byEmail("godfather1@example.com").getId());
+			assertEquals(1, TraineeDao.getInstance().byToken("token1").getId());
+		}
+		assertEquals(0, this.statistics.getPrepareStatementCount());
+		assertEquals(200, this.statistics.getNaturalIdCacheHitCount());
+		assertTrue(this.statistics.getSecondLevelCacheHitCount() >= 200);
+	}
+
+	@Test
+	public void emailChangeEvictsNaturalId() {
+		Godfather godfather = GodfatherDao.getInstance().byEmail("godfather2@example.com");
+		godfather.setEmail("new@example.com");
+		assertTrue(GodfatherDao.getInstance().update(godfather));
+
+		assertNull(GodfatherDao.getInstance().byEmail("godfather2@example.com"));
+		assertEquals(2, GodfatherDao.getInstance().byEmail("new@example.com").getId());
+		Godfather cached = GodfatherDao.getInstance().byId(2);
+		assertEquals("new@example.com", cached.getEmail());
+	}
+
+	@Test
+	public void selectionEvictsGodfatherAndTrainee() {
+		Godfather godfather = GodfatherDao.getInstance().byId(3);
+		assertEquals(0, godfather.getCurrentNumberTrainees());
+		Trainee trainee = TraineeDao.getInstance().byToken("token1");
+		assertNull(trainee.getGodfather());
+
+		assertEquals(GodfatherSelection.SUCCESS, TraineeDao.getInstance().selectGodfather(1, 3));
+
+		godfather = GodfatherDao.getInstance().byId(3);
+		assertEquals(1, godfather.getCurrentNumberTrainees());
+		trainee = TraineeDao.getInstance().byToken("token1");
+		assertEquals(3, trainee.getGodfather().getId());
+	}
+
+	@Test
+	public void selectionKeepsOtherEntitiesCached() {
+		GodfatherDao.getInstance().byEmail("godfather1@example.com");
+
+		assertEquals(GodfatherSelection.SUCCESS, TraineeDao.getInstance().selectGodfather(1, 3));
+
+		this.statistics.clear();
+		GodfatherDao.getInstance().byEmail("godfather1@example.com");
+		assertEquals(0, this.statistics.getPrepareStatementCount());
+	}
+}
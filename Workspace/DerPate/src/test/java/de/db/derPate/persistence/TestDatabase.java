@@ -0,0 +1,59 @@
+package de.db.derPate.persistence;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+
+import de.db.derPate.util.HibernateSessionFactoryUtil;
+
+/**
+ * Fills the in-memory database of src/test/resources/hibernate.cfg.xml
+ */
+@SuppressWarnings({ "javadoc", "nls" })
+final class TestDatabase {
+	static final SessionFactory sessionFactory = HibernateSessionFactoryUtil.getSessionFactory();
+
+	private TestDatabase() {
+		// static only
+	}
+
+	/**
+	 * Removes all rows and inserts 2 teaching types, 5 locations and 6 jobs (and
+	 * invalidates the cached reference data)
+	 */
+	static void reset() {
+		execute("DELETE FROM Trainee", "DELETE FROM Godfather", "DELETE FROM Job", "DELETE FROM Location",
+				"DELETE FROM Teaching_Type",
+				"INSERT INTO Teaching_Type (Id_Teaching_Type, Teaching_Type) VALUES (1, 'Ausbildung'), (2, 'Duales Studium')",
+				"INSERT INTO Location (Id_Location, Location) SELECT X, CONCAT('Location', X) FROM SYSTEM_RANGE(1, 5)",
+				"INSERT INTO Job (Id_Job, Job, Teaching_Type) SELECT X, CONCAT('Job', X), MOD(X, 2) + 1 FROM SYSTEM_RANGE(1, 6)");
+		ReferenceDataCache.invalidateAll();
+	}
+
+	/**
+	 * Inserts godfathers with the ids 1 to count (email godfather[id]@example.com,
+	 * first name Name[id], two free trainee slots)
+	 */
+	static void insertGodfathers(int count) {
+		execute("INSERT INTO Godfather (Id_Godfather, Email, Password, Last_Name, First_Name, Id_Location, Max_Trainees, "
+				+ "Current_Trainees, Id_Job, Hiring_Date) SELECT X, CONCAT('godfather', X, '@example.com'), 'hash', "
+				+ "'Lastname', CONCAT('Name', X), MOD(X, 5) + 1, 2, 0, MOD(X, 6) + 1, CURRENT_DATE "
+				+ "FROM SYSTEM_RANGE(1, " + count + ")");
+	}
+
+	static void execute(String... statements) {
+		try (Session session = sessionFactory.openSession()) {
+			Transaction transaction = session.beginTransaction();
+			for (String statement : statements) {
+				session.createNativeQuery(statement).executeUpdate();
+			}
+			transaction.commit();
+		}
+	}
+
+	static Object query(String statement) {
+		try (Session session = sessionFactory.openSession()) {
+			return session.createNativeQuery(statement).uniqueResult();
+		}
+	}
+}
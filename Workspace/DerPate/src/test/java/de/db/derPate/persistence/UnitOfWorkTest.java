@@ -0,0 +1,214 @@
+package de.db.derPate.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.db.derPate.Usermode;
+import de.db.derPate.manager.LoginManager;
+import de.db.derPate.manager.SessionPrincipal;
+import de.db.derPate.model.Godfather;
+import de.db.derPate.model.Location;
+import de.db.derPate.model.Trainee;
+
+/**
+ * Uses the in-memory database of src/test/resources/hibernate.cfg.xml
+ */
+@SuppressWarnings({ "javadoc", "nls", "null" })
+public class UnitOfWorkTest {
+	private final Statistics statistics = TestDatabase.sessionFactory.getStatistics();
+
+	@Before
+	public void init() {
+		TestDatabase.reset();
+		TestDatabase.insertGodfathers(3);
+		TestDatabase.execute("INSERT INTO Trainee (Id_Trainee, Login_Code, Id_Godfather) VALUES (1, 'token1', NULL)");
+	}
+
+	@Test
+	public void selectionUsesOneSession() {
+		this.statistics.clear();
+		UnitOfWork unitOfWork = UnitOfWork.begin(false);
+		try {
+			Godfather godfather = GodfatherDao.getInstance().byId(2);
+			Trainee trainee = TraineeDao.getInstance().byId(1);
+			assertSame(godfather, GodfatherDao.getInstance().byId(2));
+
+			assertEquals(GodfatherSelection.SUCCESS,
+					TraineeDao.getInstance().selectGodfather(trainee.getId(), godfather.getId()));
+		} finally {
+			unitOfWork.end();
+		}
+		assertNull(UnitOfWork.current());
+		assertEquals(1, this.statistics.getSessionOpenCount());
+		assertEquals(1, this.statistics.getConnectCount());
+
+		assertEquals(2, ((Number) TestDatabase.query("SELECT Id_Godfather FROM Trainee WHERE Id_Trainee = 1")).intValue());
+		assertEquals(1, currentTrainees(2));
+	}
+
+	@Test
+	public void rollback() {
+		UnitOfWork unitOfWork = UnitOfWork.begin(false);
+		try {
+			assertEquals(GodfatherSelection.SUCCESS, TraineeDao.getInstance().selectGodfather(1, 2));
+			unitOfWork.setRollbackOnly();
+		} finally {
+			unitOfWork.end();
+		}
+
+		assertNull(TestDatabase.query("SELECT Id_Godfather FROM Trainee WHERE Id_Trainee = 1"));
+		assertEquals(0, currentTrainees(2));
+	}
+
+	@Test
+	public void selectionAfterLoadingLoginUser() {
+		UnitOfWork unitOfWork = UnitOfWork.begin(false);
+		try {
+			Trainee trainee = LoginManager.getInstance().getUser(new SessionPrincipal(1, Usermode.TRAINEE, 0));
+			assertNull(trainee.getLoginToken()); // secret removed
+			assertEquals(GodfatherSelection.SUCCESS, TraineeDao.getInstance().selectGodfather(trainee.getId(), 2));
+		} finally {
+			unitOfWork.end();
+		}
+
+		assertEquals("token1", TestDatabase.query("SELECT Login_Code FROM Trainee WHERE Id_Trainee = 1"));
+		assertEquals(2, ((Number) TestDatabase.query("SELECT Id_Godfather FROM Trainee WHERE Id_Trainee = 1")).intValue());
+		assertEquals(1, currentTrainees(2));
+	}
+
+	@Test
+	public void modifiedEntitiesAreNotWritten() {
+		UnitOfWork unitOfWork = UnitOfWork.begin(false);
+		try {
+			Godfather godfather = GodfatherDao.getInstance().byId(1);
+			godfather.setFirstName("Changed"); // no update -> must not be flushed
+		} finally {
+			unitOfWork.end();
+		}
+		assertEquals("Name1", TestDatabase.query("SELECT First_Name FROM Godfather WHERE Id_Godfather = 1"));
+
+		unitOfWork = UnitOfWork.begin(false);
+		try {
+			Godfather godfather = GodfatherDao.getInstance().byId(1);
+			godfather.setFirstName("Changed");
+			assertTrue(GodfatherDao.getInstance().update(godfather));
+		} finally {
+			unitOfWork.end();
+		}
+		assertEquals("Changed", TestDatabase.query("SELECT First_Name FROM Godfather WHERE Id_Godfather = 1"));
+	}
+
+	@Test
+	public void otherModifiedEntitiesFailTheWrite() {
+		UnitOfWork unitOfWork = UnitOfWork.begin(false);
+		try {
+			GodfatherDao.getInstance().byId(1).setFirstName("Unsaved");
+			Godfather godfather = GodfatherDao.getInstance().byId(2);
+			godfather.setFirstName("Changed");
+			assertFalse(GodfatherDao.getInstance().update(godfather));
+		} finally {
+			unitOfWork.end();
+		}
+		assertEquals("Name1", TestDatabase.query("SELECT First_Name FROM Godfather WHERE Id_Godfather = 1"));
+		assertEquals("Name2", TestDatabase.query("SELECT First_Name FROM Godfather WHERE Id_Godfather = 2"));
+	}
+
+	@Test
+	public void completeCommitsBeforeEnd() {
+		UnitOfWork unitOfWork = UnitOfWork.begin(false);
+		try {
+			Godfather godfather = GodfatherDao.getInstance().byId(1);
+			godfather.setFirstName("Changed");
+			assertTrue(GodfatherDao.getInstance().update(godfather));
+			assertTrue(UnitOfWork.complete());
+			assertEquals("Changed", TestDatabase.query("SELECT First_Name FROM Godfather WHERE Id_Godfather = 1"));
+		} finally {
+			assertTrue(unitOfWork.end());
+		}
+	}
+
+	@Test
+	public void indexChangedAfterCommit() {
+		GodfatherAvailabilityIndex index = new GodfatherAvailabilityIndex(GodfatherDao.getInstance()::list,
+				GodfatherDao.getInstance()::currentTrainees);
+		assertEquals(3, index.filter(new GodfatherFilter(null, null, null, null)).size()); // build index
+
+		UnitOfWork unitOfWork = UnitOfWork.begin(false);
+		try {
+			assertEquals(GodfatherSelection.SUCCESS, TraineeDao.getInstance().selectGodfather(1, 2));
+			index.changeCurrentTrainees(2, 1);
+			assertEquals(3, index.filter(new GodfatherFilter(null, null, null, null)).size()); // not committed yet
+			unitOfWork.setRollbackOnly();
+		} finally {
+			unitOfWork.end();
+		}
+		assertEquals(3, index.filter(new GodfatherFilter(null, null, null, null)).size()); // rolled back
+
+		unitOfWork = UnitOfWork.begin(false);
+		try {
+			Godfather godfather = GodfatherDao.getInstance().byId(3);
+			godfather.setMaxTrainees(0);
+			assertTrue(GodfatherDao.getInstance().update(godfather));
+			index.update(godfather);
+			assertEquals(3, index.filter(new GodfatherFilter(null, null, null, null)).size()); // not committed yet
+		} finally {
+			assertTrue(unitOfWork.end());
+		}
+		assertEquals(2, index.filter(new GodfatherFilter(null, null, null, null)).size());
+	}
+
+	@Test
+	public void referenceDataInvalidatedAfterEnd() {
+		assertEquals("Location1", LocationDao.getInstance().<Location>byId(1).getName());
+		long version = ReferenceDataCache.getVersion();
+
+		UnitOfWork unitOfWork = UnitOfWork.begin(false);
+		try {
+			assertTrue(LocationDao.getInstance().update(new Location(1, "Changed")));
+			assertEquals(version, ReferenceDataCache.getVersion()); // not committed yet
+		} finally {
+			assertTrue(unitOfWork.end());
+		}
+		assertNotEquals(version, ReferenceDataCache.getVersion());
+		assertEquals("Changed", LocationDao.getInstance().<Location>byId(1).getName());
+	}
+
+	@Test
+	public void readOnlyWritesWithOwnSession() {
+		this.statistics.clear();
+		UnitOfWork unitOfWork = UnitOfWork.begin(true);
+		try {
+			GodfatherDao.getInstance().byId(1);
+			Godfather godfather = GodfatherDao.getInstance().byId(3);
+			godfather.setFirstName("Changed");
+			assertTrue(GodfatherDao.getInstance().update(godfather));
+		} finally {
+			unitOfWork.end();
+		}
+		assertEquals(2, this.statistics.getSessionOpenCount());
+		assertEquals("Changed", TestDatabase.query("SELECT First_Name FROM Godfather WHERE Id_Godfather = 3"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void nestedUnitOfWork() {
+		UnitOfWork unitOfWork = UnitOfWork.begin(true);
+		try {
+			UnitOfWork.begin(true);
+		} finally {
+			unitOfWork.end();
+		}
+	}
+
+	private static int currentTrainees(int godfatherId) {
+		return ((Number) TestDatabase
+				.query("SELECT Current_Trainees FROM Godfather WHERE Id_Godfather = " + godfatherId)).intValue();
+	}
+}
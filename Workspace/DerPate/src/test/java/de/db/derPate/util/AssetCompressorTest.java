@@ -0,0 +1,85 @@
+package de.db.derPate.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings({ "javadoc", "nls", "null" })
+public class AssetCompressorTest {
+	private Path source;
+	private Path target;
+
+	@Before
+	public void setUp() throws IOException {
+		this.source = Files.createTempDirectory("assets");
+		this.target = Files.createTempDirectory("precompressed");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		for (Path directory : new Path[] { this.source, this.target }) {
+			try (Stream<Path> files = Files.walk(directory)) {
+				files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+			}
+		}
+	}
+
+	private static byte[] gunzip(Path file) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+			byte[] buffer = new byte[256];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				result.write(buffer, 0, read);
+			}
+		}
+		return result.toByteArray();
+	}
+
+	@Test
+	public void compress() throws IOException {
+		StringBuilder css = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			css.append(".class").append(i).append(" { margin: 0; padding: 0; }\n");
+		}
+		byte[] text = css.toString().getBytes("UTF-8");
+		Files.createDirectories(this.source.resolve("css"));
+		Files.write(this.source.resolve("css/styles.css"), text);
+		byte[] random = new byte[1000];
+		new Random(1).nextBytes(random);
+		Files.write(this.source.resolve("image.png"), random);
+
+		assertEquals(1, AssetCompressor.compress(this.source, this.target));
+
+		assertArrayEquals(text, gunzip(this.target.resolve("css/styles.css.gz")));
+		assertFalse(Files.exists(this.target.resolve("image.png.gz"))); // not smaller
+	}
+
+	@Test
+	public void keepUpToDate() throws IOException {
+		byte[] text = new byte[1000];
+		Files.write(this.source.resolve("script.js"), text);
+		AssetCompressor.compress(this.source, this.target);
+		Path variant = this.target.resolve("script.js.gz");
+		assertTrue(Files.exists(variant));
+
+		Files.write(variant, new byte[] { 1 }); // newer than the asset
+		assertEquals(1, AssetCompressor.compress(this.source, this.target));
+		assertEquals(1, Files.size(variant));
+	}
+}
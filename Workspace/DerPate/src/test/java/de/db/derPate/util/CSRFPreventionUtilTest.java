@@ -1,5 +1,6 @@
 package de.db.derPate.util;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -16,7 +17,9 @@ import de.db.derPate.CSRFForm;
 public class CSRFPreventionUtilTest {
 
 	@NonNull
-	private HttpSession session = new DefaultHttpSession().SESSION;
+	private DefaultHttpSession defaultSession = new DefaultHttpSession();
+	@NonNull
+	private HttpSession session = this.defaultSession.SESSION;
 
 	@Test
 	public void testTokenLimit() {
@@ -58,4 +61,17 @@ public class CSRFPreventionUtilTest {
 			assertFalse(hasToBeFalse);
 		}
 	}
+
+	@Test
+	public void testSignedTokensDontUseSession() {
+		for (CSRFForm form : CSRFForm.values()) {
+			if (!form.isSigned()) {
+				continue;
+			}
+			String token = CSRFPreventionUtil.generateToken(this.session, form);
+			assertTrue(CSRFPreventionUtil.checkToken(this.session, form, token));
+			assertFalse(CSRFPreventionUtil.checkToken(new DefaultHttpSession().SESSION, form, token));
+		}
+		assertEquals(0, this.defaultSession.attributes.size());
+	}
 }
@@ -0,0 +1,68 @@
+package de.db.derPate.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings({ "javadoc", "nls" })
+public class CSRFTokenSignerTest {
+	private long now;
+	private CSRFTokenSigner signer;
+
+	@Before
+	public void init() {
+		this.now = 1000;
+		this.signer = new CSRFTokenSigner(KeyDerivationUtil.deriveKey(CSRFTokenSigner.KEY_PURPOSE, "secret"), () -> this.now);
+	}
+
+	@Test
+	public void valid() {
+		String token = this.signer.sign("session", "FORM", 60);
+		assertEquals(1060, this.signer.verify("session", "FORM", token));
+		assertTrue(token.matches("[A-Za-z0-9_-]{48}"));
+		assertNotEquals(token, this.signer.sign("session", "FORM", 60));
+	}
+
+	@Test
+	public void boundToSessionAndForm() {
+		String token = this.signer.sign("session", "FORM", 60);
+		assertEquals(0, this.signer.verify("otherSession", "FORM", token));
+		assertEquals(0, this.signer.verify("session", "OTHER_FORM", token));
+		assertEquals(0, new CSRFTokenSigner(KeyDerivationUtil.deriveKey(CSRFTokenSigner.KEY_PURPOSE, "other")).verify("session", "FORM", token));
+	}
+
+	@Test
+	public void expired() {
+		String token = this.signer.sign("session", "FORM", 60);
+		this.now += 60;
+		assertEquals(0, this.signer.verify("session", "FORM", token));
+	}
+
+	@Test
+	public void modified() {
+		String token = this.signer.sign("session", "FORM", 60);
+		for (int i = 0; i < token.length(); i++) {
+			char[] chars = token.toCharArray();
+			chars[i] = chars[i] == 'A' ? 'B' : 'A';
+			assertEquals(0, this.signer.verify("session", "FORM", new String(chars)));
+		}
+		assertEquals(0, this.signer.verify("session", "FORM", "test"));
+		assertEquals(0, this.signer.verify("session", "FORM", "!!!!"));
+	}
+
+	@Test
+	public void nonce() {
+		String token = this.signer.sign("session", "FORM", 60);
+		assertEquals(16, CSRFTokenSigner.getNonce(token).length());
+		assertFalse(CSRFTokenSigner.getNonce(token).equals(CSRFTokenSigner.getNonce(this.signer.sign("session", "FORM", 60))));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shortKey() {
+		new CSRFTokenSigner(new byte[16]);
+	}
+}
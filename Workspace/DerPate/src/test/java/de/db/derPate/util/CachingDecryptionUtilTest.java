@@ -0,0 +1,134 @@
+package de.db.derPate.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings({ "javadoc", "nls" })
+public class CachingDecryptionUtilTest {
+	private CountingEncryptionUtil delegate;
+	private long now;
+	private CachingDecryptionUtil util;
+
+	@Before
+	public void init() {
+		this.delegate = new CountingEncryptionUtil();
+		this.now = 0;
+		this.util = new CachingDecryptionUtil(this.delegate, 2, 2, 60, 20, () -> this.now);
+	}
+
+	@Test
+	public void repeatedValuesAreDecryptedOnce() {
+		String encrypted = this.delegate.encrypt("value");
+		for (int i = 0; i < 10; i++) {
+			assertEquals("value", this.util.decrypt(encrypted));
+		}
+		assertEquals(1, this.delegate.decryptions);
+	}
+
+	@Test
+	public void encryptedValuesAreKnown() {
+		String encrypted = this.util.encrypt("value");
+		assertEquals("value", this.util.decrypt(encrypted));
+		assertEquals(0, this.delegate.decryptions);
+	}
+
+	@Test
+	public void invalidValuesAreCached() {
+		for (int i = 0; i < 10; i++) {
+			assertNull(this.util.decrypt("invalid"));
+		}
+		assertEquals(1, this.delegate.decryptions);
+	}
+
+	@Test
+	public void invalidValuesDontDisplaceValidOnes() {
+		String encrypted = this.delegate.encrypt("value");
+		this.util.decrypt(encrypted);
+		for (int i = 0; i < 10; i++) {
+			assertNull(this.util.decrypt("invalid" + i));
+		}
+		this.delegate.decryptions = 0;
+
+		assertEquals("value", this.util.decrypt(encrypted));
+		assertEquals(0, this.delegate.decryptions);
+		assertEquals(3, this.util.size());
+	}
+
+	@Test
+	public void leastRecentlyUsedIsRemoved() {
+		String first = this.delegate.encrypt("first");
+		String second = this.delegate.encrypt("second");
+		String third = this.delegate.encrypt("third");
+		this.util.decrypt(first);
+		this.util.decrypt(second);
+		this.util.decrypt(first);
+		this.util.decrypt(third);
+		this.delegate.decryptions = 0;
+
+		this.util.decrypt(first);
+		assertEquals(0, this.delegate.decryptions);
+		this.util.decrypt(second);
+		assertEquals(1, this.delegate.decryptions);
+	}
+
+	@Test
+	public void expiredValuesAreDecryptedAgain() {
+		String encrypted = this.delegate.encrypt("value");
+		this.util.decrypt(encrypted);
+		this.now += TimeUnit.SECONDS.toNanos(61);
+
+		assertEquals("value", this.util.decrypt(encrypted));
+		assertEquals(2, this.delegate.decryptions);
+	}
+
+	@Test
+	public void longValuesAreNotCached() {
+		String encrypted = this.delegate.encrypt("a value longer than twenty characters");
+		this.util.decrypt(encrypted);
+		this.util.decrypt(encrypted);
+		assertEquals(2, this.delegate.decryptions);
+		assertEquals(0, this.util.size());
+	}
+
+	@Test
+	public void worksWithAES256() {
+		CachingDecryptionUtil aes = new CachingDecryptionUtil(new AES256EncryptionUtil("password", "0a1b2c3d"), 10,
+				10, 60, 512);
+		String encrypted = new AES256EncryptionUtil("password", "0a1b2c3d").encrypt("value");
+		assertEquals("value", aes.decrypt(encrypted));
+		assertEquals("value", aes.decrypt(encrypted));
+		assertNull(aes.decrypt("0a1b"));
+		assertNull(aes.decrypt("0a1b"));
+	}
+
+	/**
+	 * Reverses the text and counts the decryptions
+	 */
+	private static class CountingEncryptionUtil implements EncryptionUtil {
+		int decryptions;
+
+		@SuppressWarnings("null")
+		@Override
+		@NonNull
+		public String encrypt(@NonNull String stringToEncrypt) {
+			return "#" + new StringBuilder(stringToEncrypt).reverse().toString();
+		}
+
+		@Override
+		@Nullable
+		public String decrypt(@NonNull String stringToDecrypt) {
+			this.decryptions++;
+			if (!stringToDecrypt.startsWith("#")) {
+				return null;
+			}
+			return new StringBuilder(stringToDecrypt.substring(1)).reverse().toString();
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package de.db.derPate.util;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+@SuppressWarnings({ "javadoc", "nls" })
+public class CompressionUtilTest {
+
+	@Test
+	public void acceptsGzip() {
+		assertTrue(CompressionUtil.acceptsGzip("gzip"));
+		assertTrue(CompressionUtil.acceptsGzip("gzip, deflate, br"));
+		assertTrue(CompressionUtil.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+		assertTrue(CompressionUtil.acceptsGzip("x-gzip"));
+		assertTrue(CompressionUtil.acceptsGzip("*"));
+	}
+
+	@Test
+	public void notAcceptsGzip() {
+		assertFalse(CompressionUtil.acceptsGzip(null));
+		assertFalse(CompressionUtil.acceptsGzip(""));
+		assertFalse(CompressionUtil.acceptsGzip("identity"));
+		assertFalse(CompressionUtil.acceptsGzip("deflate, br"));
+		assertFalse(CompressionUtil.acceptsGzip("gzip;q=0"));
+		assertFalse(CompressionUtil.acceptsGzip("gzip; q=0.0, deflate"));
+		assertFalse(CompressionUtil.acceptsGzip("gzip;q=invalid"));
+	}
+
+	@Test
+	public void isCompressible() {
+		assertTrue(CompressionUtil.isCompressible("application/json"));
+		assertTrue(CompressionUtil.isCompressible("application/json;charset=UTF-8"));
+		assertTrue(CompressionUtil.isCompressible("text/html; charset=UTF-8"));
+		assertTrue(CompressionUtil.isCompressible("text/css"));
+		assertTrue(CompressionUtil.isCompressible("Application/JavaScript"));
+		assertTrue(CompressionUtil.isCompressible("image/svg+xml"));
+	}
+
+	@Test
+	public void isNotCompressible() {
+		assertFalse(CompressionUtil.isCompressible(null));
+		assertFalse(CompressionUtil.isCompressible("image/png"));
+		assertFalse(CompressionUtil.isCompressible("font/woff2"));
+		assertFalse(CompressionUtil.isCompressible("application/zip"));
+		assertFalse(CompressionUtil.isCompressible("application/octet-stream"));
+	}
+}
@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.text.DateFormat;
+import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
 
@@ -32,4 +33,18 @@ public class DateUtilTest {
 
 		assertEquals(expected, actual);
 	}
+
+	@Test
+	public void getDateYearsAgo() {
+		for (int years = 0; years < 5; years++) {
+			Date date = DateUtil.getDateYearsAgo(years);
+			assertEquals(Integer.valueOf(years), DateUtil.getYearDiff(date));
+
+			// one day later, the year is not complete
+			Calendar dayAfter = Calendar.getInstance();
+			dayAfter.setTime(DateUtil.getDateYearsAgo(years + 1));
+			dayAfter.add(Calendar.DAY_OF_MONTH, 1);
+			assertEquals(Integer.valueOf(years), DateUtil.getYearDiff(dayAfter.getTime()));
+		}
+	}
 }
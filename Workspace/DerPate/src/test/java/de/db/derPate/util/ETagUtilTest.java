@@ -0,0 +1,85 @@
+package de.db.derPate.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+@SuppressWarnings({ "javadoc", "nls" })
+public class ETagUtilTest {
+	private static final String[] NAMES = { "location", "sort" };
+
+	private static Map<String, String[]> parameters(String... keyValues) {
+		Map<String, String[]> parameters = new LinkedHashMap<>();
+		for (int i = 0; i < keyValues.length; i += 2) {
+			String[] values = parameters.get(keyValues[i]);
+			String[] extended = values == null ? new String[1] : Arrays.copyOf(values, values.length + 1);
+			extended[extended.length - 1] = keyValues[i + 1];
+			parameters.put(keyValues[i], extended);
+		}
+		return parameters;
+	}
+
+	@Test
+	public void create() {
+		String etag = ETagUtil.create(1, parameters("location", "a", "sort", "age"), NAMES, "user");
+
+		assertTrue(etag.matches("W/\"[A-Za-z0-9_-]+\""));
+		assertEquals(etag, ETagUtil.create(1, parameters("location", "a", "sort", "age"), NAMES, "user"));
+	}
+
+	@Test
+	public void order() {
+		String etag = ETagUtil.create(1, parameters("location", "a", "location", "b", "sort", "age"), NAMES, null);
+
+		assertEquals(etag,
+				ETagUtil.create(1, parameters("sort", "age", "location", "b", "location", "a"), NAMES, null));
+		assertEquals(etag, ETagUtil.create(1, parameters("location", "a", "location", "b", "sort", "age"),
+				new String[] { "sort", "location" }, null));
+	}
+
+	@Test
+	public void changes() {
+		Map<String, String[]> parameters = parameters("location", "a", "sort", "age");
+		String etag = ETagUtil.create(1, parameters, NAMES, "user");
+
+		assertNotEquals(etag, ETagUtil.create(2, parameters, NAMES, "user"));
+		assertNotEquals(etag, ETagUtil.create(1, parameters, NAMES, "other"));
+		assertNotEquals(etag, ETagUtil.create(1, parameters, NAMES, null));
+		assertNotEquals(etag, ETagUtil.create(1, parameters("location", "b", "sort", "age"), NAMES, "user"));
+		assertNotEquals(etag, ETagUtil.create(1, parameters("location", "a"), NAMES, "user"));
+		// values can't be shifted into the name of the next parameter
+		assertNotEquals(ETagUtil.create(1, parameters("location", "ab"), NAMES, null),
+				ETagUtil.create(1, parameters("location", "a", "location", "b"), NAMES, null));
+	}
+
+	@Test
+	public void ignoredParameters() {
+		String etag = ETagUtil.create(1, parameters("location", "a"), NAMES, null);
+
+		assertEquals(etag, ETagUtil.create(1, parameters("location", "a", "csrf", "token"), NAMES, null));
+		assertEquals(ETagUtil.create(1, new HashMap<>(), NAMES, null),
+				ETagUtil.create(1, parameters("csrf", "token"), NAMES, null));
+	}
+
+	@Test
+	public void matches() {
+		String etag = ETagUtil.create(1, parameters(), NAMES, null);
+		String other = ETagUtil.create(2, parameters(), NAMES, null);
+
+		assertFalse(ETagUtil.matches(null, etag));
+		assertFalse(ETagUtil.matches("", etag));
+		assertFalse(ETagUtil.matches(other, etag));
+		assertTrue(ETagUtil.matches(etag, etag));
+		assertTrue(ETagUtil.matches(etag.substring(2), etag)); // weak comparison
+		assertTrue(ETagUtil.matches(other + ", " + etag, etag));
+		assertTrue(ETagUtil.matches("*", etag));
+	}
+}
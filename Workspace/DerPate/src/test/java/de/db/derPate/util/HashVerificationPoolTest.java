@@ -0,0 +1,101 @@
+package de.db.derPate.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.db.derPate.util.HashVerificationPool.Verification;
+
+@SuppressWarnings({ "javadoc", "nls" })
+public class HashVerificationPoolTest {
+	private static final String SEPARATOR = ".";
+
+	private byte[] pepper;
+	private PBKDF2Util util;
+	private HashVerificationPool pool;
+
+	@Before
+	public void init() {
+		this.util = new PBKDF2Util(1000);
+		this.pepper = this.util.getRandomBytes(16);
+		this.pool = new HashVerificationPool(this.util, this.pepper, SEPARATOR, 16, 2, 2, 5000);
+	}
+
+	@After
+	public void shutdown() {
+		this.pool.shutdown();
+	}
+
+	@Test
+	public void verify() {
+		String hash = this.util.hash("test", 16, this.pepper, SEPARATOR);
+		assertEquals(Verification.VALID, this.pool.verify("test", hash));
+		assertEquals(Verification.INVALID, this.pool.verify("test?", hash));
+	}
+
+	@Test
+	public void verifyUnknown() {
+		assertEquals(Verification.INVALID, this.pool.verifyUnknown("test")); // creates the dummy hash
+		assertEquals(Verification.INVALID, this.pool.verifyUnknown("test"));
+	}
+
+	@Test
+	public void timedOutVerificationIsCancelled() {
+		this.pool.shutdown();
+		this.pool = new HashVerificationPool(this.util, this.pepper, SEPARATOR, 16, 1, 1, 1000);
+		String slowHash = "pbkdf2.1000000000.AAAAAAAAAAAAAAAAAAAAAA==.AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA=";
+		assertEquals(Verification.BUSY, this.pool.verify("test", slowHash));
+
+		// the only thread is free again
+		String hash = this.util.hash("test", 16, this.pepper, SEPARATOR);
+		assertEquals(Verification.VALID, this.pool.verify("test", hash));
+	}
+
+	@Test
+	public void rehash() throws InterruptedException {
+		String oldHash = SHA256Util.getInstance().hash("test", 16, this.pepper, SEPARATOR);
+		assertEquals(Verification.VALID, this.pool.verify("test", oldHash));
+		assertTrue(this.pool.needsRehash(oldHash));
+
+		AtomicReference<String> newHash = new AtomicReference<>();
+		CountDownLatch stored = new CountDownLatch(1);
+		assertTrue(this.pool.rehash("test", hash -> {
+			newHash.set(hash);
+			stored.countDown();
+		}));
+		assertTrue(stored.await(5, TimeUnit.SECONDS));
+		assertFalse(this.pool.needsRehash(newHash.get()));
+		assertEquals(Verification.VALID, this.pool.verify("test", newHash.get()));
+	}
+
+	@Test
+	public void busyWhenQueueIsFull() throws InterruptedException {
+		CountDownLatch blocked = new CountDownLatch(1);
+		try {
+			// occupy both threads and the queue
+			for (int i = 0; i < 4; i++) {
+				assertTrue(this.pool.rehash("test", hash -> {
+					try {
+						blocked.await();
+					} catch (@SuppressWarnings("unused") InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}));
+			}
+			assertFalse(this.pool.rehash("test", hash -> {
+				// not executed
+			}));
+			assertEquals(Verification.BUSY, this.pool.verify("test", "hash"));
+		} finally {
+			blocked.countDown();
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package de.db.derPate.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+@SuppressWarnings({ "javadoc", "nls", "null" })
+public class IdCodecTest {
+	private static final byte[] OLD_KEY = key(1);
+	private static final byte[] NEW_KEY = key(2);
+
+	private final IdCodec codec = new IdCodec(Collections.singletonMap(Character.valueOf('A'), OLD_KEY), 'A');
+
+	@Test
+	public void roundTrip() {
+		for (int id : new int[] { 0, 1, 42, 4711, -1, Integer.MAX_VALUE, Integer.MIN_VALUE }) {
+			assertEquals(Integer.valueOf(id), this.codec.decode(this.codec.encode(id)));
+		}
+	}
+
+	@Test
+	public void deterministicAndUrlSafe() {
+		Set<String> encoded = new HashSet<>();
+		for (int id = 0; id < 1000; id++) {
+			String value = this.codec.encode(id);
+			assertEquals(value, this.codec.encode(id));
+			assertEquals(23, value.length());
+			assertTrue(value.matches("[A-Za-z0-9_-]+"));
+			encoded.add(value);
+		}
+		assertEquals(1000, encoded.size());
+	}
+
+	@Test
+	public void modifiedValuesAreRejected() {
+		String value = this.codec.encode(4711);
+		for (int i = 1; i < value.length() - 1; i++) {
+			char[] chars = value.toCharArray();
+			chars[i] = chars[i] == 'A' ? 'B' : 'A';
+			assertNull(this.codec.decode(new String(chars)));
+		}
+	}
+
+	@Test
+	public void invalidValues() {
+		assertNull(this.codec.decode(null));
+		assertNull(this.codec.decode(""));
+		assertNull(this.codec.decode("4711"));
+		assertNull(this.codec.decode("A!!!!!!!!!!!!!!!!!!!!!!"));
+		assertNull(this.codec.decode("BAAAAAAAAAAAAAAAAAAAAAA")); // unknown key tag
+		assertNull(new IdCodec(Collections.singletonMap(Character.valueOf('A'), NEW_KEY), 'A')
+				.decode(this.codec.encode(4711)));
+	}
+
+	@Test
+	public void keyRotation() {
+		Map<Character, byte[]> keys = new LinkedHashMap<>();
+		keys.put(Character.valueOf('A'), OLD_KEY);
+		keys.put(Character.valueOf('B'), NEW_KEY);
+		IdCodec rotated = new IdCodec(keys, 'B');
+		String oldValue = this.codec.encode(4711);
+		String newValue = rotated.encode(4711);
+
+		assertNotEquals(oldValue, newValue);
+		assertEquals(Integer.valueOf(4711), rotated.decode(oldValue));
+		assertEquals(Integer.valueOf(4711), rotated.decode(newValue));
+		assertNull(this.codec.decode(newValue));
+
+		// removing the old key keeps the tag of the new one
+		IdCodec retired = new IdCodec(Collections.singletonMap(Character.valueOf('B'), NEW_KEY), 'B');
+		assertEquals(newValue, retired.encode(4711));
+		assertEquals(Integer.valueOf(4711), retired.decode(newValue));
+		assertNull(retired.decode(oldValue));
+	}
+
+	@Test
+	public void parseKeys() {
+		String oldKey = Base64.getEncoder().encodeToString(OLD_KEY);
+		String newKey = Base64.getEncoder().encodeToString(NEW_KEY);
+		Map<Character, byte[]> keys = IdCodec.parseKeys("C:" + oldKey + ", B:" + newKey);
+
+		assertEquals(Arrays.asList(Character.valueOf('C'), Character.valueOf('B')), new ArrayList<>(keys.keySet()));
+		assertArrayEquals(OLD_KEY, keys.get(Character.valueOf('C')));
+		assertArrayEquals(NEW_KEY, keys.get(Character.valueOf('B')));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void keyWithoutTag() {
+		IdCodec.parseKeys(Base64.getEncoder().encodeToString(OLD_KEY));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void duplicateTag() {
+		String key = Base64.getEncoder().encodeToString(OLD_KEY);
+		IdCodec.parseKeys("A:" + key + ",A:" + key);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidKey() {
+		new IdCodec(Collections.singletonMap(Character.valueOf('A'), new byte[10]), 'A');
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidTag() {
+		new IdCodec(Collections.singletonMap(Character.valueOf('!'), OLD_KEY), '!');
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownCurrentTag() {
+		new IdCodec(Collections.singletonMap(Character.valueOf('A'), OLD_KEY), 'B');
+	}
+
+	private static byte[] key(int seed) {
+		byte[] key = new byte[32];
+		for (int i = 0; i < key.length; i++) {
+			key[i] = (byte) (seed * 31 + i);
+		}
+		return key;
+	}
+}
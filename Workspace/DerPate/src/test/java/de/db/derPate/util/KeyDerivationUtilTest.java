@@ -0,0 +1,22 @@
+package de.db.derPate.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+@SuppressWarnings({ "javadoc", "nls" })
+public class KeyDerivationUtilTest {
+
+	@Test
+	public void deriveKey() {
+		byte[] key = KeyDerivationUtil.deriveKey("csrf", "secret");
+		assertEquals(32, key.length);
+		assertArrayEquals(key, KeyDerivationUtil.deriveKey("csrf", "secret"));
+		assertFalse(Arrays.equals(key, KeyDerivationUtil.deriveKey("session", "secret")));
+		assertFalse(Arrays.equals(key, KeyDerivationUtil.deriveKey("csrf", "other")));
+	}
+}
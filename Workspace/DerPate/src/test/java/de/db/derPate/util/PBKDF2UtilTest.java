@@ -0,0 +1,97 @@
+package de.db.derPate.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings({ "javadoc", "nls" })
+public class PBKDF2UtilTest {
+	private static final int SALT_LENGTH = 64;
+	private static final String SEPARATOR = ".";
+
+	private PBKDF2Util util;
+	private byte[] pepper;
+
+	@Before
+	public void init() {
+		this.util = new PBKDF2Util(1000);
+		this.pepper = this.util.getRandomBytes(SALT_LENGTH);
+	}
+
+	@Test
+	public void hashesHaveToBeUnequal() {
+		String hash1 = this.util.hash("test", SALT_LENGTH, this.pepper, SEPARATOR);
+		String hash2 = this.util.hash("test", SALT_LENGTH, this.pepper, SEPARATOR);
+		assertNotEquals(hash1, hash2);
+		assertTrue(hash1.startsWith("pbkdf2.1000."));
+	}
+
+	@Test
+	public void equal() {
+		String hash = this.util.hash("test", SALT_LENGTH, this.pepper, SEPARATOR);
+		assertTrue(this.util.isEqual("test", hash, this.pepper, SEPARATOR));
+	}
+
+	@Test
+	public void unequal() {
+		String hash = this.util.hash("test", SALT_LENGTH, this.pepper, SEPARATOR);
+		assertFalse(this.util.isEqual("test?", hash, this.pepper, SEPARATOR));
+		assertFalse(this.util.isEqual("test", hash, this.util.getRandomBytes(SALT_LENGTH), SEPARATOR));
+		assertFalse(this.util.isEqual("test", hash.replace("pbkdf2.1000.", "pbkdf2.1001."), this.pepper, SEPARATOR));
+		assertFalse(this.util.isEqual("test", "pbkdf2.x.y.z", this.pepper, SEPARATOR));
+		assertFalse(this.util.isEqual("test", "invalid", this.pepper, SEPARATOR));
+	}
+
+	@Test
+	public void checksHashesOfOtherIterations() {
+		String hash = new PBKDF2Util(500).hash("test", SALT_LENGTH, this.pepper, SEPARATOR);
+		assertTrue(this.util.isEqual("test", hash, this.pepper, SEPARATOR));
+		assertTrue(this.util.needsRehash(hash, SEPARATOR));
+		assertFalse(new PBKDF2Util(500).needsRehash(hash, SEPARATOR));
+		assertFalse(new PBKDF2Util(100).needsRehash(hash, SEPARATOR));
+	}
+
+	@Test
+	public void checksSHA256Hashes() {
+		String hash = SHA256Util.getInstance().hash("test", SALT_LENGTH, this.pepper, SEPARATOR);
+		assertTrue(this.util.isEqual("test", hash, this.pepper, SEPARATOR));
+		assertFalse(this.util.isEqual("test?", hash, this.pepper, SEPARATOR));
+		assertTrue(this.util.needsRehash(hash, SEPARATOR));
+	}
+
+	@Test
+	public void threadSafe() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int i = 0; i < 64; i++) {
+				String password = "password" + i;
+				results.add(executor.submit(() -> {
+					String hash = this.util.hash(password, SALT_LENGTH, this.pepper, SEPARATOR);
+					return Boolean.valueOf(this.util.isEqual(password, hash, this.pepper, SEPARATOR)
+							&& !this.util.isEqual(password + "?", hash, this.pepper, SEPARATOR));
+				}));
+			}
+			for (Future<Boolean> result : results) {
+				assertEquals(Boolean.TRUE, result.get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidIterations() {
+		new PBKDF2Util(0);
+	}
+}
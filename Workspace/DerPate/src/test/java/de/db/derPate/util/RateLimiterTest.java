@@ -0,0 +1,100 @@
+package de.db.derPate.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings({ "javadoc", "nls" })
+public class RateLimiterTest {
+	private long now;
+	private RateLimiter limiter;
+
+	@Before
+	public void init() {
+		this.now = 0;
+		this.limiter = new RateLimiter(3, 6, 2, () -> this.now); // one token every 10 seconds
+	}
+
+	@Test
+	public void burstIsLimited() {
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, this.limiter.tryAcquire("a"));
+		}
+		assertEquals(TimeUnit.SECONDS.toNanos(10), this.limiter.tryAcquire("a"));
+		assertEquals(0, this.limiter.tryAcquire("b"));
+		assertEquals(1, this.limiter.getLimitedCount());
+	}
+
+	@Test
+	public void tokensAreRefilled() {
+		for (int i = 0; i < 3; i++) {
+			this.limiter.tryAcquire("a");
+		}
+		this.now += TimeUnit.SECONDS.toNanos(4);
+		assertEquals(TimeUnit.SECONDS.toNanos(6), this.limiter.tryAcquire("a"));
+		this.now += TimeUnit.SECONDS.toNanos(6);
+		assertEquals(0, this.limiter.tryAcquire("a"));
+		assertTrue(this.limiter.tryAcquire("a") > 0);
+	}
+
+	@Test
+	public void idleBucketsAreRemoved() {
+		this.limiter.tryAcquire("a");
+		this.limiter.tryAcquire("b");
+		assertEquals(2, this.limiter.size());
+
+		this.now += TimeUnit.SECONDS.toNanos(30); // full again
+		this.limiter.tryAcquire("c");
+		assertEquals(1, this.limiter.size());
+	}
+
+	@Test
+	public void leastRecentlyUsedBucketIsEvictedWhenFull() {
+		this.limiter.tryAcquire("a");
+		this.now += TimeUnit.SECONDS.toNanos(1);
+		this.limiter.tryAcquire("b");
+		this.now += TimeUnit.SECONDS.toNanos(1);
+		this.limiter.tryAcquire("a");
+
+		// new keys are limited as well
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, this.limiter.tryAcquire("c"));
+		}
+		assertTrue(this.limiter.tryAcquire("c") > 0);
+		assertEquals(2, this.limiter.size());
+
+		// "b" was evicted, "a" is still limited
+		assertEquals(0, this.limiter.tryAcquire("a"));
+		assertTrue(this.limiter.tryAcquire("a") > 0);
+	}
+
+	@Test
+	public void concurrentRequests() throws InterruptedException {
+		RateLimiter concurrent = new RateLimiter(100, 1, 10, () -> this.now);
+		AtomicInteger allowed = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		for (int i = 0; i < 1000; i++) {
+			executor.execute(() -> {
+				if (concurrent.tryAcquire("a") == 0) {
+					allowed.incrementAndGet();
+				}
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		assertEquals(100, allowed.get());
+		assertEquals(900, concurrent.getLimitedCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidLimit() {
+		new RateLimiter(0, 1, 1);
+	}
+}
@@ -0,0 +1,56 @@
+package de.db.derPate.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings({ "javadoc", "nls" })
+public class ReplayWindowTest {
+	private long now;
+	private ReplayWindow window;
+
+	@Before
+	public void init() {
+		this.now = 1000;
+		this.window = new ReplayWindow(2, () -> this.now);
+	}
+
+	@Test
+	public void singleUse() {
+		assertTrue(this.window.markUsed("a", 1060));
+		assertFalse(this.window.markUsed("a", 1060));
+		assertTrue(this.window.markUsed("b", 1060));
+	}
+
+	@Test
+	public void expiredNoncesAreRemoved() {
+		this.window.markUsed("a", 1010);
+		this.window.markUsed("b", 1060);
+		assertFalse(this.window.markUsed("c", 1060)); // full
+
+		this.now = 1010;
+		assertTrue(this.window.markUsed("c", 1060));
+		assertEquals(2, this.window.size());
+	}
+
+	@Test
+	public void fullWindowRejectsUntilFirstExpiry() {
+		this.window.markUsed("a", 1030);
+		this.window.markUsed("b", 1020);
+
+		this.now = 1019;
+		assertFalse(this.window.markUsed("c", 1080)); // both still valid
+
+		this.now = 1020;
+		assertTrue(this.window.markUsed("c", 1080)); // b expired
+		assertFalse(this.window.markUsed("d", 1080));
+		assertFalse(this.window.markUsed("a", 1080)); // still remembered
+
+		this.now = 1030;
+		assertTrue(this.window.markUsed("d", 1090)); // a expired
+		assertFalse(this.window.markUsed("c", 1090));
+	}
+}
@@ -1,9 +1,16 @@
 package de.db.derPate.util;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -46,4 +53,24 @@ public class SHA256UtilTest {
 		boolean isNotEqual = this.util.isEqual(this.input + "?", hash, this.pepper, this.hashseperator);
 		assertFalse(isNotEqual);
 	}
+
+	@Test
+	public void testThreadSafe() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int i = 0; i < 1000; i++) {
+				String input = this.input + i;
+				results.add(executor.submit(() -> {
+					String hash = this.util.hash(input, this.saltPepperLength, this.pepper, this.hashseperator);
+					return Boolean.valueOf(this.util.isEqual(input, hash, this.pepper, this.hashseperator));
+				}));
+			}
+			for (Future<Boolean> result : results) {
+				assertEquals(Boolean.TRUE, result.get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
 }
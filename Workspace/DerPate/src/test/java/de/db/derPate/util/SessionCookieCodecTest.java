@@ -0,0 +1,54 @@
+package de.db.derPate.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+@SuppressWarnings({ "javadoc", "nls" })
+public class SessionCookieCodecTest {
+	private final SessionCookieCodec codec = new SessionCookieCodec(KeyDerivationUtil.deriveKey("session", "secret"));
+
+	@Test
+	public void roundTrip() {
+		byte[] value = "principal".getBytes(StandardCharsets.UTF_8);
+		String encoded = this.codec.encode(value);
+
+		assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+		assertArrayEquals(value, this.codec.decode(encoded));
+		assertNotEquals(encoded, this.codec.encode(value)); // random iv
+	}
+
+	@Test
+	public void modified() {
+		String encoded = this.codec.encode(new byte[38]);
+		for (int i = 0; i < encoded.length() - 1; i++) { // last character has unused bits
+			char[] chars = encoded.toCharArray();
+			chars[i] = chars[i] == 'A' ? 'B' : 'A';
+			assertNull(this.codec.decode(new String(chars)));
+		}
+	}
+
+	@Test
+	public void otherKey() {
+		String encoded = this.codec.encode(new byte[38]);
+		assertNull(new SessionCookieCodec(KeyDerivationUtil.deriveKey("session", "other")).decode(encoded));
+	}
+
+	@Test
+	public void invalid() {
+		assertNull(this.codec.decode(null));
+		assertNull(this.codec.decode(""));
+		assertNull(this.codec.decode("not base64!"));
+		assertNull(this.codec.decode("AAAA"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shortKey() {
+		new SessionCookieCodec(new byte[16]);
+	}
+}
@@ -0,0 +1,54 @@
+package de.db.derPate.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings({ "javadoc", "nls" })
+public class SessionEncryptorCacheTest {
+	private SessionEncryptorCache cache;
+
+	@Before
+	public void init() {
+		this.cache = new SessionEncryptorCache(2);
+	}
+
+	@Test
+	public void sameEncryptorPerSessionAndSalt() {
+		EncryptionUtil encryptor = this.cache.get("session1", "0a1b");
+		assertSame(encryptor, this.cache.get("session1", "0a1b"));
+		assertNotSame(encryptor, this.cache.get("session1", "0a1c"));
+		assertNotSame(encryptor, this.cache.get("session2", "0a1b"));
+		assertEquals(2, this.cache.size());
+	}
+
+	@Test
+	public void encryptorsOfSameKeyAreCompatible() {
+		String encrypted = this.cache.get("session1", "0a1b").encrypt("value");
+		assertEquals("value", new AES256EncryptionUtil("session1", "0a1b").decrypt(encrypted));
+		assertEquals("value", this.cache.get("session1", "0a1b").decrypt(encrypted));
+	}
+
+	@Test
+	public void remove() {
+		EncryptionUtil encryptor = this.cache.get("session1", "0a1b");
+		this.cache.remove("session1");
+		assertEquals(0, this.cache.size());
+		assertNotSame(encryptor, this.cache.get("session1", "0a1b"));
+	}
+
+	@Test
+	public void leastRecentlyUsedSessionIsRemoved() {
+		EncryptionUtil first = this.cache.get("session1", "0a1b");
+		EncryptionUtil second = this.cache.get("session2", "0a1b");
+		this.cache.get("session1", "0a1b"); // session2 is used least recently now
+		this.cache.get("session3", "0a1b");
+
+		assertEquals(2, this.cache.size());
+		assertSame(first, this.cache.get("session1", "0a1b"));
+		assertNotSame(second, this.cache.get("session2", "0a1b"));
+	}
+}
@@ -0,0 +1,167 @@
+package de.db.derPate.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+@SuppressWarnings({ "javadoc", "nls", "null" })
+public class ThresholdGzipOutputStreamTest {
+	private static final int THRESHOLD = 100;
+
+	private static class TestTarget implements ThresholdGzipOutputStream.Target {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final boolean acceptCompressed;
+		int starts;
+		long length = -2;
+
+		TestTarget(boolean acceptCompressed) {
+			this.acceptCompressed = acceptCompressed;
+		}
+
+		@Override
+		public OutputStream startCompressed() {
+			this.starts++;
+			return this.acceptCompressed ? this.out : null;
+		}
+
+		@Override
+		public OutputStream startUncompressed(long contentLength) {
+			this.starts++;
+			this.length = contentLength;
+			return this.out;
+		}
+	}
+
+	private static byte[] content(int length) {
+		byte[] content = new byte[length];
+		for (int i = 0; i < length; i++) {
+			content[i] = (byte) ('a' + i % 7);
+		}
+		return content;
+	}
+
+	private static byte[] gunzip(byte[] compressed) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+			byte[] buffer = new byte[256];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				result.write(buffer, 0, read);
+			}
+		}
+		return result.toByteArray();
+	}
+
+	@Test
+	public void small() throws IOException {
+		TestTarget target = new TestTarget(true);
+		ThresholdGzipOutputStream stream = new ThresholdGzipOutputStream(target, THRESHOLD);
+		byte[] content = content(THRESHOLD);
+		stream.write(content, 0, 60);
+		stream.flush();
+		assertFalse(stream.isStarted()); // still buffered
+		stream.write(content, 60, 40);
+		stream.close();
+
+		assertFalse(stream.isCompressed());
+		assertEquals(THRESHOLD, target.length);
+		assertArrayEquals(content, target.out.toByteArray());
+		assertEquals(1, target.starts);
+	}
+
+	@Test
+	public void large() throws IOException {
+		TestTarget target = new TestTarget(true);
+		ThresholdGzipOutputStream stream = new ThresholdGzipOutputStream(target, THRESHOLD);
+		byte[] content = content(10 * THRESHOLD);
+		for (int i = 0; i < content.length; i += 30) {
+			stream.write(content, i, Math.min(30, content.length - i));
+		}
+		assertTrue(stream.isStarted());
+		stream.flush();
+		int flushed = target.out.size();
+		assertTrue(flushed > 0); // streamed, before it was closed
+		stream.close();
+
+		assertTrue(stream.isCompressed());
+		assertTrue(target.out.size() < content.length);
+		assertArrayEquals(content, gunzip(target.out.toByteArray()));
+		assertEquals(1, target.starts);
+	}
+
+	@Test
+	public void singleBytes() throws IOException {
+		TestTarget target = new TestTarget(true);
+		ThresholdGzipOutputStream stream = new ThresholdGzipOutputStream(target, THRESHOLD);
+		byte[] content = content(3 * THRESHOLD);
+		for (byte b : content) {
+			stream.write(b);
+		}
+		stream.close();
+
+		assertArrayEquals(content, gunzip(target.out.toByteArray()));
+	}
+
+	@Test
+	public void notAccepted() throws IOException {
+		TestTarget target = new TestTarget(false);
+		ThresholdGzipOutputStream stream = new ThresholdGzipOutputStream(target, THRESHOLD);
+		byte[] content = content(2 * THRESHOLD);
+		stream.write(content);
+		stream.close();
+
+		assertFalse(stream.isCompressed());
+		assertEquals(-1, target.length);
+		assertArrayEquals(content, target.out.toByteArray());
+	}
+
+	@Test
+	public void expectLength() throws IOException {
+		TestTarget target = new TestTarget(true);
+		ThresholdGzipOutputStream stream = new ThresholdGzipOutputStream(target, THRESHOLD);
+		stream.expectLength(10);
+		assertTrue(stream.isStarted());
+		stream.write(content(2 * THRESHOLD)); // more than expected, but already decided
+		stream.close();
+
+		assertFalse(stream.isCompressed());
+		assertEquals(2 * THRESHOLD, target.out.size());
+	}
+
+	@Test
+	public void reset() throws IOException {
+		TestTarget target = new TestTarget(true);
+		ThresholdGzipOutputStream stream = new ThresholdGzipOutputStream(target, THRESHOLD);
+		stream.write(content(50));
+		stream.reset();
+		byte[] content = content(80);
+		stream.write(content);
+		stream.close();
+
+		assertArrayEquals(content, target.out.toByteArray());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void resetStarted() throws IOException {
+		ThresholdGzipOutputStream stream = new ThresholdGzipOutputStream(new TestTarget(true), THRESHOLD);
+		stream.write(content(2 * THRESHOLD));
+		stream.reset();
+	}
+
+	@Test(expected = IOException.class)
+	public void writeClosed() throws IOException {
+		ThresholdGzipOutputStream stream = new ThresholdGzipOutputStream(new TestTarget(true), THRESHOLD);
+		stream.close();
+		stream.write(1);
+	}
+}
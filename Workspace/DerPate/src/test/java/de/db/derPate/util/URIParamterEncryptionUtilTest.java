@@ -46,6 +46,17 @@ public class URIParamterEncryptionUtilTest {
 		assertEquals(unencrypedString, decryptedString);
 	}
 
+	@Test
+	public void decryptInteger() {
+		String encoded = URIParameterEncryptionUtil.encrypt(42);
+		assertEquals(Integer.valueOf(42), URIParameterEncryptionUtil.decryptToInteger(encoded));
+
+		String legacy = URIParameterEncryptionUtil.encrypt("42"); // links created before the IdCodec was used
+		assertEquals(Integer.valueOf(42), URIParameterEncryptionUtil.decryptToInteger(legacy));
+		assertNull(URIParameterEncryptionUtil.decryptToInteger(URIParameterEncryptionUtil.encrypt("testText")));
+		assertNull(URIParameterEncryptionUtil.decryptToInteger("abcd"));
+	}
+
 	@Test
 	public void encryptCustom() {
 		String unencrypedString = "test"; 
@@ -63,6 +74,16 @@ public class URIParamterEncryptionUtilTest {
 		assertEquals(unencrypedString, decryptedString);
 	}
 
+	@Test
+	public void decryptCustomAfterSessionEncryptorsRemoved() {
+		String unencrypedString = "testText";
+		String encrypedString = URIParameterEncryptionUtil.encrypt(unencrypedString, this.session, this.user);
+		URIParameterEncryptionUtil.removeSessionEncryptors(this.session);
+		String decryptedString = URIParameterEncryptionUtil.decrypt(encrypedString, this.session, this.user);
+
+		assertEquals(unencrypedString, decryptedString);
+	}
+
 	@Test
 	public void decryptCustomWithWrongPassword() {
 		String unencrypedString = "testText"; 